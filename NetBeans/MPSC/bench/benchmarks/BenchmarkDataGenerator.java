@@ -0,0 +1,288 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package benchmarks;
+
+import files.SecretDataBinaryFormat;
+import files.SecretDataType;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Utility class which writes the synthetic files read by the benchmarks:
+ * player secret data files of every data type, in the text or binary
+ * format, and group computation initialization files of any size with a
+ * valid hash.  Every file is drawn from a seeded generator, so the same
+ * arguments always give the same bytes and benchmark runs can be compared
+ * without shipping their data.
+ *
+ * <p>The public keys of the players are synthetic: RSA keys whose modulus is
+ * a random odd number of KEY_BITS bits rather than a product of primes.
+ * They decode like real keys, at the same cost, but are made without
+ * searching for primes, so that groups of thousands of players are written
+ * in seconds.  Their addresses are IPv4 literals, which never reach the name
+ * service.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class BenchmarkDataGenerator {
+    
+// CLASS CONSTANTS
+    /** The default seed of the generated files. */
+    public static final long DEFAULT_SEED = 1L;
+    
+    /** The bits of the modulus of a synthetic public key. */
+    public static final int KEY_BITS = 1024;
+    
+    /** String constant holding the group function of a generated group. */
+    public static final String FUNCTION = "(x0 + x1) * x2 + 3 * x0 * x1";
+    
+    /** String constant holding the data type of a generated group. */
+    public static final String GROUP_DATA_TYPE = "long";
+    
+    /** String constant holding the hash algorithm of a generated group. */
+    public static final String HASH_ALGO = "SHA-256";
+    
+    /** String constant holding the usage of the command line. */
+    private static final String USAGE =
+            "Usage: BenchmarkDataGenerator <dir> <values> <group size> [seed]";
+    
+    /** String constant holding the initialization key of a generated group. */
+    private static final String GROUP_KEY = "123456789012345678901234567890";
+    
+    /** The public exponent of a synthetic public key. */
+    private static final BigInteger RSA_EXPONENT = BigInteger.valueOf(65537L);
+    
+    /** The UID of the first player of a generated group. */
+    private static final long FIRST_UID = 1000L;
+    
+    /** The bits of a generated BigInteger or unscaled BigDecimal value. */
+    private static final int BIG_BITS = 128;
+    
+    /** The scale of a generated BigDecimal value. */
+    private static final int BIG_SCALE = 10;
+    
+    /** The largest magnitude of a generated float or double value. */
+    private static final double REAL_RANGE = 1e6;
+    
+    /** The number of values of an IPv4 address byte used by the players. */
+    private static final int OCTET_VALUES = 250;
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BenchmarkDataGenerator() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Main method which writes, into a directory, a secret data file of
+     * every data type in both formats, named "data-TYPE.txt" and
+     * "data-TYPE.bin", and a group file named "group-SIZE.txt".
+     *
+     * @param theArgs Passed command line arguments: the directory, the
+     *                number of values of each data file, the size of the
+     *                group, and optionally the seed.
+     */
+    public static void main(final String[] theArgs) {
+        if (theArgs.length < 3) {
+            System.out.println(USAGE);
+            return;
+        }
+        
+        try {
+            final Path tempDir = Files.createDirectories(Paths.get(theArgs[0]));
+            final int tempValues = Integer.parseInt(theArgs[1]);
+            final int tempSize = Integer.parseInt(theArgs[2]);
+            final long tempSeed = theArgs.length > 3 ? Long.parseLong(theArgs[3]) : DEFAULT_SEED;
+            
+            for (final SecretDataType tempType : SecretDataType.values()) {
+                final Path tempText = tempDir.resolve("data-" + tempType.getName() + ".txt");
+                writeSecretData(tempText, tempType.getName(), tempValues, tempSeed);
+                SecretDataBinaryFormat.convert(tempText.toString(), tempType.getName(),
+                        tempDir.resolve("data-" + tempType.getName() + ".bin").toString());
+            } // END for LOOP
+            writeGroupFile(tempDir.resolve("group-" + tempSize + ".txt"), tempSize, tempSeed);
+        } catch (final IOException exception) {
+            System.out.println("IO Exception writing benchmark data: " + exception.getMessage());
+        } catch (final IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + "\n" + USAGE);
+        } // END try/catch BLOCK
+    } // END main() METHOD
+    
+    /**
+     * Writes a player secret data file in the text format, one value per
+     * line.
+     *
+     * @param theFile The file to write.
+     * @param theDataType The name of the data type of the values.
+     * @param theCount The number of values.
+     * @param theSeed The seed of the values.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the data type is not valid.
+     */
+    public static void writeSecretData(final Path theFile, final String theDataType,
+                                       final int theCount, final long theSeed)
+                                       throws IOException {
+        final SecretDataType tempType = SecretDataType.fromName(theDataType);
+        if (tempType == null) {
+            throw new IllegalArgumentException("Invalid Data Type: " + theDataType);
+        }
+        
+        final Random tempRandom = new Random(theSeed);
+        try (BufferedWriter out = Files.newBufferedWriter(theFile, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < theCount; i++) {
+                out.write(randomValue(tempType, tempRandom));
+                out.write('\n');
+            } // END for LOOP
+        } // END try-with-resources BLOCK
+    } // END writeSecretData() METHOD
+    
+    /**
+     * Writes a group computation initialization file, hashed with HASH_ALGO,
+     * whose players have UIDs from FIRST_UID, IPv4 addresses, and synthetic
+     * public keys.
+     *
+     * @param theFile The file to write.
+     * @param theSize The number of players.
+     * @param theSeed The seed of the public keys.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeGroupFile(final Path theFile, final int theSize, final long theSeed)
+                                      throws IOException {
+        final Random tempRandom = new Random(theSeed);
+        final List<String> tempLines = new ArrayList<>(3 * theSize + 6);
+        tempLines.add(FUNCTION);
+        tempLines.add(GROUP_DATA_TYPE);
+        tempLines.add(GROUP_KEY);
+        tempLines.add(Integer.toString(theSize));
+        
+        try {
+            final KeyFactory tempFactory = KeyFactory.getInstance("RSA");
+            final Base64.Encoder tempEncoder = Base64.getEncoder();
+            for (int j = 0; j < theSize; j++) {
+                final BigInteger tempModulus = new BigInteger(KEY_BITS, tempRandom)
+                                                   .setBit(KEY_BITS - 1).setBit(0);
+                final byte[] tempKey = tempFactory.generatePublic(
+                        new RSAPublicKeySpec(tempModulus, RSA_EXPONENT)).getEncoded();
+                
+                tempLines.add(Long.toString(FIRST_UID + j));
+                tempLines.add("10." + (j / OCTET_VALUES / OCTET_VALUES) + "."
+                              + (j / OCTET_VALUES % OCTET_VALUES) + "." + (j % OCTET_VALUES + 1));
+                tempLines.add(tempEncoder.encodeToString(tempKey));
+            } // END for LOOP
+            tempLines.add(HASH_ALGO);
+            
+            final MessageDigest tempDigest = MessageDigest.getInstance(HASH_ALGO);
+            for (final String tempLine : tempLines) {
+                tempDigest.update(tempLine.getBytes(StandardCharsets.US_ASCII));
+            }
+            tempLines.add(toHex(tempDigest.digest()));
+        } catch (final GeneralSecurityException exception) {
+            throw new IllegalStateException("Cannot make synthetic keys", exception);
+        } // END try/catch BLOCK
+        
+        Files.write(theFile, tempLines, StandardCharsets.US_ASCII);
+    } // END writeGroupFile() METHOD
+    
+    /**
+     * Deletes a directory of generated files and everything in it.
+     *
+     * @param theDir The directory, or null.
+     * @throws IOException If a file cannot be deleted.
+     */
+    public static void deleteTree(final Path theDir) throws IOException {
+        if (theDir == null) {
+            return;
+        }
+        
+        final List<Path> tempPaths;
+        try (Stream<Path> tempWalk = Files.walk(theDir)) {
+            tempPaths = tempWalk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        } // END try-with-resources BLOCK
+        for (final Path tempPath : tempPaths) {
+            Files.deleteIfExists(tempPath);
+        }
+    } // END deleteTree() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the text of a random value of a data type.
+     *
+     * @param theType The data type.
+     * @param theRandom The source of the value.
+     * @return The value, as written in a secret data file.
+     */
+    private static String randomValue(final SecretDataType theType, final Random theRandom) {
+        switch (theType) {
+            case INT:
+                return Integer.toString(theRandom.nextInt());
+            case LONG:
+                return Long.toString(theRandom.nextLong());
+            case FLOAT:
+                return Float.toString((float) ((2 * theRandom.nextDouble() - 1) * REAL_RANGE));
+            case DOUBLE:
+                return Double.toString((2 * theRandom.nextDouble() - 1) * REAL_RANGE);
+            case BIG_INTEGER:
+                return signed(new BigInteger(BIG_BITS, theRandom), theRandom).toString();
+            case BIG_DECIMAL:
+                return new BigDecimal(signed(new BigInteger(BIG_BITS, theRandom), theRandom),
+                                      BIG_SCALE).toPlainString();
+            default:
+                throw new IllegalArgumentException("Invalid Data Type: " + theType);
+        } // END switch STATEMENT
+    } // END randomValue() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns a number with a random sign.
+     *
+     * @param theMagnitude The magnitude of the number.
+     * @param theRandom The source of the sign.
+     * @return The magnitude or its negation.
+     */
+    private static BigInteger signed(final BigInteger theMagnitude, final Random theRandom) {
+        return theRandom.nextBoolean() ? theMagnitude : theMagnitude.negate();
+    }
+    
+    /**
+     * Returns the lower case hexadecimal form of a hash.
+     *
+     * @param theHash The bytes of the hash.
+     * @return The hexadecimal String.
+     */
+    private static String toHex(final byte[] theHash) {
+        final StringBuilder tempHex = new StringBuilder(2 * theHash.length);
+        for (final byte tempByte : theHash) {
+            tempHex.append(Character.forDigit((tempByte >> 4) & 0xF, 16))
+                   .append(Character.forDigit(tempByte & 0xF, 16));
+        }
+        return tempHex.toString();
+    }
+    
+    
+} // END BenchmarkDataGenerator.java CLASS
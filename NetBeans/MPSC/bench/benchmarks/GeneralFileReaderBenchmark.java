@@ -0,0 +1,88 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package benchmarks;
+
+import files.GeneralFileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of GeneralFileReader.readItGetIt(), which reads every line of a
+ * file onto the heap, over files of "long" secret data of several sizes.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneralFileReaderBenchmark {
+    
+// CLASS VARIABLES
+    /** The number of lines of the file, set by JMH. */
+    @Param({"1000", "100000", "1000000"})
+    public int myLines;
+    
+    /** The directory of the generated file. */
+    private Path myDir;
+    
+    /** The name of the generated file. */
+    private String myFileName;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Writes the file read by the benchmark.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-bench");
+        final Path tempFile = myDir.resolve("lines.txt");
+        BenchmarkDataGenerator.writeSecretData(tempFile, "long", myLines,
+                                               BenchmarkDataGenerator.DEFAULT_SEED);
+        myFileName = tempFile.toString();
+    }
+    
+    /**
+     * Deletes the file read by the benchmark.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkDataGenerator.deleteTree(myDir);
+    }
+    
+    /**
+     * Reads every line of the file with a new reader.
+     *
+     * @return The lines, consumed by JMH.
+     */
+    @Benchmark
+    public String[] readItGetIt() {
+        return new GeneralFileReader(myFileName).readItGetIt();
+    }
+    
+    
+} // END GeneralFileReaderBenchmark.java CLASS
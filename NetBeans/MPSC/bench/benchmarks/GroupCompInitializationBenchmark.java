@@ -0,0 +1,121 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package benchmarks;
+
+import files.GroupCompInitializationFileInterpreter;
+import files.PublicKeyCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of constructing a GroupCompInitializationFileInterpreter, which
+ * reads, hashes and interprets a group computation initialization file and
+ * decodes the public key of every player, for groups of 3 to 10,000
+ * players.  The process-wide PublicKeyCache is either emptied before every
+ * construction, so that every key is decoded, or left warm from the
+ * previous one.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupCompInitializationBenchmark {
+    
+// CLASS CONSTANTS
+    /** String constant holding the name of the emptied key cache. */
+    private static final String COLD = "cold";
+    
+    
+// CLASS VARIABLES
+    /** The number of players in the group, set by JMH. */
+    @Param({"3", "10", "100", "1000", "10000"})
+    public int myGroupSize;
+    
+    /** The state of the key cache, "cold" or "warm", set by JMH. */
+    @Param({COLD, "warm"})
+    public String myKeyCache;
+    
+    /** The directory of the generated file. */
+    private Path myDir;
+    
+    /** The name of the generated group file. */
+    private String myFileName;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Writes the group file read by the benchmark.
+     *
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalStateException If the file does not load with a
+     *                               matching hash.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-bench");
+        final Path tempFile = myDir.resolve("group.txt");
+        BenchmarkDataGenerator.writeGroupFile(tempFile, myGroupSize,
+                                              BenchmarkDataGenerator.DEFAULT_SEED);
+        myFileName = tempFile.toString();
+        
+        final GroupCompInitializationFileInterpreter tempGroup = construct();
+        if (!tempGroup.isLoaded() || !tempGroup.getHashCompare()
+            || tempGroup.getGrpSize() != myGroupSize) {
+            throw new IllegalStateException("Generated group does not load: " + myFileName);
+        }
+    } // END setUp() METHOD
+    
+    /**
+     * Empties the key cache before each construction, for a cold cache.
+     */
+    @Setup(Level.Invocation)
+    public void clearKeyCache() {
+        if (COLD.equals(myKeyCache)) {
+            PublicKeyCache.getShared().clear();
+        }
+    }
+    
+    /**
+     * Deletes the group file read by the benchmark.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkDataGenerator.deleteTree(myDir);
+    }
+    
+    /**
+     * Constructs the interpreter of the group file.
+     *
+     * @return The interpreter, consumed by JMH.
+     */
+    @Benchmark
+    public GroupCompInitializationFileInterpreter construct() {
+        return new GroupCompInitializationFileInterpreter(myFileName);
+    }
+    
+    
+} // END GroupCompInitializationBenchmark.java CLASS
@@ -0,0 +1,128 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package benchmarks;
+
+import files.PlayerSecretDataFileReader;
+import files.SecretDataBinaryFormat;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of loading a player's secret data file with a
+ * PlayerSecretDataFileReader, for every data type, for several numbers of
+ * values, and for both the text and the binary format, read serially or in
+ * parallel on the common ForkJoinPool.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerSecretDataFileReaderBenchmark {
+    
+// CLASS CONSTANTS
+    /** String constant holding the name of the binary format. */
+    private static final String BINARY = "binary";
+    
+    
+// CLASS VARIABLES
+    /** The data type of the values, set by JMH. */
+    @Param({"int", "long", "float", "double", "BigInteger", "BigDecimal"})
+    public String myDataType;
+    
+    /** The number of values in the file, set by JMH. */
+    @Param({"1000", "100000", "1000000"})
+    public int myValues;
+    
+    /** The format of the file, "text" or "binary", set by JMH. */
+    @Param({"text", BINARY})
+    public String myFormat;
+    
+    /** The directory of the generated files. */
+    private Path myDir;
+    
+    /** The name of the file read by the benchmark. */
+    private String myFileName;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Writes the file read by the benchmark, in its format.
+     *
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalStateException If the file does not read back whole.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-bench");
+        final Path tempText = myDir.resolve("data.txt");
+        BenchmarkDataGenerator.writeSecretData(tempText, myDataType, myValues,
+                                               BenchmarkDataGenerator.DEFAULT_SEED);
+        
+        if (BINARY.equals(myFormat)) {
+            final Path tempBinary = myDir.resolve("data.bin");
+            SecretDataBinaryFormat.convert(tempText.toString(), myDataType,
+                                           tempBinary.toString());
+            myFileName = tempBinary.toString();
+        } else {
+            myFileName = tempText.toString();
+        } // END if/else BLOCK
+        
+        if (read().getSize() != myValues) {
+            throw new IllegalStateException("Generated file does not read back: " + myFileName);
+        }
+    } // END setUp() METHOD
+    
+    /**
+     * Deletes the files read by the benchmark.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkDataGenerator.deleteTree(myDir);
+    }
+    
+    /**
+     * Loads the file on the calling thread.
+     *
+     * @return The reader, consumed by JMH.
+     */
+    @Benchmark
+    public PlayerSecretDataFileReader read() {
+        return new PlayerSecretDataFileReader(myFileName, myDataType);
+    }
+    
+    /**
+     * Loads the file in parallel on the common ForkJoinPool.
+     *
+     * @return The reader, consumed by JMH.
+     */
+    @Benchmark
+    public PlayerSecretDataFileReader readParallel() {
+        return new PlayerSecretDataFileReader(myFileName, myDataType, ForkJoinPool.commonPool());
+    }
+    
+    
+} // END PlayerSecretDataFileReaderBenchmark.java CLASS
@@ -0,0 +1,245 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+import java.math.BigInteger;
+
+/**
+ * A prime field modulo a prime of any size, whose elements are held as
+ * canonical BigIntegers.  It is the fallback for moduli too large for a
+ * LongPrimeField, and allocates on every operation.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class BigIntegerField implements PrimeField {
+    
+// CLASS VARIABLES
+    /** The prime modulus. */
+    private final BigInteger myPrime;
+    
+    /** Half the prime, the largest element returned as a positive value. */
+    private final BigInteger myHalf;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the field modulo the passed prime.  The primality of the
+     * modulus is checked, so this is best done once per modulus.
+     *
+     * @param thePrime A prime.
+     * @throws IllegalArgumentException If the modulus is not a prime.
+     */
+    public BigIntegerField(final BigInteger thePrime) {
+        if (thePrime.signum() <= 0 || !thePrime.isProbablePrime(64)) {
+            throw new IllegalArgumentException("Not a prime: " + thePrime);
+        }
+        
+        myPrime = thePrime;
+        myHalf = thePrime.shiftRight(1);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public BigInteger getModulus() {
+        return myPrime;
+    }
+    
+    @Override
+    public int getBitLength() {
+        return myPrime.bitLength();
+    }
+    
+  // SCALAR OPERATIONS
+    /**
+     * Returns the element of the passed value, reduced modulo the prime.
+     *
+     * @param theValue Any BigInteger, including negative values.
+     * @return The element.
+     */
+    public BigInteger fromBigInteger(final BigInteger theValue) {
+        return theValue.mod(myPrime);
+    }
+    
+    /**
+     * Returns the element of the passed value, reduced modulo the prime.
+     *
+     * @param theValue Any long, including negative values.
+     * @return The element.
+     */
+    public BigInteger fromLong(final long theValue) {
+        return BigInteger.valueOf(theValue).mod(myPrime);
+    }
+    
+    /**
+     * Returns the value of an element in the centered range, so that
+     * elements above half the prime are returned as negative values.
+     *
+     * @param theElem An element.
+     * @return The centered value.
+     */
+    public BigInteger toSigned(final BigInteger theElem) {
+        return theElem.compareTo(myHalf) > 0 ? theElem.subtract(myPrime) : theElem;
+    }
+    
+    /**
+     * Returns the sum of two elements.
+     *
+     * @param theA An element.
+     * @param theB An element.
+     * @return theA + theB.
+     */
+    public BigInteger add(final BigInteger theA, final BigInteger theB) {
+        final BigInteger tempS = theA.add(theB);
+        return tempS.compareTo(myPrime) >= 0 ? tempS.subtract(myPrime) : tempS;
+    }
+    
+    /**
+     * Returns the difference of two elements.
+     *
+     * @param theA An element.
+     * @param theB An element.
+     * @return theA - theB.
+     */
+    public BigInteger sub(final BigInteger theA, final BigInteger theB) {
+        final BigInteger tempD = theA.subtract(theB);
+        return tempD.signum() < 0 ? tempD.add(myPrime) : tempD;
+    }
+    
+    /**
+     * Returns the negation of an element.
+     *
+     * @param theA An element.
+     * @return -theA.
+     */
+    public BigInteger neg(final BigInteger theA) {
+        return theA.signum() == 0 ? theA : myPrime.subtract(theA);
+    }
+    
+    /**
+     * Returns the product of two elements.
+     *
+     * @param theA An element.
+     * @param theB An element.
+     * @return theA * theB.
+     */
+    public BigInteger mul(final BigInteger theA, final BigInteger theB) {
+        return theA.multiply(theB).mod(myPrime);
+    }
+    
+    /**
+     * Returns an element raised to a power.
+     *
+     * @param theA An element.
+     * @param theExp A non-negative exponent.
+     * @return theA ^ theExp.
+     */
+    public BigInteger pow(final BigInteger theA, final BigInteger theExp) {
+        return theA.modPow(theExp, myPrime);
+    }
+    
+    /**
+     * Returns the multiplicative inverse of an element.
+     *
+     * @param theA A nonzero element.
+     * @return theA ^ -1.
+     * @throws ArithmeticException If the element is zero.
+     */
+    public BigInteger inv(final BigInteger theA) {
+        return theA.modInverse(myPrime);
+    }
+    
+  // VECTOR OPERATIONS
+    /**
+     * Adds two vectors of elements, slot by slot.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @param theOut Receives theA + theB.
+     */
+    public void add(final BigInteger[] theA, final BigInteger[] theB, final BigInteger[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = add(theA[i], theB[i]);
+        }
+    }
+    
+    /**
+     * Subtracts two vectors of elements, slot by slot.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @param theOut Receives theA - theB.
+     */
+    public void sub(final BigInteger[] theA, final BigInteger[] theB, final BigInteger[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = sub(theA[i], theB[i]);
+        }
+    }
+    
+    /**
+     * Multiplies two vectors of elements, slot by slot.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @param theOut Receives theA * theB.
+     */
+    public void mul(final BigInteger[] theA, final BigInteger[] theB, final BigInteger[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = mul(theA[i], theB[i]);
+        }
+    }
+    
+    /**
+     * Multiplies a vector of elements by one element.
+     *
+     * @param theA The vector.
+     * @param theC The element.
+     * @param theOut Receives theA * theC.
+     */
+    public void scale(final BigInteger[] theA, final BigInteger theC, final BigInteger[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = mul(theA[i], theC);
+        }
+    }
+    
+    /**
+     * Adds a multiple of one vector of elements to another, in place.
+     *
+     * @param theAcc The vector receiving theAcc + theA * theC.
+     * @param theA The vector to be scaled.
+     * @param theC The element.
+     */
+    public void addScaled(final BigInteger[] theAcc, final BigInteger[] theA,
+                          final BigInteger theC) {
+        for (int i = 0; i < theAcc.length; i++) {
+            theAcc[i] = theAcc[i].add(theA[i].multiply(theC)).mod(myPrime);
+        }
+    }
+    
+    /**
+     * Returns the sum of the products of two vectors of elements, reducing
+     * only once at the end.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @return The dot product.
+     */
+    public BigInteger dot(final BigInteger[] theA, final BigInteger[] theB) {
+        BigInteger tempSum = BigInteger.ZERO;
+        for (int i = 0; i < theA.length; i++) {
+            tempSum = tempSum.add(theA[i].multiply(theB[i]));
+        }
+        return tempSum.mod(myPrime);
+    }
+    
+    @Override
+    public String toString() {
+        return "GF(" + myPrime + ")";
+    }
+    
+    
+} // END BigIntegerField.java CLASS
@@ -0,0 +1,108 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+import files.SecretDataType;
+import java.math.BigInteger;
+
+/**
+ * Utility class which chooses the prime field for the data type of a group
+ * function, as named by GroupCompInitializationFileInterpreter's
+ * getFunctDataType(), or for a given modulus.  Primitive long fields are
+ * used whenever the data type allows, and the BigIntegerField only for the
+ * large moduli needed by the float, double, BigInteger, and BigDecimal data
+ * types.
+ *
+ * <pre>
+ *  data type            field                    exact while |result| below
+ *  int                  Mersenne61Field          2^60
+ *  long                 MontgomeryField(2^63-25) 2^62
+ *  float, double        BigIntegerField(2^127-1) 2^126, for fixed-point values
+ *  BigInteger, -Decimal BigIntegerField(2^521-1) 2^520
+ * </pre>
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class FieldFactory {
+    
+// CLASS CONSTANTS
+    /** The number of bits in the Mersenne prime used for fixed-point values. */
+    private static final int FIXED_POINT_BITS = 127;
+    
+    /** The number of bits in the Mersenne prime used for arbitrary values. */
+    private static final int ARBITRARY_BITS = 521;
+    
+    /** The field for the long data type. */
+    private static final MontgomeryField LONG_FIELD =
+            new MontgomeryField(MontgomeryField.LARGEST_63_BIT_PRIME);
+    
+    /** The field for the float and double data types. */
+    private static final BigIntegerField FIXED_POINT_FIELD =
+            new BigIntegerField(BigInteger.ONE.shiftLeft(FIXED_POINT_BITS).subtract(BigInteger.ONE));
+    
+    /** The field for the BigInteger and BigDecimal data types. */
+    private static final BigIntegerField ARBITRARY_FIELD =
+            new BigIntegerField(BigInteger.ONE.shiftLeft(ARBITRARY_BITS).subtract(BigInteger.ONE));
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FieldFactory() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the field for the named data type of a group function.
+     *
+     * @param theDataType The name of a data type, such as "long".
+     * @return The field for the data type.
+     * @throws IllegalArgumentException If the data type is not valid.
+     */
+    public static PrimeField forDataType(final String theDataType) {
+        final SecretDataType tempType = SecretDataType.fromName(theDataType);
+        if (tempType == null) {
+            throw new IllegalArgumentException("Invalid Data Type: " + theDataType);
+        }
+        
+        switch (tempType) {
+            case INT:
+                return Mersenne61Field.getInstance();
+            case LONG:
+                return LONG_FIELD;
+            case FLOAT:
+            case DOUBLE:
+                return FIXED_POINT_FIELD;
+            default:
+                return ARBITRARY_FIELD;
+        } // END switch STATEMENT
+    } // END forDataType() METHOD
+    
+    /**
+     * Returns the field for the passed prime modulus: the Mersenne61Field for
+     * 2^61 - 1, a MontgomeryField for any other odd prime below 2^63, and a
+     * BigIntegerField otherwise.
+     *
+     * @param thePrime A prime.
+     * @return The field modulo the prime.
+     * @throws IllegalArgumentException If the modulus is not a prime.
+     */
+    public static PrimeField forModulus(final BigInteger thePrime) {
+        if (thePrime.equals(BigInteger.valueOf(Mersenne61Field.PRIME))) {
+            return Mersenne61Field.getInstance();
+        }
+        if (thePrime.bitLength() < Long.SIZE && thePrime.testBit(0)) {
+            return new MontgomeryField(thePrime.longValue());
+        }
+        return new BigIntegerField(thePrime);
+    } // END forModulus() METHOD
+    
+    
+} // END FieldFactory.java CLASS
@@ -0,0 +1,55 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+/**
+ * Utility class of the 128-bit multiplication needed by the long prime
+ * fields.  The project targets Java 8, which has no Math.multiplyHigh(), so
+ * the high half of a product is computed from 32-bit halves.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+final class LongMath {
+    
+// CLASS CONSTANTS
+    /** Mask of the low 32 bits of a long. */
+    private static final long LOW_32 = 0xFFFFFFFFL;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private LongMath() {
+        // Private Constructor
+    }
+    
+    
+    
+// PACKAGE-PRIVATE METHODS
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of two longs
+     * taken as unsigned values.  The low 64 bits are simply theX * theY.
+     *
+     * @param theX The first factor, as an unsigned value.
+     * @param theY The second factor, as an unsigned value.
+     * @return The high half of the product.
+     */
+    static long multiplyHighUnsigned(final long theX, final long theY) {
+        final long tempX0 = theX & LOW_32;
+        final long tempX1 = theX >>> Integer.SIZE;
+        final long tempY0 = theY & LOW_32;
+        final long tempY1 = theY >>> Integer.SIZE;
+        
+        final long tempLL = tempX0 * tempY0;
+        final long tempHL = tempX1 * tempY0 + (tempLL >>> Integer.SIZE);
+        final long tempLH = tempX0 * tempY1 + (tempHL & LOW_32);
+        
+        return tempX1 * tempY1 + (tempHL >>> Integer.SIZE) + (tempLH >>> Integer.SIZE);
+    } // END multiplyHighUnsigned() METHOD
+    
+    
+} // END LongMath.java CLASS
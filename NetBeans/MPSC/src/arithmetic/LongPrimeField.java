@@ -0,0 +1,185 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+/**
+ * A prime field with a modulus below 2^63, whose elements are held in
+ * primitive longs in the internal representation of the field, which need
+ * not be the canonical value of the element.  Values enter the field through
+ * fromLong() and leave it through toLong() or toSignedLong(); every other
+ * method takes and returns elements in the internal representation.  The
+ * vector methods apply an operation to every slot of long arrays without
+ * allocating, and their output array may be one of their input arrays.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public interface LongPrimeField extends PrimeField {
+    
+  // SCALAR OPERATIONS
+    /**
+     * Returns the prime modulus of the field as a long.
+     *
+     * @return The modulus.
+     */
+    long getPrime();
+    
+    /**
+     * Returns the element of the passed value, reduced modulo the prime.
+     *
+     * @param theValue Any long, including negative values.
+     * @return The element.
+     */
+    long fromLong(long theValue);
+    
+    /**
+     * Returns the canonical value of an element, in [0, prime).
+     *
+     * @param theElem An element.
+     * @return The canonical value.
+     */
+    long toLong(long theElem);
+    
+    /**
+     * Returns the value of an element in the centered range, so that
+     * elements above half the prime are returned as negative values.
+     *
+     * @param theElem An element.
+     * @return The centered value, in (-prime / 2, prime / 2].
+     */
+    long toSignedLong(long theElem);
+    
+    /**
+     * Returns the element 1.
+     *
+     * @return The multiplicative identity.
+     */
+    long one();
+    
+    /**
+     * Returns the sum of two elements.
+     *
+     * @param theA An element.
+     * @param theB An element.
+     * @return theA + theB.
+     */
+    long add(long theA, long theB);
+    
+    /**
+     * Returns the difference of two elements.
+     *
+     * @param theA An element.
+     * @param theB An element.
+     * @return theA - theB.
+     */
+    long sub(long theA, long theB);
+    
+    /**
+     * Returns the negation of an element.
+     *
+     * @param theA An element.
+     * @return -theA.
+     */
+    long neg(long theA);
+    
+    /**
+     * Returns the product of two elements.
+     *
+     * @param theA An element.
+     * @param theB An element.
+     * @return theA * theB.
+     */
+    long mul(long theA, long theB);
+    
+    /**
+     * Returns an element raised to a power.
+     *
+     * @param theA An element.
+     * @param theExp A non-negative exponent.
+     * @return theA ^ theExp.
+     */
+    long pow(long theA, long theExp);
+    
+    /**
+     * Returns the multiplicative inverse of an element.
+     *
+     * @param theA A nonzero element.
+     * @return theA ^ -1.
+     * @throws ArithmeticException If the element is zero.
+     */
+    long inv(long theA);
+    
+  // VECTOR OPERATIONS
+    /**
+     * Converts values to elements, slot by slot.
+     *
+     * @param theValues The values.
+     * @param theOut Receives the elements.
+     */
+    void fromLongs(long[] theValues, long[] theOut);
+    
+    /**
+     * Converts elements to their canonical values, slot by slot.
+     *
+     * @param theElems The elements.
+     * @param theOut Receives the canonical values.
+     */
+    void toLongs(long[] theElems, long[] theOut);
+    
+    /**
+     * Adds two vectors of elements, slot by slot.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @param theOut Receives theA + theB.
+     */
+    void add(long[] theA, long[] theB, long[] theOut);
+    
+    /**
+     * Subtracts two vectors of elements, slot by slot.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @param theOut Receives theA - theB.
+     */
+    void sub(long[] theA, long[] theB, long[] theOut);
+    
+    /**
+     * Multiplies two vectors of elements, slot by slot.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @param theOut Receives theA * theB.
+     */
+    void mul(long[] theA, long[] theB, long[] theOut);
+    
+    /**
+     * Multiplies a vector of elements by one element.
+     *
+     * @param theA The vector.
+     * @param theC The element.
+     * @param theOut Receives theA * theC.
+     */
+    void scale(long[] theA, long theC, long[] theOut);
+    
+    /**
+     * Adds a multiple of one vector of elements to another, in place.
+     *
+     * @param theAcc The vector receiving theAcc + theA * theC.
+     * @param theA The vector to be scaled.
+     * @param theC The element.
+     */
+    void addScaled(long[] theAcc, long[] theA, long theC);
+    
+    /**
+     * Returns the sum of the products of two vectors of elements.
+     *
+     * @param theA The first vector.
+     * @param theB The second vector.
+     * @return The dot product.
+     */
+    long dot(long[] theA, long[] theB);
+    
+    
+} // END LongPrimeField.java INTERFACE
@@ -0,0 +1,213 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+import java.math.BigInteger;
+
+/**
+ * The prime field modulo the Mersenne prime 2^61 - 1.  Since 2^61 is 1 in
+ * this field, a product is reduced with shifts, masks, and additions alone,
+ * without any division.  Elements are held in their canonical form.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class Mersenne61Field implements LongPrimeField {
+    
+// CLASS CONSTANTS
+    /** The number of bits in the prime. */
+    public static final int BITS = 61;
+    
+    /** The prime 2^61 - 1, which is also the mask of its low 61 bits. */
+    public static final long PRIME = (1L << BITS) - 1;
+    
+    /** The value of 2^64 modulo the prime, used to reduce negative longs. */
+    private static final long TWO_64 = 1L << (Long.SIZE - BITS);
+    
+    /** The single instance of the field. */
+    private static final Mersenne61Field INSTANCE = new Mersenne61Field();
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor, since the field has a single instance.
+     */
+    private Mersenne61Field() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the single instance of the field.
+     *
+     * @return The field modulo 2^61 - 1.
+     */
+    public static Mersenne61Field getInstance() {
+        return INSTANCE;
+    }
+    
+    @Override
+    public BigInteger getModulus() {
+        return BigInteger.valueOf(PRIME);
+    }
+    
+    @Override
+    public int getBitLength() {
+        return BITS;
+    }
+    
+    @Override
+    public long getPrime() {
+        return PRIME;
+    }
+    
+  // SCALAR OPERATIONS
+    @Override
+    public long fromLong(final long theValue) {
+        long tempR = (theValue & PRIME) + (theValue >>> BITS);
+        if (theValue < 0) {
+            tempR -= TWO_64;
+        }
+        
+        if (tempR < 0) {
+            tempR += PRIME;
+        } else if (tempR >= PRIME) {
+            tempR -= PRIME;
+        }
+        return tempR;
+    } // END fromLong() METHOD
+    
+    @Override
+    public long toLong(final long theElem) {
+        return theElem;
+    }
+    
+    @Override
+    public long toSignedLong(final long theElem) {
+        return theElem > PRIME >>> 1 ? theElem - PRIME : theElem;
+    }
+    
+    @Override
+    public long one() {
+        return 1L;
+    }
+    
+    @Override
+    public long add(final long theA, final long theB) {
+        final long tempS = theA + theB;
+        return tempS >= PRIME ? tempS - PRIME : tempS;
+    }
+    
+    @Override
+    public long sub(final long theA, final long theB) {
+        final long tempD = theA - theB;
+        return tempD < 0 ? tempD + PRIME : tempD;
+    }
+    
+    @Override
+    public long neg(final long theA) {
+        return theA == 0 ? 0 : PRIME - theA;
+    }
+    
+    @Override
+    public long mul(final long theA, final long theB) {
+        final long tempHi = LongMath.multiplyHighUnsigned(theA, theB);
+        final long tempLo = theA * theB;
+        
+        // The product is hi * 2^64 + lo, and 2^61 is 1 modulo the prime
+        final long tempS = (tempLo & PRIME) + ((tempLo >>> BITS) | (tempHi << (Long.SIZE - BITS)));
+        final long tempR = (tempS & PRIME) + (tempS >>> BITS);
+        return tempR >= PRIME ? tempR - PRIME : tempR;
+    } // END mul() METHOD
+    
+    @Override
+    public long pow(final long theA, final long theExp) {
+        long tempResult = 1L;
+        long tempBase = theA;
+        
+        for (long e = theExp; e != 0; e >>>= 1) {
+            if ((e & 1) != 0) {
+                tempResult = mul(tempResult, tempBase);
+            }
+            tempBase = mul(tempBase, tempBase);
+        } // END for LOOP
+        
+        return tempResult;
+    } // END pow() METHOD
+    
+    @Override
+    public long inv(final long theA) {
+        if (theA == 0) {
+            throw new ArithmeticException("Zero has no inverse");
+        }
+        return pow(theA, PRIME - 2);
+    }
+    
+  // VECTOR OPERATIONS
+    @Override
+    public void fromLongs(final long[] theValues, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = fromLong(theValues[i]);
+        }
+    }
+    
+    @Override
+    public void toLongs(final long[] theElems, final long[] theOut) {
+        System.arraycopy(theElems, 0, theOut, 0, theOut.length);
+    }
+    
+    @Override
+    public void add(final long[] theA, final long[] theB, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = add(theA[i], theB[i]);
+        }
+    }
+    
+    @Override
+    public void sub(final long[] theA, final long[] theB, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = sub(theA[i], theB[i]);
+        }
+    }
+    
+    @Override
+    public void mul(final long[] theA, final long[] theB, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = mul(theA[i], theB[i]);
+        }
+    }
+    
+    @Override
+    public void scale(final long[] theA, final long theC, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = mul(theA[i], theC);
+        }
+    }
+    
+    @Override
+    public void addScaled(final long[] theAcc, final long[] theA, final long theC) {
+        for (int i = 0; i < theAcc.length; i++) {
+            theAcc[i] = add(theAcc[i], mul(theA[i], theC));
+        }
+    }
+    
+    @Override
+    public long dot(final long[] theA, final long[] theB) {
+        long tempSum = 0L;
+        for (int i = 0; i < theA.length; i++) {
+            tempSum = add(tempSum, mul(theA[i], theB[i]));
+        }
+        return tempSum;
+    }
+    
+    @Override
+    public String toString() {
+        return "GF(2^61 - 1)";
+    }
+    
+    
+} // END Mersenne61Field.java CLASS
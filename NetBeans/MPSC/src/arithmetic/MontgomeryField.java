@@ -0,0 +1,249 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+import java.math.BigInteger;
+
+/**
+ * A prime field modulo any odd prime below 2^63, using Montgomery reduction
+ * with R = 2^64 so that a product is reduced with multiplications alone,
+ * without any division.  Elements are held in Montgomery form, a * R modulo
+ * the prime, and are converted by fromLong() and toLong().
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class MontgomeryField implements LongPrimeField {
+    
+// CLASS CONSTANTS
+    /** The largest prime below 2^63, 2^63 - 25. */
+    public static final long LARGEST_63_BIT_PRIME = Long.MAX_VALUE - 24;
+    
+    /** The number of Newton steps needed to invert the prime modulo 2^64. */
+    private static final int NEWTON_STEPS = 6;
+    
+    
+// CLASS VARIABLES
+    /** The prime modulus. */
+    private final long myPrime;
+    
+    /** The negated inverse of the prime modulo 2^64. */
+    private final long myNegInv;
+    
+    /** R^2 modulo the prime, used to convert values to Montgomery form. */
+    private final long myR2;
+    
+    /** R modulo the prime, the element 1 in Montgomery form. */
+    private final long myOne;
+    
+    /** The number of bits in the prime. */
+    private final int myBits;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the field modulo the passed prime.  The primality of the
+     * modulus is checked, so this is best done once per modulus.
+     *
+     * @param thePrime An odd prime below 2^63.
+     * @throws IllegalArgumentException If the modulus is not an odd prime.
+     */
+    public MontgomeryField(final long thePrime) {
+        final BigInteger tempPrime = BigInteger.valueOf(thePrime);
+        if (thePrime < 3 || (thePrime & 1) == 0 || !tempPrime.isProbablePrime(64)) {
+            throw new IllegalArgumentException("Not an odd prime: " + thePrime);
+        }
+        
+        myPrime = thePrime;
+        myBits = tempPrime.bitLength();
+        
+        // Newton's iteration doubles the correct low bits of the inverse
+        long tempInv = thePrime;
+        for (int i = 0; i < NEWTON_STEPS; i++) {
+            tempInv *= 2 - thePrime * tempInv;
+        }
+        myNegInv = -tempInv;
+        
+        myOne = BigInteger.ONE.shiftLeft(Long.SIZE).mod(tempPrime).longValue();
+        myR2 = BigInteger.ONE.shiftLeft(2 * Long.SIZE).mod(tempPrime).longValue();
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public BigInteger getModulus() {
+        return BigInteger.valueOf(myPrime);
+    }
+    
+    @Override
+    public int getBitLength() {
+        return myBits;
+    }
+    
+    @Override
+    public long getPrime() {
+        return myPrime;
+    }
+    
+  // SCALAR OPERATIONS
+    @Override
+    public long fromLong(final long theValue) {
+        long tempR = theValue % myPrime;
+        if (tempR < 0) {
+            tempR += myPrime;
+        }
+        return mul(tempR, myR2);
+    }
+    
+    @Override
+    public long toLong(final long theElem) {
+        return reduce(0L, theElem);
+    }
+    
+    @Override
+    public long toSignedLong(final long theElem) {
+        final long tempValue = toLong(theElem);
+        return tempValue > myPrime >>> 1 ? tempValue - myPrime : tempValue;
+    }
+    
+    @Override
+    public long one() {
+        return myOne;
+    }
+    
+    @Override
+    public long add(final long theA, final long theB) {
+        final long tempS = theA - myPrime + theB;
+        return tempS < 0 ? tempS + myPrime : tempS;
+    }
+    
+    @Override
+    public long sub(final long theA, final long theB) {
+        final long tempD = theA - theB;
+        return tempD < 0 ? tempD + myPrime : tempD;
+    }
+    
+    @Override
+    public long neg(final long theA) {
+        return theA == 0 ? 0 : myPrime - theA;
+    }
+    
+    @Override
+    public long mul(final long theA, final long theB) {
+        return reduce(LongMath.multiplyHighUnsigned(theA, theB), theA * theB);
+    }
+    
+    @Override
+    public long pow(final long theA, final long theExp) {
+        long tempResult = myOne;
+        long tempBase = theA;
+        
+        for (long e = theExp; e != 0; e >>>= 1) {
+            if ((e & 1) != 0) {
+                tempResult = mul(tempResult, tempBase);
+            }
+            tempBase = mul(tempBase, tempBase);
+        } // END for LOOP
+        
+        return tempResult;
+    } // END pow() METHOD
+    
+    @Override
+    public long inv(final long theA) {
+        if (theA == 0) {
+            throw new ArithmeticException("Zero has no inverse");
+        }
+        return pow(theA, myPrime - 2);
+    }
+    
+  // VECTOR OPERATIONS
+    @Override
+    public void fromLongs(final long[] theValues, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = fromLong(theValues[i]);
+        }
+    }
+    
+    @Override
+    public void toLongs(final long[] theElems, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = reduce(0L, theElems[i]);
+        }
+    }
+    
+    @Override
+    public void add(final long[] theA, final long[] theB, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = add(theA[i], theB[i]);
+        }
+    }
+    
+    @Override
+    public void sub(final long[] theA, final long[] theB, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = sub(theA[i], theB[i]);
+        }
+    }
+    
+    @Override
+    public void mul(final long[] theA, final long[] theB, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = mul(theA[i], theB[i]);
+        }
+    }
+    
+    @Override
+    public void scale(final long[] theA, final long theC, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            theOut[i] = mul(theA[i], theC);
+        }
+    }
+    
+    @Override
+    public void addScaled(final long[] theAcc, final long[] theA, final long theC) {
+        for (int i = 0; i < theAcc.length; i++) {
+            theAcc[i] = add(theAcc[i], mul(theA[i], theC));
+        }
+    }
+    
+    @Override
+    public long dot(final long[] theA, final long[] theB) {
+        long tempSum = 0L;
+        for (int i = 0; i < theA.length; i++) {
+            tempSum = add(tempSum, mul(theA[i], theB[i]));
+        }
+        return tempSum;
+    }
+    
+    @Override
+    public String toString() {
+        return "GF(" + myPrime + ")";
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Montgomery reduction of a 128-bit value below prime * 2^64, returning
+     * the value divided by 2^64 modulo the prime.
+     *
+     * @param theHi The high 64 bits of the value.
+     * @param theLo The low 64 bits of the value.
+     * @return The value * 2^-64 modulo the prime, in [0, prime).
+     */
+    private long reduce(final long theHi, final long theLo) {
+        final long tempM = theLo * myNegInv;
+        
+        // theLo + low(tempM * prime) is 0 modulo 2^64, carrying only if theLo != 0
+        final long tempT = theHi + LongMath.multiplyHighUnsigned(tempM, myPrime)
+                           + (theLo != 0 ? 1 : 0);
+        
+        // tempT is below 2 * prime < 2^64, so compare it as unsigned
+        return Long.compareUnsigned(tempT, myPrime) >= 0 ? tempT - myPrime : tempT;
+    } // END reduce() PRIVATE HELPER METHOD
+    
+    
+} // END MontgomeryField.java CLASS
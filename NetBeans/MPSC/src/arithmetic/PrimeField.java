@@ -0,0 +1,34 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+import java.math.BigInteger;
+
+/**
+ * A finite field of integers modulo a prime, in which the shares of secret
+ * values are computed.  Fields with a modulus below 2^63 implement the
+ * LongPrimeField interface and hold their elements in primitive longs; the
+ * BigIntegerField is the fallback for larger moduli.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public interface PrimeField {
+    
+    /**
+     * Returns the prime modulus of the field.
+     *
+     * @return The modulus.
+     */
+    BigInteger getModulus();
+    
+    /**
+     * Returns the number of bits in the modulus of the field.
+     *
+     * @return The bit length of the modulus.
+     */
+    int getBitLength();
+    
+    
+} // END PrimeField.java INTERFACE
@@ -0,0 +1,364 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+import arithmetic.LongPrimeField;
+import arithmetic.PrimeField;
+import java.math.BigInteger;
+
+/**
+ * An arithmetic circuit compiled from the function of a group computation by
+ * the CircuitCompiler.  The circuit is an immutable DAG of gates held in flat
+ * arrays, in topological order, so that gate g only reads wires below g and
+ * the value of gate g is carried by wire g.  There are three kinds of gates:
+ *
+ * <ul>
+ * <li>INPUT, the secret of a player;</li>
+ * <li>LINEAR, a constant plus a weighted sum of wires, which costs no
+ *     communication between the players;</li>
+ * <li>MUL, the product of two wires, which costs a round of communication.</li>
+ * </ul>
+ *
+ * The multiplicative depth of a gate is the number of MUL gates on the
+ * longest path from an input to it, so gates of equal depth can have their
+ * multiplications batched into a single round.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class Circuit {
+    
+// CLASS CONSTANTS
+    /** Kind of the gates holding the secret of a player. */
+    public static final byte INPUT = 0;
+    
+    /** Kind of the gates computing a constant plus a weighted sum of wires. */
+    public static final byte LINEAR = 1;
+    
+    /** Kind of the gates computing the product of two wires. */
+    public static final byte MUL = 2;
+    
+    
+// CLASS VARIABLES
+    /** The function the circuit was compiled from. */
+    private final String myFunction;
+    
+    /** The data type the circuit was compiled for. */
+    private final String myDataType;
+    
+    /** The field of the constants and coefficients. */
+    private final PrimeField myField;
+    
+    /** The kind of each gate. */
+    private final byte[] myKinds;
+    
+    /** The player of an INPUT, the left wire of a MUL, or the first term of a LINEAR. */
+    private final int[] myArgA;
+    
+    /** The right wire of a MUL, or the end of the terms of a LINEAR. */
+    private final int[] myArgB;
+    
+    /** The multiplicative depth of each gate. */
+    private final int[] myDepths;
+    
+    /** The constant of each LINEAR gate, canonical modulo the prime. */
+    private final BigInteger[] myConsts;
+    
+    /** The wires of the terms of every LINEAR gate. */
+    private final int[] myTermWires;
+    
+    /** The coefficients of the terms of every LINEAR gate. */
+    private final BigInteger[] myTermCoeffs;
+    
+    /** The constants as elements of a LongPrimeField, or null. */
+    private final long[] myConstElems;
+    
+    /** The coefficients as elements of a LongPrimeField, or null. */
+    private final long[] myTermElems;
+    
+    /** The wire of the output of the function. */
+    private final int myOutput;
+    
+    /** The number of MUL gates. */
+    private final int myNumMuls;
+    
+    /** One more than the highest player whose input is read. */
+    private final int myNumPlayers;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a circuit from the arrays built by the CircuitCompiler, which
+     * are not copied.
+     *
+     * @param theFunction The function the circuit was compiled from.
+     * @param theDataType The data type the circuit was compiled for.
+     * @param theField The field of the constants and coefficients.
+     * @param theKinds The kind of each gate.
+     * @param theArgA The first argument of each gate.
+     * @param theArgB The second argument of each gate.
+     * @param theDepths The multiplicative depth of each gate.
+     * @param theConsts The constant of each LINEAR gate.
+     * @param theTermWires The wires of the terms of every LINEAR gate.
+     * @param theTermCoeffs The coefficients of the terms of every LINEAR gate.
+     * @param theOutput The wire of the output.
+     */
+    Circuit(final String theFunction, final String theDataType, final PrimeField theField,
+            final byte[] theKinds, final int[] theArgA, final int[] theArgB,
+            final int[] theDepths, final BigInteger[] theConsts, final int[] theTermWires,
+            final BigInteger[] theTermCoeffs, final int theOutput) {
+        myFunction = theFunction;
+        myDataType = theDataType;
+        myField = theField;
+        myKinds = theKinds;
+        myArgA = theArgA;
+        myArgB = theArgB;
+        myDepths = theDepths;
+        myConsts = theConsts;
+        myTermWires = theTermWires;
+        myTermCoeffs = theTermCoeffs;
+        myOutput = theOutput;
+        
+        int tempMuls = 0;
+        int tempPlayers = 0;
+        for (int g = 0; g < theKinds.length; g++) {
+            if (theKinds[g] == MUL) {
+                tempMuls++;
+            } else if (theKinds[g] == INPUT) {
+                tempPlayers = Math.max(tempPlayers, theArgA[g] + 1);
+            }
+        } // END for LOOP
+        myNumMuls = tempMuls;
+        myNumPlayers = tempPlayers;
+        
+        if (theField instanceof LongPrimeField) {
+            final LongPrimeField tempField = (LongPrimeField) theField;
+            myConstElems = new long[theKinds.length];
+            for (int g = 0; g < theKinds.length; g++) {
+                if (theConsts[g] != null) {
+                    myConstElems[g] = tempField.fromLong(theConsts[g].longValue());
+                }
+            }
+            myTermElems = new long[theTermCoeffs.length];
+            for (int k = 0; k < theTermCoeffs.length; k++) {
+                myTermElems[k] = tempField.fromLong(theTermCoeffs[k].longValue());
+            }
+        } else {
+            myConstElems = null;
+            myTermElems = null;
+        } // END if/else BLOCK
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+  // GETTERS
+    /**
+     * Getter for the function the circuit was compiled from.
+     *
+     * @return myFunction
+     */
+    public String getFunction() {
+        return myFunction;
+    }
+    
+    /**
+     * Getter for the data type the circuit was compiled for.
+     *
+     * @return myDataType
+     */
+    public String getDataType() {
+        return myDataType;
+    }
+    
+    /**
+     * Getter for the field of the constants and coefficients.
+     *
+     * @return myField
+     */
+    public PrimeField getField() {
+        return myField;
+    }
+    
+    /**
+     * Returns the number of gates, which is also the number of wires.
+     *
+     * @return The number of gates.
+     */
+    public int getNumGates() {
+        return myKinds.length;
+    }
+    
+    /**
+     * Getter for the number of MUL gates, each of which costs communication.
+     *
+     * @return myNumMuls
+     */
+    public int getNumMuls() {
+        return myNumMuls;
+    }
+    
+    /**
+     * Returns one more than the highest player whose input is read, the
+     * smallest group able to compute the function.
+     *
+     * @return myNumPlayers
+     */
+    public int getNumPlayers() {
+        return myNumPlayers;
+    }
+    
+    /**
+     * Getter for the wire of the output of the function.
+     *
+     * @return myOutput
+     */
+    public int getOutput() {
+        return myOutput;
+    }
+    
+    /**
+     * Returns the multiplicative depth of the circuit, the number of rounds
+     * of multiplications needed to compute its output.
+     *
+     * @return The depth of the output.
+     */
+    public int getMulDepth() {
+        return myDepths[myOutput];
+    }
+    
+    /**
+     * Returns the kind of a gate: INPUT, LINEAR, or MUL.
+     *
+     * @param theGate The gate.
+     * @return The kind of the gate.
+     */
+    public byte getKind(final int theGate) {
+        return myKinds[theGate];
+    }
+    
+    /**
+     * Returns the multiplicative depth of a gate.
+     *
+     * @param theGate The gate.
+     * @return The number of MUL gates on the longest path to the gate.
+     */
+    public int getDepth(final int theGate) {
+        return myDepths[theGate];
+    }
+    
+    /**
+     * Returns the player whose secret is read by an INPUT gate.
+     *
+     * @param theGate An INPUT gate.
+     * @return The index of the player.
+     */
+    public int getInputPlayer(final int theGate) {
+        return myArgA[theGate];
+    }
+    
+    /**
+     * Returns the left wire of a MUL gate.
+     *
+     * @param theGate A MUL gate.
+     * @return The left operand.
+     */
+    public int getLeft(final int theGate) {
+        return myArgA[theGate];
+    }
+    
+    /**
+     * Returns the right wire of a MUL gate.
+     *
+     * @param theGate A MUL gate.
+     * @return The right operand.
+     */
+    public int getRight(final int theGate) {
+        return myArgB[theGate];
+    }
+    
+    /**
+     * Returns the index of the first term of a LINEAR gate.
+     *
+     * @param theGate A LINEAR gate.
+     * @return The first index for getTermWire() and getTermCoeff().
+     */
+    public int getTermStart(final int theGate) {
+        return myArgA[theGate];
+    }
+    
+    /**
+     * Returns one more than the index of the last term of a LINEAR gate.
+     *
+     * @param theGate A LINEAR gate.
+     * @return The end index for getTermWire() and getTermCoeff().
+     */
+    public int getTermEnd(final int theGate) {
+        return myArgB[theGate];
+    }
+    
+    /**
+     * Returns the wire of a term of a LINEAR gate.
+     *
+     * @param theTerm The index of the term.
+     * @return The wire.
+     */
+    public int getTermWire(final int theTerm) {
+        return myTermWires[theTerm];
+    }
+    
+    /**
+     * Returns the coefficient of a term of a LINEAR gate.
+     *
+     * @param theTerm The index of the term.
+     * @return The coefficient, canonical modulo the prime.
+     */
+    public BigInteger getTermCoeff(final int theTerm) {
+        return myTermCoeffs[theTerm];
+    }
+    
+    /**
+     * Returns the coefficient of a term of a LINEAR gate as an element of
+     * the field, when the field is a LongPrimeField.
+     *
+     * @param theTerm The index of the term.
+     * @return The coefficient in the internal representation of the field.
+     * @throws NullPointerException If the field is not a LongPrimeField.
+     */
+    public long getTermElem(final int theTerm) {
+        return myTermElems[theTerm];
+    }
+    
+    /**
+     * Returns the constant of a LINEAR gate.
+     *
+     * @param theGate A LINEAR gate.
+     * @return The constant, canonical modulo the prime.
+     */
+    public BigInteger getConst(final int theGate) {
+        return myConsts[theGate];
+    }
+    
+    /**
+     * Returns the constant of a LINEAR gate as an element of the field, when
+     * the field is a LongPrimeField.
+     *
+     * @param theGate A LINEAR gate.
+     * @return The constant in the internal representation of the field.
+     * @throws NullPointerException If the field is not a LongPrimeField.
+     */
+    public long getConstElem(final int theGate) {
+        return myConstElems[theGate];
+    }
+    
+    @Override
+    public String toString() {
+        return "Circuit[function=" + myFunction + ", dataType=" + myDataType
+               + ", gates=" + myKinds.length + ", muls=" + myNumMuls
+               + ", mulDepth=" + getMulDepth() + "]";
+    }
+    
+    
+} // END Circuit.java CLASS
@@ -0,0 +1,901 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+import arithmetic.FieldFactory;
+import arithmetic.PrimeField;
+import files.GroupCompInitializationFileInterpreter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Compiles the function of a group computation into an arithmetic Circuit.
+ * A function is an expression over the secrets of the players, x0, x1, ...,
+ * and integer constants, with the operators +, -, *, unary -, ^ by an integer
+ * constant, and parentheses; for example "(x0 + x1) * x2 + 3 * x0 * x1".
+ *
+ * <p>The expression is first built into an intermediate DAG, in the field of
+ * the data type of the computation, with these passes applied as each node
+ * is made:
+ *
+ * <ul>
+ * <li>constant folding, modulo the prime of the field;</li>
+ * <li>common-subexpression elimination, by interning every node;</li>
+ * <li>merging of linear operations, so that sums, differences, and products
+ *     by constants of sums collapse into one weighted sum, which is free;</li>
+ * <li>flattening of products into lists of factors.</li>
+ * </ul>
+ *
+ * The DAG is then lowered into gates, each list of factors becoming a tree of
+ * two-input multiplications built by always multiplying the two shallowest
+ * factors, which minimizes the multiplicative depth and so the number of
+ * rounds of communication.  Compiled circuits are cached by function and
+ * data type.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class CircuitCompiler {
+    
+// CLASS CONSTANTS
+    /** The largest number of circuits held by the cache. */
+    public static final int CACHE_CAPACITY = 256;
+    
+    /** The largest exponent accepted by the ^ operator. */
+    public static final int MAX_EXPONENT = 4096;
+    
+    /** Kind of the intermediate nodes holding the secret of a player. */
+    private static final byte NODE_INPUT = 0;
+    
+    /** Kind of the intermediate nodes holding a constant. */
+    private static final byte NODE_CONST = 1;
+    
+    /** Kind of the intermediate nodes holding a weighted sum. */
+    private static final byte NODE_LINEAR = 2;
+    
+    /** Kind of the intermediate nodes holding a product of factors. */
+    private static final byte NODE_PRODUCT = 3;
+    
+    /** The compiled circuits in access order, guarded by its own lock. */
+    private static final Map<String, Circuit> CACHE =
+            new LinkedHashMap<String, Circuit>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Circuit> theEldest) {
+                    return size() > CACHE_CAPACITY;
+                }
+            };
+    
+    
+// CLASS VARIABLES
+    /** The function being compiled. */
+    private final String myFunction;
+    
+    /** The prime of the field of the data type. */
+    private final BigInteger myPrime;
+    
+    /** The position of the parser in the function. */
+    private int myPos;
+    
+    /** Every intermediate node, interned by its signature. */
+    private final Map<String, Node> myNodes;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a compiler of one function, in the field of the passed prime.
+     *
+     * @param theFunction The function to compile.
+     * @param thePrime The prime of the field.
+     */
+    private CircuitCompiler(final String theFunction, final BigInteger thePrime) {
+        myFunction = theFunction;
+        myPrime = thePrime;
+        myPos = 0;
+        myNodes = new HashMap<>();
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the circuit of the function and data type of a group
+     * computation.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @return The compiled circuit.
+     * @throws IllegalArgumentException If the function cannot be parsed, or
+     *                                  the data type is not valid.
+     */
+    public static Circuit compile(final GroupCompInitializationFileInterpreter theGroup) {
+        return compile(theGroup.getFuncStr(), theGroup.getFunctDataType());
+    }
+    
+    /**
+     * Returns the circuit of a function for a data type, compiling it only
+     * if it is not already cached.
+     *
+     * @param theFunction The function, such as "(x0 + x1) * x2".
+     * @param theDataType The name of a data type, such as "long".
+     * @return The compiled circuit.
+     * @throws IllegalArgumentException If the function cannot be parsed, or
+     *                                  the data type is not valid.
+     */
+    public static Circuit compile(final String theFunction, final String theDataType) {
+        final String tempKey = theDataType + '\n' + theFunction;
+        
+        Circuit tempCircuit;
+        synchronized (CACHE) {
+            tempCircuit = CACHE.get(tempKey);
+        } // END synchronized BLOCK
+        
+        if (tempCircuit == null) {
+            tempCircuit = compileUncached(theFunction, theDataType);
+            synchronized (CACHE) {
+                CACHE.put(tempKey, tempCircuit);
+            } // END synchronized BLOCK
+        }
+        
+        return tempCircuit;
+    } // END compile() METHOD
+    
+    /**
+     * Compiles a function for a data type, bypassing the cache.
+     *
+     * @param theFunction The function, such as "(x0 + x1) * x2".
+     * @param theDataType The name of a data type, such as "long".
+     * @return The compiled circuit.
+     * @throws IllegalArgumentException If the function cannot be parsed, or
+     *                                  the data type is not valid.
+     */
+    public static Circuit compileUncached(final String theFunction, final String theDataType) {
+        final PrimeField tempField = FieldFactory.forDataType(theDataType);
+        final CircuitCompiler tempCompiler = new CircuitCompiler(theFunction,
+                                                                 tempField.getModulus());
+        
+        final Node tempRoot = tempCompiler.parseExpression();
+        tempCompiler.skipSpaces();
+        if (tempCompiler.myPos < theFunction.length()) {
+            throw tempCompiler.error("Unexpected character");
+        }
+        
+        return new Lowering(theFunction, theDataType, tempField).lower(tempRoot);
+    } // END compileUncached() METHOD
+    
+    /**
+     * Removes every circuit from the cache.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        } // END synchronized BLOCK
+    }
+    
+    /**
+     * Returns the number of circuits currently held by the cache.
+     *
+     * @return The number of cached circuits.
+     */
+    public static int getCacheSize() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        } // END synchronized BLOCK
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+  // PARSER
+    /**
+     * Parses a sum or difference of terms.
+     *
+     * @return The node of the expression.
+     */
+    private Node parseExpression() {
+        Node tempNode = parseTerm();
+        
+        while (true) {
+            final char tempOp = peek();
+            if (tempOp == '+' || tempOp == '-') {
+                myPos++;
+                final Node tempRight = parseTerm();
+                final Map<Node, BigInteger> tempTerms = new LinkedHashMap<>();
+                BigInteger tempConst = addTerms(tempTerms, tempNode, BigInteger.ONE);
+                tempConst = tempConst.add(addTerms(tempTerms, tempRight, tempOp == '+'
+                                                                        ? BigInteger.ONE
+                                                                        : BigInteger.ONE.negate()));
+                tempNode = linear(tempTerms, tempConst);
+            } else {
+                return tempNode;
+            }
+        } // END while LOOP
+    } // END parseExpression() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a product of factors.
+     *
+     * @return The node of the term.
+     */
+    private Node parseTerm() {
+        Node tempNode = parseUnary();
+        
+        while (peek() == '*') {
+            myPos++;
+            tempNode = multiply(tempNode, parseUnary());
+        } // END while LOOP
+        
+        return tempNode;
+    } // END parseTerm() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a factor with any number of leading minus signs.
+     *
+     * @return The node of the factor.
+     */
+    private Node parseUnary() {
+        if (peek() == '-') {
+            myPos++;
+            return scale(parseUnary(), BigInteger.ONE.negate());
+        }
+        
+        return parsePower();
+    } // END parseUnary() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a primary expression raised to an optional integer power.
+     *
+     * @return The node of the power.
+     */
+    private Node parsePower() {
+        final Node tempBase = parsePrimary();
+        if (peek() != '^') {
+            return tempBase;
+        }
+        
+        myPos++;
+        skipSpaces();
+        final BigInteger tempExp = parseDigits("Expected an exponent");
+        if (tempExp.compareTo(BigInteger.valueOf(MAX_EXPONENT)) > 0) {
+            throw error("Exponent above " + MAX_EXPONENT);
+        }
+        
+        return power(tempBase, tempExp.intValue());
+    } // END parsePower() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a constant, an input, or a parenthesized expression.
+     *
+     * @return The node of the primary expression.
+     */
+    private Node parsePrimary() {
+        final char tempChar = peek();
+        
+        if (tempChar == '(') {
+            myPos++;
+            final Node tempNode = parseExpression();
+            if (peek() != ')') {
+                throw error("Expected ')'");
+            }
+            myPos++;
+            return tempNode;
+        } else if (tempChar == 'x' || tempChar == 'X') {
+            myPos++;
+            final BigInteger tempPlayer = parseDigits("Expected the index of a player");
+            if (tempPlayer.bitLength() >= Integer.SIZE - 1) {
+                throw error("Index of a player too large");
+            }
+            return intern(NODE_INPUT, "I" + tempPlayer, tempPlayer.intValue(), null,
+                          new Node[0], null);
+        } else if (Character.isDigit(tempChar)) {
+            return constant(parseDigits("Expected a constant"));
+        }
+        
+        throw error(tempChar == 0 ? "Unexpected end of function" : "Unexpected character");
+    } // END parsePrimary() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a run of decimal digits at the current position.
+     *
+     * @param theMessage The message of the error if there are no digits.
+     * @return The value of the digits.
+     */
+    private BigInteger parseDigits(final String theMessage) {
+        final int tempStart = myPos;
+        while (myPos < myFunction.length() && Character.isDigit(myFunction.charAt(myPos))) {
+            myPos++;
+        }
+        
+        if (tempStart == myPos) {
+            throw error(theMessage);
+        }
+        return new BigInteger(myFunction.substring(tempStart, myPos));
+    } // END parseDigits() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the next character which is not whitespace, without consuming
+     * it, or 0 at the end of the function.
+     *
+     * @return The next character.
+     */
+    private char peek() {
+        skipSpaces();
+        return myPos < myFunction.length() ? myFunction.charAt(myPos) : 0;
+    }
+    
+    /**
+     * Skips any whitespace at the current position.
+     */
+    private void skipSpaces() {
+        while (myPos < myFunction.length() && Character.isWhitespace(myFunction.charAt(myPos))) {
+            myPos++;
+        }
+    }
+    
+    /**
+     * Creates the exception for an error at the current position.
+     *
+     * @param theMessage The description of the error.
+     * @return The exception to throw.
+     */
+    private IllegalArgumentException error(final String theMessage) {
+        return new IllegalArgumentException(theMessage + " at position " + myPos
+                                            + " of function: " + myFunction);
+    }
+    
+  // INTERMEDIATE DAG
+    /**
+     * Returns the node of a constant, reduced modulo the prime.
+     *
+     * @param theValue The constant.
+     * @return The interned node.
+     */
+    private Node constant(final BigInteger theValue) {
+        final BigInteger tempValue = theValue.mod(myPrime);
+        return intern(NODE_CONST, "C" + tempValue, 0, tempValue, new Node[0], null);
+    }
+    
+    /**
+     * Returns the node of a weighted sum, folding it into a constant or a
+     * single node where possible.
+     *
+     * @param theTerms The nodes of the terms and their coefficients.
+     * @param theConst The constant of the sum.
+     * @return The interned node.
+     */
+    private Node linear(final Map<Node, BigInteger> theTerms, final BigInteger theConst) {
+        final BigInteger tempConst = theConst.mod(myPrime);
+        final List<Node> tempNodes = new ArrayList<>();
+        for (final Map.Entry<Node, BigInteger> tempEntry : theTerms.entrySet()) {
+            if (tempEntry.getValue().mod(myPrime).signum() != 0) {
+                tempNodes.add(tempEntry.getKey());
+            }
+        } // END for LOOP
+        
+        if (tempNodes.isEmpty()) {
+            return constant(tempConst);
+        }
+        
+        tempNodes.sort((theA, theB) -> Integer.compare(theA.myId, theB.myId));
+        final Node[] tempOps = tempNodes.toArray(new Node[tempNodes.size()]);
+        final BigInteger[] tempCoeffs = new BigInteger[tempOps.length];
+        final StringBuilder tempSig = new StringBuilder("L").append(tempConst);
+        for (int k = 0; k < tempOps.length; k++) {
+            tempCoeffs[k] = theTerms.get(tempOps[k]).mod(myPrime);
+            tempSig.append(';').append(tempOps[k].myId).append('*').append(tempCoeffs[k]);
+        } // END for LOOP
+        
+        if (tempOps.length == 1 && tempCoeffs[0].equals(BigInteger.ONE) && tempConst.signum() == 0) {
+            return tempOps[0];
+        }
+        
+        return intern(NODE_LINEAR, tempSig.toString(), 0, tempConst, tempOps, tempCoeffs);
+    } // END linear() PRIVATE HELPER METHOD
+    
+    /**
+     * Adds a multiple of a node to a weighted sum being built, merging the
+     * terms of a node which is itself a weighted sum.
+     *
+     * @param theTerms The terms being built, updated in place.
+     * @param theNode The node to add.
+     * @param theCoeff The multiple of the node.
+     * @return The amount to add to the constant of the sum.
+     */
+    private BigInteger addTerms(final Map<Node, BigInteger> theTerms, final Node theNode,
+                                final BigInteger theCoeff) {
+        switch (theNode.myKind) {
+            case NODE_CONST:
+                return theNode.myConst.multiply(theCoeff);
+            case NODE_LINEAR:
+                for (int k = 0; k < theNode.myOps.length; k++) {
+                    theTerms.merge(theNode.myOps[k], theNode.myCoeffs[k].multiply(theCoeff),
+                                   BigInteger::add);
+                }
+                return theNode.myConst.multiply(theCoeff);
+            default:
+                theTerms.merge(theNode, theCoeff, BigInteger::add);
+                return BigInteger.ZERO;
+        } // END switch STATEMENT
+    } // END addTerms() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the node of a multiple of a node, which is linear and so free.
+     *
+     * @param theNode The node.
+     * @param theCoeff The multiple.
+     * @return The interned node.
+     */
+    private Node scale(final Node theNode, final BigInteger theCoeff) {
+        final Map<Node, BigInteger> tempTerms = new LinkedHashMap<>();
+        final BigInteger tempConst = addTerms(tempTerms, theNode, theCoeff);
+        return linear(tempTerms, tempConst);
+    }
+    
+    /**
+     * Returns the node of the product of two nodes.  A product by a constant
+     * is a multiple, and products of products are flattened.
+     *
+     * @param theA The first factor.
+     * @param theB The second factor.
+     * @return The interned node.
+     */
+    private Node multiply(final Node theA, final Node theB) {
+        if (theA.myKind == NODE_CONST) {
+            return scale(theB, theA.myConst);
+        } else if (theB.myKind == NODE_CONST) {
+            return scale(theA, theB.myConst);
+        }
+        
+        final List<Node> tempFactors = new ArrayList<>();
+        addFactors(tempFactors, theA, 1);
+        addFactors(tempFactors, theB, 1);
+        return product(tempFactors);
+    } // END multiply() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the node of a node raised to a power.
+     *
+     * @param theBase The node.
+     * @param theExp The exponent, at most MAX_EXPONENT.
+     * @return The interned node.
+     */
+    private Node power(final Node theBase, final int theExp) {
+        if (theExp == 0) {
+            return constant(BigInteger.ONE);
+        } else if (theBase.myKind == NODE_CONST) {
+            return constant(theBase.myConst.modPow(BigInteger.valueOf(theExp), myPrime));
+        } else if (theExp == 1) {
+            return theBase;
+        }
+        
+        final List<Node> tempFactors = new ArrayList<>();
+        addFactors(tempFactors, theBase, theExp);
+        return product(tempFactors);
+    } // END power() PRIVATE HELPER METHOD
+    
+    /**
+     * Adds the factors of a node to a product being built.
+     *
+     * @param theFactors The factors being built, updated in place.
+     * @param theNode The node to add.
+     * @param theTimes The number of times to add it.
+     */
+    private void addFactors(final List<Node> theFactors, final Node theNode, final int theTimes) {
+        for (int t = 0; t < theTimes; t++) {
+            if (theNode.myKind == NODE_PRODUCT) {
+                theFactors.addAll(Arrays.asList(theNode.myOps));
+            } else {
+                theFactors.add(theNode);
+            }
+        } // END for LOOP
+        
+        if (theFactors.size() > MAX_EXPONENT) {
+            throw error("Product of more than " + MAX_EXPONENT + " factors");
+        }
+    } // END addFactors() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the node of a product of factors, none of them constant.
+     *
+     * @param theFactors The factors.
+     * @return The interned node.
+     */
+    private Node product(final List<Node> theFactors) {
+        theFactors.sort((theA, theB) -> Integer.compare(theA.myId, theB.myId));
+        final Node[] tempOps = theFactors.toArray(new Node[theFactors.size()]);
+        
+        final StringBuilder tempSig = new StringBuilder("M");
+        for (final Node tempOp : tempOps) {
+            tempSig.append(';').append(tempOp.myId);
+        }
+        
+        return intern(NODE_PRODUCT, tempSig.toString(), 0, null, tempOps, null);
+    } // END product() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the node with the passed signature, creating it if it does not
+     * exist yet.
+     *
+     * @param theKind The kind of the node.
+     * @param theSig The signature of the node.
+     * @param thePlayer The player of an input node.
+     * @param theConst The constant of a constant or weighted sum node.
+     * @param theOps The terms or factors of the node.
+     * @param theCoeffs The coefficients of the terms of a weighted sum node.
+     * @return The interned node.
+     */
+    private Node intern(final byte theKind, final String theSig, final int thePlayer,
+                        final BigInteger theConst, final Node[] theOps,
+                        final BigInteger[] theCoeffs) {
+        Node tempNode = myNodes.get(theSig);
+        if (tempNode == null) {
+            tempNode = new Node(myNodes.size(), theKind, thePlayer, theConst, theOps, theCoeffs);
+            myNodes.put(theSig, tempNode);
+        }
+        return tempNode;
+    } // END intern() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * A node of the intermediate DAG.  Nodes are interned, so equal nodes
+     * are the same object, and each node has a higher id than its operands.
+     */
+    private static final class Node {
+        
+        /** The id of the node, in order of creation. */
+        private final int myId;
+        
+        /** The kind of the node. */
+        private final byte myKind;
+        
+        /** The player of an input node. */
+        private final int myPlayer;
+        
+        /** The constant of a constant or weighted sum node. */
+        private final BigInteger myConst;
+        
+        /** The terms or factors of the node, sorted by id. */
+        private final Node[] myOps;
+        
+        /** The coefficients of the terms of a weighted sum node. */
+        private final BigInteger[] myCoeffs;
+        
+        /**
+         * Creates a node.
+         *
+         * @param theId The id of the node.
+         * @param theKind The kind of the node.
+         * @param thePlayer The player of an input node.
+         * @param theConst The constant of the node.
+         * @param theOps The terms or factors of the node.
+         * @param theCoeffs The coefficients of the terms.
+         */
+        Node(final int theId, final byte theKind, final int thePlayer, final BigInteger theConst,
+             final Node[] theOps, final BigInteger[] theCoeffs) {
+            myId = theId;
+            myKind = theKind;
+            myPlayer = thePlayer;
+            myConst = theConst;
+            myOps = theOps;
+            myCoeffs = theCoeffs;
+        }
+    } // END Node PRIVATE CLASS
+    
+    /**
+     * Lowers the intermediate DAG into the gates of a Circuit, keeping only
+     * the nodes reachable from the output, and turning each product into a
+     * tree of two-input multiplications of minimal depth.
+     */
+    private static final class Lowering {
+        
+        /** The function being compiled. */
+        private final String myFunction;
+        
+        /** The data type being compiled for. */
+        private final String myDataType;
+        
+        /** The field of the data type. */
+        private final PrimeField myField;
+        
+        /** The wire of each node already lowered, by node id. */
+        private final Map<Integer, Integer> myWires;
+        
+        /** The wire of each multiplication, by its two operand wires. */
+        private final Map<Long, Integer> myMuls;
+        
+        /** The kind of each gate. */
+        private final ByteList myKinds;
+        
+        /** The first argument of each gate. */
+        private final IntList myArgA;
+        
+        /** The second argument of each gate. */
+        private final IntList myArgB;
+        
+        /** The multiplicative depth of each gate. */
+        private final IntList myDepths;
+        
+        /** The constant of each gate. */
+        private final List<BigInteger> myConsts;
+        
+        /** The wires of the terms of every LINEAR gate. */
+        private final IntList myTermWires;
+        
+        /** The coefficients of the terms of every LINEAR gate. */
+        private final List<BigInteger> myTermCoeffs;
+        
+        /**
+         * Creates the lowering of one function.
+         *
+         * @param theFunction The function being compiled.
+         * @param theDataType The data type being compiled for.
+         * @param theField The field of the data type.
+         */
+        Lowering(final String theFunction, final String theDataType, final PrimeField theField) {
+            myFunction = theFunction;
+            myDataType = theDataType;
+            myField = theField;
+            myWires = new HashMap<>();
+            myMuls = new HashMap<>();
+            myKinds = new ByteList();
+            myArgA = new IntList();
+            myArgB = new IntList();
+            myDepths = new IntList();
+            myConsts = new ArrayList<>();
+            myTermWires = new IntList();
+            myTermCoeffs = new ArrayList<>();
+        }
+        
+        /**
+         * Lowers the DAG below the passed root into a Circuit.
+         *
+         * @param theRoot The node of the output.
+         * @return The circuit.
+         */
+        Circuit lower(final Node theRoot) {
+            final int tempOutput = wire(theRoot);
+            
+            return new Circuit(myFunction, myDataType, myField, myKinds.toArray(),
+                               myArgA.toArray(), myArgB.toArray(), myDepths.toArray(),
+                               myConsts.toArray(new BigInteger[myConsts.size()]),
+                               myTermWires.toArray(),
+                               myTermCoeffs.toArray(new BigInteger[myTermCoeffs.size()]),
+                               tempOutput);
+        } // END lower() METHOD
+        
+        /**
+         * Returns the wire of a node, lowering it and its operands first if
+         * they have not been lowered yet.  Operands are lowered recursively,
+         * which is bounded by the nesting of the function.
+         *
+         * @param theNode The node.
+         * @return The wire carrying its value.
+         */
+        private int wire(final Node theNode) {
+            final Integer tempKnown = myWires.get(theNode.myId);
+            if (tempKnown != null) {
+                return tempKnown;
+            }
+            
+            final int tempWire;
+            switch (theNode.myKind) {
+                case NODE_INPUT:
+                    tempWire = addGate(Circuit.INPUT, theNode.myPlayer, 0, 0, null);
+                    break;
+                case NODE_CONST:
+                    tempWire = addGate(Circuit.LINEAR, myTermWires.size(), myTermWires.size(), 0,
+                                       theNode.myConst);
+                    break;
+                case NODE_LINEAR:
+                    tempWire = lowerLinear(theNode);
+                    break;
+                default:
+                    tempWire = lowerProduct(theNode);
+                    break;
+            } // END switch STATEMENT
+            
+            myWires.put(theNode.myId, tempWire);
+            return tempWire;
+        } // END wire() METHOD
+        
+        /**
+         * Lowers a weighted sum node into a LINEAR gate.
+         *
+         * @param theNode The weighted sum node.
+         * @return The wire of the gate.
+         */
+        private int lowerLinear(final Node theNode) {
+            final int[] tempOps = new int[theNode.myOps.length];
+            int tempDepth = 0;
+            for (int k = 0; k < tempOps.length; k++) {
+                tempOps[k] = wire(theNode.myOps[k]);
+                tempDepth = Math.max(tempDepth, myDepths.get(tempOps[k]));
+            }
+            
+            final int tempStart = myTermWires.size();
+            for (int k = 0; k < tempOps.length; k++) {
+                myTermWires.add(tempOps[k]);
+                myTermCoeffs.add(theNode.myCoeffs[k]);
+            }
+            
+            return addGate(Circuit.LINEAR, tempStart, myTermWires.size(), tempDepth,
+                           theNode.myConst);
+        } // END lowerLinear() METHOD
+        
+        /**
+         * Lowers a product node into a tree of MUL gates, always multiplying
+         * the two shallowest factors first.  Ties are broken by wire, so that
+         * repeated factors are paired with each other and their products are
+         * shared, which turns powers into repeated squaring.
+         *
+         * @param theNode The product node.
+         * @return The wire of the root of the tree.
+         */
+        private int lowerProduct(final Node theNode) {
+            final PriorityQueue<long[]> tempQueue = new PriorityQueue<>(
+                    (theA, theB) -> theA[0] != theB[0] ? Long.compare(theA[0], theB[0])
+                                                       : Long.compare(theA[1], theB[1]));
+            for (final Node tempOp : theNode.myOps) {
+                final int tempWire = wire(tempOp);
+                tempQueue.add(new long[] {myDepths.get(tempWire), tempWire});
+            }
+            
+            while (tempQueue.size() > 1) {
+                final int tempLeft = (int) tempQueue.poll()[1];
+                final int tempRight = (int) tempQueue.poll()[1];
+                final int tempWire = mul(tempLeft, tempRight);
+                tempQueue.add(new long[] {myDepths.get(tempWire), tempWire});
+            } // END while LOOP
+            
+            return (int) tempQueue.poll()[1];
+        } // END lowerProduct() METHOD
+        
+        /**
+         * Returns the wire of the product of two wires, adding a MUL gate only
+         * if the same product has not been made before.
+         *
+         * @param theLeft The left wire.
+         * @param theRight The right wire.
+         * @return The wire of the product.
+         */
+        private int mul(final int theLeft, final int theRight) {
+            final int tempLo = Math.min(theLeft, theRight);
+            final int tempHi = Math.max(theLeft, theRight);
+            final Long tempKey = ((long) tempLo << Integer.SIZE) | tempHi;
+            
+            Integer tempWire = myMuls.get(tempKey);
+            if (tempWire == null) {
+                final int tempDepth = 1 + Math.max(myDepths.get(tempLo), myDepths.get(tempHi));
+                tempWire = addGate(Circuit.MUL, tempLo, tempHi, tempDepth, null);
+                myMuls.put(tempKey, tempWire);
+            }
+            return tempWire;
+        } // END mul() METHOD
+        
+        /**
+         * Appends a gate.
+         *
+         * @param theKind The kind of the gate.
+         * @param theArgA The first argument of the gate.
+         * @param theArgB The second argument of the gate.
+         * @param theDepth The multiplicative depth of the gate.
+         * @param theConst The constant of a LINEAR gate, or null.
+         * @return The wire of the gate.
+         */
+        private int addGate(final byte theKind, final int theArgA, final int theArgB,
+                            final int theDepth, final BigInteger theConst) {
+            myKinds.add(theKind);
+            myArgA.add(theArgA);
+            myArgB.add(theArgB);
+            myDepths.add(theDepth);
+            myConsts.add(theConst);
+            return myKinds.size() - 1;
+        } // END addGate() METHOD
+    } // END Lowering PRIVATE CLASS
+    
+    /**
+     * Growable array of ints.
+     */
+    private static final class IntList {
+        
+        /** The values. */
+        private int[] myValues = new int[16];
+        
+        /** The number of values. */
+        private int mySize;
+        
+        /**
+         * Appends a value, growing the array if it is full.
+         *
+         * @param theValue The value.
+         */
+        void add(final int theValue) {
+            if (mySize == myValues.length) {
+                myValues = Arrays.copyOf(myValues, mySize * 2);
+            }
+            myValues[mySize++] = theValue;
+        }
+        
+        /**
+         * Returns a value.
+         *
+         * @param theIndex The index of the value.
+         * @return The value.
+         */
+        int get(final int theIndex) {
+            return myValues[theIndex];
+        }
+        
+        /**
+         * Returns the number of values.
+         *
+         * @return mySize
+         */
+        int size() {
+            return mySize;
+        }
+        
+        /**
+         * Returns a copy of the values, trimmed to their number.
+         *
+         * @return The values.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(myValues, mySize);
+        }
+    } // END IntList PRIVATE CLASS
+    
+    /**
+     * Growable array of bytes.
+     */
+    private static final class ByteList {
+        
+        /** The values. */
+        private byte[] myValues = new byte[16];
+        
+        /** The number of values. */
+        private int mySize;
+        
+        /**
+         * Appends a value, growing the array if it is full.
+         *
+         * @param theValue The value.
+         */
+        void add(final byte theValue) {
+            if (mySize == myValues.length) {
+                myValues = Arrays.copyOf(myValues, mySize * 2);
+            }
+            myValues[mySize++] = theValue;
+        }
+        
+        /**
+         * Returns the number of values.
+         *
+         * @return mySize
+         */
+        int size() {
+            return mySize;
+        }
+        
+        /**
+         * Returns a copy of the values, trimmed to their number.
+         *
+         * @return The values.
+         */
+        byte[] toArray() {
+            return Arrays.copyOf(myValues, mySize);
+        }
+    } // END ByteList PRIVATE CLASS
+    
+    
+} // END CircuitCompiler.java CLASS
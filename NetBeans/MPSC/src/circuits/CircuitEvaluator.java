@@ -0,0 +1,463 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+import arithmetic.LongPrimeField;
+import files.GroupCompInitializationFileInterpreter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates a Circuit over vectors of shared values, every gate being applied
+ * slot by slot.  The circuit is split into layers by multiplicative depth:
+ * layer 0 holds the INPUT and LINEAR gates of depth 0, and each layer d after
+ * it holds the MUL gates of depth d, which are handed together to a single
+ * MultiplicationRound, followed by the LINEAR gates of depth d.  Since linear
+ * gates only read INPUT and MUL wires, the linear gates of a layer are
+ * independent, and are evaluated on a ForkJoinPool over chunks of slots.  A
+ * circuit of multiplicative depth D thus costs exactly D rounds.  Vectors of
+ * wires are returned to a pool after their last use, so memory follows the
+ * width of the circuit rather than its size.  Only circuits over a
+ * LongPrimeField, for the "int" and "long" data types, can be evaluated.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class CircuitEvaluator {
+    
+// CLASS CONSTANTS
+    /** The number of slots evaluated by each leaf task of the pool. */
+    private static final int CHUNK = 4096;
+    
+    
+// CLASS VARIABLES
+    /** The circuit being evaluated. */
+    private final Circuit myCircuit;
+    
+    /** The field of the circuit. */
+    private final LongPrimeField myField;
+    
+    /** The multiplication protocol. */
+    private final MultiplicationRound myRound;
+    
+    /** Boolean holding whether this party adds the constants of LINEAR gates. */
+    private final boolean myAddsConsts;
+    
+    /** The pool evaluating the linear gates. */
+    private final ForkJoinPool myPool;
+    
+    /** The INPUT and LINEAR gates of each layer. */
+    private final int[][] myLinearLayers;
+    
+    /** The MUL gates of each layer, empty for layer 0. */
+    private final int[][] myMulLayers;
+    
+    /** The last layer reading each wire, or Integer.MAX_VALUE for the output. */
+    private final int[] myLastUse;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an evaluator of the circuit of a group computation, compiled
+     * for its function and data type, on the common ForkJoinPool.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param theRound The multiplication protocol.
+     * @param theAddsConsts true if this party adds the constants of the
+     *                      circuit: in the clear, with Shamir sharing, or as
+     *                      the first player of additive sharing.
+     * @return The evaluator.
+     * @throws IllegalArgumentException If the function cannot be compiled,
+     *                                  or its data type cannot be evaluated.
+     */
+    public static CircuitEvaluator forGroup(final GroupCompInitializationFileInterpreter theGroup,
+                                            final MultiplicationRound theRound,
+                                            final boolean theAddsConsts) {
+        return new CircuitEvaluator(CircuitCompiler.compile(theGroup), theRound, theAddsConsts);
+    }
+    
+    /**
+     * Creates an evaluator of the passed circuit on the common ForkJoinPool.
+     *
+     * @param theCircuit The circuit.
+     * @param theRound The multiplication protocol.
+     * @param theAddsConsts true if this party adds the constants of the
+     *                      circuit.
+     * @throws IllegalArgumentException If the field of the circuit is not a
+     *                                  LongPrimeField.
+     */
+    public CircuitEvaluator(final Circuit theCircuit, final MultiplicationRound theRound,
+                            final boolean theAddsConsts) {
+        this(theCircuit, theRound, theAddsConsts, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates an evaluator of the passed circuit.
+     *
+     * @param theCircuit The circuit.
+     * @param theRound The multiplication protocol.
+     * @param theAddsConsts true if this party adds the constants of the
+     *                      circuit.
+     * @param thePool The pool evaluating the linear gates.
+     * @throws IllegalArgumentException If the field of the circuit is not a
+     *                                  LongPrimeField.
+     */
+    public CircuitEvaluator(final Circuit theCircuit, final MultiplicationRound theRound,
+                            final boolean theAddsConsts, final ForkJoinPool thePool) {
+        if (!(theCircuit.getField() instanceof LongPrimeField)) {
+            throw new IllegalArgumentException("Data type cannot be evaluated yet: "
+                                               + theCircuit.getDataType());
+        }
+        
+        myCircuit = theCircuit;
+        myField = (LongPrimeField) theCircuit.getField();
+        myRound = theRound;
+        myAddsConsts = theAddsConsts;
+        myPool = thePool;
+        
+        final int tempDepth = theCircuit.getMulDepth();
+        myLinearLayers = new int[tempDepth + 1][];
+        myMulLayers = new int[tempDepth + 1][];
+        myLastUse = new int[theCircuit.getNumGates()];
+        layer();
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Evaluates the circuit over vectors of shared inputs.
+     *
+     * @param theInputs The vector of the input of each player, all of the
+     *                  same length; they are read but never modified.
+     * @return The vector of the output, as long as the inputs even if the
+     *         circuit reads none of them.
+     * @throws IllegalArgumentException If an input is missing or the inputs
+     *                                  differ in length.
+     */
+    public long[] evaluate(final long[][] theInputs) {
+        final int tempSlots = checkInputs(theInputs);
+        final int tempGates = myCircuit.getNumGates();
+        final long[][] tempWires = new long[tempGates][];
+        final boolean[] tempOwned = new boolean[tempGates];
+        final ArrayDeque<long[]> tempFree = new ArrayDeque<>();
+        
+        for (int tempLayer = 0; tempLayer < myLinearLayers.length; tempLayer++) {
+            final int[] tempMuls = myMulLayers[tempLayer];
+            if (tempMuls.length > 0) {
+                final long[][] tempLefts = new long[tempMuls.length][];
+                final long[][] tempRights = new long[tempMuls.length][];
+                final long[][] tempOuts = new long[tempMuls.length][];
+                for (int k = 0; k < tempMuls.length; k++) {
+                    final int tempGate = tempMuls[k];
+                    tempLefts[k] = tempWires[myCircuit.getLeft(tempGate)];
+                    tempRights[k] = tempWires[myCircuit.getRight(tempGate)];
+                    tempOuts[k] = take(tempFree, tempSlots);
+                    tempWires[tempGate] = tempOuts[k];
+                    tempOwned[tempGate] = true;
+                } // END for LOOP
+                
+                myRound.multiply(tempLayer, tempLefts, tempRights, tempOuts);
+            }
+            
+            final int[] tempLinears = myLinearLayers[tempLayer];
+            for (final int tempGate : tempLinears) {
+                if (myCircuit.getKind(tempGate) == Circuit.INPUT) {
+                    tempWires[tempGate] = theInputs[myCircuit.getInputPlayer(tempGate)];
+                } else {
+                    tempWires[tempGate] = take(tempFree, tempSlots);
+                    tempOwned[tempGate] = true;
+                }
+            } // END for LOOP
+            myPool.invoke(new LinearTask(tempLinears, tempWires, 0, tempSlots));
+            
+            // Recycle the vectors of wires read for the last time
+            for (final int tempGate : tempMuls) {
+                release(tempGate, tempLayer, tempWires, tempOwned, tempFree);
+            }
+            for (final int tempGate : tempLinears) {
+                release(tempGate, tempLayer, tempWires, tempOwned, tempFree);
+            }
+            releaseOperands(tempLayer, tempWires, tempOwned, tempFree);
+        } // END for LOOP
+        
+        final long[] tempOut = tempWires[myCircuit.getOutput()];
+        return tempOwned[myCircuit.getOutput()] ? tempOut : tempOut.clone();
+    } // END evaluate() METHOD
+    
+  // GETTERS
+    /**
+     * Getter for the circuit being evaluated.
+     *
+     * @return myCircuit
+     */
+    public Circuit getCircuit() {
+        return myCircuit;
+    }
+    
+    /**
+     * Returns the number of rounds of multiplication of each evaluation,
+     * which equals the multiplicative depth of the circuit.
+     *
+     * @return The number of rounds.
+     */
+    public int getNumRounds() {
+        int tempRounds = 0;
+        for (final int[] tempMuls : myMulLayers) {
+            if (tempMuls.length > 0) {
+                tempRounds++;
+            }
+        }
+        return tempRounds;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Splits the gates into layers by multiplicative depth, and finds the
+     * last layer reading each wire.
+     */
+    private void layer() {
+        final int tempDepth = myLinearLayers.length - 1;
+        final List<List<Integer>> tempLinears = new ArrayList<>();
+        final List<List<Integer>> tempMuls = new ArrayList<>();
+        for (int d = 0; d <= tempDepth; d++) {
+            tempLinears.add(new ArrayList<>());
+            tempMuls.add(new ArrayList<>());
+        }
+        
+        for (int g = 0; g < myCircuit.getNumGates(); g++) {
+            final int tempLayer = myCircuit.getDepth(g);
+            if (myCircuit.getKind(g) == Circuit.MUL) {
+                tempMuls.get(tempLayer).add(g);
+                use(myCircuit.getLeft(g), tempLayer);
+                use(myCircuit.getRight(g), tempLayer);
+            } else {
+                tempLinears.get(tempLayer).add(g);
+                if (myCircuit.getKind(g) == Circuit.LINEAR) {
+                    for (int k = myCircuit.getTermStart(g); k < myCircuit.getTermEnd(g); k++) {
+                        use(myCircuit.getTermWire(k), tempLayer);
+                    }
+                }
+            } // END if/else BLOCK
+        } // END for LOOP
+        myLastUse[myCircuit.getOutput()] = Integer.MAX_VALUE;
+        
+        for (int d = 0; d <= tempDepth; d++) {
+            myLinearLayers[d] = toArray(tempLinears.get(d));
+            myMulLayers[d] = toArray(tempMuls.get(d));
+        }
+    } // END layer() PRIVATE HELPER METHOD
+    
+    /**
+     * Records that a wire is read by a layer.
+     *
+     * @param theWire The wire.
+     * @param theLayer The layer reading it.
+     */
+    private void use(final int theWire, final int theLayer) {
+        myLastUse[theWire] = Math.max(myLastUse[theWire], theLayer);
+    }
+    
+    /**
+     * Converts a list of gates to an array.
+     *
+     * @param theGates The gates.
+     * @return The array of the gates.
+     */
+    private static int[] toArray(final List<Integer> theGates) {
+        final int[] tempArray = new int[theGates.size()];
+        for (int k = 0; k < tempArray.length; k++) {
+            tempArray[k] = theGates.get(k);
+        }
+        return tempArray;
+    }
+    
+    /**
+     * Checks the input vectors and returns their common length, which is
+     * also the length of the output of a circuit reading none of them.
+     *
+     * @param theInputs The vector of the input of each player.
+     * @return The number of slots.
+     */
+    private int checkInputs(final long[][] theInputs) {
+        if (theInputs.length < myCircuit.getNumPlayers()) {
+            throw new IllegalArgumentException("The circuit reads the inputs of "
+                                               + myCircuit.getNumPlayers() + " players, got "
+                                               + theInputs.length);
+        }
+        
+        // A group without inputs yields a single constant
+        int tempSlots = theInputs.length == 0 ? 1 : -1;
+        for (final long[] tempInput : theInputs) {
+            if (tempInput == null) {
+                throw new IllegalArgumentException("Missing input vector");
+            } else if (tempSlots < 0) {
+                tempSlots = tempInput.length;
+            } else if (tempInput.length != tempSlots) {
+                throw new IllegalArgumentException("Inputs of different lengths");
+            }
+        } // END for LOOP
+        return tempSlots;
+    } // END checkInputs() PRIVATE HELPER METHOD
+    
+    /**
+     * Takes a vector from the pool of free vectors, or allocates one.
+     *
+     * @param theFree The pool of free vectors.
+     * @param theSlots The length of the vector.
+     * @return The vector.
+     */
+    private static long[] take(final ArrayDeque<long[]> theFree, final int theSlots) {
+        final long[] tempVector = theFree.poll();
+        return tempVector != null ? tempVector : new long[theSlots];
+    }
+    
+    /**
+     * Returns the vector of a wire to the pool if no later layer reads it.
+     *
+     * @param theWire The wire.
+     * @param theLayer The layer just evaluated.
+     * @param theWires The vectors of the wires.
+     * @param theOwned Whether each vector was allocated by the evaluation.
+     * @param theFree The pool of free vectors.
+     */
+    private void release(final int theWire, final int theLayer, final long[][] theWires,
+                         final boolean[] theOwned, final ArrayDeque<long[]> theFree) {
+        if (theWires[theWire] != null && myLastUse[theWire] <= theLayer) {
+            if (theOwned[theWire]) {
+                theFree.push(theWires[theWire]);
+            }
+            theWires[theWire] = null;
+        }
+    } // END release() PRIVATE HELPER METHOD
+    
+    /**
+     * Releases the operands of the gates of a layer read for the last time.
+     *
+     * @param theLayer The layer just evaluated.
+     * @param theWires The vectors of the wires.
+     * @param theOwned Whether each vector was allocated by the evaluation.
+     * @param theFree The pool of free vectors.
+     */
+    private void releaseOperands(final int theLayer, final long[][] theWires,
+                                 final boolean[] theOwned, final ArrayDeque<long[]> theFree) {
+        for (final int tempGate : myMulLayers[theLayer]) {
+            release(myCircuit.getLeft(tempGate), theLayer, theWires, theOwned, theFree);
+            release(myCircuit.getRight(tempGate), theLayer, theWires, theOwned, theFree);
+        }
+        for (final int tempGate : myLinearLayers[theLayer]) {
+            if (myCircuit.getKind(tempGate) == Circuit.LINEAR) {
+                for (int k = myCircuit.getTermStart(tempGate); k < myCircuit.getTermEnd(tempGate);
+                        k++) {
+                    release(myCircuit.getTermWire(k), theLayer, theWires, theOwned, theFree);
+                }
+            }
+        } // END for LOOP
+    } // END releaseOperands() PRIVATE HELPER METHOD
+    
+    /**
+     * Evaluates the LINEAR gates of a layer over a range of slots.
+     *
+     * @param theGates The gates of the layer.
+     * @param theWires The vectors of the wires.
+     * @param theFrom The first slot.
+     * @param theTo One past the last slot.
+     */
+    private void evaluateLinear(final int[] theGates, final long[][] theWires,
+                                final int theFrom, final int theTo) {
+        final long tempOne = myField.one();
+        final long tempMinusOne = myField.neg(tempOne);
+        
+        for (final int tempGate : theGates) {
+            if (myCircuit.getKind(tempGate) != Circuit.LINEAR) {
+                continue;
+            }
+            
+            final long[] tempOut = theWires[tempGate];
+            final long tempConst = myAddsConsts ? myCircuit.getConstElem(tempGate) : 0L;
+            Arrays.fill(tempOut, theFrom, theTo, tempConst);
+            
+            for (int k = myCircuit.getTermStart(tempGate); k < myCircuit.getTermEnd(tempGate); k++) {
+                final long[] tempIn = theWires[myCircuit.getTermWire(k)];
+                final long tempCoeff = myCircuit.getTermElem(k);
+                
+                if (tempCoeff == tempOne) {
+                    for (int i = theFrom; i < theTo; i++) {
+                        tempOut[i] = myField.add(tempOut[i], tempIn[i]);
+                    }
+                } else if (tempCoeff == tempMinusOne) {
+                    for (int i = theFrom; i < theTo; i++) {
+                        tempOut[i] = myField.sub(tempOut[i], tempIn[i]);
+                    }
+                } else {
+                    for (int i = theFrom; i < theTo; i++) {
+                        tempOut[i] = myField.add(tempOut[i], myField.mul(tempIn[i], tempCoeff));
+                    }
+                } // END if/else BLOCK
+            } // END for LOOP
+        } // END for LOOP
+    } // END evaluateLinear() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * Fork-join task which evaluates the LINEAR gates of a layer over a span
+     * of slots, splitting the span in half until it is at most CHUNK slots.
+     */
+    private final class LinearTask extends RecursiveAction {
+        
+        /** Serial version UID for the serializable RecursiveAction. */
+        private static final long serialVersionUID = 1L;
+        
+        /** The gates of the layer. */
+        private final int[] myGates;
+        
+        /** The vectors of the wires. */
+        private final long[][] myWires;
+        
+        /** The first slot of the span. */
+        private final int myFrom;
+        
+        /** One past the last slot of the span. */
+        private final int myTo;
+        
+        /**
+         * Creates a task over the slots [theFrom, theTo).
+         *
+         * @param theGates The gates of the layer.
+         * @param theWires The vectors of the wires.
+         * @param theFrom The first slot of the span.
+         * @param theTo One past the last slot of the span.
+         */
+        LinearTask(final int[] theGates, final long[][] theWires, final int theFrom,
+                   final int theTo) {
+            myGates = theGates;
+            myWires = theWires;
+            myFrom = theFrom;
+            myTo = theTo;
+        }
+        
+        @Override
+        protected void compute() {
+            if (myTo - myFrom > CHUNK) {
+                final int tempMid = (myFrom + myTo) >>> 1;
+                invokeAll(new LinearTask(myGates, myWires, myFrom, tempMid),
+                          new LinearTask(myGates, myWires, tempMid, myTo));
+                return;
+            }
+            
+            evaluateLinear(myGates, myWires, myFrom, myTo);
+        } // END compute() METHOD
+    } // END LinearTask PRIVATE CLASS
+    
+    
+} // END CircuitEvaluator.java CLASS
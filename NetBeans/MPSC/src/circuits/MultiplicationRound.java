@@ -0,0 +1,32 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+/**
+ * One round of the multiplication protocol, used by the CircuitEvaluator to
+ * multiply every pair of shared vectors of a layer of a circuit at once, so
+ * that a circuit costs one round of communication per level of its
+ * multiplicative depth rather than one per MUL gate.  Vectors hold elements
+ * in the internal representation of the LongPrimeField of the circuit.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@FunctionalInterface
+public interface MultiplicationRound {
+    
+    /**
+     * Multiplies pairs of shared vectors, slot by slot, in one round.
+     *
+     * @param theRound The number of the round, from 1 to the multiplicative
+     *                 depth of the circuit.
+     * @param theLefts The left vector of each product.
+     * @param theRights The right vector of each product.
+     * @param theOuts Receives the shared products, one preallocated vector
+     *                per pair, distinct from every input vector.
+     */
+    void multiply(int theRound, long[][] theLefts, long[][] theRights, long[][] theOuts);
+    
+    
+} // END MultiplicationRound.java INTERFACE
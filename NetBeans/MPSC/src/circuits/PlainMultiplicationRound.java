@@ -0,0 +1,47 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+import arithmetic.LongPrimeField;
+
+/**
+ * Multiplication "round" which multiplies the vectors locally, with no
+ * communication.  It evaluates a circuit on values in the clear, which gives
+ * the expected result of a secure computation, and stands in for the ideal
+ * multiplication of a single trusted party.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class PlainMultiplicationRound implements MultiplicationRound {
+    
+// CLASS VARIABLES
+    /** The field of the vectors. */
+    private final LongPrimeField myField;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a local multiplication in the passed field.
+     *
+     * @param theField The field of the vectors.
+     */
+    public PlainMultiplicationRound(final LongPrimeField theField) {
+        myField = theField;
+    }
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public void multiply(final int theRound, final long[][] theLefts, final long[][] theRights,
+                         final long[][] theOuts) {
+        for (int k = 0; k < theOuts.length; k++) {
+            myField.mul(theLefts[k], theRights[k], theOuts[k]);
+        }
+    }
+    
+    
+} // END PlainMultiplicationRound.java CLASS
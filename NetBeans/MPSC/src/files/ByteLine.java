@@ -0,0 +1,74 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zero-copy CharSequence view of a line of single-byte (ASCII) text held in a
+ * ByteBuffer, such as a slice of a memory-mapped file handed out by the
+ * MappedLineReader class.  Characters are only materialized into a String
+ * when toString() is called.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class ByteLine implements CharSequence {
+    
+    /** The bytes of the line, from index 0 up to the limit of the buffer. */
+    private final ByteBuffer myBytes;
+    
+    
+    
+    /**
+     * Creates a view over the bytes between the position and limit of the
+     * passed buffer.
+     *
+     * @param theBytes The buffer holding the line.
+     */
+    public ByteLine(final ByteBuffer theBytes) {
+        myBytes = theBytes.slice();
+    } // END constructor
+    
+    
+    
+    /**
+     * Returns the underlying bytes of the line as a read-only buffer.
+     *
+     * @return A read-only view of the bytes of the line.
+     */
+    public ByteBuffer getBytes() {
+        return myBytes.asReadOnlyBuffer();
+    }
+    
+    @Override
+    public int length() {
+        return myBytes.limit();
+    }
+    
+    @Override
+    public char charAt(final int theIndex) {
+        return (char) (myBytes.get(theIndex) & 0xFF);
+    }
+    
+    @Override
+    public CharSequence subSequence(final int theStart, final int theEnd) {
+        final ByteBuffer tempDup = myBytes.duplicate();
+        tempDup.limit(theEnd);
+        tempDup.position(theStart);
+        
+        return new ByteLine(tempDup);
+    }
+    
+    @Override
+    public String toString() {
+        final byte[] tempBytes = new byte[myBytes.limit()];
+        myBytes.duplicate().get(tempBytes);
+        
+        return new String(tempBytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    
+} // END ByteLine.java CLASS
@@ -0,0 +1,282 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Utility class to parse numeric values directly from the ASCII bytes of a
+ * line, such as a slice of a memory-mapped file, without first decoding the
+ * line into a String.  Integral values are always parsed from the bytes;
+ * floating point values are parsed from the bytes whenever the result is
+ * exactly representable by a single correctly rounded operation, and are
+ * otherwise handed to Double.parseDouble() or Float.parseFloat().
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+final class ByteParser {
+    
+// CLASS CONSTANTS
+    /** Exact powers of ten representable by a double, 10^0 to 10^22. */
+    private static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    /** Exact powers of ten representable by a float, 10^0 to 10^10. */
+    private static final float[] FLOAT_POW10 = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    
+    /** Largest number of significant digits which always fit a double. */
+    private static final int DOUBLE_DIGITS = 15;
+    
+    /** Largest number of significant digits which always fit a float. */
+    private static final int FLOAT_DIGITS = 7;
+    
+    /** Number of low bits holding the exponent in a packed decimal. */
+    private static final int EXP_BITS = 13;
+    
+    /** Largest magnitude of exponent which fits in a packed decimal. */
+    private static final int MAX_EXP = (1 << (EXP_BITS - 1)) - 1;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ByteParser() {
+        // Private Constructor
+    }
+    
+    
+    
+// PACKAGE METHODS
+    /**
+     * Parses the bytes from the position to the limit of the passed buffer as
+     * a signed decimal int, accepting the same input as Integer.parseInt().
+     *
+     * @param theBytes The bytes of the value.
+     * @return The parsed value.
+     * @throws NumberFormatException If the bytes are not a valid int.
+     */
+    static int parseInt(final ByteBuffer theBytes) {
+        final long temp = parseLong(theBytes);
+        
+        if (temp < Integer.MIN_VALUE || temp > Integer.MAX_VALUE) {
+            throw invalid(theBytes);
+        }
+        
+        return (int) temp;
+    } // END parseInt() METHOD
+    
+    /**
+     * Parses the bytes from the position to the limit of the passed buffer as
+     * a signed decimal long, accepting the same input as Long.parseLong().
+     *
+     * @param theBytes The bytes of the value.
+     * @return The parsed value.
+     * @throws NumberFormatException If the bytes are not a valid long.
+     */
+    static long parseLong(final ByteBuffer theBytes) {
+        final int tempEnd = theBytes.limit();
+        int i = theBytes.position();
+        
+        boolean tempNeg = false;
+        if (i < tempEnd && (theBytes.get(i) == '-' || theBytes.get(i) == '+')) {
+            tempNeg = theBytes.get(i) == '-';
+            i++;
+        }
+        if (i >= tempEnd) {
+            throw invalid(theBytes);
+        }
+        
+        // Accumulate negatively so that Long.MIN_VALUE can be represented.
+        final long tempLimit = tempNeg ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long tempMultMin = tempLimit / 10;
+        long tempResult = 0;
+        for (; i < tempEnd; i++) {
+            final int tempDigit = theBytes.get(i) - '0';
+            if (tempDigit < 0 || tempDigit > 9 || tempResult < tempMultMin) {
+                throw invalid(theBytes);
+            }
+            
+            tempResult *= 10;
+            if (tempResult < tempLimit + tempDigit) {
+                throw invalid(theBytes);
+            }
+            tempResult -= tempDigit;
+        } // END for LOOP
+        
+        return tempNeg ? tempResult : -tempResult;
+    } // END parseLong() METHOD
+    
+    /**
+     * Parses the bytes from the position to the limit of the passed buffer as
+     * a double, giving the same result as Double.parseDouble().
+     *
+     * @param theBytes The bytes of the value.
+     * @return The parsed value.
+     * @throws NumberFormatException If the bytes are not a valid double.
+     */
+    static double parseDouble(final ByteBuffer theBytes) {
+        final long tempPacked = packDecimal(theBytes, DOUBLE_DIGITS);
+        
+        if (tempPacked >= 0) {
+            final int tempExp = unpackExponent(tempPacked);
+            
+            if (Math.abs(tempExp) < DOUBLE_POW10.length) {
+                final long tempMant = tempPacked >>> EXP_BITS;
+                double tempVal = tempExp < 0 ? tempMant / DOUBLE_POW10[-tempExp]
+                                             : tempMant * DOUBLE_POW10[tempExp];
+                if (isNegative(theBytes)) {
+                    tempVal = -tempVal;
+                }
+                
+                return tempVal;
+            }
+        }
+        
+        return Double.parseDouble(new ByteLine(theBytes).toString());
+    } // END parseDouble() METHOD
+    
+    /**
+     * Parses the bytes from the position to the limit of the passed buffer as
+     * a float, giving the same result as Float.parseFloat().
+     *
+     * @param theBytes The bytes of the value.
+     * @return The parsed value.
+     * @throws NumberFormatException If the bytes are not a valid float.
+     */
+    static float parseFloat(final ByteBuffer theBytes) {
+        final long tempPacked = packDecimal(theBytes, FLOAT_DIGITS);
+        
+        if (tempPacked >= 0) {
+            final int tempExp = unpackExponent(tempPacked);
+            
+            if (Math.abs(tempExp) < FLOAT_POW10.length) {
+                final float tempMant = tempPacked >>> EXP_BITS;
+                float tempVal = tempExp < 0 ? tempMant / FLOAT_POW10[-tempExp]
+                                            : tempMant * FLOAT_POW10[tempExp];
+                if (isNegative(theBytes)) {
+                    tempVal = -tempVal;
+                }
+                
+                return tempVal;
+            }
+        }
+        
+        return Float.parseFloat(new ByteLine(theBytes).toString());
+    } // END parseFloat() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Splits a plain decimal number of the form [sign]digits[.digits][e[sign]
+     * digits] into an unsigned integer mantissa and a power of ten, packed 
+     * into a single long as (mantissa << EXP_BITS | exponent) so that no 
+     * allocation is needed per value.  Anything else, including a mantissa 
+     * with more than the passed number of significant digits, is rejected so 
+     * that the caller falls back to the JDK parser.
+     *
+     * @param theBytes The bytes of the value.
+     * @param theMaxDigits The largest number of significant digits accepted.
+     * @return The packed decimal, or -1 if the value must fall back.
+     */
+    private static long packDecimal(final ByteBuffer theBytes,
+                                    final int theMaxDigits) {
+        final int tempEnd = theBytes.limit();
+        int i = theBytes.position();
+        if (i < tempEnd && (theBytes.get(i) == '-' || theBytes.get(i) == '+')) {
+            i++;
+        }
+        
+        long tempMant = 0;
+        int tempDigits = 0;
+        int tempExp = 0;
+        boolean tempSeenDigit = false;
+        boolean tempSeenPoint = false;
+        for (; i < tempEnd; i++) {
+            final byte tempByte = theBytes.get(i);
+            
+            if (tempByte >= '0' && tempByte <= '9') {
+                tempSeenDigit = true;
+                if (tempMant != 0 || tempByte != '0') {
+                    if (++tempDigits > theMaxDigits) {
+                        return -1L;
+                    }
+                    tempMant = tempMant * 10 + (tempByte - '0');
+                }
+                if (tempSeenPoint) {
+                    tempExp--;
+                }
+            } else if (tempByte == '.' && !tempSeenPoint) {
+                tempSeenPoint = true;
+            } else if (tempByte == 'e' || tempByte == 'E') {
+                break;
+            } else {
+                return -1L;
+            }
+        } // END for LOOP
+        
+        if (!tempSeenDigit) {
+            return -1L;
+        }
+        
+        if (i < tempEnd) {
+            final ByteBuffer tempExpBytes = theBytes.duplicate();
+            tempExpBytes.position(i + 1);
+            if (tempExpBytes.remaining() == 0 || tempExpBytes.remaining() > 4) {
+                return -1L;
+            }
+            try {
+                tempExp += parseInt(tempExpBytes);
+            } catch (final NumberFormatException exception) {
+                return -1L;
+            } // END try/catch BLOCK
+        }
+        
+        if (Math.abs(tempExp) > MAX_EXP) {
+            return -1L;
+        }
+        
+        return tempMant << EXP_BITS | (tempExp & ((1 << EXP_BITS) - 1));
+    } // END packDecimal() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the signed exponent held in the low bits of a packed decimal.
+     *
+     * @param thePacked A packed decimal created by packDecimal().
+     * @return The power of ten of the packed decimal.
+     */
+    private static int unpackExponent(final long thePacked) {
+        return (int) (thePacked << (Long.SIZE - EXP_BITS) >> (Long.SIZE - EXP_BITS));
+    }
+    
+    /**
+     * Returns true if the passed bytes start with a minus sign.
+     *
+     * @param theBytes The bytes of the value.
+     * @return true if the value is negative.
+     */
+    private static boolean isNegative(final ByteBuffer theBytes) {
+        return theBytes.hasRemaining() && theBytes.get(theBytes.position()) == '-';
+    }
+    
+    /**
+     * Creates the exception thrown for bytes that are not a valid number.
+     *
+     * @param theBytes The bytes of the value.
+     * @return The exception to be thrown.
+     */
+    private static NumberFormatException invalid(final ByteBuffer theBytes) {
+        return new NumberFormatException("For input string: \""
+                                         + new ByteLine(theBytes) + "\"");
+    }
+    
+    
+} // END ByteParser.java CLASS
@@ -0,0 +1,189 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes and verifies the hash of a file incrementally, as the lines of the
+ * file are streamed in, using the hash algorithm declared by the file itself.
+ * The hash of a file is the digest of the bytes of every line before the line
+ * holding the hash, each without its line terminator.  MessageDigest
+ * instances are cached per thread and per algorithm, so verifying a file
+ * neither looks up the algorithm again nor allocates a new digest.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class FileHashVerifier {
+    
+// CLASS CONSTANTS
+    /** Per-thread cache of idle MessageDigest instances, by algorithm. */
+    private static final ThreadLocal<Map<String, Deque<MessageDigest>>> DIGESTS =
+            ThreadLocal.withInitial(HashMap::new);
+    
+    /** Radix of the hexadecimal form of a hash. */
+    private static final int HEX = 16;
+    
+    
+// CLASS VARIABLES
+    /** The name of the hash algorithm declared by the file. */
+    private final String myHashAlgo;
+    
+    /** The digest being updated with the lines of the file, or null. */
+    private MessageDigest myDigest;
+    
+    /** The computed hash, once finish() has been called. */
+    private byte[] myComputedHash;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a verifier which hashes with the passed algorithm.  If the
+     * algorithm is not available, a message is printed and the verifier will
+     * never report a match.
+     *
+     * @param theHashAlgo The name of the hash algorithm declared by the file.
+     */
+    public FileHashVerifier(final String theHashAlgo) {
+        myHashAlgo = theHashAlgo;
+        
+        try {
+            myDigest = acquire(theHashAlgo);
+        } catch (final NoSuchAlgorithmException exception) {
+            System.out.println("No Such Algorithm Exception for a "
+                               + "CRYPTOGRAPHIC ALGORITHM "
+                               + exception.getMessage());
+        } // END try/catch BLOCK
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Updates the hash with the bytes of a line, consuming the passed buffer.
+     *
+     * @param theLine The bytes of the line, without its terminator.
+     */
+    public void update(final ByteBuffer theLine) {
+        if (myDigest != null) {
+            myDigest.update(theLine);
+        }
+    } // END update() METHOD
+    
+    /**
+     * Completes the hash and returns the digest to the per-thread cache.
+     *
+     * @return The computed hash, or null if the algorithm is not available.
+     */
+    public byte[] finish() {
+        if (myDigest != null) {
+            myComputedHash = myDigest.digest();
+            release(myDigest);
+            myDigest = null;
+        }
+        
+        return myComputedHash;
+    } // END finish() METHOD
+    
+    /**
+     * Completes the hash, if not already done, and compares it to the passed
+     * hash imported from the file.
+     *
+     * @param theImportedHash The hash, as hexadecimal or Base64 text.
+     * @return true if the computed and imported hashes are equal.
+     */
+    public boolean matches(final String theImportedHash) {
+        final byte[] tempComputed = myComputedHash == null ? finish() : myComputedHash;
+        final byte[] tempImported = decodeHash(theImportedHash);
+        
+        return tempComputed != null && tempImported != null
+               && MessageDigest.isEqual(tempImported, tempComputed);
+    } // END matches() METHOD
+    
+    /**
+     * Getter for the name of the hash algorithm.
+     *
+     * @return myHashAlgo
+     */
+    public String getHashAlgo() {
+        return myHashAlgo;
+    }
+    
+    /**
+     * Takes a MessageDigest for the passed algorithm from the cache of the
+     * calling thread, creating one only if the cache has none idle.  Digests
+     * taken from the cache are not shared, so nested use is safe.
+     *
+     * @param theAlgo The name of the hash algorithm.
+     * @return A reset MessageDigest for the algorithm.
+     * @throws NoSuchAlgorithmException If the algorithm is not available.
+     */
+    public static MessageDigest acquire(final String theAlgo)
+                                        throws NoSuchAlgorithmException {
+        final Deque<MessageDigest> tempIdle = DIGESTS.get().get(theAlgo);
+        
+        if (tempIdle == null || tempIdle.isEmpty()) {
+            return MessageDigest.getInstance(theAlgo);
+        }
+        return tempIdle.pop();
+    } // END acquire() METHOD
+    
+    /**
+     * Resets the passed MessageDigest and returns it to the cache of the
+     * calling thread.
+     *
+     * @param theDigest A digest taken with acquire().
+     */
+    public static void release(final MessageDigest theDigest) {
+        theDigest.reset();
+        DIGESTS.get().computeIfAbsent(theDigest.getAlgorithm(),
+                                      key -> new ArrayDeque<>()).push(theDigest);
+    } // END release() METHOD
+    
+    /**
+     * Decodes a hash written as hexadecimal text, or failing that as Base64.
+     *
+     * @param theHash The text of the hash.
+     * @return The bytes of the hash, or null if the text is neither.
+     */
+    public static byte[] decodeHash(final String theHash) {
+        if (theHash == null) {
+            return null;
+        }
+        
+        final String tempHash = theHash.trim();
+        if (tempHash.length() % 2 == 0) {
+            final byte[] tempBytes = new byte[tempHash.length() / 2];
+            boolean tempHex = true;
+            
+            for (int i = 0; i < tempBytes.length && tempHex; i++) {
+                final int tempHi = Character.digit(tempHash.charAt(2 * i), HEX);
+                final int tempLo = Character.digit(tempHash.charAt(2 * i + 1), HEX);
+                tempHex = tempHi >= 0 && tempLo >= 0;
+                tempBytes[i] = (byte) (tempHi << 4 | tempLo);
+            } // END for LOOP
+            
+            if (tempHex) {
+                return tempBytes;
+            }
+        }
+        
+        try {
+            return Base64.getDecoder().decode(tempHash);
+        } catch (final IllegalArgumentException exception) {
+            return null;
+        } // END try/catch BLOCK
+    } // END decodeHash() METHOD
+    
+    
+} // END FileHashVerifier.java CLASS
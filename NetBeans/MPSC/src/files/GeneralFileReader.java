@@ -6,12 +6,17 @@ package files;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Provides a file reading utility class to read from an input file, specified 
- * by its filename, and store the resulting data in a String array.  
+ * by its filename, and store the resulting data in a String array.  For large 
+ * files the streamIt() method instead provides a memory-mapped line source, 
+ * which never holds the content of the file on the heap.  
  * 
  * @author Jonathan McFadden (mcfaddja@uw.edu)
  * @version 0.1.1
@@ -102,5 +107,32 @@ public class GeneralFileReader {
         return this.getIt();
     } // END readItGetIt() METHOD
     
+    /**
+     * Method to open a streaming, memory-mapped line source over the file 
+     * specified by the filename passed to the constructor.  Unlike readIt(), 
+     * the lines are not stored by this reader, and each line is handed out as 
+     * a zero-copy slice of the mapped file.  The caller is responsible for 
+     * closing the returned source.
+     * 
+     * @return A MappedLineReader positioned at the first line of the file.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public MappedLineReader streamIt() throws IOException {
+        return new MappedLineReader(myFileName);
+    } // END streamIt() METHOD
+    
+    /**
+     * Method to open a read-only FileChannel over the file specified by the 
+     * filename passed to the constructor, so that callers may stream separate 
+     * byte ranges of the file, for example from several threads at once.  The 
+     * caller is responsible for closing the returned channel.
+     * 
+     * @return A read-only FileChannel over the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public FileChannel openChannel() throws IOException {
+        return FileChannel.open(Paths.get(myFileName), StandardOpenOption.READ);
+    } // END openChannel() METHOD
+    
     
 } // END GeneralFileReader.java CLASS
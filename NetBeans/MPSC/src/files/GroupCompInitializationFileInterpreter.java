@@ -3,27 +3,28 @@
  */
 package files;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.X509EncodedKeySpec;
-import java.util.ArrayList;
+import java.util.Base64;
+import java.util.stream.IntStream;
+import network.AddressResolver;
 
 /**
  * Utility class which creates a reader and interpreter to read and then 
  * interpret the data from a file whose filename is passed via the 
  * constructor.  This class calls methods from the 'GeneralFileReader' to 
- * carry out the reading of the file into a string array.  Once the data is 
- * in the string array, this class will interpret the data from the string 
- * array based on the assumption that the read file follows the specified 
- * format for a "Group Computation Initialization Information File".
+ * stream the lines of the file from a memory-mapped line source.  As the 
+ * lines stream in, this class will interpret them based on the assumption 
+ * that the read file follows the specified format for a "Group Computation 
+ * Initialization Information File".
  * 
  * @author Jonathan McFadden (mcfaddja@uw.edu)
  * @version 0.1.1
@@ -37,28 +38,52 @@ public class GroupCompInitializationFileInterpreter {
      */
     private static final int LIST_START = 4;
     
+    /** Int constant for the number of header lines before the list of players. */
+    private static final int HEADER_LINES = LIST_START;
+    
     /** String constant for the IP address error message. */
     private static final String IP_ERR = "IP Address Error at index ";
     
-    /** 
-     * Int constant for holding number of lines of info for each player
-     *  in the imported raw data from the file.
-     */
-    private static final int LNS_PER_PLYR = 3;
-    
     /** String constant holding the String identifier for the RSA cryptographic algorithm. */
     private static final String RSA_NAME = "RSA";
     
+    /** String constant holding the String identifier for the RSA signature algorithm. */
+    private static final String SIG_NAME = "SHA256withRSA";
+    
+    /** Int constant for the smallest group whose keys are decoded in parallel. */
+    private static final int PARALLEL_MIN = 16;
+    
+    /** 
+     * Per-thread RSA KeyFactory, so that a KeyFactory is looked up only once 
+     *  per thread rather than once per player.
+     */
+    private static final ThreadLocal<KeyFactory> KEY_FACTORIES = 
+            ThreadLocal.withInitial(GroupCompInitializationFileInterpreter::newKeyFactory);
+    
     
 // CLASS VARIABLES
     /** String with the name of the file to be read and interpreted. */
     private final String myFileName;
     
+    /** The resolver used to resolve the IP addresses of the players. */
+    private final AddressResolver myResolver;
+    
     /** Instance of the GeneralFileReader class to read the raw file data. */
     private GeneralFileReader myGenReader;
     
-    /** String array with the raw data read in from the file. */
-    private final String[] myRawData;
+    /** 
+     * Boolean which is TRUE once the player list and hash of the file have 
+     *  been interpreted.  It is written last, so that every field set while 
+     *  interpreting the file is visible to any thread which reads it as TRUE.
+     */
+    private volatile boolean myLoaded;
+    
+    /** 
+     * Boolean which is TRUE once interpreting the player list and hash of the 
+     *  file has been attempted, whether or not it succeeded, so that a file 
+     *  which fails to load is not interpreted again on every access.
+     */
+    private volatile boolean myAttempted;
     
     /** A string representation of the function that will be computed. */
     private String myFuncStr;
@@ -73,29 +98,22 @@ public class GroupCompInitializationFileInterpreter {
     private int myGrpSize;
     
     /** 
-     * A 2D String array holding the initial interpretation of values in the 
-     *  list of UIDs, IP addressees, and Public Keys for every player in the 
-     *  group.
+     * The registry holding the UIDs, IP addresses, public keys, and Signature 
+     *  objects of every player in the group, in columns indexed by player.
      */
-    private String[][] myPlyrsNinfo;
-    
-    /** An array of BigIntegers holding the UIDs of every player. */
-    private BigInteger[] myPlyrsUIDs;
-    
-    /** Array of InetAddress object holding the IP addresses of all players. */
-    private InetAddress[] myPlyrsAddrs;
+    private PlayerRegistry myPlyrs;
     
     /** 
-     * An ArrayList of byte arrays to help import, convert, and store the 
-     *  public keys of all the players as instances of the "PublicKey" class.
+     * The host names or IP addresses of the players, held only until they 
+     *  are resolved.
      */
-    private ArrayList<byte[]> myPlyrPubKeyBytes;
-
-    /** Array of Public Key objects holding the public keys of every player. */
-    private PublicKey[] myPlyrPubKeys;
+    private String[] myPlyrHosts;
     
-    /** Array of Signature objects holding the signatures of every player. */
-    private Signature[] myPlyrSigs;
+    /** 
+     * The X.509 encoded public keys of the players, held only until they are 
+     *  decoded.
+     */
+    private byte[][] myPlyrPubKeyBytes;
     
     /** String with the Algorithm used to generate the hash of the file. */
     private String myHashAlgo;
@@ -103,13 +121,15 @@ public class GroupCompInitializationFileInterpreter {
     /** String holding the hash read in from the file. */
     private String myImportedHash;
     
-    /** Byte Array holding the hash read in from the file. */
-    private byte[] myImportedHashBytes;
-    
-    /** MessageDigest Object holding the hash read in from the file. */
-    private MessageDigest myImportedHashMsgDigest;
+    /** 
+     * FileHashVerifier which is updated with each line of the file as it is 
+     *  streamed in, using the algorithm declared by the file, to compute the 
+     *  hash of the file without a second pass.  It is null while only the 
+     *  header of the file is read.
+     */
+    private FileHashVerifier myHashVerifier;
     
-    /** Byte Array holding the hash read in from the file. */
+    /** Byte Array holding the hash computed from the file. */
     private byte[] myComputedHashBytes;
     
     /** Boolean holding the result of comparing the imported and computed hashes. */
@@ -128,19 +148,157 @@ public class GroupCompInitializationFileInterpreter {
      *  use in initializing the Group Computation.
      */
     public GroupCompInitializationFileInterpreter(final String theFileName) {
+        this(theFileName, AddressResolver.getDefault());
+    }
+    
+    /**
+     * Creates a file reader specific to importing data for initializing the 
+     *  Group Computation from the specified file, resolving the IP addresses 
+     *  of the players with the passed resolver.
+     * 
+     * @param theFileName Name of the file holding the data to be imported for 
+     *  use in initializing the Group Computation.
+     * @param theResolver The resolver for the IP addresses of the players.
+     */
+    public GroupCompInitializationFileInterpreter(final String theFileName, 
+                                                  final AddressResolver theResolver) {
+        this(theFileName, theResolver, false);
+    }
+    
+    /**
+     * Creates a file reader specific to importing data for initializing the 
+     *  Group Computation from the specified file.  In the lazy mode only the 
+     *  header of the file (the function, its data type, the initialization 
+     *  key, and the group size) is interpreted by the constructor, and the 
+     *  player list and hash of the file are interpreted the first time any of 
+     *  them is asked for.
+     * 
+     * @param theFileName Name of the file holding the data to be imported for 
+     *  use in initializing the Group Computation.
+     * @param theLazy TRUE to interpret the player list and hash on demand.
+     */
+    public GroupCompInitializationFileInterpreter(final String theFileName, 
+                                                  final boolean theLazy) {
+        this(theFileName, AddressResolver.getDefault(), theLazy);
+    }
+    
+    /**
+     * Creates a file reader specific to importing data for initializing the 
+     *  Group Computation from the specified file, resolving the IP addresses 
+     *  of the players with the passed resolver, and interpreting the player 
+     *  list and hash of the file either now or, in the lazy mode, the first 
+     *  time any of them is asked for.
+     * 
+     * @param theFileName Name of the file holding the data to be imported for 
+     *  use in initializing the Group Computation.
+     * @param theResolver The resolver for the IP addresses of the players.
+     * @param theLazy TRUE to interpret the player list and hash on demand.
+     */
+    public GroupCompInitializationFileInterpreter(final String theFileName, 
+                                                  final AddressResolver theResolver, 
+                                                  final boolean theLazy) {
         myFileName = theFileName;
+        myResolver = theResolver;
         
         myGenReader = new GeneralFileReader(myFileName);
-        myRawData = myGenReader.readItGetIt();
         
-        readAndParseThem();
-        loadPlyrKeysTasks();
-        hashTaskRunner();
+        if (theLazy) {
+            readHeaderOnly();
+        } else {
+            loadAll(false);
+        }
     }
     
     
+    
 // PRIVATE HELPER METHODS FOR THE CONSTRUCTOR
     
+    /**
+     * Private helper method for the CONSTRUCTOR in the lazy mode, which 
+     *  streams in and interprets only the header lines of the file.
+     */
+    private void readHeaderOnly() {
+        try (MappedLineReader in = myGenReader.streamIt()) {
+            readHeader(in);
+        } catch (final IOException | RuntimeException exception) {
+            System.out.println("IO input error" + exception.getMessage());
+            myAttempted = true;
+        } // END try/catch BLOCK
+    } // END readHeaderOnly() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper method which streams in the file and interprets the 
+     *  player list and hash of the file, along with the header unless it was 
+     *  already interpreted in the lazy mode, in which case its lines are only 
+     *  hashed.  The file is marked as loaded only if it is interpreted 
+     *  without an error.
+     * 
+     * @param theHeaderRead TRUE if the header was already interpreted.
+     */
+    private void loadAll(final boolean theHeaderRead) {
+        try (MappedLineReader in = myGenReader.streamIt()) {
+            startFileHash(in);
+            if (theHeaderRead) {
+                for (int i = 0; i < HEADER_LINES; i++) {
+                    nextHashedLine(in);
+                }
+            } else {
+                readHeader(in);
+            }
+            readAndParseThem(in);
+            loadPlyrKeysTasks();
+            hashTaskRunner(in);
+            myLoaded = true;
+        } catch (final IOException | RuntimeException exception) {
+            System.out.println("IO input error" + exception.getMessage());
+        } finally {
+            myAttempted = true;
+        } // END try/catch/finally BLOCK
+    } // END loadAll() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper method which interprets the player list and hash of the 
+     *  file the first time any of them is asked for in the lazy mode.  Only 
+     *  one thread interprets them; any other thread asking at the same time 
+     *  waits for it to finish.
+     */
+    private void attemptLoad() {
+        if (!myAttempted) {
+            synchronized (this) {
+                if (!myAttempted) {
+                    loadAll(true);
+                }
+            } // END synchronized BLOCK
+        }
+    } // END attemptLoad() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper method which interprets the player list and hash of the 
+     *  file, as attemptLoad() does, for a getter which needs them.
+     * 
+     * @throws IllegalStateException If the file could not be interpreted.
+     */
+    private void ensureLoaded() {
+        attemptLoad();
+        if (!myLoaded) {
+            throw new IllegalStateException("group file not loaded: " + myFileName);
+        }
+    } // END ensureLoaded() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper method which creates the RSA KeyFactory of a thread.
+     * 
+     * @return A new RSA KeyFactory.
+     */
+    private static KeyFactory newKeyFactory() {
+        try {
+            return KeyFactory.getInstance(RSA_NAME);
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("No Such Algorithm Exception for " 
+                                            + RSA_NAME, exception);
+        } // END try/catch BLOCK
+    } // END newKeyFactory() PRIVATE HELPER METHOD
+    
   // PRIVATE HELPERS FOR IMPORTING RAW PLAYER DATA
     /**
      * Private helper method for the CONSTRUCTOR.  This method is called 
@@ -148,96 +306,85 @@ public class GroupCompInitializationFileInterpreter {
      *  representation of the GROUP-FUNCTION & the DATA-TYPE used by the GROUP-
      *  -FUNCTION into their own String variables, import and parse from a  
      *  String to a BigInteger the GROUP-COMPUTATION-INITIALIZATION-KEY into 
-     *  its own BigInteger variable, import and parse from a String to an int 
-     *  the GROUP-SIZE into its own integer(int) variable, and then itself call 
-     *  a series of additional private helper methods for performing tasks 
-     *  related to the importation, parsing, and storage of raw input file 
-     *  data, UIDs, and IP addresses of the players.  All input data (or raw 
-     *  data) used by this method, or any of the helper methods it calls, is 
-     *  obtained from the raw file data read by the CONSTRUCTOR during 
-     *  initialization.  The private helpers called by this method are the 
-     *  loadPlyrData2D(), loadPlyrUIDs(), and loadPlyrAddrs().
-     */
-    private void readAndParseThem() {
-        myFuncStr = myRawData[0];
-        myFuncDataType = myRawData[1];
+     *  its own BigInteger variable, and import and parse from a String to an 
+     *  int the GROUP-SIZE into its own integer(int) variable.
+     * 
+     * @param theLines The streaming line source over the file.
+     */
+    private void readHeader(final MappedLineReader theLines) {
+        myFuncStr = nextHashedLine(theLines);
+        myFuncDataType = nextHashedLine(theLines);
         
-        final String temp = myRawData[2];
+        final String temp = nextHashedLine(theLines);
         myGrpCompInitKey = new BigInteger(temp);
         
-        myGrpSize = Integer.parseInt(myRawData[LNS_PER_PLYR]);
+        myGrpSize = Integer.parseInt(nextHashedLine(theLines));
+    } // END readHeader() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper method for the CONSTRUCTOR.  This method is called 
+     *  after the header has been interpreted, and itself calls a series of 
+     *  additional private helper methods for performing tasks related to the 
+     *  importation, parsing, and storage of raw input file data, UIDs, and IP 
+     *  addresses of the players.  All input data (or raw data) used by this 
+     *  method, or any of the helper methods it calls, is obtained from the 
+     *  lines of the file streamed in.  The private helpers called by this 
+     *  method are the loadPlyrLines() and loadPlyrAddrs().
+     * 
+     * @param theLines The streaming line source over the file.
+     */
+    private void readAndParseThem(final MappedLineReader theLines) {
+        myPlyrs = new PlayerRegistry(myGrpSize);
         
-        loadPlyrData2D();
-        loadPlyrUIDs();
+        loadPlyrLines(theLines);
         loadPlyrAddrs();
     } // END readAndParseThem() PRIVATE HELPER METHOD
 
     /**
      * Private helper method for the CONSTRUCTOR.  This method is called by 
      *  readAndParseThem(), a private helper method which is directly called by 
-     *  the CONSTRUCTOR.  This method, loadPlyrData2D(), parses data from the 
-     *  raw input data into a 2D array of Strings, where the raw inport data is 
-     *  read from the input file and stored in the myRawData String arrat by 
-     *  the CONSTRUCTOR during initialization.  The 2D array of Strings parsed 
-     *  by this file holds the initial interpretation of values in the 
-     *  list of UIDs, IP addressees, and Public Keys for every player in the 
-     *  group.
-     */
-    private void loadPlyrData2D() {
-        myPlyrsNinfo = new String[myGrpSize][LNS_PER_PLYR];
-        
-        for (int i = 0; i < myGrpSize; i++) {
-            for (int j = 0; j < LNS_PER_PLYR; j++) {
-                myPlyrsNinfo[i][j] = myRawData[LIST_START + i * LNS_PER_PLYR + j];
-            } // END for LOOP (INDEX j)
-        } // END for LOOP (INDEX i)
-    } // END loadPlyrData2D() PRIVATE HELPER METHOD
-
-    /**
-     * Private helper method for the CONSTRUCTOR.  This method is called by 
-     *  readAndParseThem(), a private helper method which is directly called by 
-     *  the CONSTRUCTOR.  This method, loadPlyrUIDs(), imports the data on the 
-     *  UIDs of players into an array specifically for holding player UIDs. 
-     *  The data is imported from the array loaded by the loadPlyrData2D() 
-     *  private helper method parsed to the BigInteger data type, and then 
-     *  loaded into the array specifically for holding player UIDs, which is an 
-     *  array of BigIntegers.  This method is indirectly called by the 
-     *  CONSTRUCTOR, as this method is called directly by the runAndParseThem() 
-     *  private helper method which the CONSTRUCTOR directly calls.
-     */
-    private void loadPlyrUIDs() {
-        myPlyrsUIDs = new BigInteger[myGrpSize];
+     *  the CONSTRUCTOR.  This method, loadPlyrLines(), interprets the three 
+     *  lines streamed in for each player, starting at the line with index 
+     *  LIST_START, as they arrive.  The UID of each player is parsed straight 
+     *  into the player registry, which stores it as a long when it fits, 
+     *  while the host of each player and the Base64 decoded bytes of its 
+     *  public key are held only until they are resolved and decoded.
+     * 
+     * @param theLines The streaming line source over the file.
+     */
+    private void loadPlyrLines(final MappedLineReader theLines) {
+        myPlyrHosts = new String[myGrpSize];
+        myPlyrPubKeyBytes = new byte[myGrpSize][];
         
         for (int i = 0; i < myGrpSize; i++) {
-            myPlyrsUIDs[i] = new BigInteger(myPlyrsNinfo[i][0]);
+            final String tempUID = nextHashedLine(theLines);
+            if (!myPlyrs.setUID(i, tempUID)) {
+                System.out.println("Duplicate UID " + tempUID + " at index " + i);
+            }
+            
+            myPlyrHosts[i] = nextHashedLine(theLines);
+            myPlyrPubKeyBytes[i] = decodeKeyBytes(nextHashedLine(theLines));
         } // END for LOOP
-    } // END loadPlyrUIDs() PRIVATE HELPER METHOD
+    } // END loadPlyrLines() PRIVATE HELPER METHOD
     
     /**
      * Private helper method for the CONSTRUCTOR.  This method is called by 
      *  readAndParseThem(), a private helper method which is directly called by 
      *  the CONSTRUCTOR.  This method, loadPlyrAddrs(), imports the data on the 
-     *  IP addresses of players into an array specifically for holding player 
-     *  IP addresses.  The data is imported from the array loaded by the 
-     *  loadPlyrData2D() private helper method parsed to the InetAddress data 
-     *  type, and then loaded into the array specifically for holding player 
-     *  IP addresses, which is an array of InetAddresses.  This method is 
-     *  indirectly called by the CONSTRUCTOR, as this method is called directly 
+     *  IP addresses of players into the player registry.  The hosts streamed 
+     *  in by the loadPlyrLines() private helper method are resolved to the 
+     *  InetAddress data type, and then loaded into the column of the player 
+     *  registry holding player IP addresses.  Literal addresses are 
+     *  parsed directly, and host names are looked up concurrently by the 
+     *  AddressResolver, so one slow lookup does not stall the others.  This 
+     *  method is indirectly called by the CONSTRUCTOR, as this method is called directly 
      *  by the runAndParseThem() private helper method which the CONSTRUCTOR 
      *  directly calls.
      */
     private void loadPlyrAddrs() {
-        myPlyrsAddrs = new InetAddress[myGrpSize];
-        
-        for (int i = 0; i < myGrpSize; i++) {
-            
-            try {
-                myPlyrsAddrs[i] = InetAddress.getByName(myPlyrsNinfo[i][1]);
-            } catch (final UnknownHostException exception) {
-                System.out.println(IP_ERR + i + exception.getMessage());
-            } // END try/catch BLOCK
-            
-        } // END for LOOP
+        myPlyrs.setAddrs(myResolver.resolveAll(myPlyrHosts, (exception, i) -> 
+                System.out.println(IP_ERR + i + exception.getMessage())));
+        myPlyrHosts = null;
     } // END loadPlyrAddrs() PRIVATE HELPER METHOD
 
   // PRIVATE HELPERS RELATED TO PLAYER KEYS
@@ -249,78 +396,130 @@ public class GroupCompInitializationFileInterpreter {
      *  keys for each player.
      */
     private void loadPlyrKeysTasks() {
-        makeByteArrays();
         makePubKeys();
+        myPlyrPubKeyBytes = null;
     } // END loadPlyrKeysTasks() PRIVATE METHOD
     
     /**
-     * Private helper method for the CONSTRUCTOR.  This method is called by 
-     *  loadPlyrKeysTasks(), a private helper method which is directly called 
-     *  by the CONSTRUCTOR.  This method, makeByteArrays(), gets the Strings 
-     *  holding the encoded public keys for each player, converts the Strings 
-     *  to byte arrays and stores them in a array of byte arrays for later use.
+     * Private helper method which decodes the Base64 String holding an X.509 
+     *  encoded public key.  A String which is not valid Base64 is returned as 
+     *  its raw bytes, which the KeyFactory will then report as invalid.
+     * 
+     * @param theKeyStr The Base64 encoded public key.
+     * @return The X.509 encoded public key.
      */
-    private void makeByteArrays() {
-        myPlyrPubKeyBytes = new ArrayList<byte[]>();
-        
-        for (int i = 0; i < myGrpSize; i++) {
-            myPlyrPubKeyBytes.add(myPlyrsNinfo[i][2].getBytes());
-        }
-    } // END makeByteArrays() PRIVATE HELPER METHOD
+    private static byte[] decodeKeyBytes(final String theKeyStr) {
+        try {
+            return Base64.getDecoder().decode(theKeyStr.trim());
+        } catch (final IllegalArgumentException exception) {
+            return theKeyStr.getBytes();
+        } // END try/catch BLOCK
+    } // END decodeKeyBytes() PRIVATE HELPER METHOD
     
     /**
      * Private helper method for the CONSTRUCTOR.  This method is called by 
      *  loadPlyrKeysTasks(), a private helper method which is directly called 
-     *  by the CONSTRUCTOR.  This method, makePubKeys(), uses the array of byte 
-     *  arrays holding the encoded public keys for the players to generate 
-     *  PublicKey and Signature objects for each of the players, storing them 
-     *  in separate arrays with one for PublicKey objects and the other for 
-     *  Signature objects.
+     *  by the CONSTRUCTOR.  This method, makePubKeys(), uses the byte arrays 
+     *  holding the encoded public keys for the players to generate PublicKey 
+     *  and Signature objects for each of the players, storing them in the 
+     *  columns of the player registry for PublicKey objects and for Signature 
+     *  objects.  For groups of at least PARALLEL_MIN players the 
+     *  keys are decoded in parallel on the common fork-join pool, with each 
+     *  worker thread reusing its own KeyFactory.  Keys already decoded for an 
+     *  earlier group are taken from the process-wide PublicKeyCache.
      */
     private void makePubKeys() {
-        // Get size of byte arrays with encoded public keys
-        final int tempSize = myPlyrPubKeyBytes.get(0).length;
+        // Load the public keys and signatures of each player
+        IntStream tempPlyrs = IntStream.range(0, myGrpSize);
+        if (myGrpSize >= PARALLEL_MIN) {
+            tempPlyrs = tempPlyrs.parallel();
+        }
+        tempPlyrs.forEach(this::makePubKey);
+    } // END makePubKeys() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper method which decodes the public key of a single player 
+     *  and creates the Signature object used to verify that player, storing 
+     *  each in the slot for the player.  This method may be called for 
+     *  different players from several threads at once.
+     * 
+     * @param thePlyr The index of the player.
+     */
+    private void makePubKey(final int thePlyr) {
+        if (myPlyrPubKeyBytes[thePlyr] == null) {
+            // No valid key was recorded for the player in the snapshot
+            return;
+        }
         
-        // Create a 2D byte array to hold the keys of all players [plyr][key]
-        final byte[][] tempByteKeyArray = new byte[myGrpSize][tempSize];
-        // Covert imported player encoded public keys from Strings 
-        //      and load into "tempByteKeyArray" for later use and conversion.
-        for (int i = 0; i < myGrpSize; i++) {
-            tempByteKeyArray[i] = myPlyrPubKeyBytes.get(i);
-        } // END FIRST for LOOP OF METHOD
+        try {
+            final PublicKey tempPubKey = PublicKeyCache.getShared().getPublicKey(
+                    KEY_FACTORIES.get(), myPlyrPubKeyBytes[thePlyr]);
+            final Signature tempSig = Signature.getInstance(SIG_NAME);
+            tempSig.initVerify(tempPubKey);
+            myPlyrs.setKey(thePlyr, tempPubKey, tempSig);
+        } catch (final NoSuchAlgorithmException exception1) {
+            System.out.println("No Such Algrogristm Exception for "
+                                    + exception1.getMessage());
+        } catch (final InvalidKeySpecException exception2) {
+            System.out.println("Invaide Key Spec Exception from a "
+                                    + "X509EncodedKeySpec KEY SPEC " 
+                                    + exception2.getMessage());
+        } catch (final InvalidKeyException exception3) {
+            System.out.println("Invaide Key Exception from a "
+                                    + "PUBLIC KEY KEY " 
+                                    + exception3.getMessage());
+        } // END THIRD catch BLOCK
+        // END try/catch BLOCK
+    } // END makePubKey() PRIVATE HELPER METHOD
+    
+  // PRIVATE HELPERS FOR SNAPSHOTS
+    /**
+     * Private helper method which loads the player list from the binary 
+     *  snapshot of the file, in place of interpreting the rest of the file, 
+     *  if there is a whole snapshot taken from the file as it is now.  The 
+     *  hash declared by the file was verified when the snapshot was taken, 
+     *  and the snapshot is checked against its own digest, so the file is 
+     *  not hashed again.  Only the public keys are decoded, from the 
+     *  encoded keys held in the snapshot.
+     * 
+     * @return TRUE if the snapshot was loaded.
+     */
+    private synchronized boolean loadSnapshot() {
+        if (myAttempted || myGrpCompInitKey == null) {
+            return false;
+        }
         
-        // Create arrays for the public keys and signatures of each player
-        myPlyrPubKeys = new PublicKey[myGrpSize];
-        myPlyrSigs = new Signature[myGrpSize];
-        // Load the arrays for the public keys and signatures of each player
-        for (int i = 0; i < myGrpSize; i++) {
-            // Temporary KeyFactories and X509EncodedKeySpec variables
-            final KeyFactory tempKeyFactory;
-            final X509EncodedKeySpec tempKeySpec;
+        try (MappedLineReader in = myGenReader.streamIt()) {
+            final String[] tempTail = in.peekLastLines(2);
+            if (tempTail.length < 2) {
+                return false;
+            }
+            
+            final byte[] tempHash = FileHashVerifier.decodeHash(tempTail[1]);
+            final PlayerRegistry tempPlyrs = new PlayerRegistry(myGrpSize);
+            final byte[][] tempKeyBytes = new byte[myGrpSize][];
+            if (!GroupSnapshot.read(myFileName, tempTail[0], tempHash, 
+                                    tempPlyrs, tempKeyBytes)) {
+                return false;
+            }
+            
+            myPlyrs = tempPlyrs;
+            myPlyrPubKeyBytes = tempKeyBytes;
+            loadPlyrKeysTasks();
             
-            try {
-                tempKeyFactory = KeyFactory.getInstance(RSA_NAME);
-                tempKeySpec = new X509EncodedKeySpec(tempByteKeyArray[i]);
-                
-                myPlyrPubKeys[i] = tempKeyFactory.generatePublic(tempKeySpec);
-                myPlyrSigs[i] = Signature.getInstance(RSA_NAME);
-                myPlyrSigs[i].initVerify(myPlyrPubKeys[i]);
-            } catch (final NoSuchAlgorithmException exception1) {
-                System.out.println("No Such Algrogristm Exception for "
-                                        + exception1.getMessage());
-            } catch (final InvalidKeySpecException exception2) {
-                System.out.println("Invaide Key Spec Exception from a "
-                                        + "X509EncodedKeySpec KEY SPEC " 
-                                        + exception2.getMessage());
-            } catch (final InvalidKeyException exception3) {
-                System.out.println("Invaide Key Exception from a "
-                                        + "PUBLIC KEY KEY " 
-                                        + exception3.getMessage());
-            } // END THIRD catch BLOCK
-            // END try/catch BLOCK
-        } // END SECOND for LOOP IN METHOD
+            myHashAlgo = tempTail[0];
+            myImportedHash = tempTail[1];
+            myComputedHashBytes = tempHash;
+            myTest = true;
+        } catch (final IOException exception) {
+            System.out.println("IO input error" + exception.getMessage());
+            return false;
+        } // END try/catch BLOCK
         
-    } // END makePubKeys() PRIVATE HELPER METHOD
+        myLoaded = true;
+        myAttempted = true;
+        return true;
+    } // END loadSnapshot() PRIVATE HELPER METHOD
     
   // PRIVATE HELPERS FOR HASHES
     /**
@@ -329,10 +528,12 @@ public class GroupCompInitializationFileInterpreter {
      *  series of additional private helper methods for performing tasks 
      *  related to the importation and conversion of the hash of the file 
      *  supplied by the file.
+     * 
+     * @param theLines The streaming line source over the file.
      */
-    private void hashTaskRunner() {
-        importHashAlgo();
-        importGivenHash();
+    private void hashTaskRunner(final MappedLineReader theLines) {
+        importHashAlgo(theLines);
+        importGivenHash(theLines);
         checkHash();
     }
     
@@ -341,66 +542,145 @@ public class GroupCompInitializationFileInterpreter {
      *  hashTaskRunner(), private helper method which is directly called 
      *  by the CONSTRUCTOR.  This method, importHashAlgo(), imports and stores 
      *  the String holding the hash algorithm used to generate the file hash 
-     *  stored in the file.
+     *  stored in the file, which is the line following the player list.
+     * 
+     * @param theLines The streaming line source over the file.
      */
-    private void importHashAlgo() {
-        final int tempCnt = myRawData.length - 1 - 1;
+    private void importHashAlgo(final MappedLineReader theLines) {
+        final String temp = nextHashedLine(theLines);
         
-        myHashAlgo = myRawData[tempCnt];
+        if (!temp.equals(myHashAlgo)) {
+            System.out.println("Unexpected lines after the player list in " 
+                               + myFileName);
+            myHashAlgo = temp;
+            myImportedHash = null;
+        }
     }
     
     /**
      * Private helper method for the CONSTRUCTOR.  This method is called by 
      *  hashTaskRunner(), private helper method which is directly called 
      *  by the CONSTRUCTOR.  This method, importGivenHash(), imports the file 
-     *  hash supplied by the file into a String variable and then converts that 
-     *  String variable to a byte array.
+     *  hash supplied by the file.  The hash is the last line of the file and 
+     *  is the only line not included in the hash of the file; its value was 
+     *  already read from the end of the file by startFileHash(), so the line 
+     *  is only consumed here.
+     * 
+     * @param theLines The streaming line source over the file.
      */
-    private void importGivenHash() {
-        final int tempCnt = myRawData.length - 1;
-        myImportedHash = myRawData[tempCnt + 1];
-        
-        myImportedHashBytes = myImportedHash.getBytes();
+    private void importGivenHash(final MappedLineReader theLines) {
+        theLines.next();
     }
     
  
     /**
-     * Calls a private helper to compute a hash for the imported file which it then 
-     *  compares to the hash imported from the file itself, returning TRUE if they 
-     *  are equal and FALSE if they are not.
+     * Calls a private helper to complete the hash for the imported file which it 
+     *  then compares to the hash imported from the file itself, storing TRUE if 
+     *  they are equal and FALSE if they are not.
      */
     private void checkHash() {
         computeFileHash();
         
-        myTest = MessageDigest.isEqual(myImportedHashBytes, myComputedHashBytes);
+        myTest = myImportedHash != null && myHashVerifier.matches(myImportedHash);
     }
     
-  // PRIVATE HELPER TO COMPUTE THE HASH OF THE FILE
+  // PRIVATE HELPERS TO COMPUTE THE HASH OF THE FILE
     /**
-     * Private helper to compute the hash of the imported file.
+     * Private helper which reads the hash algorithm and the hash from the last 
+     *  two lines of the file, before the rest of the file is streamed in, and 
+     *  creates the FileHashVerifier used to compute the hash of the file with 
+     *  the declared algorithm as its lines are streamed in.
+     * 
+     * @param theLines The streaming line source over the file.
+     * @throws IOException If the end of the file cannot be read.
      */
-    private void computeFileHash() {
-        try {
-            myImportedHashMsgDigest = MessageDigest.getInstance("SHA-256");
-//            myImportedHashMsgDigest = MessageDigest.getInstance(myHashAlgo);
-            
-            final int totCnt = myRawData.length - 1;
-            for (int i = 0; i < totCnt; i++) {
-                myImportedHashMsgDigest.update(myRawData[i].getBytes());
-            } // END for LOOP
-            
-            myComputedHashBytes = myImportedHashMsgDigest.digest();
-        } catch (final NoSuchAlgorithmException exception) {
-            System.out.println("No Such Algrogristm Exception for a "
-                            + "CRYPTOGRAPHIC ALGORITHM " 
-                            + exception.getMessage());
-        } // END try/catch BLOCK
+    private void startFileHash(final MappedLineReader theLines) throws IOException {
+        final String[] tempTail = theLines.peekLastLines(2);
+        if (tempTail.length < 2) {
+            throw new IOException("Missing hash lines in " + myFileName);
+        }
+        
+        myHashAlgo = tempTail[0];
+        myImportedHash = tempTail[1];
+        myHashVerifier = new FileHashVerifier(myHashAlgo);
+    } // END startFileHash() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper which returns the next line streamed in from the file, 
+     *  after updating the hash of the file with the bytes of that line.
+     * 
+     * @param theLines The streaming line source over the file.
+     * @return The next line of the file.
+     */
+    private String nextHashedLine(final MappedLineReader theLines) {
+        final ByteBuffer tempLine = theLines.next();
+        final String temp = new ByteLine(tempLine).toString();
+        
+        if (myHashVerifier != null) {
+            myHashVerifier.update(tempLine);
+        }
         
+        return temp;
+    } // END nextHashedLine() PRIVATE HELPER METHOD
+    
+    /**
+     * Private helper to compute the hash of the imported file from the lines 
+     *  which were hashed as they were streamed in.
+     */
+    private void computeFileHash() {
+        myComputedHashBytes = myHashVerifier.finish();
     } // END computeFileHash() PRIVATE HELPER METHOD
     
     
     
 // PUBLIC METHODS
+    
+    /**
+     * Creates a file reader specific to importing data for initializing the 
+     *  Group Computation from the specified file, which loads the player list 
+     *  from the binary snapshot of the file when there is one taken from the 
+     *  file as it is now.  Otherwise the whole file is interpreted, and a new 
+     *  snapshot is written if the hash of the file is verified.  Only the 
+     *  header of the file and its last two lines are read when the snapshot 
+     *  is used.
+     * 
+     * @param theFileName Name of the file holding the data to be imported for 
+     *  use in initializing the Group Computation.
+     * @return The file reader for the file.
+     */
+    public static GroupCompInitializationFileInterpreter withSnapshot(final String theFileName) {
+        final GroupCompInitializationFileInterpreter temp = 
+                new GroupCompInitializationFileInterpreter(theFileName, true);
+        
+        if (!temp.loadSnapshot()) {
+            temp.writeSnapshot();
+        }
+        
+        return temp;
+    } // END withSnapshot() METHOD
+    
+    /**
+     * Writes the binary snapshot of the interpreted file to the sidecar file 
+     *  named after it, so that later loads through withSnapshot() need not 
+     *  interpret the file again.  A snapshot is only written for a file whose 
+     *  hash is verified.
+     * 
+     * @return TRUE if the snapshot was written.
+     */
+    public boolean writeSnapshot() {
+        attemptLoad();
+        if (!myLoaded || !myTest) {
+            return false;
+        }
+        
+        try {
+            GroupSnapshot.write(myFileName, myPlyrs, myHashAlgo, myComputedHashBytes);
+            return true;
+        } catch (final IOException exception) {
+            System.out.println("IO output error" + exception.getMessage());
+            return false;
+        } // END try/catch BLOCK
+    } // END writeSnapshot() METHOD
   
   // GETTERS
     /**
@@ -441,6 +721,96 @@ public class GroupCompInitializationFileInterpreter {
         return myGrpCompInitKey;
     }
     
+    /**
+     * Getter for the number of players in the group.
+     *  
+     * @return myGrpSize
+     */
+    public int getGrpSize() {
+        return myGrpSize;
+    }
+    
+    /**
+     * Getter for the UID of a player.
+     *  
+     * @param thePlyr The index of the player in the group.
+     * @return The UID of the player.
+     */
+    public BigInteger getPlyrUID(final int thePlyr) {
+        ensureLoaded();
+        return myPlyrs.getUID(thePlyr);
+    }
+    
+    /**
+     * Getter for the IP address of a player.
+     *  
+     * @param thePlyr The index of the player in the group.
+     * @return The IP address of the player, or null if it could not be resolved.
+     */
+    public InetAddress getPlyrAddr(final int thePlyr) {
+        ensureLoaded();
+        return myPlyrs.getAddr(thePlyr);
+    }
+    
+    /**
+     * Getter for the public key of a player.
+     *  
+     * @param thePlyr The index of the player in the group.
+     * @return The public key of the player, or null if it was not valid.
+     */
+    public PublicKey getPlyrPubKey(final int thePlyr) {
+        ensureLoaded();
+        return myPlyrs.getPubKey(thePlyr);
+    }
+    
+    /**
+     * Getter for the Signature object initialized to verify a player.  The 
+     *  Signature object is shared, so callers verifying from several threads 
+     *  at once must synchronize on it.
+     *  
+     * @param thePlyr The index of the player in the group.
+     * @return The Signature object of the player, or null if its key was not 
+     *  valid.
+     */
+    public Signature getPlyrSig(final int thePlyr) {
+        ensureLoaded();
+        return myPlyrs.getSig(thePlyr);
+    }
+    
+    /**
+     * Returns the index in the group of the player with the passed UID, in 
+     *  constant time.
+     *  
+     * @param theUID The UID of a player.
+     * @return The index of the player, or PlayerRegistry.NOT_FOUND.
+     */
+    public int indexOfPlyr(final BigInteger theUID) {
+        ensureLoaded();
+        return myPlyrs.indexOf(theUID);
+    }
+    
+    /**
+     * Getter for the registry of the players in the group.
+     *  
+     * @return myPlyrs
+     */
+    public PlayerRegistry getPlyrRegistry() {
+        ensureLoaded();
+        return myPlyrs;
+    }
+    
+    /**
+     * Returns TRUE once the player list and hash of the file have been 
+     *  interpreted, which in the lazy mode happens on first access, and 
+     *  FALSE if the file could not be interpreted, in which case the getters 
+     *  of the players and of the hash algorithm throw IllegalStateException.
+     *  
+     * @return myLoaded
+     */
+    public boolean isLoaded() {
+        return myLoaded;
+    }
+    
     /**
      * Getter for the String holding the name of the algorithm used to compute the 
      *  hash of the imported data file.
@@ -448,17 +818,19 @@ public class GroupCompInitializationFileInterpreter {
      * @return myHashAlgo
      */
     public String getHashAlgo() {
+        ensureLoaded();
         return myHashAlgo;
     }
     
     /**
      * Getter for the boolean holding the result of comparing the computed and 
-     *  imported hashes.
+     *  imported hashes, which is FALSE if the file could not be interpreted.
      *  
      * @return myTest
      */
     public boolean getHashCompare() {
-        return myTest;
+        attemptLoad();
+        return myLoaded && myTest;
     }
     
     
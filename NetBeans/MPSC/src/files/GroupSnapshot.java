@@ -0,0 +1,382 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+
+/**
+ * Utility class which writes and reads the binary snapshot of an interpreted
+ * "Group Computation Initialization Information File", kept in a sidecar
+ * file named after it with the SUFFIX appended.  A snapshot is only written
+ * for a file whose hash was verified, and is keyed by that hash together with
+ * the size and modification time of the file, so a snapshot is only used for
+ * exactly the file it was taken from.  All numbers are little-endian.  A
+ * snapshot holds:
+ *
+ * <pre>
+ *  MAGIC, the ASCII bytes "MPSCGSNP", and the format VERSION (short)
+ *  group size (int), file size (long), file modification time (long)
+ *  hash algorithm (short length and UTF-8 bytes), hash (short length and bytes)
+ *  for each player:
+ *    UID kind (byte, 0 for a long and 1 for a BigInteger), followed by the
+ *      long, or by an int length and the bytes of BigInteger.toByteArray()
+ *    address (byte length, 0 if unresolved, and the raw address bytes)
+ *    host name (short length and UTF-8 bytes, empty if unknown)
+ *    X.509 encoded public key (int length, 0 if invalid, and bytes)
+ *  the DIGEST_ALGO digest of every byte before it
+ * </pre>
+ *
+ * Loading a snapshot memory-maps it, checks its digest, and never resolves an
+ * address, parses a UID from text, or hashes the file again.  A snapshot
+ * whose digest does not match is ignored like a stale one.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+final class GroupSnapshot {
+    
+// CLASS CONSTANTS
+    /** The suffix appended to the name of a file to name its snapshot. */
+    static final String SUFFIX = ".snap";
+    
+    /** The magic bytes which start every snapshot. */
+    private static final byte[] MAGIC = {'M', 'P', 'S', 'C', 'G', 'S', 'N', 'P'};
+    
+    /** The version of the snapshot format written by this class. */
+    private static final short VERSION = 2;
+    
+    /** The algorithm of the digest which ends every snapshot. */
+    private static final String DIGEST_ALGO = "SHA-256";
+    
+    /** The number of bytes of the digest which ends every snapshot. */
+    private static final int DIGEST_BYTES = 32;
+    
+    /** UID kind of a UID stored as a long. */
+    private static final byte LONG_UID = 0;
+    
+    /** UID kind of a UID stored as a BigInteger. */
+    private static final byte BIG_UID = 1;
+    
+    /** Size of the buffer used to write a snapshot. */
+    private static final int WRITE_BUFFER = 1 << 16;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private GroupSnapshot() {
+        // Private Constructor
+    }
+    
+    
+    
+// PACKAGE-PRIVATE METHODS
+    /**
+     * Writes the snapshot of an interpreted file.  The snapshot is written to
+     * a temporary file which then replaces the sidecar, so a reader never
+     * sees a partly written snapshot.
+     *
+     * @param theFileName The filename of the interpreted file.
+     * @param thePlyrs The registry of the players of the group.
+     * @param theHashAlgo The name of the hash algorithm of the file.
+     * @param theHash The verified hash of the file.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    static void write(final String theFileName, final PlayerRegistry thePlyrs,
+                      final String theHashAlgo, final byte[] theHash) throws IOException {
+        final Path tempSource = Paths.get(theFileName);
+        final Path tempSnap = Paths.get(theFileName + SUFFIX);
+        final Path tempPart = Paths.get(theFileName + SUFFIX + ".part");
+        
+        try (FileChannel out = FileChannel.open(tempPart, StandardOpenOption.CREATE,
+                                                StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer tempBuf = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            tempBuf.order(ByteOrder.LITTLE_ENDIAN);
+            
+            tempBuf.put(MAGIC);
+            tempBuf.putShort(VERSION);
+            tempBuf.putInt(thePlyrs.getSize());
+            tempBuf.putLong(Files.size(tempSource));
+            tempBuf.putLong(Files.getLastModifiedTime(tempSource).toMillis());
+            putShortBytes(out, tempBuf, theHashAlgo.getBytes(StandardCharsets.UTF_8));
+            putShortBytes(out, tempBuf, theHash);
+            
+            for (int i = 0; i < thePlyrs.getSize(); i++) {
+                writePlyr(out, tempBuf, thePlyrs, i);
+            } // END for LOOP
+            
+            tempBuf.flip();
+            while (tempBuf.hasRemaining()) {
+                out.write(tempBuf);
+            } // END while LOOP
+            
+            final ByteBuffer tempDigest = ByteBuffer.wrap(digest(
+                    out.map(FileChannel.MapMode.READ_ONLY, 0, out.size())));
+            while (tempDigest.hasRemaining()) {
+                out.write(tempDigest);
+            } // END while LOOP
+        } // END try BLOCK
+        
+        Files.move(tempPart, tempSnap, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    } // END write() METHOD
+    
+    /**
+     * Loads the snapshot of a file into the passed registry, if the snapshot
+     * exists, is whole, and was taken from the file as it is now.
+     *
+     * @param theFileName The filename of the interpreted file.
+     * @param theHashAlgo The name of the hash algorithm declared by the file.
+     * @param theHash The hash declared by the file.
+     * @param thePlyrs The empty registry of the players of the group.
+     * @param theKeyBytes Receives the X.509 encoded public key of each player.
+     * @return TRUE if the snapshot was loaded, or FALSE if there is no
+     *  snapshot of the file as it is now.
+     * @throws IOException If the snapshot cannot be read.
+     */
+    static boolean read(final String theFileName, final String theHashAlgo,
+                        final byte[] theHash, final PlayerRegistry thePlyrs,
+                        final byte[][] theKeyBytes) throws IOException {
+        final Path tempSource = Paths.get(theFileName);
+        final Path tempSnap = Paths.get(theFileName + SUFFIX);
+        if (theHash == null || !Files.isRegularFile(tempSnap)) {
+            return false;
+        }
+        
+        try (FileChannel in = FileChannel.open(tempSnap, StandardOpenOption.READ)) {
+            final MappedByteBuffer tempMap = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            tempMap.order(ByteOrder.LITTLE_ENDIAN);
+            if (tempMap.remaining() < MAGIC.length + DIGEST_BYTES) {
+                return false;
+            }
+            
+            final byte[] tempStored = new byte[DIGEST_BYTES];
+            tempMap.position(tempMap.limit() - DIGEST_BYTES);
+            tempMap.get(tempStored);
+            tempMap.position(0);
+            tempMap.limit(tempMap.capacity() - DIGEST_BYTES);
+            if (!MessageDigest.isEqual(tempStored, digest(tempMap.duplicate()))) {
+                return false;
+            }
+            
+            final byte[] tempMagic = new byte[MAGIC.length];
+            tempMap.get(tempMagic);
+            
+            if (!MessageDigest.isEqual(MAGIC, tempMagic) || tempMap.getShort() != VERSION
+                || tempMap.getInt() != thePlyrs.getSize()
+                || tempMap.getLong() != Files.size(tempSource)
+                || tempMap.getLong() != Files.getLastModifiedTime(tempSource).toMillis()
+                || !theHashAlgo.equals(new String(getShortBytes(tempMap), StandardCharsets.UTF_8))
+                || !MessageDigest.isEqual(theHash, getShortBytes(tempMap))) {
+                return false;
+            }
+            
+            final InetAddress[] tempAddrs = new InetAddress[thePlyrs.getSize()];
+            for (int i = 0; i < thePlyrs.getSize(); i++) {
+                readPlyr(tempMap, thePlyrs, tempAddrs, theKeyBytes, i);
+            } // END for LOOP
+            thePlyrs.setAddrs(tempAddrs);
+            
+            return !tempMap.hasRemaining();
+        } catch (final RuntimeException exception) {
+            // A truncated or corrupt snapshot is ignored like a stale one
+            return false;
+        } // END try/catch BLOCK
+    } // END read() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the DIGEST_ALGO digest of the remaining bytes of a buffer,
+     * consuming them.
+     *
+     * @param theBytes The buffer.
+     * @return The digest, of DIGEST_BYTES bytes.
+     */
+    private static byte[] digest(final ByteBuffer theBytes) {
+        try {
+            final MessageDigest tempDigest = FileHashVerifier.acquire(DIGEST_ALGO);
+            try {
+                tempDigest.update(theBytes);
+                return tempDigest.digest();
+            } finally {
+                FileHashVerifier.release(tempDigest);
+            } // END try/finally BLOCK
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("No Such Algorithm Exception for " + DIGEST_ALGO,
+                                            exception);
+        } // END try/catch BLOCK
+    } // END digest() PRIVATE HELPER METHOD
+    
+    /**
+     * Puts the snapshot of one player into the passed buffer.
+     *
+     * @param theOut The channel of the snapshot.
+     * @param theBuf The little-endian buffer to be written.
+     * @param thePlyrs The registry of the players of the group.
+     * @param theSlot The slot of the player.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void writePlyr(final FileChannel theOut, final ByteBuffer theBuf,
+                                  final PlayerRegistry thePlyrs, final int theSlot)
+                                  throws IOException {
+        ensure(theOut, theBuf, Long.BYTES + 1);
+        if (thePlyrs.isLongUID(theSlot)) {
+            theBuf.put(LONG_UID);
+            theBuf.putLong(thePlyrs.getLongUID(theSlot));
+        } else {
+            theBuf.put(BIG_UID);
+            putIntBytes(theOut, theBuf, thePlyrs.getUID(theSlot).toByteArray());
+        }
+        
+        final InetAddress tempAddr = thePlyrs.getAddr(theSlot);
+        final byte[] tempRaw = tempAddr == null ? new byte[0] : tempAddr.getAddress();
+        ensure(theOut, theBuf, 1 + tempRaw.length);
+        theBuf.put((byte) tempRaw.length);
+        theBuf.put(tempRaw);
+        
+        // toString() gives "hostname/address" without any reverse lookup
+        final String tempText = tempAddr == null ? "" : tempAddr.toString();
+        putShortBytes(theOut, theBuf, tempText.substring(0, Math.max(0, tempText.indexOf('/')))
+                                              .getBytes(StandardCharsets.UTF_8));
+        
+        final PublicKey tempKey = thePlyrs.getPubKey(theSlot);
+        putIntBytes(theOut, theBuf, tempKey == null ? new byte[0] : tempKey.getEncoded());
+    } // END writePlyr() PRIVATE HELPER METHOD
+    
+    /**
+     * Reads the snapshot of one player from the mapped snapshot.
+     *
+     * @param theMap The mapped snapshot, positioned at the player.
+     * @param thePlyrs The registry of the players of the group.
+     * @param theAddrs Receives the IP address of the player.
+     * @param theKeyBytes Receives the X.509 encoded public key of the player.
+     * @param theSlot The slot of the player.
+     * @throws UnknownHostException If the stored address is not valid.
+     */
+    private static void readPlyr(final ByteBuffer theMap, final PlayerRegistry thePlyrs,
+                                 final InetAddress[] theAddrs, final byte[][] theKeyBytes,
+                                 final int theSlot) throws UnknownHostException {
+        if (theMap.get() == LONG_UID) {
+            thePlyrs.setUID(theSlot, theMap.getLong());
+        } else {
+            thePlyrs.setUID(theSlot, new BigInteger(getIntBytes(theMap)));
+        }
+        
+        final byte[] tempRaw = new byte[theMap.get()];
+        theMap.get(tempRaw);
+        final String tempHost = new String(getShortBytes(theMap), StandardCharsets.UTF_8);
+        if (tempRaw.length > 0) {
+            theAddrs[theSlot] = InetAddress.getByAddress(tempHost.isEmpty() ? null : tempHost,
+                                                         tempRaw);
+        }
+        
+        final byte[] tempKey = getIntBytes(theMap);
+        theKeyBytes[theSlot] = tempKey.length > 0 ? tempKey : null;
+    } // END readPlyr() PRIVATE HELPER METHOD
+    
+    /**
+     * Puts bytes prefixed with their length as a short into the buffer.
+     *
+     * @param theOut The channel of the snapshot.
+     * @param theBuf The little-endian buffer to be written.
+     * @param theBytes The bytes, at most Short.MAX_VALUE of them.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void putShortBytes(final FileChannel theOut, final ByteBuffer theBuf,
+                                      final byte[] theBytes) throws IOException {
+        ensure(theOut, theBuf, Short.BYTES + theBytes.length);
+        theBuf.putShort((short) theBytes.length);
+        theBuf.put(theBytes);
+    }
+    
+    /**
+     * Puts bytes prefixed with their length as an int into the buffer,
+     * writing the buffer to the channel as often as needed to make room.
+     *
+     * @param theOut The channel of the snapshot.
+     * @param theBuf The little-endian buffer to be written.
+     * @param theBytes The bytes.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void putIntBytes(final FileChannel theOut, final ByteBuffer theBuf,
+                                    final byte[] theBytes) throws IOException {
+        ensure(theOut, theBuf, Integer.BYTES);
+        theBuf.putInt(theBytes.length);
+        
+        int tempDone = 0;
+        while (tempDone < theBytes.length) {
+            ensure(theOut, theBuf, 1);
+            final int tempLen = Math.min(theBuf.remaining(), theBytes.length - tempDone);
+            theBuf.put(theBytes, tempDone, tempLen);
+            tempDone += tempLen;
+        } // END while LOOP
+    } // END putIntBytes() PRIVATE HELPER METHOD
+    
+    /**
+     * Writes the buffer to the channel if it has less than the passed room.
+     *
+     * @param theOut The channel of the snapshot.
+     * @param theBuf The buffer to be written.
+     * @param theRoom The number of bytes about to be put.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void ensure(final FileChannel theOut, final ByteBuffer theBuf,
+                               final int theRoom) throws IOException {
+        if (theBuf.remaining() < theRoom) {
+            theBuf.flip();
+            while (theBuf.hasRemaining()) {
+                theOut.write(theBuf);
+            } // END while LOOP
+            theBuf.clear();
+        }
+    } // END ensure() PRIVATE HELPER METHOD
+    
+    /**
+     * Gets bytes prefixed with their length as a short from the buffer.
+     *
+     * @param theMap The buffer.
+     * @return The bytes.
+     */
+    private static byte[] getShortBytes(final ByteBuffer theMap) {
+        final byte[] tempBytes = new byte[theMap.getShort()];
+        theMap.get(tempBytes);
+        return tempBytes;
+    }
+    
+    /**
+     * Gets bytes prefixed with their length as an int from the buffer.
+     *
+     * @param theMap The buffer.
+     * @return The bytes.
+     */
+    private static byte[] getIntBytes(final ByteBuffer theMap) {
+        final byte[] tempBytes = new byte[theMap.getInt()];
+        theMap.get(tempBytes);
+        return tempBytes;
+    }
+    
+    
+} // END GroupSnapshot.java CLASS
@@ -0,0 +1,320 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads and decodes key files, keeping a bounded, least-recently-used cache
+ * of the decoded public keys by the real path of their key file, so that
+ * every interpreter referencing the same key file shares one decoded key.
+ * Public keys are X.509 encoded and private keys PKCS#8 encoded, and either
+ * may be stored as PEM, as bare Base64 text, or as raw DER bytes.  A cached
+ * key is reloaded if its key file changes size or modification time.
+ * Decoded public keys are also shared with the process-wide PublicKeyCache.
+ * Private keys are never cached: each is decoded when asked for, and the
+ * bytes read from its key file are cleared once it is decoded.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class KeyFileCache {
+    
+// CLASS CONSTANTS
+    /** The start of the first line of a PEM encoded key. */
+    private static final String PEM_BEGIN = "-----BEGIN ";
+    
+    /** The start of the last line of a PEM encoded key. */
+    private static final String PEM_END = "-----END ";
+    
+    /** The dashes ending the first and last lines of a PEM encoded key. */
+    private static final String PEM_DASHES = "-----";
+    
+    /** The default largest number of keys held by the cache. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    
+    /** The process-wide cache. */
+    private static final KeyFileCache SHARED = new KeyFileCache(DEFAULT_CAPACITY);
+    
+    
+// CLASS VARIABLES
+    /** The largest number of keys held by the cache. */
+    private final int myCapacity;
+    
+    /**
+     * The cached public keys in access order, by algorithm and real path of
+     * the key file, guarded by its own lock.
+     */
+    private final Map<String, CachedKey> myKeys;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty cache holding at most DEFAULT_CAPACITY keys.
+     */
+    public KeyFileCache() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Creates an empty cache holding at most the passed number of keys.
+     *
+     * @param theCapacity The largest number of keys held by the cache.
+     */
+    public KeyFileCache(final int theCapacity) {
+        if (theCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        
+        myCapacity = theCapacity;
+        myKeys = new LinkedHashMap<String, CachedKey>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedKey> theEldest) {
+                return size() > myCapacity;
+            }
+        };
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the process-wide cache.
+     *
+     * @return The shared cache.
+     */
+    public static KeyFileCache getShared() {
+        return SHARED;
+    }
+    
+    /**
+     * Returns the public key held in the passed key file, loading and
+     * decoding it only if it is not already cached.
+     *
+     * @param theFile The key file holding an X.509 encoded public key.
+     * @param theAlgo The name of the algorithm of the key, such as "RSA".
+     * @return The decoded public key.
+     * @throws IOException If the key file cannot be read.
+     * @throws GeneralSecurityException If the algorithm is not available or
+     *  the key file does not hold a valid key.
+     */
+    public PublicKey getPublicKey(final Path theFile, final String theAlgo)
+                                  throws IOException, GeneralSecurityException {
+        return getKey(theFile, theAlgo);
+    }
+    
+    /**
+     * Returns the private key held in the passed key file, loading and
+     * decoding it on every call.
+     *
+     * @param theFile The key file holding a PKCS#8 encoded private key.
+     * @param theAlgo The name of the algorithm of the key, such as "RSA".
+     * @return The decoded private key.
+     * @throws IOException If the key file cannot be read.
+     * @throws GeneralSecurityException If the algorithm is not available or
+     *  the key file does not hold a valid key.
+     */
+    public PrivateKey getPrivateKey(final Path theFile, final String theAlgo)
+                                    throws IOException, GeneralSecurityException {
+        final byte[] tempContent = Files.readAllBytes(theFile);
+        final byte[] tempDer = decodeKeyFile(tempContent);
+        try {
+            return KeyFactory.getInstance(theAlgo)
+                             .generatePrivate(new PKCS8EncodedKeySpec(tempDer));
+        } finally {
+            Arrays.fill(tempDer, (byte) 0);
+            Arrays.fill(tempContent, (byte) 0);
+        } // END try/finally BLOCK
+    } // END getPrivateKey() METHOD
+    
+    /**
+     * Removes the key of the passed key file from the cache, so that it is
+     * loaded again when next asked for.
+     *
+     * @param theFile The key file.
+     * @throws IOException If the real path of the key file cannot be found.
+     */
+    public void invalidate(final Path theFile) throws IOException {
+        final String tempPath = theFile.toRealPath().toString();
+        synchronized (myKeys) {
+            myKeys.keySet().removeIf(theId -> theId.endsWith(':' + tempPath));
+        } // END synchronized BLOCK
+    }
+    
+    /**
+     * Removes every key from the cache.
+     */
+    public void clear() {
+        synchronized (myKeys) {
+            myKeys.clear();
+        } // END synchronized BLOCK
+    }
+    
+    /**
+     * Returns the number of keys currently held by the cache.
+     *
+     * @return The number of cached keys.
+     */
+    public int getSize() {
+        synchronized (myKeys) {
+            return myKeys.size();
+        } // END synchronized BLOCK
+    }
+    
+  // GETTERS
+    /**
+     * Getter for the largest number of keys held by the cache.
+     *
+     * @return myCapacity
+     */
+    public int getCapacity() {
+        return myCapacity;
+    }
+    
+    /**
+     * Decodes the content of a key file, stored as PEM, as bare Base64 text,
+     * or as raw DER bytes, to the DER bytes of the key.
+     *
+     * @param theContent The content of the key file.
+     * @return The DER bytes of the key.
+     * @throws InvalidKeySpecException If the content is PEM or Base64 text
+     *  which cannot be decoded, or a PEM type which is not supported.
+     */
+    public static byte[] decodeKeyFile(final byte[] theContent)
+                                       throws InvalidKeySpecException {
+        if (!isText(theContent)) {
+            return theContent;
+        }
+        
+        String tempText = new String(theContent, StandardCharsets.US_ASCII).trim();
+        if (tempText.startsWith(PEM_BEGIN)) {
+            final int tempTypeEnd = tempText.indexOf(PEM_DASHES, PEM_BEGIN.length());
+            final int tempBodyEnd = tempText.indexOf(PEM_END);
+            if (tempTypeEnd < 0 || tempBodyEnd < tempTypeEnd) {
+                throw new InvalidKeySpecException("Malformed PEM key file");
+            }
+            
+            final String tempType = tempText.substring(PEM_BEGIN.length(), tempTypeEnd);
+            if (!"PUBLIC KEY".equals(tempType) && !"PRIVATE KEY".equals(tempType)) {
+                throw new InvalidKeySpecException("Unsupported PEM key type " + tempType
+                                                  + ", expected X.509 or PKCS#8");
+            }
+            tempText = tempText.substring(tempTypeEnd + PEM_DASHES.length(), tempBodyEnd);
+        }
+        
+        try {
+            return Base64.getMimeDecoder().decode(tempText);
+        } catch (final IllegalArgumentException exception) {
+            throw new InvalidKeySpecException("Invalid Base64 key file", exception);
+        } // END try/catch BLOCK
+    } // END decodeKeyFile() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the public key held in a key file, from the cache if the key
+     * file has not changed since it was cached.
+     *
+     * @param theFile The key file.
+     * @param theAlgo The name of the algorithm of the key.
+     * @return The decoded key.
+     * @throws IOException If the key file cannot be read.
+     * @throws GeneralSecurityException If the key cannot be decoded.
+     */
+    private PublicKey getKey(final Path theFile, final String theAlgo)
+                             throws IOException, GeneralSecurityException {
+        final Path tempReal = theFile.toRealPath();
+        final BasicFileAttributes tempAttrs =
+                Files.readAttributes(tempReal, BasicFileAttributes.class);
+        final long tempStamp = tempAttrs.lastModifiedTime().toMillis();
+        final String tempId = theAlgo + ':' + tempReal;
+        
+        final CachedKey tempCached;
+        synchronized (myKeys) {
+            tempCached = myKeys.get(tempId);
+        } // END synchronized BLOCK
+        if (tempCached != null && tempCached.mySize == tempAttrs.size()
+            && tempCached.myStamp == tempStamp) {
+            return tempCached.myKey;
+        }
+        
+        final byte[] tempDer = decodeKeyFile(Files.readAllBytes(tempReal));
+        final PublicKey tempKey = PublicKeyCache.getShared()
+                                                .getPublicKey(KeyFactory.getInstance(theAlgo),
+                                                              tempDer);
+        synchronized (myKeys) {
+            myKeys.put(tempId, new CachedKey(tempKey, tempAttrs.size(), tempStamp));
+        } // END synchronized BLOCK
+        return tempKey;
+    } // END getKey() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns TRUE if the content of a key file is text, which DER bytes
+     * never are since they start with a SEQUENCE tag and length bytes.
+     *
+     * @param theContent The content of the key file.
+     * @return TRUE if every byte is printable ASCII or whitespace.
+     */
+    private static boolean isText(final byte[] theContent) {
+        for (final byte b : theContent) {
+            if ((b < ' ' || b > '~') && b != '\n' && b != '\r' && b != '\t') {
+                return false;
+            }
+        } // END for LOOP
+        
+        return theContent.length > 0;
+    } // END isText() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * A decoded public key, with the size and modification time of its key
+     * file when it was loaded.
+     */
+    private static final class CachedKey {
+        
+        /** The decoded key. */
+        private final PublicKey myKey;
+        
+        /** The size of the key file. */
+        private final long mySize;
+        
+        /** The modification time of the key file, in milliseconds. */
+        private final long myStamp;
+        
+        /**
+         * Creates a cached key.
+         *
+         * @param theKey The decoded key.
+         * @param theSize The size of the key file.
+         * @param theStamp The modification time of the key file.
+         */
+        CachedKey(final PublicKey theKey, final long theSize, final long theStamp) {
+            myKey = theKey;
+            mySize = theSize;
+            myStamp = theStamp;
+        }
+    } // END CachedKey PRIVATE CLASS
+    
+    
+} // END KeyFileCache.java CLASS
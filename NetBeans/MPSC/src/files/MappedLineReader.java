@@ -0,0 +1,450 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming line source which memory-maps a file, or a byte range of a file,
+ * with a FileChannel and hands out each line as a zero-copy ByteBuffer slice
+ * of the mapping.  The file is mapped through a sliding window so that files
+ * larger than a single mapping can be read, and at no point is the content
+ * of the file copied onto the JVM heap.  Lines are terminated by '\n', with
+ * an optional preceding '\r' stripped, and the last line need not be
+ * terminated.  Unlike BufferedReader, a '\r' which is not followed by '\n'
+ * does not end a line, and is kept as part of the line.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class MappedLineReader implements Iterator<ByteBuffer>, Closeable {
+    
+// CLASS CONSTANTS
+    /** Int constant for the largest number of bytes mapped at any one time. */
+    private static final int MAX_WINDOW = 1 << 28;
+    
+    /** Int constant for the number of bytes mapped to search for a line. */
+    private static final int ALIGN_WINDOW = 1 << 16;
+    
+    /** Byte constant for the line feed which terminates every line. */
+    private static final byte LF = '\n';
+    
+    /** Byte constant for the carriage return stripped from line endings. */
+    private static final byte CR = '\r';
+    
+    
+// CLASS VARIABLES
+    /** The channel of the file being read. */
+    private final FileChannel myChannel;
+    
+    /** Boolean holding whether the channel was opened by this reader. */
+    private final boolean myOwnsChannel;
+    
+    /** File position at which reading starts. */
+    private final long myStart;
+    
+    /** File position at which reading stops (exclusive). */
+    private final long myEnd;
+    
+    /** The largest number of bytes mapped by a single window. */
+    private final int myWindowSize;
+    
+    /** File position of the first byte of the current window. */
+    private long myWindowStart;
+    
+    /** The currently mapped window of the file. */
+    private MappedByteBuffer myWindow;
+    
+    /** Position, within the current window, of the start of the next line. */
+    private int myPos;
+    
+    /** The next line, already located but not yet returned, or null. */
+    private ByteBuffer myNext;
+    
+    /** File position of the first byte of the line held in myNext. */
+    private long myNextStart;
+    
+    /** File position of the first byte of the line most recently returned. */
+    private long myLineStart;
+    
+    /** The number of lines returned so far. */
+    private long myLineCount;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Opens the file with the passed filename and prepares to stream all of
+     * its lines.
+     *
+     * @param theFileName The filename of the file to be read.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public MappedLineReader(final String theFileName) throws IOException {
+        this(FileChannel.open(Paths.get(theFileName), StandardOpenOption.READ),
+             true, 0L, -1L, MAX_WINDOW);
+    } // END constructor
+    
+    /**
+     * Prepares to stream the lines lying in the byte range [theStart, theEnd)
+     * of an already open channel.  The range is expected to begin at the start
+     * of a line; the channel is left open when this reader is closed.
+     *
+     * @param theChannel The channel of the file to be read.
+     * @param theStart File position of the first byte to read.
+     * @param theEnd File position at which reading stops (exclusive).
+     * @throws IOException If the range cannot be mapped.
+     */
+    public MappedLineReader(final FileChannel theChannel, final long theStart,
+                            final long theEnd) throws IOException {
+        this(theChannel, false, theStart, theEnd, MAX_WINDOW);
+    } // END constructor
+    
+    /**
+     * Shared constructor; an end of -1 means the end of the file.
+     *
+     * @param theChannel The channel of the file to be read.
+     * @param theOwnsChannel Whether closing this reader closes the channel.
+     * @param theStart File position of the first byte to read.
+     * @param theEnd File position at which reading stops, or -1.
+     * @param theWindowSize The largest number of bytes mapped at once.
+     * @throws IOException If the first window cannot be mapped.
+     */
+    private MappedLineReader(final FileChannel theChannel,
+                             final boolean theOwnsChannel, final long theStart,
+                             final long theEnd, final int theWindowSize)
+                             throws IOException {
+        myChannel = theChannel;
+        myOwnsChannel = theOwnsChannel;
+        myStart = theStart;
+        myEnd = theEnd < 0 ? theChannel.size() : theEnd;
+        myWindowSize = theWindowSize;
+        myLineStart = -1L;
+        
+        mapWindow(theStart);
+    } // END constructor
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Maps a new window of the file starting at the passed file position.
+     *
+     * @param theStart File position of the first byte of the new window.
+     * @throws IOException If the window cannot be mapped.
+     */
+    private void mapWindow(final long theStart) throws IOException {
+        final long tempLen = Math.min(myWindowSize, myEnd - theStart);
+        
+        myWindowStart = theStart;
+        myWindow = myChannel.map(FileChannel.MapMode.READ_ONLY, theStart,
+                                 Math.max(tempLen, 0L));
+        myPos = 0;
+    } // END mapWindow() PRIVATE HELPER METHOD
+    
+    /**
+     * Locates the next line, remapping the window when a line runs past the
+     * end of it, and stores a slice of it in myNext.
+     *
+     * @return true if a line was found, false at the end of the range.
+     * @throws IOException If a new window cannot be mapped.
+     */
+    private boolean advance() throws IOException {
+        while (true) {
+            final int tempLimit = myWindow.limit();
+            if (myPos >= tempLimit && myWindowStart + tempLimit >= myEnd) {
+                return false;
+            }
+            
+            int i = myPos;
+            while (i < tempLimit && myWindow.get(i) != LF) {
+                i++;
+            } // END while LOOP
+            
+            final boolean tempAtEnd = myWindowStart + tempLimit >= myEnd;
+            if (i < tempLimit || tempAtEnd) {
+                int tempLineEnd = i;
+                if (tempLineEnd > myPos && myWindow.get(tempLineEnd - 1) == CR) {
+                    tempLineEnd--;
+                }
+                
+                myNext = slice(myPos, tempLineEnd);
+                myNextStart = myWindowStart + myPos;
+                myPos = Math.min(i + 1, tempLimit);
+                return true;
+            }
+            
+            if (myPos == 0) {
+                throw new IOException("Line longer than " + myWindowSize
+                                      + " bytes at position " + myWindowStart);
+            }
+            // The line straddles the window, so remap starting at the line.
+            mapWindow(myWindowStart + myPos);
+        } // END while LOOP
+    } // END advance() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns a slice of the current window covering [theFrom, theTo).
+     *
+     * @param theFrom Index of the first byte of the slice.
+     * @param theTo Index just past the last byte of the slice.
+     * @return A zero-copy view of the bytes.
+     */
+    private ByteBuffer slice(final int theFrom, final int theTo) {
+        final ByteBuffer tempDup = myWindow.duplicate();
+        tempDup.limit(theTo);
+        tempDup.position(theFrom);
+        
+        return tempDup.slice();
+    } // END slice() PRIVATE HELPER METHOD
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns true if there is at least one more line to be read.
+     *
+     * @return true if next() will return a line.
+     */
+    @Override
+    public boolean hasNext() {
+        if (myNext == null) {
+            try {
+                return advance();
+            } catch (final IOException exception) {
+                throw new IllegalStateException("IO input error "
+                                                + exception.getMessage(),
+                                                exception);
+            } // END try/catch BLOCK
+        }
+        
+        return true;
+    } // END hasNext() METHOD
+    
+    /**
+     * Returns the next line as a read-only, zero-copy slice of the mapped file
+     * which does not include the line terminator.
+     *
+     * @return The bytes of the next line.
+     */
+    @Override
+    public ByteBuffer next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        
+        final ByteBuffer tempLine = myNext;
+        myNext = null;
+        myLineStart = myNextStart;
+        myLineCount++;
+        
+        return tempLine;
+    } // END next() METHOD
+    
+    /**
+     * Returns the next line as a zero-copy CharSequence over the mapped file.
+     *
+     * @return The characters of the next line.
+     */
+    public CharSequence nextLine() {
+        return new ByteLine(next());
+    } // END nextLine() METHOD
+    
+    /**
+     * Skips the passed number of lines.
+     *
+     * @param theCount The number of lines to skip.
+     * @return The number of lines actually skipped.
+     */
+    public long skip(final long theCount) {
+        long i = 0;
+        while (i < theCount && hasNext()) {
+            next();
+            i++;
+        } // END while LOOP
+        
+        return i;
+    } // END skip() METHOD
+    
+    /**
+     * Counts the lines remaining to be read, without advancing the reader, by
+     * scanning the rest of the range for line terminators.  This lets callers
+     * size their storage exactly before streaming the lines.
+     *
+     * @return The number of lines that next() has yet to return.
+     * @throws IOException If the rest of the range cannot be mapped.
+     */
+    public long countLines() throws IOException {
+        long tempPos = myNext == null ? myWindowStart + myPos : myNextStart;
+        if (tempPos >= myEnd) {
+            return 0L;
+        }
+        
+        long tempCount = 0;
+        byte tempLast = LF;
+        while (tempPos < myEnd) {
+            final int tempLen = (int) Math.min(myWindowSize, myEnd - tempPos);
+            final MappedByteBuffer tempMap =
+                myChannel.map(FileChannel.MapMode.READ_ONLY, tempPos, tempLen);
+            
+            for (int i = 0; i < tempLen; i++) {
+                if (tempMap.get(i) == LF) {
+                    tempCount++;
+                }
+            } // END for LOOP
+            
+            tempLast = tempMap.get(tempLen - 1);
+            tempPos += tempLen;
+        } // END while LOOP
+        
+        return tempLast == LF ? tempCount : tempCount + 1;
+    } // END countLines() METHOD
+    
+    /**
+     * Returns the last lines of the range, found by scanning backwards from 
+     * the end of the range, without advancing the reader.  This lets callers 
+     * read trailing metadata, such as the hash algorithm and hash at the end 
+     * of a file, before streaming the rest of the file.
+     *
+     * @param theCount The number of lines wanted.
+     * @return The last lines in file order; fewer than theCount if the range 
+     *         holds fewer lines.
+     * @throws IOException If the end of the range cannot be mapped.
+     */
+    public String[] peekLastLines(final int theCount) throws IOException {
+        if (myEnd <= myStart) {
+            return new String[0];
+        }
+        
+        long tempLen = Math.min(ALIGN_WINDOW, myEnd - myStart);
+        while (true) {
+            final MappedByteBuffer tempMap = myChannel.map(
+                    FileChannel.MapMode.READ_ONLY, myEnd - tempLen, tempLen);
+            final boolean tempWhole = tempLen == myEnd - myStart;
+            
+            final String[] tempLines = new String[theCount];
+            int tempFound = 0;
+            int tempLineEnd = (int) tempLen;
+            if (tempLineEnd > 0 && tempMap.get(tempLineEnd - 1) == LF) {
+                tempLineEnd--;
+            }
+            
+            int i = tempLineEnd - 1;
+            while (tempFound < theCount) {
+                while (i >= 0 && tempMap.get(i) != LF) {
+                    i--;
+                } // END while LOOP
+                if (i < 0 && !tempWhole) {
+                    break;
+                }
+                
+                int tempEnd = tempLineEnd;
+                if (tempEnd > i + 1 && tempMap.get(tempEnd - 1) == CR) {
+                    tempEnd--;
+                }
+                final byte[] tempBytes = new byte[tempEnd - i - 1];
+                for (int j = 0; j < tempBytes.length; j++) {
+                    tempBytes[j] = tempMap.get(i + 1 + j);
+                } // END for LOOP
+                tempLines[theCount - 1 - tempFound] = 
+                        new String(tempBytes, StandardCharsets.ISO_8859_1);
+                tempFound++;
+                
+                if (i < 0) {
+                    break;
+                }
+                tempLineEnd = i;
+                i--;
+            } // END while LOOP
+            
+            if (tempFound == theCount || tempWhole) {
+                return Arrays.copyOfRange(tempLines, theCount - tempFound, theCount);
+            }
+            tempLen = Math.min(tempLen * 2, myEnd - myStart);
+        } // END while LOOP
+    } // END peekLastLines() METHOD
+    
+    /**
+     * Returns the file position of the start of the first line beginning at
+     * or after the passed position, which is the position itself if it is
+     * already the start of a line.  This is used to split a file into byte
+     * ranges which each hold only whole lines.
+     *
+     * @param theChannel The channel of the file.
+     * @param thePos A file position.
+     * @return The start of the line at or after thePos, or the size of the
+     *         file if there is no such line.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public static long alignToLine(final FileChannel theChannel,
+                                   final long thePos) throws IOException {
+        final long tempSize = theChannel.size();
+        if (thePos <= 0) {
+            return 0L;
+        }
+        
+        long tempPos = thePos - 1;
+        while (tempPos < tempSize) {
+            final int tempLen = (int) Math.min(ALIGN_WINDOW, tempSize - tempPos);
+            final MappedByteBuffer tempMap =
+                theChannel.map(FileChannel.MapMode.READ_ONLY, tempPos, tempLen);
+            
+            for (int i = 0; i < tempLen; i++) {
+                if (tempMap.get(i) == LF) {
+                    return tempPos + i + 1;
+                }
+            } // END for LOOP
+            
+            tempPos += tempLen;
+        } // END while LOOP
+        
+        return tempSize;
+    } // END alignToLine() METHOD
+    
+    /**
+     * Getter for the file position of the first byte of the line most
+     * recently returned by next(), or -1 if no line has been returned.  A
+     * call to hasNext() does not change it.
+     *
+     * @return myLineStart
+     */
+    public long getLineStart() {
+        return myLineStart;
+    }
+    
+    /**
+     * Getter for the number of lines returned so far.
+     *
+     * @return myLineCount
+     */
+    public long getLineCount() {
+        return myLineCount;
+    }
+    
+    /**
+     * Releases the reader, closing the channel if this reader opened it.  The
+     * mapping itself is released once it is no longer referenced.
+     *
+     * @throws IOException If the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        myWindow = null;
+        myNext = null;
+        
+        if (myOwnsChannel) {
+            myChannel.close();
+        }
+    } // END close() METHOD
+    
+    
+} // END MappedLineReader.java CLASS
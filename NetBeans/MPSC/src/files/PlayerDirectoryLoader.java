@@ -0,0 +1,237 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk loader which walks a directory of "Player Information Files", one per
+ * player, and reads and interprets all of them concurrently on a bounded
+ * pool of threads.  The interpreted files are returned indexed by the UID of
+ * their player, and every file which cannot be read, has no UID, fails its
+ * hash check, or repeats the UID of another file is reported as a failure
+ * without stopping the rest of the batch.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class PlayerDirectoryLoader {
+    
+// CLASS CONSTANTS
+    /** The default glob matching the names of player information files. */
+    public static final String DEFAULT_GLOB = "*.info";
+    
+    /** The default number of files read at once. */
+    public static final int DEFAULT_THREADS =
+            Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+    
+    
+// CLASS VARIABLES
+    /** The matcher for the names of player information files. */
+    private final PathMatcher myMatcher;
+    
+    /** The number of files read at once. */
+    private final int myThreads;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a loader for files matching DEFAULT_GLOB, reading
+     * DEFAULT_THREADS files at once.
+     */
+    public PlayerDirectoryLoader() {
+        this(DEFAULT_GLOB, DEFAULT_THREADS);
+    }
+    
+    /**
+     * Creates a loader.
+     *
+     * @param theGlob The glob matching the names of player information files.
+     * @param theThreads The number of files read at once.
+     */
+    public PlayerDirectoryLoader(final String theGlob, final int theThreads) {
+        if (theThreads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        
+        myMatcher = FileSystems.getDefault().getPathMatcher("glob:" + theGlob);
+        myThreads = theThreads;
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Walks the passed directory, and every directory below it, and reads and
+     * interprets every player information file found.
+     *
+     * @param theDir The directory of player information files.
+     * @return The interpreted files by UID, and the failures by file.
+     * @throws IOException If the directory cannot be walked.
+     */
+    public Result load(final Path theDir) throws IOException {
+        final List<Path> tempFiles;
+        try (Stream<Path> tempWalk = Files.walk(theDir)) {
+            tempFiles = tempWalk.filter(Files::isRegularFile)
+                                .filter(path -> myMatcher.matches(path.getFileName()))
+                                .sorted()
+                                .collect(Collectors.toList());
+        } // END try BLOCK
+        
+        final ExecutorService tempPool = Executors.newFixedThreadPool(
+                Math.min(myThreads, Math.max(1, tempFiles.size())));
+        try {
+            final List<Future<PlayerInformationFileInterpreter>> tempReads =
+                    new ArrayList<>(tempFiles.size());
+            for (final Path file : tempFiles) {
+                tempReads.add(tempPool.submit(
+                        () -> new PlayerInformationFileInterpreter(file.toString())));
+            } // END for LOOP
+            
+            return collect(tempFiles, tempReads);
+        } finally {
+            tempPool.shutdownNow();
+        } // END try/finally BLOCK
+    } // END load() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Waits for every file to be interpreted, in the order of the files, so
+     * that the first file with a UID always keeps it.
+     *
+     * @param theFiles The player information files, in sorted order.
+     * @param theReads The interpretation of each file.
+     * @return The interpreted files by UID, and the failures by file.
+     */
+    private static Result collect(final List<Path> theFiles,
+                                  final List<Future<PlayerInformationFileInterpreter>> theReads) {
+        final Map<BigInteger, PlayerInformationFileInterpreter> tempPlyrs =
+                new HashMap<>(theFiles.size() * 2);
+        final Map<BigInteger, Path> tempOwners = new HashMap<>(theFiles.size() * 2);
+        final Map<Path, String> tempFailures = new LinkedHashMap<>();
+        
+        for (int i = 0; i < theFiles.size(); i++) {
+            final Path tempFile = theFiles.get(i);
+            final PlayerInformationFileInterpreter tempPlyr;
+            
+            try {
+                tempPlyr = theReads.get(i).get();
+            } catch (final ExecutionException exception) {
+                tempFailures.put(tempFile, String.valueOf(exception.getCause()));
+                continue;
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                tempFailures.put(tempFile, "Interrupted");
+                continue;
+            } // END try/catch BLOCK
+            
+            if (tempPlyr.getUID() == null) {
+                tempFailures.put(tempFile, "No UID could be read");
+            } else if (!tempPlyr.getHashCompare()) {
+                tempFailures.put(tempFile, "Hash does not match");
+            } else if (tempOwners.containsKey(tempPlyr.getUID())) {
+                tempFailures.put(tempFile, "Duplicate UID " + tempPlyr.getUID()
+                                           + " of " + tempOwners.get(tempPlyr.getUID()));
+            } else {
+                tempOwners.put(tempPlyr.getUID(), tempFile);
+                tempPlyrs.put(tempPlyr.getUID(), tempPlyr);
+            }
+        } // END for LOOP
+        
+        return new Result(tempPlyrs, tempOwners, tempFailures);
+    } // END collect() PRIVATE HELPER METHOD
+    
+    
+    
+// PUBLIC CLASSES
+    /**
+     * The outcome of loading a directory: the interpreted player information
+     * files by UID, the file of each UID, and the failures by file.
+     */
+    public static final class Result {
+        
+        /** The interpreted files, by UID. */
+        private final Map<BigInteger, PlayerInformationFileInterpreter> myPlyrs;
+        
+        /** The file of each UID. */
+        private final Map<BigInteger, Path> myFiles;
+        
+        /** The reason each failed file failed, in the order of the files. */
+        private final Map<Path, String> myFailures;
+        
+        /**
+         * Creates the outcome of loading a directory.
+         *
+         * @param thePlyrs The interpreted files, by UID.
+         * @param theFiles The file of each UID.
+         * @param theFailures The reason each failed file failed.
+         */
+        Result(final Map<BigInteger, PlayerInformationFileInterpreter> thePlyrs,
+               final Map<BigInteger, Path> theFiles, final Map<Path, String> theFailures) {
+            myPlyrs = Collections.unmodifiableMap(thePlyrs);
+            myFiles = Collections.unmodifiableMap(theFiles);
+            myFailures = Collections.unmodifiableMap(theFailures);
+        }
+        
+        /**
+         * Returns the interpreted file of the player with the passed UID.
+         *
+         * @param theUID The UID of a player.
+         * @return The interpreted file, or null if there is none.
+         */
+        public PlayerInformationFileInterpreter getPlayer(final BigInteger theUID) {
+            return myPlyrs.get(theUID);
+        }
+        
+        /**
+         * Returns the file of the player with the passed UID.
+         *
+         * @param theUID The UID of a player.
+         * @return The file, or null if there is none.
+         */
+        public Path getFile(final BigInteger theUID) {
+            return myFiles.get(theUID);
+        }
+        
+        /**
+         * Getter for the read-only map of interpreted files, by UID.
+         *
+         * @return myPlyrs
+         */
+        public Map<BigInteger, PlayerInformationFileInterpreter> getPlayers() {
+            return myPlyrs;
+        }
+        
+        /**
+         * Getter for the read-only map of the reason each failed file failed.
+         *
+         * @return myFailures
+         */
+        public Map<Path, String> getFailures() {
+            return myFailures;
+        }
+    } // END Result PUBLIC CLASS
+    
+    
+} // END PlayerDirectoryLoader.java CLASS
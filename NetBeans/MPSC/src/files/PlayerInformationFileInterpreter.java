@@ -3,16 +3,25 @@
  */
 package files;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
 
 /**
  * Utility class which creates a reader and interpreter to read and then 
  * interpret the data from a file whose filename is passed via the 
  * constructor.  This class calls methods from the 'GeneralFileReader' to 
- * carry out the reading of the file into a string array.  Once the data is 
- * in the string array, this class will interpret the data from the string 
- * array based on the assumption that the read file follows the specified 
- * format for a "Player Information File".
+ * stream the lines of the file from a memory-mapped line source.  As the 
+ * lines stream in, this class will interpret them based on the assumption 
+ * that the read file follows the specified format for a "Player Information 
+ * File".  The key files named by the file, relative to the directory of the 
+ * file unless their names are absolute, are loaded and decoded the first time 
+ * each key is asked for, through the process-wide KeyFileCache.
  * 
  * @author Jonathan McFadden (mcfaddja@uw.edu)
  * @version 0.1.1
@@ -65,9 +74,6 @@ public class PlayerInformationFileInterpreter {
     /** String with the name of the file to be read and interpreted. */
     private final String myFileName;
     
-    /** String array with the raw data read in from the file. */
-    private final String[] myRawData;
-    
     /** BigInterger type to hold the user's UID imported from the file. */
     private BigInteger myUID;
     
@@ -89,18 +95,29 @@ public class PlayerInformationFileInterpreter {
     /** String holding the hash read in from the file. */
     private String myImportedHash;
     
+    /** Boolean holding the result of comparing the imported and computed hashes. */
+    private boolean myTest;
+    
     /** Instance of the GeneralFileReader class to read the raw file data. */
     private GeneralFileReader myGenReader;
     
+    /** The user's public key, once loaded from its key file. */
+    private PublicKey myPubKey;
+    
+    /** The user's private key, once loaded from its key file. */
+    private PrivateKey myPvtKey;
+    
     
     
     /**
      * At instantiation this immediately creates and executes, in sequence, 
-     * both a reader and interpreter which will immediately read the file 
-     * specified by the filename at instantiation, store the data in a string 
-     * array, interpret the stored data based on the format of specified for 
-     * "Player Information Files", and, upon the completion of instantiation, 
-     * allow access to the interpreted data though several getter methods.
+     * both a reader and interpreter which will immediately stream the lines 
+     * of the file specified by the filename at instantiation, interpret each 
+     * line based on the format of specified for "Player Information Files", 
+     * and, upon the completion of instantiation, allow access to the 
+     * interpreted data though several getter methods.  The hash of the file 
+     * is computed with the algorithm declared by the file as the lines are 
+     * streamed in, and is compared to the hash imported from the file.
      * 
      * @param theFileName The filename of the file to be read and interpreted.
      */
@@ -108,31 +125,78 @@ public class PlayerInformationFileInterpreter {
         myFileName = theFileName;
         
         myGenReader = new GeneralFileReader(myFileName);
-        myRawData = myGenReader.readItGetIt();
         
-        readAndParseThem();
+        try (MappedLineReader in = myGenReader.streamIt()) {
+            readAndParseThem(in);
+        } catch (final IOException exception) {
+            System.out.println("IO input error" + exception.getMessage());
+        } // END try/catch BLOCK
     } // END constructor
 
     /**
      * Private helper method called in the constructor and used to keep the 
-     * code readable.
+     * code readable.  The hash algorithm and imported hash are first read 
+     * from the end of the file, and then each line streamed in from the file 
+     * is interpreted according to its index in the file, with every line 
+     * before the imported hash added to the hash of the file.
+     * 
+     * @param theLines The streaming line source over the file.
+     * @throws IOException If the end of the file cannot be read.
      */
-    private void readAndParseThem() {
-        //final long tempLong = Integer.parseInt(myRawData[0]);
-        //myUID = BigInteger.valueOf(tempLong);
-        final String temp = myRawData[UID_IND];
-        myUID = new BigInteger(temp);
-        
-        myPubKeyFileName = myRawData[PUB_KEY_FILE_IND];
-        myPubKeyAlgo = myRawData[PUB_KEY_ALGO_IND];
+    private void readAndParseThem(final MappedLineReader theLines) throws IOException {
+        final String[] tempTail = theLines.peekLastLines(2);
+        final FileHashVerifier tempVerifier = tempTail.length < 2 ? null 
+                                              : new FileHashVerifier(tempTail[0]);
         
-        myPvtKeyFileName = myRawData[PVT_KEY_FILE_IND];
-        myPvtKeyAlgo = myRawData[PVT_KEY_ALGO_IND];
+        for (int i = 0; i <= IMPTD_HASH_IND && theLines.hasNext(); i++) {
+            final ByteBuffer tempLine = theLines.next();
+            final String temp = new ByteLine(tempLine).toString();
+            if (i < IMPTD_HASH_IND && tempVerifier != null) {
+                tempVerifier.update(tempLine);
+            }
+            
+            switch (i) {
+                case UID_IND:
+                    myUID = new BigInteger(temp);
+                    break;
+                case PUB_KEY_FILE_IND:
+                    myPubKeyFileName = temp;
+                    break;
+                case PUB_KEY_ALGO_IND:
+                    myPubKeyAlgo = temp;
+                    break;
+                case PVT_KEY_FILE_IND:
+                    myPvtKeyFileName = temp;
+                    break;
+                case PVT_KEY_ALGO_IND:
+                    myPvtKeyAlgo = temp;
+                    break;
+                case HASH_ALGO_IND:
+                    myHashAlgo = temp;
+                    break;
+                default:
+                    myImportedHash = temp;
+                    break;
+            } // END switch STATEMENT
+        } // END for LOOP
         
-        myHashAlgo = myRawData[HASH_ALGO_IND];
-        myImportedHash = myRawData[IMPTD_HASH_IND];
+        myTest = tempVerifier != null && myImportedHash != null 
+                 && myHashAlgo.equals(tempVerifier.getHashAlgo())
+                 && tempVerifier.matches(myImportedHash);
     } // END readAndParseThem() PRIVATE HELPER METHOD
     
+    /**
+     * Private helper method which resolves the name of a key file against the 
+     * directory of the input file, unless the name is absolute.
+     * 
+     * @param theKeyFileName The name of the key file, as imported.
+     * @return The path of the key file.
+     */
+    private Path resolveKeyFile(final String theKeyFileName) {
+        final Path tempDir = Paths.get(myFileName).toAbsolutePath().getParent();
+        return tempDir == null ? Paths.get(theKeyFileName) : tempDir.resolve(theKeyFileName);
+    } // END resolveKeyFile() PRIVATE HELPER METHOD
+    
     
     /**
      * Returns the value of the UID imported from the input file.
@@ -187,6 +251,50 @@ public class PlayerInformationFileInterpreter {
         return myPvtKeyAlgo;
     }
     
+    /**
+     * Returns the public key of the player represented by the input file, 
+     * loading and decoding it from its key file with the declared algorithm 
+     * the first time it is asked for.  The decoded key is shared with every 
+     * other interpreter referencing the same key file.
+     * 
+     * @return myPubKey, or null if the key file cannot be loaded.
+     */
+    public synchronized PublicKey getPubKey() {
+        if (myPubKey == null && myPubKeyFileName != null) {
+            try {
+                myPubKey = KeyFileCache.getShared().getPublicKey(
+                        resolveKeyFile(myPubKeyFileName), myPubKeyAlgo);
+            } catch (final IOException | GeneralSecurityException exception) {
+                System.out.println("Public key file error for " + myPubKeyFileName 
+                                   + " " + exception.getMessage());
+            } // END try/catch BLOCK
+        }
+        
+        return myPubKey;
+    } // END getPubKey() METHOD
+    
+    /**
+     * Returns the private key of the player represented by the input file, 
+     * loading and decoding it from its key file with the declared algorithm 
+     * the first time it is asked for.  The decoded key is held only by this 
+     * interpreter, never by the KeyFileCache.
+     * 
+     * @return myPvtKey, or null if the key file cannot be loaded.
+     */
+    public synchronized PrivateKey getPvtKey() {
+        if (myPvtKey == null && myPvtKeyFileName != null) {
+            try {
+                myPvtKey = KeyFileCache.getShared().getPrivateKey(
+                        resolveKeyFile(myPvtKeyFileName), myPvtKeyAlgo);
+            } catch (final IOException | GeneralSecurityException exception) {
+                System.out.println("Private key file error for " + myPvtKeyFileName 
+                                   + " " + exception.getMessage());
+            } // END try/catch BLOCK
+        }
+        
+        return myPvtKey;
+    } // END getPvtKey() METHOD
+    
     /**
      * Returns a string, as imported from the input file, with the name of the 
      * algorithm used to generate the hash of the file data which was included 
@@ -208,5 +316,15 @@ public class PlayerInformationFileInterpreter {
         return myImportedHash;
     }
     
+    /**
+     * Returns the result of comparing the hash computed from the file, using 
+     * the algorithm named in the file, with the hash imported from the file.
+     * 
+     * @return myTest
+     */
+    public boolean getHashCompare() {
+        return myTest;
+    }
+    
 
 } // END PlayerInformationFileInterpreter.java CLASS
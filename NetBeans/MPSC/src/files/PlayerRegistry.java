@@ -0,0 +1,335 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columnar store of the players of a group, with one array per attribute of
+ * a player and the index of a player in the group as its slot in every
+ * array.  UIDs are stored as longs, and as BigIntegers only for the UIDs
+ * which do not fit in a long.  A hash index from UID to slot, using open
+ * addressing over an int array for the long UIDs, finds a player by UID in
+ * constant time without boxing; the few UIDs which do not fit in a long are
+ * indexed separately.  The registry is filled in by the interpreter of the
+ * group initialization file, and is read-only to every other class.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class PlayerRegistry {
+    
+// CLASS CONSTANTS
+    /** The value returned when no player has the UID looked up. */
+    public static final int NOT_FOUND = -1;
+    
+    /** The number of decimal digits which always fit in a long. */
+    private static final int LONG_DIGITS = 18;
+    
+    /** Multiplier used to spread the bits of a UID over the index. */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+    
+    
+// CLASS VARIABLES
+    /** The number of players in the group. */
+    private final int mySize;
+    
+    /** The UIDs of the players which fit in a long. */
+    private final long[] myUIDs;
+    
+    /** 
+     * The UIDs of the players which do not fit in a long, by slot, or null 
+     *  until there is one.
+     */
+    private BigInteger[] myBigUIDs;
+    
+    /** The slots of the players with UIDs which do not fit in a long, by UID. */
+    private final Map<BigInteger, Integer> myBigIndex;
+    
+    /**
+     * Open-addressing index from the long UIDs to the slots of the players,
+     *  holding each slot plus one, so that 0 marks an empty entry.
+     */
+    private final int[] myIndex;
+    
+    /** The IP addresses of the players. */
+    private final InetAddress[] myAddrs;
+    
+    /** The public keys of the players. */
+    private final PublicKey[] myPubKeys;
+    
+    /** The Signature objects initialized to verify the players. */
+    private final Signature[] mySigs;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty registry for a group of the passed size.
+     *
+     * @param theSize The number of players in the group.
+     */
+    public PlayerRegistry(final int theSize) {
+        if (theSize < 0) {
+            throw new IllegalArgumentException("Negative group size: " + theSize);
+        }
+        
+        mySize = theSize;
+        myUIDs = new long[theSize];
+        myBigIndex = new HashMap<>();
+        myIndex = new int[Integer.highestOneBit(Math.max(2, theSize) * 2 - 1) * 2];
+        myAddrs = new InetAddress[theSize];
+        myPubKeys = new PublicKey[theSize];
+        mySigs = new Signature[theSize];
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the slot of the player with the passed UID.
+     *
+     * @param theUID The UID of a player.
+     * @return The slot of the player, or NOT_FOUND.
+     */
+    public int indexOf(final long theUID) {
+        final int tempMask = myIndex.length - 1;
+        
+        for (int i = hash(theUID) & tempMask; myIndex[i] != 0; i = (i + 1) & tempMask) {
+            if (myUIDs[myIndex[i] - 1] == theUID) {
+                return myIndex[i] - 1;
+            }
+        } // END for LOOP
+        
+        return NOT_FOUND;
+    } // END indexOf() METHOD
+    
+    /**
+     * Returns the slot of the player with the passed UID.
+     *
+     * @param theUID The UID of a player.
+     * @return The slot of the player, or NOT_FOUND.
+     */
+    public int indexOf(final BigInteger theUID) {
+        if (theUID.bitLength() < Long.SIZE) {
+            return indexOf(theUID.longValue());
+        }
+        
+        final Integer tempSlot = myBigIndex.get(theUID);
+        return tempSlot == null ? NOT_FOUND : tempSlot;
+    } // END indexOf() METHOD
+    
+  // GETTERS
+    /**
+     * Getter for the number of players in the group.
+     *
+     * @return mySize
+     */
+    public int getSize() {
+        return mySize;
+    }
+    
+    /**
+     * Returns TRUE if the UID of a player fits in a long.
+     *
+     * @param theSlot The slot of the player.
+     * @return TRUE if getLongUID() may be used for the player.
+     */
+    public boolean isLongUID(final int theSlot) {
+        checkSlot(theSlot);
+        return myBigUIDs == null || myBigUIDs[theSlot] == null;
+    }
+    
+    /**
+     * Getter for the UID of a player which fits in a long.
+     *
+     * @param theSlot The slot of the player.
+     * @return The UID of the player.
+     * @throws ArithmeticException If the UID does not fit in a long.
+     */
+    public long getLongUID(final int theSlot) {
+        if (!isLongUID(theSlot)) {
+            throw new ArithmeticException("UID does not fit in a long at " + theSlot);
+        }
+        return myUIDs[theSlot];
+    }
+    
+    /**
+     * Getter for the UID of a player.
+     *
+     * @param theSlot The slot of the player.
+     * @return The UID of the player.
+     */
+    public BigInteger getUID(final int theSlot) {
+        return isLongUID(theSlot) ? BigInteger.valueOf(myUIDs[theSlot]) : myBigUIDs[theSlot];
+    }
+    
+    /**
+     * Getter for the IP address of a player.
+     *
+     * @param theSlot The slot of the player.
+     * @return The IP address, or null if it could not be resolved.
+     */
+    public InetAddress getAddr(final int theSlot) {
+        return myAddrs[theSlot];
+    }
+    
+    /**
+     * Getter for the public key of a player.
+     *
+     * @param theSlot The slot of the player.
+     * @return The public key, or null if it was not valid.
+     */
+    public PublicKey getPubKey(final int theSlot) {
+        return myPubKeys[theSlot];
+    }
+    
+    /**
+     * Getter for the Signature object initialized to verify a player.
+     *
+     * @param theSlot The slot of the player.
+     * @return The Signature object, or null if the key was not valid.
+     */
+    public Signature getSig(final int theSlot) {
+        return mySigs[theSlot];
+    }
+    
+    
+    
+// PACKAGE-PRIVATE METHODS FOR LOADING THE REGISTRY
+    /**
+     * Parses the UID of a player from its decimal text and adds it to the
+     * index.  UIDs must be set one slot at a time, by a single thread.
+     *
+     * @param theSlot The slot of the player.
+     * @param theUID The decimal text of the UID.
+     * @return FALSE if another player already has the UID, in which case the
+     *  index keeps the first player.
+     * @throws NumberFormatException If the text is not a decimal integer.
+     */
+    boolean setUID(final int theSlot, final String theUID) {
+        checkSlot(theSlot);
+        final String tempUID = theUID.trim();
+        
+        if (tempUID.length() <= LONG_DIGITS) {
+            return putLongUID(theSlot, Long.parseLong(tempUID));
+        }
+        
+        return setUID(theSlot, new BigInteger(tempUID));
+    } // END setUID() METHOD
+    
+    /**
+     * Sets the UID of a player and adds it to the index, storing it as a long 
+     * if it fits.  UIDs must be set one slot at a time, by a single thread.
+     *
+     * @param theSlot The slot of the player.
+     * @param theUID The UID.
+     * @return FALSE if another player already has the UID, in which case the
+     *  index keeps the first player.
+     */
+    boolean setUID(final int theSlot, final BigInteger theUID) {
+        checkSlot(theSlot);
+        if (theUID.bitLength() < Long.SIZE) {
+            return putLongUID(theSlot, theUID.longValue());
+        }
+        
+        if (myBigUIDs == null) {
+            myBigUIDs = new BigInteger[mySize];
+        }
+        myBigUIDs[theSlot] = theUID;
+        return myBigIndex.putIfAbsent(theUID, theSlot) == null;
+    } // END setUID() METHOD
+    
+    /**
+     * Sets a UID which fits in a long and adds it to the index.  UIDs must be 
+     * set one slot at a time, by a single thread.
+     *
+     * @param theSlot The slot of the player.
+     * @param theUID The UID.
+     * @return FALSE if another player already has the UID, in which case the
+     *  index keeps the first player.
+     */
+    boolean setUID(final int theSlot, final long theUID) {
+        checkSlot(theSlot);
+        return putLongUID(theSlot, theUID);
+    }
+    
+    /**
+     * Sets the IP addresses of every player.
+     *
+     * @param theAddrs The IP addresses, by slot.
+     */
+    void setAddrs(final InetAddress[] theAddrs) {
+        System.arraycopy(theAddrs, 0, myAddrs, 0, mySize);
+    }
+    
+    /**
+     * Sets the public key of a player and its Signature object.  Different
+     * players may be set from several threads at once.
+     *
+     * @param theSlot The slot of the player.
+     * @param thePubKey The public key of the player.
+     * @param theSig The Signature object initialized to verify the player.
+     */
+    void setKey(final int theSlot, final PublicKey thePubKey, final Signature theSig) {
+        myPubKeys[theSlot] = thePubKey;
+        mySigs[theSlot] = theSig;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Stores a UID which fits in a long and adds it to the index.
+     *
+     * @param theSlot The slot of the player.
+     * @param theUID The UID.
+     * @return FALSE if another player already has the UID.
+     */
+    private boolean putLongUID(final int theSlot, final long theUID) {
+        if (indexOf(theUID) != NOT_FOUND) {
+            myUIDs[theSlot] = theUID;
+            return false;
+        }
+        
+        myUIDs[theSlot] = theUID;
+        final int tempMask = myIndex.length - 1;
+        int i = hash(theUID) & tempMask;
+        while (myIndex[i] != 0) {
+            i = (i + 1) & tempMask;
+        } // END while LOOP
+        myIndex[i] = theSlot + 1;
+        
+        return true;
+    } // END putLongUID() PRIVATE HELPER METHOD
+    
+    /**
+     * Spreads the bits of a UID, so that UIDs in a narrow range are spread
+     * over the whole index.
+     *
+     * @param theUID The UID.
+     * @return The hash of the UID.
+     */
+    private static int hash(final long theUID) {
+        return (int) ((theUID * SPREAD) >>> Integer.SIZE);
+    }
+    
+    /**
+     * Checks that a slot is within the group.
+     *
+     * @param theSlot The slot of a player.
+     */
+    private void checkSlot(final int theSlot) {
+        if (theSlot < 0 || theSlot >= mySize) {
+            throw new IndexOutOfBoundsException("Player " + theSlot + " of " + mySize);
+        }
+    }
+    
+    
+} // END PlayerRegistry.java CLASS
@@ -3,27 +3,68 @@
  */
 package files;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.ArrayList;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
+ * Reads a player's secret data file, holding one value per line, into a
+ * column of the data type named at construction.  Values of the primitive
+ * data types are parsed straight from the bytes of the file into primitive
+ * arrays, which are exposed through read-only buffer views.  Large files may 
+ * be loaded in parallel on a ForkJoinPool, which splits the file into byte 
+ * ranges of whole lines and parses every range straight into its place in 
+ * the column.  Files in the binary format of the SecretDataBinaryFormat class 
+ * are recognized by their header and copied into the column without any 
+ * parsing of text, so callers may switch formats transparently.
  *
  * @author jamster
  */
 public class PlayerSecretDataFileReader {
     
+    /** Smallest number of bytes in a range parsed by one parallel task. */
+    private static final long MIN_CHUNK = 1L << 20;
+    
+    /** Number of ranges created for each worker thread of the pool. */
+    private static final int CHUNKS_PER_WORKER = 4;
+    
     private final String myFileName;
     
     private final String myDataType;
     
-    private final String[] myRawData;
-    
     /** Instance of the GeneralFileReader class to read the raw file data. */
     private final GeneralFileReader myGenReader;
     
-    private List myList;
+    /** The data type named by myDataType, or null if it is not valid. */
+    private final SecretDataType myType;
+    
+    /** Column of values when the data type is "int". */
+    private int[] myInts;
+    
+    /** Column of values when the data type is "long". */
+    private long[] myLongs;
+    
+    /** Column of values when the data type is "float". */
+    private float[] myFloats;
+    
+    /** Column of values when the data type is "double". */
+    private double[] myDoubles;
+    
+    /** Column of values when the data type is "BigInteger" or "BigDecimal". */
+    private Object[] myObjects;
+    
+    /** The number of values read from the file. */
+    private int mySize;
     
     private boolean myDataTypeTest;
     
@@ -35,51 +76,353 @@ public class PlayerSecretDataFileReader {
     public PlayerSecretDataFileReader(final String theFileName, final String theDataType) {
         myFileName = theFileName;
         myDataType = theDataType;
+        myType = SecretDataType.fromName(theDataType);
+        
+        myGenReader = new GeneralFileReader(myFileName);
+        
+        try {
+            if (isBinaryFile()) {
+                convertBinaryData();
+            } else {
+                try (MappedLineReader in = myGenReader.streamIt()) {
+                    convertData(in);
+                } // END try BLOCK
+            }
+        } catch (final IOException exception) {
+            System.out.println("IO input error" + exception.getMessage());
+        } // END try/catch BLOCK
+    }
+    
+    /**
+     * Creates a reader which loads the file in parallel on the passed pool.  
+     * The file is split into byte ranges which each hold only whole lines, 
+     * the lines of every range are counted and then parsed by the workers of 
+     * the pool, and each range is parsed directly into its place in the 
+     * column so that the values keep the order they have in the file.
+     * 
+     * @param theFileName The filename of the secret data file.
+     * @param theDataType The name of the data type of the values.
+     * @param thePool The pool used to parse the ranges of the file.
+     */
+    public PlayerSecretDataFileReader(final String theFileName, final String theDataType,
+                                      final ForkJoinPool thePool) {
+        myFileName = theFileName;
+        myDataType = theDataType;
+        myType = SecretDataType.fromName(theDataType);
         
         myGenReader = new GeneralFileReader(myFileName);
-        myRawData = myGenReader.readItGetIt();
         
-        convertData();
+        try (FileChannel in = myGenReader.openChannel()) {
+            if (SecretDataBinaryFormat.isBinary(in)) {
+                convertBinaryData();
+            } else {
+                convertDataInParallel(in, thePool);
+            }
+        } catch (final IOException exception) {
+            System.out.println("IO input error" + exception.getMessage());
+        } // END try/catch BLOCK
     }
     
-    private void convertData() {
-        myList = new ArrayList<>();
-        myDataTypeTest = true;
+    /**
+     * Returns true if the file is in the binary secret data format.
+     * 
+     * @return true if the file starts with the binary format header.
+     * @throws IOException If the file cannot be read.
+     */
+    private boolean isBinaryFile() throws IOException {
+        try (FileChannel in = myGenReader.openChannel()) {
+            return SecretDataBinaryFormat.isBinary(in);
+        } // END try BLOCK
+    } // END isBinaryFile() PRIVATE HELPER METHOD
+    
+    /**
+     * Sizes the column from the header of a binary secret data file and then 
+     * copies the values of the memory-mapped file into the column.  The data 
+     * type named at construction must match the data type in the header.
+     * 
+     * @throws IOException If the file cannot be read.
+     */
+    private void convertBinaryData() throws IOException {
+        try (SecretDataBinaryReader in = new SecretDataBinaryReader(myFileName)) {
+            myDataTypeTest = myType != null && myType == in.getDataType();
+            
+            if (!myDataTypeTest) {
+                System.out.println("Invalid Data Type.");
+                return;
+            }
+            if (in.getCount() > Integer.MAX_VALUE) {
+                throw new IOException("Too many values in " + myFileName);
+            }
+            
+            allocateColumn((int) in.getCount());
+            switch (myType) {
+                case INT:
+                    in.readInts(0L, myInts, 0, mySize);
+                    break;
+                case LONG:
+                    in.readLongs(0L, myLongs, 0, mySize);
+                    break;
+                case FLOAT:
+                    in.readFloats(0L, myFloats, 0, mySize);
+                    break;
+                case DOUBLE:
+                    in.readDoubles(0L, myDoubles, 0, mySize);
+                    break;
+                case BIG_INTEGER:
+                    for (int i = 0; i < mySize; i++) {
+                        myObjects[i] = in.nextBigInteger();
+                    } // END for LOOP
+                    break;
+                default:
+                    for (int i = 0; i < mySize; i++) {
+                        myObjects[i] = in.nextBigDecimal();
+                    } // END for LOOP
+                    break;
+            } // END switch STATEMENT
+        } // END try BLOCK
+    } // END convertBinaryData() PRIVATE HELPER METHOD
+    
+    /**
+     * Sizes the column from a count of the lines in the file and then parses
+     * each line streamed from the file into the data type specified at
+     * construction, without holding the raw lines of the file on the heap.
+     *
+     * @param theLines The streaming line source over the file.
+     * @throws IOException If the file cannot be scanned.
+     */
+    private void convertData(final MappedLineReader theLines) throws IOException {
+        myDataTypeTest = myType != null;
+        
+        if (!myDataTypeTest) {
+            System.out.println("Invalid Data Type.");
+            return;
+        }
+        
+        final long tempCount = theLines.countLines();
+        if (tempCount > Integer.MAX_VALUE) {
+            throw new IOException("Too many values in " + myFileName);
+        }
+        
+        allocateColumn((int) tempCount);
+        parseLines(theLines, 0);
+    } // END convertData() PRIVATE HELPER METHOD
+    
+    /**
+     * Splits the file into byte ranges of whole lines, counts the lines of 
+     * every range on the pool, sizes the column from the counts, and then 
+     * parses every range on the pool into its place in the column.
+     * 
+     * @param theChannel The channel of the file.
+     * @param thePool The pool used to count and parse the ranges.
+     * @throws IOException If the file cannot be scanned.
+     */
+    private void convertDataInParallel(final FileChannel theChannel,
+                                       final ForkJoinPool thePool) throws IOException {
+        myDataTypeTest = myType != null;
+        
+        if (!myDataTypeTest) {
+            System.out.println("Invalid Data Type.");
+            return;
+        }
+        
+        final long tempSize = theChannel.size();
+        final long tempChunk = Math.max(MIN_CHUNK, tempSize 
+                                / ((long) thePool.getParallelism() * CHUNKS_PER_WORKER));
+        final int tempRanges = (int) ((tempSize + tempChunk - 1) / tempChunk);
+        
+        if (tempRanges == 0) {
+            allocateColumn(0);
+            return;
+        }
+        
+        final long[] tempBounds = new long[tempRanges + 1];
+        for (int i = 1; i < tempRanges; i++) {
+            tempBounds[i] = MappedLineReader.alignToLine(theChannel, i * tempChunk);
+        } // END for LOOP
+        tempBounds[tempRanges] = tempSize;
+        
+        // First pass counts the lines of each range into tempOffsets[i + 1].
+        final long[] tempOffsets = new long[tempRanges + 1];
+        invokeRanges(thePool, new RangeTask(theChannel, tempBounds, tempOffsets,
+                                            0, tempRanges, false));
+        for (int i = 0; i < tempRanges; i++) {
+            tempOffsets[i + 1] += tempOffsets[i];
+        } // END for LOOP
+        if (tempOffsets[tempRanges] > Integer.MAX_VALUE) {
+            throw new IOException("Too many values in " + myFileName);
+        }
+        
+        // Second pass parses each range into the column at its offset.
+        allocateColumn((int) tempOffsets[tempRanges]);
+        invokeRanges(thePool, new RangeTask(theChannel, tempBounds, tempOffsets,
+                                            0, tempRanges, true));
+    } // END convertDataInParallel() PRIVATE HELPER METHOD
+    
+    /**
+     * Runs a task over the ranges of the file on the pool, rethrowing any 
+     * IOException raised by the workers.
+     * 
+     * @param thePool The pool to run the task on.
+     * @param theTask The task to run.
+     * @throws IOException If a range of the file cannot be read.
+     */
+    private static void invokeRanges(final ForkJoinPool thePool, 
+                                     final RangeTask theTask) throws IOException {
+        try {
+            thePool.invoke(theTask);
+        } catch (final UncheckedIOException exception) {
+            throw exception.getCause();
+        } // END try/catch BLOCK
+    } // END invokeRanges() PRIVATE HELPER METHOD
+    
+    /**
+     * Allocates the column for the data type with room for the passed number
+     * of values.
+     *
+     * @param theSize The number of values the column will hold.
+     */
+    private void allocateColumn(final int theSize) {
+        mySize = theSize;
+        
+        switch (myType) {
+            case INT:
+                myInts = new int[theSize];
+                break;
+            case LONG:
+                myLongs = new long[theSize];
+                break;
+            case FLOAT:
+                myFloats = new float[theSize];
+                break;
+            case DOUBLE:
+                myDoubles = new double[theSize];
+                break;
+            default:
+                myObjects = new Object[theSize];
+                break;
+        } // END switch STATEMENT
+    } // END allocateColumn() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses every line of the passed line source into the column, starting
+     * at the passed index of the column.
+     *
+     * @param theLines The streaming line source over the values.
+     * @param theOffset The index of the column receiving the first value.
+     */
+    private void parseLines(final MappedLineReader theLines, final int theOffset) {
+        int i = theOffset;
         
-        switch (myDataType) {
-            case "int":
-                for (final String str : myRawData) {
-                    myList.add(Integer.parseInt(str));
-                } // END for LOOP   
+        switch (myType) {
+            case INT:
+                while (theLines.hasNext()) {
+                    myInts[i++] = ByteParser.parseInt(theLines.next());
+                } // END while LOOP
                 break;
-            case "double":
-                for (final String str : myRawData) {
-                    myList.add(Double.parseDouble(str));
-                } // END for LOOP   
+            case LONG:
+                while (theLines.hasNext()) {
+                    myLongs[i++] = ByteParser.parseLong(theLines.next());
+                } // END while LOOP
                 break;
-            case "float":
-                for (final String str : myRawData) {
-                    myList.add(Float.parseFloat(str));
-                } // END for LOOP   
+            case FLOAT:
+                while (theLines.hasNext()) {
+                    myFloats[i++] = ByteParser.parseFloat(theLines.next());
+                } // END while LOOP
                 break;
-            case "BigInteger":
-                for (final String str : myRawData) {
-                    final BigInteger temp = new BigInteger(str);
-                    myList.add(temp);
-                } // END for LOOP   
+            case DOUBLE:
+                while (theLines.hasNext()) {
+                    myDoubles[i++] = ByteParser.parseDouble(theLines.next());
+                } // END while LOOP
                 break;
-            case "BigDecimal":
-                for (final String str : myRawData) {
-                    final BigDecimal temp = new BigDecimal(str);
-                    myList.add(temp);
-                } // END for LOOP   
+            case BIG_INTEGER:
+                while (theLines.hasNext()) {
+                    myObjects[i++] = new BigInteger(theLines.nextLine().toString());
+                } // END while LOOP
                 break;
             default:
-                myDataTypeTest = false;
-                System.out.println("Invalid Data Type.");
+                while (theLines.hasNext()) {
+                    myObjects[i++] = new BigDecimal(theLines.nextLine().toString());
+                } // END while LOOP
                 break;
         } // END switch STATEMENT
-    } // END convertData() PRIVATE HELPER METHOD
+    } // END parseLines() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * Fork-join task which either counts or parses the lines of a span of the 
+     * byte ranges of the file, splitting the span in half until a single 
+     * range remains.
+     */
+    private final class RangeTask extends RecursiveAction {
+        
+        /** Serial version UID for the serializable RecursiveAction. */
+        private static final long serialVersionUID = 1L;
+        
+        /** The channel of the file. */
+        private final transient FileChannel myChannel;
+        
+        /** File positions bounding the ranges; range i is [i, i + 1). */
+        private final long[] myBounds;
+        
+        /** Line counts (first pass) or column offsets (second pass). */
+        private final long[] myOffsets;
+        
+        /** Index of the first range of the span. */
+        private final int myFrom;
+        
+        /** Index just past the last range of the span. */
+        private final int myTo;
+        
+        /** Boolean holding whether this task parses rather than counts. */
+        private final boolean myParse;
+        
+        /**
+         * Creates a task over the ranges [theFrom, theTo).
+         * 
+         * @param theChannel The channel of the file.
+         * @param theBounds File positions bounding the ranges.
+         * @param theOffsets Line counts or column offsets of the ranges.
+         * @param theFrom Index of the first range of the span.
+         * @param theTo Index just past the last range of the span.
+         * @param theParse true to parse the ranges, false to count them.
+         */
+        RangeTask(final FileChannel theChannel, final long[] theBounds, 
+                  final long[] theOffsets, final int theFrom, final int theTo,
+                  final boolean theParse) {
+            myChannel = theChannel;
+            myBounds = theBounds;
+            myOffsets = theOffsets;
+            myFrom = theFrom;
+            myTo = theTo;
+            myParse = theParse;
+        }
+        
+        @Override
+        protected void compute() {
+            if (myTo - myFrom > 1) {
+                final int tempMid = (myFrom + myTo) >>> 1;
+                invokeAll(new RangeTask(myChannel, myBounds, myOffsets, 
+                                        myFrom, tempMid, myParse),
+                          new RangeTask(myChannel, myBounds, myOffsets, 
+                                        tempMid, myTo, myParse));
+                return;
+            }
+            
+            try (MappedLineReader in = new MappedLineReader(myChannel, 
+                                                            myBounds[myFrom], 
+                                                            myBounds[myFrom + 1])) {
+                if (myParse) {
+                    parseLines(in, (int) myOffsets[myFrom]);
+                } else {
+                    myOffsets[myFrom + 1] = in.countLines();
+                }
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            } // END try/catch BLOCK
+        } // END compute() METHOD
+    } // END RangeTask PRIVATE CLASS
     
     
     
@@ -94,19 +437,152 @@ public class PlayerSecretDataFileReader {
         return myDataType;
     }
     
+    /**
+     * Returns a read-only List view of the values read from the file.  Values
+     * of primitive data types are boxed only as they are accessed.
+     *
+     * @return A read-only view of the values, or null if the data type is not
+     *         valid.
+     */
     public List getList() {
-        List tmpList = new ArrayList<>();
+        if (!myDataTypeTest) {
+            return null;
+        }
         
-        if (myDataTypeTest) {
-            tmpList.addAll(myList);
-        } else {
-            tmpList = null;
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(final int theIndex) {
+                return getValue(theIndex);
+            }
+            
+            @Override
+            public int size() {
+                return mySize;
+            }
+        };
+    }
+    
+    /**
+     * Returns the value at the passed index of the column as an Object.
+     *
+     * @param theIndex The index of the value.
+     * @return The boxed value.
+     */
+    private Object getValue(final int theIndex) {
+        if (theIndex < 0 || theIndex >= mySize) {
+            throw new IndexOutOfBoundsException("Index: " + theIndex);
         }
         
-        return tmpList;
+        switch (myType) {
+            case INT:
+                return myInts[theIndex];
+            case LONG:
+                return myLongs[theIndex];
+            case FLOAT:
+                return myFloats[theIndex];
+            case DOUBLE:
+                return myDoubles[theIndex];
+            default:
+                return myObjects[theIndex];
+        } // END switch STATEMENT
+    }
+    
+    /**
+     * Returns the number of values read from the file.
+     *
+     * @return mySize
+     */
+    public int getSize() {
+        return mySize;
+    }
+    
+    /**
+     * Returns a read-only view of the column when the data type is "int".
+     *
+     * @return The values, or null if the data type is not "int".
+     */
+    public IntBuffer getInts() {
+        return myInts == null ? null : IntBuffer.wrap(myInts).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Returns a read-only view of the column when the data type is "long".
+     *
+     * @return The values, or null if the data type is not "long".
+     */
+    public LongBuffer getLongs() {
+        return myLongs == null ? null : LongBuffer.wrap(myLongs).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Returns a read-only view of the column when the data type is "float".
+     *
+     * @return The values, or null if the data type is not "float".
+     */
+    public FloatBuffer getFloats() {
+        return myFloats == null ? null : FloatBuffer.wrap(myFloats).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Returns a read-only view of the column when the data type is "double".
+     *
+     * @return The values, or null if the data type is not "double".
+     */
+    public DoubleBuffer getDoubles() {
+        return myDoubles == null ? null : DoubleBuffer.wrap(myDoubles).asReadOnlyBuffer();
     }
     
+    /**
+     * Returns a copy of the column as an int array when the data type is
+     * "int", for callers which need a mutable array of their own.
+     *
+     * @return A copy of the values, or null if the data type is not "int".
+     */
+    public int[] toIntArray() {
+        return myInts == null ? null : myInts.clone();
+    }
+    
+    /**
+     * Returns a copy of the column as a long array.  Values of the "int" data
+     * type are widened, so this serves both integral primitive types.
+     *
+     * @return A copy of the values, or null if the data type is neither "int"
+     *         nor "long".
+     */
+    public long[] toLongArray() {
+        if (myInts != null) {
+            final long[] tempLongs = new long[mySize];
+            for (int i = 0; i < mySize; i++) {
+                tempLongs[i] = myInts[i];
+            } // END for LOOP
+            
+            return tempLongs;
+        }
         
+        return myLongs == null ? null : myLongs.clone();
+    }
+    
+    /**
+     * Returns a copy of the column as a float array when the data type is
+     * "float".
+     *
+     * @return A copy of the values, or null if the data type is not "float".
+     */
+    public float[] toFloatArray() {
+        return myFloats == null ? null : myFloats.clone();
+    }
+    
+    /**
+     * Returns a copy of the column as a double array when the data type is
+     * "double".
+     *
+     * @return A copy of the values, or null if the data type is not "double".
+     */
+    public double[] toDoubleArray() {
+        return myDoubles == null ? null : myDoubles.clone();
+    }
+    
+    
     public boolean getDataTypeTest() {
         return myDataTypeTest;
     }
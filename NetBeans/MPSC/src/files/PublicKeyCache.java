@@ -0,0 +1,272 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least-recently-used cache of decoded public keys, keyed by the
+ * key algorithm and a digest of the X.509 encoded key bytes.  A single
+ * process-wide instance is shared by every GroupCompInitializationFile-
+ * Interpreter, so that players appearing in many group computations have
+ * their keys decoded only once.  Counters of hits, misses, and evictions are
+ * kept for monitoring.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class PublicKeyCache {
+    
+// CLASS CONSTANTS
+    /** The default largest number of keys held by the cache. */
+    public static final int DEFAULT_CAPACITY = 16384;
+    
+    /** String constant holding the hash algorithm used to key the cache. */
+    private static final String DIGEST_ALGO = "SHA-256";
+    
+    /** The process-wide cache. */
+    private static final PublicKeyCache SHARED = new PublicKeyCache(DEFAULT_CAPACITY);
+    
+    
+// CLASS VARIABLES
+    /** The largest number of keys held by the cache. */
+    private final int myCapacity;
+    
+    /** The cached keys in access order, guarded by its own lock. */
+    private final Map<CacheKey, PublicKey> myKeys;
+    
+    /** The number of lookups answered from the cache. */
+    private final AtomicLong myHits;
+    
+    /** The number of lookups which had to decode the key. */
+    private final AtomicLong myMisses;
+    
+    /** The number of keys evicted to stay within the capacity. */
+    private final AtomicLong myEvictions;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty cache holding at most the passed number of keys.
+     *
+     * @param theCapacity The largest number of keys held by the cache.
+     */
+    public PublicKeyCache(final int theCapacity) {
+        if (theCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        
+        myCapacity = theCapacity;
+        myHits = new AtomicLong();
+        myMisses = new AtomicLong();
+        myEvictions = new AtomicLong();
+        
+        myKeys = new LinkedHashMap<CacheKey, PublicKey>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<CacheKey, PublicKey> theEldest) {
+                final boolean tempFull = size() > myCapacity;
+                if (tempFull) {
+                    myEvictions.incrementAndGet();
+                }
+                return tempFull;
+            }
+        };
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the process-wide cache.
+     *
+     * @return The shared cache.
+     */
+    public static PublicKeyCache getShared() {
+        return SHARED;
+    }
+    
+    /**
+     * Returns the public key with the passed X.509 encoding, decoding it with
+     * the passed KeyFactory only if it is not already cached.  The key is
+     * decoded outside the lock of the cache, so lookups by other threads are
+     * never held up by decoding.
+     *
+     * @param theFactory The KeyFactory for the algorithm of the key.
+     * @param theEncoded The X.509 encoded key bytes.
+     * @return The decoded public key.
+     * @throws InvalidKeySpecException If the bytes are not a valid key.
+     */
+    public PublicKey getPublicKey(final KeyFactory theFactory, final byte[] theEncoded)
+                                  throws InvalidKeySpecException {
+        final CacheKey tempKey = new CacheKey(theFactory.getAlgorithm(), digest(theEncoded));
+        
+        PublicKey tempPubKey;
+        synchronized (myKeys) {
+            tempPubKey = myKeys.get(tempKey);
+        } // END synchronized BLOCK
+        
+        if (tempPubKey != null) {
+            myHits.incrementAndGet();
+            return tempPubKey;
+        }
+        
+        myMisses.incrementAndGet();
+        tempPubKey = theFactory.generatePublic(new X509EncodedKeySpec(theEncoded));
+        synchronized (myKeys) {
+            myKeys.put(tempKey, tempPubKey);
+        } // END synchronized BLOCK
+        
+        return tempPubKey;
+    } // END getPublicKey() METHOD
+    
+    /**
+     * Removes every key from the cache.  The counters are left unchanged.
+     */
+    public void clear() {
+        synchronized (myKeys) {
+            myKeys.clear();
+        } // END synchronized BLOCK
+    }
+    
+  // GETTERS
+    /**
+     * Getter for the largest number of keys held by the cache.
+     *
+     * @return myCapacity
+     */
+    public int getCapacity() {
+        return myCapacity;
+    }
+    
+    /**
+     * Returns the number of keys currently held by the cache.
+     *
+     * @return The number of cached keys.
+     */
+    public int getSize() {
+        synchronized (myKeys) {
+            return myKeys.size();
+        } // END synchronized BLOCK
+    }
+    
+    /**
+     * Getter for the number of lookups answered from the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return myHits.get();
+    }
+    
+    /**
+     * Getter for the number of lookups which had to decode the key.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return myMisses.get();
+    }
+    
+    /**
+     * Getter for the number of keys evicted to stay within the capacity.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return myEvictions.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "PublicKeyCache[size=" + getSize() + ", capacity=" + myCapacity
+               + ", hits=" + getHits() + ", misses=" + getMisses()
+               + ", evictions=" + getEvictions() + "]";
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Computes the digest of the encoded key bytes with a MessageDigest from
+     * the per-thread cache of the FileHashVerifier class.
+     *
+     * @param theEncoded The X.509 encoded key bytes.
+     * @return The digest of the bytes.
+     */
+    private static byte[] digest(final byte[] theEncoded) {
+        final MessageDigest tempDigest;
+        try {
+            tempDigest = FileHashVerifier.acquire(DIGEST_ALGO);
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("No Such Algorithm Exception for "
+                                            + DIGEST_ALGO, exception);
+        } // END try/catch BLOCK
+        
+        final byte[] tempHash = tempDigest.digest(theEncoded);
+        FileHashVerifier.release(tempDigest);
+        
+        return tempHash;
+    } // END digest() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * Key of the cache, made of the key algorithm and the digest of the
+     * encoded key bytes.
+     */
+    private static final class CacheKey {
+        
+        /** The name of the key algorithm. */
+        private final String myAlgo;
+        
+        /** The digest of the encoded key bytes. */
+        private final byte[] myDigest;
+        
+        /** The hash code, computed once. */
+        private final int myHash;
+        
+        /**
+         * Creates a key of the cache.
+         *
+         * @param theAlgo The name of the key algorithm.
+         * @param theDigest The digest of the encoded key bytes.
+         */
+        CacheKey(final String theAlgo, final byte[] theDigest) {
+            myAlgo = theAlgo;
+            myDigest = theDigest;
+            myHash = 31 * theAlgo.hashCode() + Arrays.hashCode(theDigest);
+        }
+        
+        @Override
+        public boolean equals(final Object theOther) {
+            if (!(theOther instanceof CacheKey)) {
+                return false;
+            }
+            
+            final CacheKey tempOther = (CacheKey) theOther;
+            return myHash == tempOther.myHash && myAlgo.equals(tempOther.myAlgo)
+                   && Arrays.equals(myDigest, tempOther.myDigest);
+        }
+        
+        @Override
+        public int hashCode() {
+            return myHash;
+        }
+    } // END CacheKey PRIVATE CLASS
+    
+    
+} // END PublicKeyCache.java CLASS
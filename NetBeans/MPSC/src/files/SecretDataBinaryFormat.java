@@ -0,0 +1,285 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Utility class defining the compact binary, columnar format for a player's
+ * secret data, and converting secret data files from the text format (one
+ * value per line) to the binary format.  All numbers are little-endian.  A
+ * binary file starts with a header of HEADER_SIZE bytes:
+ *
+ * <pre>
+ *  offset  size  field
+ *       0     8  MAGIC, the ASCII bytes "MPSCSDAT"
+ *       8     2  format VERSION
+ *      10     1  data type tag, as given by SecretDataType.getTag()
+ *      11     1  reserved, always 0
+ *      12     4  bytes per value, or 0 for variable-length values
+ *      16     8  number of values
+ * </pre>
+ *
+ * The values follow the header.  The int, long, float, and double data types
+ * are stored as packed fixed-width values.  Each BigInteger is stored as an
+ * int length followed by that many bytes of its big-endian two's-complement
+ * magnitude, as given by BigInteger.toByteArray(), and each BigDecimal as an
+ * int scale followed by its unscaled value stored as a BigInteger.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class SecretDataBinaryFormat {
+    
+// CLASS CONSTANTS
+    /** The magic bytes which start every binary secret data file. */
+    private static final byte[] MAGIC = {'M', 'P', 'S', 'C', 'S', 'D', 'A', 'T'};
+    
+    /** The version of the binary format written by this class. */
+    public static final short VERSION = 1;
+    
+    /** The number of bytes in the header of a binary secret data file. */
+    public static final int HEADER_SIZE = 24;
+    
+    /** Offset in the header of the data type tag. */
+    static final int TAG_OFFSET = 10;
+    
+    /** Offset in the header of the number of bytes per value. */
+    static final int WIDTH_OFFSET = 12;
+    
+    /** Offset in the header of the number of values. */
+    static final int COUNT_OFFSET = 16;
+    
+    /** Size of the buffer used to write the values of a binary file. */
+    private static final int WRITE_BUFFER = 1 << 16;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SecretDataBinaryFormat() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns true if the file open on the passed channel starts with the
+     * magic bytes of a binary secret data file.
+     *
+     * @param theChannel The channel of the file.
+     * @return true if the file is in the binary format.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isBinary(final FileChannel theChannel) throws IOException {
+        if (theChannel.size() < HEADER_SIZE) {
+            return false;
+        }
+        
+        final ByteBuffer tempMagic = ByteBuffer.allocate(MAGIC.length);
+        while (tempMagic.hasRemaining()) {
+            if (theChannel.read(tempMagic, tempMagic.position()) < 0) {
+                return false;
+            }
+        } // END while LOOP
+        
+        tempMagic.flip();
+        return hasMagic(tempMagic);
+    } // END isBinary() METHOD
+    
+    /**
+     * Returns a copy of the magic bytes which start every binary secret data
+     * file.
+     *
+     * @return The magic bytes.
+     */
+    public static byte[] getMagic() {
+        return MAGIC.clone();
+    }
+    
+    /**
+     * Reads as many bytes as the magic bytes from the passed buffer and
+     * returns true if they match them.
+     *
+     * @param theBuf The buffer positioned at the start of a header.
+     * @return true if the header starts with the magic bytes.
+     */
+    static boolean hasMagic(final ByteBuffer theBuf) {
+        final byte[] tempMagic = new byte[MAGIC.length];
+        theBuf.get(tempMagic);
+        return Arrays.equals(tempMagic, MAGIC);
+    }
+    
+    /**
+     * Converts a secret data file in the text format, holding one value of
+     * the named data type per line, into a file in the binary format.  The
+     * text file is streamed from a memory-mapped line source, so neither file
+     * is ever held on the heap.
+     *
+     * @param theTextFileName The filename of the text secret data file.
+     * @param theDataType The name of the data type of the values.
+     * @param theBinaryFileName The filename of the binary file to write.
+     * @return The number of values converted.
+     * @throws IOException If either file cannot be read or written.
+     * @throws IllegalArgumentException If the data type is not valid.
+     */
+    public static long convert(final String theTextFileName, final String theDataType,
+                               final String theBinaryFileName) throws IOException {
+        final SecretDataType tempType = SecretDataType.fromName(theDataType);
+        if (tempType == null) {
+            throw new IllegalArgumentException("Invalid Data Type: " + theDataType);
+        }
+        
+        try (MappedLineReader in = new MappedLineReader(theTextFileName);
+             FileChannel out = FileChannel.open(Paths.get(theBinaryFileName),
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final long tempCount = in.countLines();
+            
+            final ByteBuffer tempBuf = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            tempBuf.order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(tempBuf, tempType, tempCount);
+            
+            while (in.hasNext()) {
+                writeValue(out, tempBuf, tempType, in.next());
+            } // END while LOOP
+            
+            tempBuf.flip();
+            writeFully(out, tempBuf);
+            
+            return tempCount;
+        } // END try BLOCK
+    } // END convert() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Puts the header of a binary file into the passed buffer.
+     *
+     * @param theBuf The little-endian buffer receiving the header.
+     * @param theType The data type of the values.
+     * @param theCount The number of values.
+     */
+    private static void writeHeader(final ByteBuffer theBuf, final SecretDataType theType,
+                                    final long theCount) {
+        theBuf.put(MAGIC);
+        theBuf.putShort(VERSION);
+        theBuf.put(theType.getTag());
+        theBuf.put((byte) 0);
+        theBuf.putInt(theType.getWidth());
+        theBuf.putLong(theCount);
+    } // END writeHeader() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses one line of text and puts its value into the passed buffer, first
+     * writing the buffer to the channel if the value might not fit.
+     *
+     * @param theOut The channel of the binary file.
+     * @param theBuf The little-endian buffer of values to be written.
+     * @param theType The data type of the values.
+     * @param theLine The bytes of the line holding the value.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void writeValue(final FileChannel theOut, final ByteBuffer theBuf,
+                                   final SecretDataType theType,
+                                   final ByteBuffer theLine) throws IOException {
+        if (theBuf.remaining() < Long.BYTES) {
+            flush(theOut, theBuf);
+        }
+        
+        switch (theType) {
+            case INT:
+                theBuf.putInt(ByteParser.parseInt(theLine));
+                break;
+            case LONG:
+                theBuf.putLong(ByteParser.parseLong(theLine));
+                break;
+            case FLOAT:
+                theBuf.putFloat(ByteParser.parseFloat(theLine));
+                break;
+            case DOUBLE:
+                theBuf.putDouble(ByteParser.parseDouble(theLine));
+                break;
+            case BIG_INTEGER:
+                putBytes(theOut, theBuf,
+                         new BigInteger(new ByteLine(theLine).toString()).toByteArray());
+                break;
+            default:
+                final BigDecimal temp = new BigDecimal(new ByteLine(theLine).toString());
+                theBuf.putInt(temp.scale());
+                putBytes(theOut, theBuf, temp.unscaledValue().toByteArray());
+                break;
+        } // END switch STATEMENT
+    } // END writeValue() PRIVATE HELPER METHOD
+    
+    /**
+     * Puts a length-prefixed array of bytes into the passed buffer, writing
+     * the buffer to the channel as often as needed to make room.
+     *
+     * @param theOut The channel of the binary file.
+     * @param theBuf The little-endian buffer of values to be written.
+     * @param theBytes The bytes to be put.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void putBytes(final FileChannel theOut, final ByteBuffer theBuf,
+                                 final byte[] theBytes) throws IOException {
+        if (theBuf.remaining() < Integer.BYTES) {
+            flush(theOut, theBuf);
+        }
+        theBuf.putInt(theBytes.length);
+        
+        int tempDone = 0;
+        while (tempDone < theBytes.length) {
+            if (!theBuf.hasRemaining()) {
+                flush(theOut, theBuf);
+            }
+            final int tempLen = Math.min(theBuf.remaining(), theBytes.length - tempDone);
+            theBuf.put(theBytes, tempDone, tempLen);
+            tempDone += tempLen;
+        } // END while LOOP
+    } // END putBytes() PRIVATE HELPER METHOD
+    
+    /**
+     * Writes the content of the passed buffer to the channel and clears it.
+     *
+     * @param theOut The channel of the binary file.
+     * @param theBuf The buffer of values to be written.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void flush(final FileChannel theOut, final ByteBuffer theBuf)
+                              throws IOException {
+        theBuf.flip();
+        writeFully(theOut, theBuf);
+        theBuf.clear();
+    } // END flush() PRIVATE HELPER METHOD
+    
+    /**
+     * Writes all remaining bytes of the passed buffer to the channel.
+     *
+     * @param theOut The channel of the binary file.
+     * @param theBuf The buffer to be written.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static void writeFully(final FileChannel theOut, final ByteBuffer theBuf)
+                                   throws IOException {
+        while (theBuf.hasRemaining()) {
+            theOut.write(theBuf);
+        } // END while LOOP
+    } // END writeFully() PRIVATE HELPER METHOD
+    
+    
+} // END SecretDataBinaryFormat.java CLASS
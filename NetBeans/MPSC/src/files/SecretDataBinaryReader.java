@@ -0,0 +1,416 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reader for secret data files in the binary format defined by the
+ * SecretDataBinaryFormat class.  The file is memory-mapped through a window,
+ * and values are handed out directly from the mapping without any parsing of
+ * text: fixed-width values may be read at random or copied in bulk into
+ * primitive arrays, and variable-length BigInteger and BigDecimal values are
+ * read in sequence.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class SecretDataBinaryReader implements Closeable {
+    
+// CLASS CONSTANTS
+    /** Int constant for the largest number of bytes mapped at any one time. */
+    private static final int MAX_WINDOW = 1 << 28;
+    
+    
+// CLASS VARIABLES
+    /** The channel of the binary file. */
+    private final FileChannel myChannel;
+    
+    /** The size of the binary file in bytes. */
+    private final long mySize;
+    
+    /** The data type of the values, from the header. */
+    private final SecretDataType myType;
+    
+    /** The number of values, from the header. */
+    private final long myCount;
+    
+    /** File position of the first byte of the current window. */
+    private long myWindowStart;
+    
+    /** The currently mapped window of the file, in little-endian order. */
+    private ByteBuffer myWindow;
+    
+    /** File position of the next variable-length value to be read. */
+    private long myNextPos;
+    
+    /** Index of the next variable-length value to be read. */
+    private long myNextIndex;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Opens the binary secret data file with the passed filename and reads
+     * its header.
+     *
+     * @param theFileName The filename of the binary file.
+     * @throws IOException If the file cannot be read or has a bad header.
+     */
+    public SecretDataBinaryReader(final String theFileName) throws IOException {
+        myChannel = FileChannel.open(Paths.get(theFileName), StandardOpenOption.READ);
+        mySize = myChannel.size();
+        
+        try {
+            final ByteBuffer tempHeader = window(0L, SecretDataBinaryFormat.HEADER_SIZE);
+            if (!SecretDataBinaryFormat.hasMagic(tempHeader)
+                    || tempHeader.getShort() != SecretDataBinaryFormat.VERSION) {
+                throw new IOException("Not a binary secret data file: " + theFileName);
+            }
+            
+            myType = SecretDataType.fromTag(
+                    tempHeader.get(SecretDataBinaryFormat.TAG_OFFSET));
+            if (myType == null || myType.getWidth()
+                    != tempHeader.getInt(SecretDataBinaryFormat.WIDTH_OFFSET)) {
+                throw new IOException("Unknown data type in " + theFileName);
+            }
+            
+            myCount = tempHeader.getLong(SecretDataBinaryFormat.COUNT_OFFSET);
+            if (myCount < 0) {
+                throw new IOException("Invalid number of values in " + theFileName);
+            }
+            // Divide rather than multiply, so that no count can overflow the check
+            if (myType.getWidth() > 0 && myCount > (mySize - SecretDataBinaryFormat.HEADER_SIZE)
+                                                   / myType.getWidth()) {
+                throw new IOException("Truncated binary secret data file: " + theFileName);
+            }
+        } catch (final IOException exception) {
+            myChannel.close();
+            throw exception;
+        } // END try/catch BLOCK
+        
+        myNextPos = SecretDataBinaryFormat.HEADER_SIZE;
+    } // END constructor
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the current window, remapped if needed so that it covers the
+     * passed number of bytes from the passed file position, with its position
+     * set to the byte at that file position.
+     *
+     * @param thePos The file position of the first byte needed.
+     * @param theLen The number of bytes needed.
+     * @return The window, positioned at thePos.
+     * @throws IOException If the bytes lie past the end of the file.
+     */
+    private ByteBuffer window(final long thePos, final int theLen) throws IOException {
+        if (thePos + theLen > mySize) {
+            throw new IOException("Read past the end of the binary file");
+        }
+        
+        if (myWindow == null || thePos < myWindowStart
+                || thePos + theLen > myWindowStart + myWindow.capacity()) {
+            final long tempLen = Math.min(Math.max(MAX_WINDOW, theLen), mySize - thePos);
+            myWindow = myChannel.map(FileChannel.MapMode.READ_ONLY, thePos, tempLen)
+                                .order(ByteOrder.LITTLE_ENDIAN);
+            myWindowStart = thePos;
+        }
+        
+        myWindow.position((int) (thePos - myWindowStart));
+        return myWindow;
+    } // END window() PRIVATE HELPER METHOD
+    
+    /**
+     * Maps a little-endian slice holding as many as possible, up to the passed
+     * number, of the fixed-width values starting at the passed index.
+     *
+     * @param theType The data type the caller expects.
+     * @param theFrom Index of the first value.
+     * @param theMax Largest number of values wanted.
+     * @return A slice holding a whole number of values.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private ByteBuffer values(final SecretDataType theType, final long theFrom,
+                              final int theMax) throws IOException {
+        checkType(theType);
+        if (theFrom < 0 || theMax < 0 || theFrom + theMax > myCount) {
+            throw new IndexOutOfBoundsException("Values " + theFrom + " to "
+                                                + (theFrom + theMax));
+        }
+        
+        final int tempWidth = myType.getWidth();
+        final int tempCount = Math.min(theMax, MAX_WINDOW / tempWidth);
+        final long tempPos = SecretDataBinaryFormat.HEADER_SIZE + theFrom * tempWidth;
+        
+        return myChannel.map(FileChannel.MapMode.READ_ONLY, tempPos,
+                             (long) tempCount * tempWidth).order(ByteOrder.LITTLE_ENDIAN);
+    } // END values() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the file position of the fixed-width value at the passed index.
+     *
+     * @param theType The data type the caller expects.
+     * @param theIndex The index of the value.
+     * @return The file position of the value.
+     */
+    private long position(final SecretDataType theType, final long theIndex) {
+        checkType(theType);
+        if (theIndex < 0 || theIndex >= myCount) {
+            throw new IndexOutOfBoundsException("Index: " + theIndex);
+        }
+        
+        return SecretDataBinaryFormat.HEADER_SIZE + theIndex * myType.getWidth();
+    } // END position() PRIVATE HELPER METHOD
+    
+    /**
+     * Checks that the values of the file are of the passed data type.
+     *
+     * @param theType The data type the caller expects.
+     */
+    private void checkType(final SecretDataType theType) {
+        if (theType != myType) {
+            throw new IllegalStateException("Values are " + myType.getName()
+                                            + ", not " + theType.getName());
+        }
+    } // END checkType() PRIVATE HELPER METHOD
+    
+    /**
+     * Reads the next length-prefixed BigInteger in sequence.
+     *
+     * @return The next BigInteger.
+     * @throws IOException If the file is truncated or the length is negative.
+     */
+    private BigInteger nextMagnitude() throws IOException {
+        final int tempLen = window(myNextPos, Integer.BYTES).getInt();
+        if (tempLen < 0) {
+            throw new IOException("Invalid length " + tempLen + " at byte " + myNextPos);
+        }
+        final byte[] tempBytes = new byte[tempLen];
+        window(myNextPos + Integer.BYTES, tempLen).get(tempBytes);
+        myNextPos += Integer.BYTES + tempLen;
+        
+        return new BigInteger(tempBytes);
+    } // END nextMagnitude() PRIVATE HELPER METHOD
+    
+    
+// PUBLIC METHODS
+  // GETTERS
+    /**
+     * Getter for the data type of the values, from the header.
+     *
+     * @return myType
+     */
+    public SecretDataType getDataType() {
+        return myType;
+    }
+    
+    /**
+     * Getter for the number of values, from the header.
+     *
+     * @return myCount
+     */
+    public long getCount() {
+        return myCount;
+    }
+    
+  // RANDOM ACCESS TO FIXED-WIDTH VALUES
+    /**
+     * Returns the int value at the passed index.
+     *
+     * @param theIndex The index of the value.
+     * @return The value.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public int getInt(final long theIndex) throws IOException {
+        return window(position(SecretDataType.INT, theIndex), Integer.BYTES).getInt();
+    }
+    
+    /**
+     * Returns the long value at the passed index.
+     *
+     * @param theIndex The index of the value.
+     * @return The value.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public long getLong(final long theIndex) throws IOException {
+        return window(position(SecretDataType.LONG, theIndex), Long.BYTES).getLong();
+    }
+    
+    /**
+     * Returns the float value at the passed index.
+     *
+     * @param theIndex The index of the value.
+     * @return The value.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public float getFloat(final long theIndex) throws IOException {
+        return window(position(SecretDataType.FLOAT, theIndex), Float.BYTES).getFloat();
+    }
+    
+    /**
+     * Returns the double value at the passed index.
+     *
+     * @param theIndex The index of the value.
+     * @return The value.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public double getDouble(final long theIndex) throws IOException {
+        return window(position(SecretDataType.DOUBLE, theIndex), Double.BYTES).getDouble();
+    }
+    
+  // BULK COPIES OF FIXED-WIDTH VALUES
+    /**
+     * Copies int values, starting at the passed index, into an array.
+     *
+     * @param theFrom Index of the first value to copy.
+     * @param theDest The array receiving the values.
+     * @param theOffset Index of the array receiving the first value.
+     * @param theLen The number of values to copy.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public void readInts(final long theFrom, final int[] theDest, final int theOffset,
+                         final int theLen) throws IOException {
+        int tempDone = 0;
+        while (tempDone < theLen) {
+            final ByteBuffer tempVals = values(SecretDataType.INT, theFrom + tempDone,
+                                               theLen - tempDone);
+            final int tempCount = tempVals.remaining() / Integer.BYTES;
+            tempVals.asIntBuffer().get(theDest, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+        } // END while LOOP
+    } // END readInts() METHOD
+    
+    /**
+     * Copies long values, starting at the passed index, into an array.
+     *
+     * @param theFrom Index of the first value to copy.
+     * @param theDest The array receiving the values.
+     * @param theOffset Index of the array receiving the first value.
+     * @param theLen The number of values to copy.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public void readLongs(final long theFrom, final long[] theDest, final int theOffset,
+                          final int theLen) throws IOException {
+        int tempDone = 0;
+        while (tempDone < theLen) {
+            final ByteBuffer tempVals = values(SecretDataType.LONG, theFrom + tempDone,
+                                               theLen - tempDone);
+            final int tempCount = tempVals.remaining() / Long.BYTES;
+            tempVals.asLongBuffer().get(theDest, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+        } // END while LOOP
+    } // END readLongs() METHOD
+    
+    /**
+     * Copies float values, starting at the passed index, into an array.
+     *
+     * @param theFrom Index of the first value to copy.
+     * @param theDest The array receiving the values.
+     * @param theOffset Index of the array receiving the first value.
+     * @param theLen The number of values to copy.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public void readFloats(final long theFrom, final float[] theDest, final int theOffset,
+                           final int theLen) throws IOException {
+        int tempDone = 0;
+        while (tempDone < theLen) {
+            final ByteBuffer tempVals = values(SecretDataType.FLOAT, theFrom + tempDone,
+                                               theLen - tempDone);
+            final int tempCount = tempVals.remaining() / Float.BYTES;
+            tempVals.asFloatBuffer().get(theDest, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+        } // END while LOOP
+    } // END readFloats() METHOD
+    
+    /**
+     * Copies double values, starting at the passed index, into an array.
+     *
+     * @param theFrom Index of the first value to copy.
+     * @param theDest The array receiving the values.
+     * @param theOffset Index of the array receiving the first value.
+     * @param theLen The number of values to copy.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public void readDoubles(final long theFrom, final double[] theDest, final int theOffset,
+                            final int theLen) throws IOException {
+        int tempDone = 0;
+        while (tempDone < theLen) {
+            final ByteBuffer tempVals = values(SecretDataType.DOUBLE, theFrom + tempDone,
+                                               theLen - tempDone);
+            final int tempCount = tempVals.remaining() / Double.BYTES;
+            tempVals.asDoubleBuffer().get(theDest, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+        } // END while LOOP
+    } // END readDoubles() METHOD
+    
+  // SEQUENTIAL ACCESS TO VARIABLE-LENGTH VALUES
+    /**
+     * Returns true if there is at least one more BigInteger or BigDecimal
+     * value to be read in sequence.
+     *
+     * @return true if nextBigInteger() or nextBigDecimal() will return a value.
+     */
+    public boolean hasNext() {
+        return myNextIndex < myCount;
+    }
+    
+    /**
+     * Returns the next BigInteger value in sequence.
+     *
+     * @return The next value.
+     * @throws IOException If the file is truncated.
+     */
+    public BigInteger nextBigInteger() throws IOException {
+        checkType(SecretDataType.BIG_INTEGER);
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        
+        myNextIndex++;
+        return nextMagnitude();
+    } // END nextBigInteger() METHOD
+    
+    /**
+     * Returns the next BigDecimal value in sequence.
+     *
+     * @return The next value.
+     * @throws IOException If the file is truncated.
+     */
+    public BigDecimal nextBigDecimal() throws IOException {
+        checkType(SecretDataType.BIG_DECIMAL);
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        
+        final int tempScale = window(myNextPos, Integer.BYTES).getInt();
+        myNextPos += Integer.BYTES;
+        myNextIndex++;
+        
+        return new BigDecimal(nextMagnitude(), tempScale);
+    } // END nextBigDecimal() METHOD
+    
+    /**
+     * Closes the channel of the binary file.  The mapping itself is released
+     * once it is no longer referenced.
+     *
+     * @throws IOException If the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        myWindow = null;
+        myChannel.close();
+    } // END close() METHOD
+    
+    
+} // END SecretDataBinaryReader.java CLASS
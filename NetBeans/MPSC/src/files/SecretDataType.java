@@ -0,0 +1,133 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+/**
+ * Enumeration of the data types which may be held in a player's secret data
+ * file, each of which is identified in files and by callers through the same
+ * String name used by the "myDataType" of the PlayerSecretDataFileReader.  
+ * Each data type also has the tag and element width which identify it in the 
+ * header of a binary secret data file.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public enum SecretDataType {
+    
+    /** Values of the primitive int type. */
+    INT("int", 1, Integer.BYTES),
+    
+    /** Values of the primitive long type. */
+    LONG("long", 2, Long.BYTES),
+    
+    /** Values of the primitive float type. */
+    FLOAT("float", 3, Float.BYTES),
+    
+    /** Values of the primitive double type. */
+    DOUBLE("double", 4, Double.BYTES),
+    
+    /** Values of the BigInteger type. */
+    BIG_INTEGER("BigInteger", 5, 0),
+    
+    /** Values of the BigDecimal type. */
+    BIG_DECIMAL("BigDecimal", 6, 0);
+    
+    
+    /** The String name of the data type. */
+    private final String myName;
+    
+    /** The tag identifying the data type in a binary secret data file. */
+    private final byte myTag;
+    
+    /** The number of bytes per value, or 0 for variable-length values. */
+    private final int myWidth;
+    
+    
+    
+    /**
+     * Creates a data type with the passed String name, binary tag, and width.
+     *
+     * @param theName The String name of the data type.
+     * @param theTag The tag of the data type in a binary file.
+     * @param theWidth The number of bytes per value, or 0 if variable.
+     */
+    SecretDataType(final String theName, final int theTag, final int theWidth) {
+        myName = theName;
+        myTag = (byte) theTag;
+        myWidth = theWidth;
+    }
+    
+    
+    
+    /**
+     * Getter for the String name of the data type.
+     *
+     * @return myName
+     */
+    public String getName() {
+        return myName;
+    }
+    
+    /**
+     * Getter for the tag of the data type in a binary secret data file.
+     *
+     * @return myTag
+     */
+    public byte getTag() {
+        return myTag;
+    }
+    
+    /**
+     * Getter for the number of bytes per value in a binary secret data file, 
+     * which is 0 for the variable-length BigInteger and BigDecimal values.
+     *
+     * @return myWidth
+     */
+    public int getWidth() {
+        return myWidth;
+    }
+    
+    /**
+     * Returns true if values of this data type are stored as primitives.
+     *
+     * @return true for the int, long, float, and double data types.
+     */
+    public boolean isPrimitive() {
+        return this != BIG_INTEGER && this != BIG_DECIMAL;
+    }
+    
+    /**
+     * Returns the data type with the passed String name.
+     *
+     * @param theName The String name of a data type, such as "BigInteger".
+     * @return The matching data type, or null if there is none.
+     */
+    public static SecretDataType fromName(final String theName) {
+        for (final SecretDataType type : values()) {
+            if (type.myName.equals(theName)) {
+                return type;
+            }
+        } // END for LOOP
+        
+        return null;
+    } // END fromName() METHOD
+    
+    /**
+     * Returns the data type with the passed binary tag.
+     *
+     * @param theTag The tag of a data type in a binary file.
+     * @return The matching data type, or null if there is none.
+     */
+    public static SecretDataType fromTag(final byte theTag) {
+        for (final SecretDataType type : values()) {
+            if (type.myTag == theTag) {
+                return type;
+            }
+        } // END for LOOP
+        
+        return null;
+    } // END fromTag() METHOD
+    
+    
+} // END SecretDataType.java ENUM
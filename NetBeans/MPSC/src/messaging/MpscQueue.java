@@ -0,0 +1,162 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package messaging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue of objects which any number of threads may
+ * offer to and a single thread drains.  Offering never blocks, put() waits
+ * for a free slot, and the consumer may take one element or drain a batch of
+ * them, spinning, then yielding, then parking while the queue is empty.
+ *
+ * @param <E> The type of the elements.
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class MpscQueue<E> extends MpscRing {
+    
+// CLASS VARIABLES
+    /** The element of each slot, written before and read after its sequence. */
+    private final Object[] myElems;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty queue.
+     *
+     * @param theCapacity The least number of elements the queue holds,
+     *                    rounded up to a power of two.
+     */
+    public MpscQueue(final int theCapacity) {
+        super(theCapacity);
+        myElems = new Object[myCapacity];
+    }
+    
+    
+    
+// PUBLIC METHODS
+  // PRODUCERS
+    /**
+     * Adds an element if the queue is not full, from any thread.
+     *
+     * @param theElem The element, not null.
+     * @return true if the element was added, false if the queue is full.
+     */
+    public boolean offer(final E theElem) {
+        if (theElem == null) {
+            throw new IllegalArgumentException("Null element");
+        }
+        
+        final long tempPos = claim();
+        if (tempPos < 0) {
+            return false;
+        }
+        myElems[(int) tempPos & myMask] = theElem;
+        publish(tempPos);
+        return true;
+    } // END offer() METHOD
+    
+    /**
+     * Adds an element, waiting while the queue is full, from any thread.
+     *
+     * @param theElem The element, not null.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void put(final E theElem) throws InterruptedException {
+        if (theElem == null) {
+            throw new IllegalArgumentException("Null element");
+        }
+        
+        final long tempPos = claimWaiting();
+        myElems[(int) tempPos & myMask] = theElem;
+        publish(tempPos);
+    } // END put() METHOD
+    
+  // CONSUMER
+    /**
+     * Removes the next element if there is one, from the consumer thread.
+     *
+     * @return The element, or null if the queue is empty.
+     */
+    public E poll() {
+        final long tempPos = ready();
+        if (tempPos < 0) {
+            return null;
+        }
+        return remove(tempPos);
+    }
+    
+    /**
+     * Removes the next element, waiting while the queue is empty, from the
+     * consumer thread.
+     *
+     * @return The element.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public E take() throws InterruptedException {
+        awaitReady(-1L);
+        return remove(ready());
+    }
+    
+    /**
+     * Removes the elements in the queue, up to a maximum, and passes them to
+     * the passed consumer in order, from the consumer thread.
+     *
+     * @param theConsumer Receives each element.
+     * @param theMax The largest number of elements to remove.
+     * @return The number of elements removed.
+     */
+    public int drain(final Consumer<? super E> theConsumer, final int theMax) {
+        int tempCount = 0;
+        long tempPos;
+        
+        while (tempCount < theMax && (tempPos = ready()) >= 0) {
+            theConsumer.accept(remove(tempPos));
+            tempCount++;
+        }
+        return tempCount;
+    } // END drain() METHOD
+    
+    /**
+     * Waits until the queue is not empty, then drains it as drain() does,
+     * from the consumer thread.
+     *
+     * @param theConsumer Receives each element.
+     * @param theMax The largest number of elements to remove.
+     * @param theTimeout The longest to wait for the first element.
+     * @param theUnit The unit of the timeout.
+     * @return The number of elements removed, 0 if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public int drain(final Consumer<? super E> theConsumer, final int theMax,
+                     final long theTimeout, final TimeUnit theUnit) throws InterruptedException {
+        if (!awaitReady(theUnit.toNanos(theTimeout))) {
+            return 0;
+        }
+        return drain(theConsumer, theMax);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Removes the element of a published slot and frees the slot.
+     *
+     * @param thePos The position of the slot.
+     * @return The element.
+     */
+    @SuppressWarnings("unchecked")
+    private E remove(final long thePos) {
+        final int tempSlot = (int) thePos & myMask;
+        final E tempElem = (E) myElems[tempSlot];
+        myElems[tempSlot] = null;
+        release(thePos);
+        return tempElem;
+    }
+    
+    
+} // END MpscQueue.java CLASS
@@ -0,0 +1,249 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package messaging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The lock-free core of the bounded multi-producer, single-consumer ring
+ * queues, after Dmitry Vyukov's bounded queue.  Each slot of the ring has a
+ * sequence number which says whose turn it is: a producer may claim the slot
+ * at position pos once its sequence is pos, claiming it by a compare-and-set
+ * of the tail, and publishes it by setting the sequence to pos + 1; the
+ * single consumer reads it once the sequence is pos + 1, and frees it for the
+ * next lap by setting the sequence to pos + capacity.  Subclasses hold the
+ * contents of the slots in arrays indexed by slot, so nothing is allocated
+ * per message.
+ *
+ * <p>Waiting spins, then yields, then parks.  A consumer waiting for a
+ * message registers itself to be unparked by the next publishing producer;
+ * a producer waiting for a free slot parks for PARK_NANOS at a time.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+abstract class MpscRing {
+    
+// CLASS CONSTANTS
+    /** The number of times a waiting thread spins before yielding. */
+    static final int SPINS = 128;
+    
+    /** The number of times a waiting thread yields before parking. */
+    static final int YIELDS = 16;
+    
+    /** The longest a waiting thread parks before checking again. */
+    static final long PARK_NANOS = 50_000L;
+    
+    
+// CLASS VARIABLES
+    /** The number of slots, a power of two. */
+    final int myCapacity;
+    
+    /** The mask turning a position into a slot. */
+    final int myMask;
+    
+    /** The sequence number of each slot. */
+    private final AtomicLongArray mySeqs;
+    
+    /** The position of the next slot to be claimed by a producer. */
+    private final AtomicLong myTail;
+    
+    /** The position of the next slot to be read by the consumer. */
+    private final AtomicLong myHead;
+    
+    /** The consumer waiting for a message, or null. */
+    private volatile Thread myWaiter;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty ring.
+     *
+     * @param theCapacity The least number of slots, rounded up to a power of
+     *                    two of at least 2.
+     */
+    MpscRing(final int theCapacity) {
+        if (theCapacity < 1 || theCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + theCapacity);
+        }
+        
+        // A single slot would be published with the sequence that frees it
+        myCapacity = Math.max(2, Integer.highestOneBit(theCapacity - 1) << 1);
+        myMask = myCapacity - 1;
+        mySeqs = new AtomicLongArray(myCapacity);
+        for (int i = 0; i < myCapacity; i++) {
+            mySeqs.lazySet(i, i);
+        }
+        myTail = new AtomicLong();
+        myHead = new AtomicLong();
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the number of slots of the ring.
+     *
+     * @return The capacity.
+     */
+    public final int getCapacity() {
+        return myCapacity;
+    }
+    
+    /**
+     * Returns the number of messages published or being written and not yet
+     * read, which is only a snapshot while producers are active.
+     *
+     * @return The approximate size.
+     */
+    public final int size() {
+        return (int) Math.max(0, Math.min(myCapacity, myTail.get() - myHead.get()));
+    }
+    
+    
+    
+// PACKAGE-PRIVATE METHODS
+    /**
+     * Claims the next free slot for a producer.
+     *
+     * @return The position of the claimed slot, or -1 if the ring is full.
+     */
+    final long claim() {
+        while (true) {
+            final long tempPos = myTail.get();
+            final long tempDiff = mySeqs.get((int) tempPos & myMask) - tempPos;
+            
+            if (tempDiff == 0) {
+                if (myTail.compareAndSet(tempPos, tempPos + 1)) {
+                    return tempPos;
+                }
+            } else if (tempDiff < 0) {
+                return -1L;
+            }
+            // Otherwise another producer claimed the slot first; try again
+        } // END while LOOP
+    } // END claim() METHOD
+    
+    /**
+     * Claims the next free slot for a producer, waiting while the ring is
+     * full.
+     *
+     * @return The position of the claimed slot.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    final long claimWaiting() throws InterruptedException {
+        int tempTries = 0;
+        while (true) {
+            final long tempPos = claim();
+            if (tempPos >= 0) {
+                return tempPos;
+            }
+            backOff(tempTries++, PARK_NANOS);
+        } // END while LOOP
+    } // END claimWaiting() METHOD
+    
+    /**
+     * Publishes a claimed slot whose contents have been written, waking the
+     * consumer if it is parked.
+     *
+     * @param thePos The position of the slot.
+     */
+    final void publish(final long thePos) {
+        mySeqs.set((int) thePos & myMask, thePos + 1);
+        
+        final Thread tempWaiter = myWaiter;
+        if (tempWaiter != null) {
+            LockSupport.unpark(tempWaiter);
+        }
+    } // END publish() METHOD
+    
+    /**
+     * Returns the position of the next published slot, for the consumer.
+     *
+     * @return The position of the slot, or -1 if no slot is published yet.
+     */
+    final long ready() {
+        final long tempPos = myHead.get();
+        return mySeqs.get((int) tempPos & myMask) == tempPos + 1 ? tempPos : -1L;
+    }
+    
+    /**
+     * Frees a slot read by the consumer for the next lap of the producers.
+     *
+     * @param thePos The position of the slot.
+     */
+    final void release(final long thePos) {
+        mySeqs.lazySet((int) thePos & myMask, thePos + myCapacity);
+        myHead.lazySet(thePos + 1);
+    }
+    
+    /**
+     * Waits until a slot is published, for the consumer.
+     *
+     * @param theTimeoutNanos The longest to wait, or a negative value to wait
+     *                        without limit.
+     * @return true if a slot is published, false if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    final boolean awaitReady(final long theTimeoutNanos) throws InterruptedException {
+        final long tempDeadline = System.nanoTime() + theTimeoutNanos;
+        int tempTries = 0;
+        
+        while (ready() < 0) {
+            final long tempLeft = theTimeoutNanos < 0 ? Long.MAX_VALUE
+                                                      : tempDeadline - System.nanoTime();
+            if (tempLeft <= 0) {
+                return false;
+            }
+            
+            if (tempTries < SPINS + YIELDS) {
+                backOff(tempTries++, 0L);
+            } else {
+                // Register, then check again, so a publish cannot be missed
+                myWaiter = Thread.currentThread();
+                if (ready() < 0) {
+                    LockSupport.parkNanos(this, Math.min(tempLeft, PARK_NANOS * 20));
+                }
+                myWaiter = null;
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            } // END if/else BLOCK
+        } // END while LOOP
+        
+        return true;
+    } // END awaitReady() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Waits a little longer on each try: spinning, then yielding, then
+     * parking.
+     *
+     * @param theTry The number of tries so far.
+     * @param theParkNanos How long to park once spinning and yielding are
+     *                     exhausted.
+     * @throws InterruptedException If interrupted.
+     */
+    private static void backOff(final int theTry, final long theParkNanos)
+                                throws InterruptedException {
+        if (theTry < SPINS) {
+            return;
+        } else if (theTry < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(theParkNanos);
+        }
+        
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    } // END backOff() PRIVATE HELPER METHOD
+    
+    
+} // END MpscRing.java CLASS
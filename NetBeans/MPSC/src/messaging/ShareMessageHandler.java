@@ -0,0 +1,30 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package messaging;
+
+/**
+ * Receiver of the share messages drained from a ShareMessageQueue.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@FunctionalInterface
+public interface ShareMessageHandler {
+    
+    /**
+     * Handles one message.  The payload lies in a slot of the queue which is
+     * reused once this returns, so it must be copied out, not kept.
+     *
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param thePayload The array holding the payload.
+     * @param theOffset The index of the first long of the payload.
+     * @param theCount The number of longs in the payload.
+     */
+    void onMessage(int theSender, int theRound, int theType, long[] thePayload, int theOffset,
+                   int theCount);
+    
+    
+} // END ShareMessageHandler.java INTERFACE
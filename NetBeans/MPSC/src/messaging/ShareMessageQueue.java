@@ -0,0 +1,287 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package messaging;
+
+import java.nio.LongBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, lock-free queue of the inbound share messages of a player,
+ * which the network threads of its peers offer to and its evaluator drains.
+ * Every slot is preallocated: a message's header is held in int arrays and
+ * its payload of up to getMaxLongs() shares is copied into a flat long array,
+ * so no object is allocated per message.  The evaluator drains batches of
+ * messages through a ShareMessageHandler, which sees each payload in place.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class ShareMessageQueue extends MpscRing {
+    
+// CLASS VARIABLES
+    /** The largest number of longs in a payload. */
+    private final int myMaxLongs;
+    
+    /** The sending player of the message in each slot. */
+    private final int[] mySenders;
+    
+    /** The round of the message in each slot. */
+    private final int[] myRounds;
+    
+    /** The type of the message in each slot. */
+    private final int[] myTypes;
+    
+    /** The number of longs in the payload of each slot. */
+    private final int[] myCounts;
+    
+    /** The payloads of the slots, myMaxLongs apart. */
+    private final long[] myPayloads;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty queue.
+     *
+     * @param theCapacity The least number of messages the queue holds,
+     *                    rounded up to a power of two.
+     * @param theMaxLongs The largest number of longs in a payload.
+     */
+    public ShareMessageQueue(final int theCapacity, final int theMaxLongs) {
+        super(theCapacity);
+        if (theMaxLongs < 0 || (long) myCapacity * theMaxLongs > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Invalid payload size: " + theMaxLongs);
+        }
+        
+        myMaxLongs = theMaxLongs;
+        mySenders = new int[myCapacity];
+        myRounds = new int[myCapacity];
+        myTypes = new int[myCapacity];
+        myCounts = new int[myCapacity];
+        myPayloads = new long[myCapacity * theMaxLongs];
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+  // PRODUCERS
+    /**
+     * Copies a message into the queue if it is not full, from any thread.
+     *
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The array holding the payload.
+     * @param theOffset The index of the first long of the payload.
+     * @param theCount The number of longs in the payload, at most getMaxLongs().
+     * @return true if the message was added, false if the queue is full.
+     */
+    public boolean offer(final int theSender, final int theRound, final int theType,
+                         final long[] theSrc, final int theOffset, final int theCount) {
+        checkPayload(theSrc, theOffset, theCount);
+        
+        final long tempPos = claim();
+        if (tempPos < 0) {
+            return false;
+        }
+        write(tempPos, theSender, theRound, theType, theSrc, theOffset, theCount);
+        return true;
+    } // END offer() METHOD
+    
+    /**
+     * Copies a message into the queue, waiting while it is full, from any
+     * thread.
+     *
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The array holding the payload.
+     * @param theOffset The index of the first long of the payload.
+     * @param theCount The number of longs in the payload, at most getMaxLongs().
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void put(final int theSender, final int theRound, final int theType,
+                    final long[] theSrc, final int theOffset, final int theCount)
+                    throws InterruptedException {
+        checkPayload(theSrc, theOffset, theCount);
+        write(claimWaiting(), theSender, theRound, theType, theSrc, theOffset, theCount);
+    }
+    
+    /**
+     * Copies a message whose payload is the remaining longs of a buffer into
+     * the queue if it is not full, from any thread.  This lets a payload be
+     * moved straight from a receive buffer into its slot.
+     *
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The payload, at most getMaxLongs() longs, which is
+     *               consumed only if the message was added.
+     * @return true if the message was added, false if the queue is full.
+     */
+    public boolean offer(final int theSender, final int theRound, final int theType,
+                         final LongBuffer theSrc) {
+        checkPayload(theSrc);
+        
+        final long tempPos = claim();
+        if (tempPos < 0) {
+            return false;
+        }
+        write(tempPos, theSender, theRound, theType, theSrc);
+        return true;
+    } // END offer() METHOD
+    
+    /**
+     * Copies a message whose payload is the remaining longs of a buffer into
+     * the queue, waiting while it is full, from any thread.
+     *
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The payload, at most getMaxLongs() longs, which is
+     *               consumed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void put(final int theSender, final int theRound, final int theType,
+                    final LongBuffer theSrc) throws InterruptedException {
+        checkPayload(theSrc);
+        write(claimWaiting(), theSender, theRound, theType, theSrc);
+    }
+    
+  // CONSUMER
+    /**
+     * Removes the messages in the queue, up to a maximum, and passes them to
+     * the passed handler in order, from the consumer thread.
+     *
+     * @param theHandler Receives each message.
+     * @param theMax The largest number of messages to remove.
+     * @return The number of messages removed.
+     */
+    public int drain(final ShareMessageHandler theHandler, final int theMax) {
+        int tempCount = 0;
+        long tempPos;
+        
+        while (tempCount < theMax && (tempPos = ready()) >= 0) {
+            final int tempSlot = (int) tempPos & myMask;
+            try {
+                theHandler.onMessage(mySenders[tempSlot], myRounds[tempSlot], myTypes[tempSlot],
+                                     myPayloads, tempSlot * myMaxLongs, myCounts[tempSlot]);
+            } finally {
+                release(tempPos);
+            } // END try/finally BLOCK
+            tempCount++;
+        } // END while LOOP
+        
+        return tempCount;
+    } // END drain() METHOD
+    
+    /**
+     * Waits until the queue is not empty, then drains it as drain() does,
+     * from the consumer thread.
+     *
+     * @param theHandler Receives each message.
+     * @param theMax The largest number of messages to remove.
+     * @param theTimeout The longest to wait for the first message.
+     * @param theUnit The unit of the timeout.
+     * @return The number of messages removed, 0 if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public int drain(final ShareMessageHandler theHandler, final int theMax,
+                     final long theTimeout, final TimeUnit theUnit) throws InterruptedException {
+        if (!awaitReady(theUnit.toNanos(theTimeout))) {
+            return 0;
+        }
+        return drain(theHandler, theMax);
+    }
+    
+  // GETTERS
+    /**
+     * Getter for the largest number of longs in a payload.
+     *
+     * @return myMaxLongs
+     */
+    public int getMaxLongs() {
+        return myMaxLongs;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks a payload before a slot is claimed for it, since a claimed slot
+     * must be published.
+     *
+     * @param theSrc The array holding the payload.
+     * @param theOffset The index of the first long of the payload.
+     * @param theCount The number of longs in the payload.
+     */
+    private void checkPayload(final long[] theSrc, final int theOffset, final int theCount) {
+        if (theCount < 0 || theCount > myMaxLongs) {
+            throw new IllegalArgumentException("Invalid payload length: " + theCount);
+        }
+        if (theOffset < 0 || theOffset > theSrc.length - theCount) {
+            throw new IllegalArgumentException("Invalid payload offset: " + theOffset);
+        }
+    } // END checkPayload() PRIVATE HELPER METHOD
+    
+    /**
+     * Checks a payload held in a buffer before a slot is claimed for it.
+     *
+     * @param theSrc The payload.
+     */
+    private void checkPayload(final LongBuffer theSrc) {
+        if (theSrc.remaining() > myMaxLongs) {
+            throw new IllegalArgumentException("Invalid payload length: " + theSrc.remaining());
+        }
+    }
+    
+    /**
+     * Writes a message into a claimed slot and publishes it.
+     *
+     * @param thePos The position of the slot.
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The array holding the payload.
+     * @param theOffset The index of the first long of the payload.
+     * @param theCount The number of longs in the payload.
+     */
+    private void write(final long thePos, final int theSender, final int theRound,
+                       final int theType, final long[] theSrc, final int theOffset,
+                       final int theCount) {
+        final int tempSlot = (int) thePos & myMask;
+        
+        mySenders[tempSlot] = theSender;
+        myRounds[tempSlot] = theRound;
+        myTypes[tempSlot] = theType;
+        myCounts[tempSlot] = theCount;
+        System.arraycopy(theSrc, theOffset, myPayloads, tempSlot * myMaxLongs, theCount);
+        publish(thePos);
+    } // END write() PRIVATE HELPER METHOD
+    
+    /**
+     * Writes a message whose payload is the remaining longs of a buffer into
+     * a claimed slot and publishes it.
+     *
+     * @param thePos The position of the slot.
+     * @param theSender The index of the sending player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The payload, which is consumed.
+     */
+    private void write(final long thePos, final int theSender, final int theRound,
+                       final int theType, final LongBuffer theSrc) {
+        final int tempSlot = (int) thePos & myMask;
+        final int tempCount = theSrc.remaining();
+        
+        mySenders[tempSlot] = theSender;
+        myRounds[tempSlot] = theRound;
+        myTypes[tempSlot] = theType;
+        myCounts[tempSlot] = tempCount;
+        theSrc.get(myPayloads, tempSlot * myMaxLongs, tempCount);
+        publish(thePos);
+    } // END write() PRIVATE HELPER METHOD
+    
+    
+} // END ShareMessageQueue.java CLASS
@@ -0,0 +1,431 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Resolves the host names and IP addresses of players to InetAddresses.
+ * Literal IPv4 and IPv6 addresses are parsed directly and never reach the
+ * name service.  Host names are looked up concurrently on a small pool of
+ * daemon threads through a pluggable HostLookup, with a timeout on each
+ * lookup, and the results are kept in an in-process cache for a bounded time
+ * to live.  Concurrent requests for the same host share a single lookup.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class AddressResolver {
+    
+// CLASS CONSTANTS
+    /** The default time to live of a cached address, in milliseconds. */
+    public static final long DEFAULT_TTL_MILLIS = 60_000L;
+    
+    /** The default timeout of a single lookup, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2_000L;
+    
+    /** The default number of lookups run at once. */
+    public static final int DEFAULT_THREADS = 16;
+    
+    /** Seconds an idle lookup thread is kept alive. */
+    private static final long IDLE_SECONDS = 30L;
+    
+    /** The number of bytes in an IPv4 address. */
+    private static final int IPV4_BYTES = 4;
+    
+    /** The largest value of a byte of an IPv4 address. */
+    private static final int OCTET_MAX = 255;
+    
+    /** The resolver shared by every caller which does not supply its own. */
+    private static final AddressResolver DEFAULT = new AddressResolver(HostLookup.SYSTEM);
+    
+    /** Counter used to number the lookup threads. */
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    
+    
+// CLASS VARIABLES
+    /** The source of host name lookups. */
+    private final HostLookup myLookup;
+    
+    /** The time to live of a cached address, in nanoseconds. */
+    private final long myTtlNanos;
+    
+    /** The timeout of a single lookup, in nanoseconds. */
+    private final long myTimeoutNanos;
+    
+    /** The pool of daemon threads running the lookups. */
+    private final ThreadPoolExecutor myPool;
+    
+    /** The cached addresses, by host name. */
+    private final ConcurrentHashMap<String, CachedAddress> myCache;
+    
+    /** The lookups in progress, by host name. */
+    private final ConcurrentHashMap<String, Lookup> myPending;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a resolver using the passed lookup, with the default time to
+     * live, timeout, and number of threads.
+     *
+     * @param theLookup The source of host name lookups.
+     */
+    public AddressResolver(final HostLookup theLookup) {
+        this(theLookup, DEFAULT_TTL_MILLIS, DEFAULT_TIMEOUT_MILLIS, DEFAULT_THREADS);
+    }
+    
+    /**
+     * Creates a resolver.
+     *
+     * @param theLookup The source of host name lookups.
+     * @param theTtlMillis The time to live of a cached address, in
+     *  milliseconds, or 0 to disable the cache.
+     * @param theTimeoutMillis The timeout of a single lookup, in milliseconds.
+     * @param theThreads The number of lookups run at once.
+     */
+    public AddressResolver(final HostLookup theLookup, final long theTtlMillis,
+                           final long theTimeoutMillis, final int theThreads) {
+        if (theTtlMillis < 0 || theTimeoutMillis <= 0 || theThreads < 1) {
+            throw new IllegalArgumentException("Invalid resolver settings");
+        }
+        
+        myLookup = theLookup;
+        myTtlNanos = TimeUnit.MILLISECONDS.toNanos(theTtlMillis);
+        myTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(theTimeoutMillis);
+        myCache = new ConcurrentHashMap<>();
+        myPending = new ConcurrentHashMap<>();
+        
+        myPool = new ThreadPoolExecutor(theThreads, theThreads, IDLE_SECONDS, TimeUnit.SECONDS,
+                                        new LinkedBlockingQueue<Runnable>(),
+                                        AddressResolver::newThread);
+        myPool.allowCoreThreadTimeOut(true);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the resolver shared by every caller which does not supply its
+     * own, which uses the name service of the platform.
+     *
+     * @return The default resolver.
+     */
+    public static AddressResolver getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Parses a literal IPv4 address in dotted-quad form, or a literal IPv6
+     * address with or without brackets, without using the name service.
+     *
+     * @param theHost The text of the host.
+     * @return The address, or null if the text is not a literal address.
+     */
+    public static InetAddress parseLiteral(final String theHost) {
+        final String tempHost = theHost.trim();
+        
+        if (isIPv6Text(tempHost)) {
+            // InetAddress parses text which can only be an IPv6 literal 
+            // without ever asking the name service.
+            try {
+                return InetAddress.getByName(tempHost);
+            } catch (final UnknownHostException exception) {
+                return null;
+            } // END try/catch BLOCK
+        }
+        
+        final byte[] tempBytes = parseIPv4(tempHost);
+        if (tempBytes == null) {
+            return null;
+        }
+        
+        try {
+            return InetAddress.getByAddress(tempBytes);
+        } catch (final UnknownHostException exception) {
+            return null;
+        } // END try/catch BLOCK
+    } // END parseLiteral() METHOD
+    
+    /**
+     * Resolves a single host, waiting at most the timeout of a lookup.
+     *
+     * @param theHost The host name or literal address.
+     * @return The address of the host.
+     * @throws UnknownHostException If the host cannot be resolved in time.
+     */
+    public InetAddress resolve(final String theHost) throws UnknownHostException {
+        final InetAddress tempAddr = resolveLocally(theHost);
+        if (tempAddr != null) {
+            return tempAddr;
+        }
+        
+        return await(theHost, startLookup(theHost), System.nanoTime() + myTimeoutNanos);
+    } // END resolve() METHOD
+    
+    /**
+     * Resolves every passed host, looking up all host names which are neither
+     * literals nor cached at the same time.  Each lookup is given the timeout
+     * of a lookup, counted from the start of this call, so the time taken
+     * does not grow with the number of host names.  A host which cannot be
+     * resolved is left null, and is reported to the passed callback with its
+     * index without stopping the rest.
+     *
+     * @param theHosts The host names or literal addresses.
+     * @param theOnError Callback receiving the error and index of each host
+     *  which could not be resolved.
+     * @return The addresses of the hosts, in the same order.
+     */
+    public InetAddress[] resolveAll(final String[] theHosts,
+                                    final ObjIntConsumer<UnknownHostException> theOnError) {
+        final long tempDeadline = System.nanoTime() + myTimeoutNanos;
+        final InetAddress[] tempAddrs = new InetAddress[theHosts.length];
+        final Lookup[] tempLookups = new Lookup[theHosts.length];
+        
+        // Answer literals and cached hosts, and start the remaining lookups
+        for (int i = 0; i < theHosts.length; i++) {
+            tempAddrs[i] = resolveLocally(theHosts[i]);
+            if (tempAddrs[i] == null) {
+                tempLookups[i] = startLookup(theHosts[i]);
+            }
+        } // END for LOOP
+        
+        // Collect the lookups as they complete
+        for (int i = 0; i < theHosts.length; i++) {
+            if (tempLookups[i] != null) {
+                try {
+                    tempAddrs[i] = await(theHosts[i], tempLookups[i], tempDeadline);
+                } catch (final UnknownHostException exception) {
+                    theOnError.accept(exception, i);
+                } // END try/catch BLOCK
+            }
+        } // END for LOOP
+        
+        return tempAddrs;
+    } // END resolveAll() METHOD
+    
+    /**
+     * Removes every address from the cache.
+     */
+    public void clearCache() {
+        myCache.clear();
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Resolves a host without a lookup, if it is a literal or cached.
+     *
+     * @param theHost The host name or literal address.
+     * @return The address of the host, or null if it must be looked up.
+     */
+    private InetAddress resolveLocally(final String theHost) {
+        final InetAddress tempLiteral = parseLiteral(theHost);
+        if (tempLiteral != null) {
+            return tempLiteral;
+        }
+        
+        final CachedAddress tempCached = myCache.get(theHost);
+        if (tempCached != null) {
+            if (System.nanoTime() - tempCached.myExpires < 0) {
+                return tempCached.myAddr;
+            }
+            myCache.remove(theHost, tempCached);
+        }
+        
+        return null;
+    } // END resolveLocally() PRIVATE HELPER METHOD
+    
+    /**
+     * Starts the lookup of a host, or joins the lookup of that host already
+     * in progress.
+     *
+     * @param theHost The host name.
+     * @return The lookup of the host.
+     */
+    private Lookup startLookup(final String theHost) {
+        final Lookup tempNew = new Lookup(theHost);
+        final Lookup tempOld = myPending.putIfAbsent(theHost, tempNew);
+        if (tempOld != null) {
+            return tempOld;
+        }
+        
+        myPool.execute(tempNew);
+        return tempNew;
+    } // END startLookup() PRIVATE HELPER METHOD
+    
+    /**
+     * Waits for a lookup until the passed deadline.  A lookup which does not
+     * finish in time is left running, since other callers may share it, and
+     * its address is still cached if it is eventually found.
+     *
+     * @param theHost The host name.
+     * @param theLookup The lookup of the host.
+     * @param theDeadline The deadline, as given by System.nanoTime().
+     * @return The address of the host.
+     * @throws UnknownHostException If the lookup fails or does not finish in
+     *  time.
+     */
+    private InetAddress await(final String theHost, final Lookup theLookup,
+                              final long theDeadline) throws UnknownHostException {
+        try {
+            return theLookup.get(Math.max(0L, theDeadline - System.nanoTime()),
+                                 TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException exception) {
+            throw new UnknownHostException(theHost + ": lookup timed out");
+        } catch (final ExecutionException exception) {
+            if (exception.getCause() instanceof UnknownHostException) {
+                throw (UnknownHostException) exception.getCause();
+            }
+            throw new UnknownHostException(theHost + ": " + exception.getCause());
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UnknownHostException(theHost + ": lookup interrupted");
+        } // END try/catch BLOCK
+    } // END await() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a literal IPv4 address in dotted-quad form.
+     *
+     * @param theHost The text of the host.
+     * @return The four bytes of the address, or null if not a literal.
+     */
+    private static byte[] parseIPv4(final String theHost) {
+        final byte[] tempBytes = new byte[IPV4_BYTES];
+        int tempOctet = 0;
+        int tempValue = 0;
+        int tempDigits = 0;
+        
+        for (int i = 0; i <= theHost.length(); i++) {
+            final char tempChar = i < theHost.length() ? theHost.charAt(i) : '.';
+            
+            if (tempChar >= '0' && tempChar <= '9') {
+                tempValue = tempValue * 10 + (tempChar - '0');
+                tempDigits++;
+                if (tempValue > OCTET_MAX) {
+                    return null;
+                }
+            } else if (tempChar == '.' && tempDigits > 0 && tempOctet < IPV4_BYTES) {
+                tempBytes[tempOctet++] = (byte) tempValue;
+                tempValue = 0;
+                tempDigits = 0;
+            } else {
+                return null;
+            }
+        } // END for LOOP
+        
+        return tempOctet == IPV4_BYTES ? tempBytes : null;
+    } // END parseIPv4() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns true if the passed text contains a colon, and otherwise only the 
+     * characters of an IPv6 literal before any '%' starting its scope.
+     *
+     * @param theHost The text of the host.
+     * @return true if the text can only be an IPv6 literal.
+     */
+    private static boolean isIPv6Text(final String theHost) {
+        boolean tempColon = false;
+        
+        for (int i = 0; i < theHost.length(); i++) {
+            final char tempChar = theHost.charAt(i);
+            if (tempChar == '%') {
+                break;
+            }
+            tempColon |= tempChar == ':';
+            if (Character.digit(tempChar, 16) < 0 && tempChar != ':' && tempChar != '.'
+                && tempChar != '[' && tempChar != ']') {
+                return false;
+            }
+        } // END for LOOP
+        
+        return tempColon;
+    } // END isIPv6Text() PRIVATE HELPER METHOD
+    
+    /**
+     * Creates a daemon thread for the lookup pool, so that lookups which
+     * never return do not keep the program alive.
+     *
+     * @param theTask The task of the thread.
+     * @return The new thread.
+     */
+    private static Thread newThread(final Runnable theTask) {
+        final Thread tempThread = new Thread(theTask, "mpsc-resolver-"
+                                                      + THREAD_COUNT.incrementAndGet());
+        tempThread.setDaemon(true);
+        return tempThread;
+    } // END newThread() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * An address in the cache, with the time at which it expires.
+     */
+    private static final class CachedAddress {
+        
+        /** The address of the host. */
+        private final InetAddress myAddr;
+        
+        /** The time at which the address expires, as given by System.nanoTime(). */
+        private final long myExpires;
+        
+        /**
+         * Creates a cached address.
+         *
+         * @param theAddr The address of the host.
+         * @param theExpires The time at which the address expires.
+         */
+        CachedAddress(final InetAddress theAddr, final long theExpires) {
+            myAddr = theAddr;
+            myExpires = theExpires;
+        }
+    } // END CachedAddress PRIVATE CLASS
+    
+    /**
+     * The lookup of one host, which caches its result and removes itself from
+     * the lookups in progress once it is done.
+     */
+    private final class Lookup extends FutureTask<InetAddress> {
+        
+        /** The host name being looked up. */
+        private final String myHost;
+        
+        /**
+         * Creates the lookup of a host.
+         *
+         * @param theHost The host name.
+         */
+        Lookup(final String theHost) {
+            super(() -> myLookup.lookup(theHost));
+            myHost = theHost;
+        }
+        
+        @Override
+        protected void set(final InetAddress theAddr) {
+            if (myTtlNanos > 0) {
+                myCache.put(myHost, new CachedAddress(theAddr, System.nanoTime() + myTtlNanos));
+            }
+            super.set(theAddr);
+        }
+        
+        @Override
+        protected void done() {
+            myPending.remove(myHost, this);
+        }
+    } // END Lookup PRIVATE CLASS
+    
+    
+} // END AddressResolver.java CLASS
@@ -0,0 +1,114 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct ByteBuffers of a single size, in little-endian order, so
+ * that frames are encoded and written without allocating in the steady
+ * state.  Buffers are acquired and released from any thread; a released
+ * buffer beyond the capacity of the pool is left to the collector.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class BufferPool {
+    
+// CLASS VARIABLES
+    /** The number of bytes in each buffer. */
+    private final int myBufferBytes;
+    
+    /** The free buffers. */
+    private final ArrayBlockingQueue<ByteBuffer> myFree;
+    
+    /** The number of buffers allocated by the pool. */
+    private final AtomicLong myAllocated;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty pool.
+     *
+     * @param theBufferBytes The number of bytes in each buffer.
+     * @param theMaxPooled The largest number of free buffers kept.
+     */
+    public BufferPool(final int theBufferBytes, final int theMaxPooled) {
+        if (theBufferBytes < 1 || theMaxPooled < 1) {
+            throw new IllegalArgumentException("Invalid buffer pool settings");
+        }
+        
+        myBufferBytes = theBufferBytes;
+        myFree = new ArrayBlockingQueue<>(theMaxPooled);
+        myAllocated = new AtomicLong();
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Takes a free buffer from the pool, allocating one if there is none.
+     *
+     * @return A cleared little-endian direct buffer of getBufferBytes() bytes.
+     */
+    public ByteBuffer acquire() {
+        final ByteBuffer tempBuf = myFree.poll();
+        if (tempBuf != null) {
+            return tempBuf;
+        }
+        
+        myAllocated.incrementAndGet();
+        return ByteBuffer.allocateDirect(myBufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+    } // END acquire() METHOD
+    
+    /**
+     * Returns a buffer to the pool.  The buffer must not be used afterwards.
+     *
+     * @param theBuf A buffer acquired from this pool.
+     */
+    public void release(final ByteBuffer theBuf) {
+        if (theBuf.capacity() != myBufferBytes || !theBuf.isDirect()) {
+            throw new IllegalArgumentException("Buffer not from this pool");
+        }
+        
+        theBuf.clear();
+        theBuf.order(ByteOrder.LITTLE_ENDIAN);
+        myFree.offer(theBuf);
+    } // END release() METHOD
+    
+  // GETTERS
+    /**
+     * Getter for the number of bytes in each buffer.
+     *
+     * @return myBufferBytes
+     */
+    public int getBufferBytes() {
+        return myBufferBytes;
+    }
+    
+    /**
+     * Returns the number of buffers the pool has allocated, which stays flat
+     * once the pool has warmed up.
+     *
+     * @return The number of buffers allocated.
+     */
+    public long getAllocated() {
+        return myAllocated.get();
+    }
+    
+    /**
+     * Returns the number of free buffers in the pool.
+     *
+     * @return The number of pooled buffers.
+     */
+    public int getPooled() {
+        return myFree.size();
+    }
+    
+    
+} // END BufferPool.java CLASS
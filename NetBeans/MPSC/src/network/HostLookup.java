@@ -0,0 +1,36 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * The source of host name lookups used by an AddressResolver.  The SYSTEM
+ * lookup asks the name service of the platform; other lookups, such as a
+ * HostsTableLookup, may be substituted so that a group can be resolved
+ * without any name service.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@FunctionalInterface
+public interface HostLookup {
+    
+    /** The lookup which asks the name service of the platform. */
+    HostLookup SYSTEM = InetAddress::getByName;
+    
+    
+    /**
+     * Looks up the address of the passed host name.  This method may block,
+     * and may be called from several threads at once.
+     *
+     * @param theHost The host name to look up.
+     * @return The address of the host.
+     * @throws UnknownHostException If the host has no known address.
+     */
+    InetAddress lookup(String theHost) throws UnknownHostException;
+    
+    
+} // END HostLookup.java INTERFACE
@@ -0,0 +1,97 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A HostLookup answered from an in-process table of host names and literal
+ * addresses, in the manner of a hosts file, which never asks the name service
+ * of the platform.  It stands in for the system lookup when a group is run
+ * locally or on a network without a name service.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class HostsTableLookup implements HostLookup {
+    
+// CLASS VARIABLES
+    /** The addresses of the known hosts, by lower-case host name. */
+    private final Map<String, InetAddress> myHosts;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty hosts table.
+     */
+    public HostsTableLookup() {
+        myHosts = new ConcurrentHashMap<>();
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Adds a host to the table, replacing any address it already had.
+     *
+     * @param theHost The host name.
+     * @param theLiteral The literal IPv4 or IPv6 address of the host.
+     * @return This hosts table, so that calls may be chained.
+     * @throws IllegalArgumentException If the address is not a literal.
+     */
+    public HostsTableLookup add(final String theHost, final String theLiteral) {
+        final InetAddress tempAddr = AddressResolver.parseLiteral(theLiteral);
+        if (tempAddr == null) {
+            throw new IllegalArgumentException("Not a literal IP address: " + theLiteral);
+        }
+        
+        try {
+            myHosts.put(key(theHost), InetAddress.getByAddress(theHost, tempAddr.getAddress()));
+        } catch (final UnknownHostException exception) {
+            throw new IllegalArgumentException(exception.getMessage(), exception);
+        } // END try/catch BLOCK
+        
+        return this;
+    } // END add() METHOD
+    
+    /**
+     * Removes a host from the table.
+     *
+     * @param theHost The host name.
+     */
+    public void remove(final String theHost) {
+        myHosts.remove(key(theHost));
+    }
+    
+    @Override
+    public InetAddress lookup(final String theHost) throws UnknownHostException {
+        final InetAddress tempAddr = myHosts.get(key(theHost));
+        if (tempAddr == null) {
+            throw new UnknownHostException(theHost + ": not in the hosts table");
+        }
+        
+        return tempAddr;
+    } // END lookup() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Host names are not case sensitive, so the table is keyed by the
+     * lower-case name.
+     *
+     * @param theHost The host name.
+     * @return The key of the host in the table.
+     */
+    private static String key(final String theHost) {
+        return theHost.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    
+} // END HostsTableLookup.java CLASS
@@ -0,0 +1,279 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.util.Locale;
+
+/**
+ * The emulated characteristics of a link between two players: its one-way
+ * latency, the jitter added to it, its bandwidth, and the largest packet it
+ * carries.  A batch of messages on the link occupies it for the time its
+ * bytes take at the bandwidth, each packet of the batch adding
+ * PACKET_OVERHEAD bytes of headers, and arrives the latency plus a random
+ * part of the jitter after it leaves.
+ *
+ * <p>A profile is written as whitespace separated settings, any of which may
+ * be left out, such as
+ *
+ * <pre>
+ *  latency=40ms jitter=5ms bandwidth=100Mbit mtu=1500
+ * </pre>
+ *
+ * where times are in s, ms, us or ns, bandwidths in bit, kbit, Mbit or Gbit
+ * per second, and the MTU in bytes.  A bandwidth or MTU of 0 leaves it
+ * unlimited.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class LinkProfile {
+    
+// CLASS CONSTANTS
+    /** The bytes of IP and TCP headers added to every packet. */
+    public static final int PACKET_OVERHEAD = 40;
+    
+    /** The profile of a link without latency or limits. */
+    public static final LinkProfile UNLIMITED = new LinkProfile(0L, 0L, 0L, 0);
+    
+    /** The number of nanoseconds in a second. */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    
+    /** The number of bits in a byte. */
+    private static final int BITS_PER_BYTE = 8;
+    
+    
+// CLASS VARIABLES
+    /** The one-way latency, in nanoseconds. */
+    private final long myLatencyNanos;
+    
+    /** The largest random delay added to the latency, in nanoseconds. */
+    private final long myJitterNanos;
+    
+    /** The bandwidth, in bits per second, or 0 if unlimited. */
+    private final long myBitsPerSecond;
+    
+    /** The largest payload of a packet, in bytes, or 0 if unlimited. */
+    private final int myMtu;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the profile of a link.
+     *
+     * @param theLatencyNanos The one-way latency, in nanoseconds.
+     * @param theJitterNanos The largest random delay added to the latency,
+     *                       in nanoseconds.
+     * @param theBitsPerSecond The bandwidth, in bits per second, or 0 if
+     *                         unlimited.
+     * @param theMtu The largest payload of a packet, in bytes, or 0 if
+     *               unlimited.
+     * @throws IllegalArgumentException If a setting is negative.
+     */
+    public LinkProfile(final long theLatencyNanos, final long theJitterNanos,
+                       final long theBitsPerSecond, final int theMtu) {
+        if (theLatencyNanos < 0 || theJitterNanos < 0 || theBitsPerSecond < 0 || theMtu < 0) {
+            throw new IllegalArgumentException("Invalid link profile");
+        }
+        
+        myLatencyNanos = theLatencyNanos;
+        myJitterNanos = theJitterNanos;
+        myBitsPerSecond = theBitsPerSecond;
+        myMtu = theMtu;
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Parses a profile from its settings, each left out setting taken from
+     * a base profile.
+     *
+     * @param theSpec The settings, such as "latency=40ms bandwidth=100Mbit".
+     * @param theBase The profile of the settings left out.
+     * @return The profile.
+     * @throws IllegalArgumentException If a setting is not valid.
+     */
+    public static LinkProfile parse(final String theSpec, final LinkProfile theBase) {
+        long tempLatency = theBase.myLatencyNanos;
+        long tempJitter = theBase.myJitterNanos;
+        long tempBits = theBase.myBitsPerSecond;
+        int tempMtu = theBase.myMtu;
+        
+        for (final String tempSetting : theSpec.trim().split("\\s+")) {
+            if (tempSetting.isEmpty()) {
+                continue;
+            }
+            final int tempEq = tempSetting.indexOf('=');
+            if (tempEq < 0) {
+                throw new IllegalArgumentException("Invalid link setting: " + tempSetting);
+            }
+            
+            final String tempKey = tempSetting.substring(0, tempEq).toLowerCase(Locale.ROOT);
+            final String tempValue = tempSetting.substring(tempEq + 1);
+            switch (tempKey) {
+                case "latency":
+                    tempLatency = parseNanos(tempValue);
+                    break;
+                case "jitter":
+                    tempJitter = parseNanos(tempValue);
+                    break;
+                case "bandwidth":
+                    tempBits = parseBits(tempValue);
+                    break;
+                case "mtu":
+                    tempMtu = Integer.parseInt(tempValue);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown link setting: " + tempKey);
+            } // END switch STATEMENT
+        } // END for LOOP
+        
+        return new LinkProfile(tempLatency, tempJitter, tempBits, tempMtu);
+    } // END parse() METHOD
+    
+    /**
+     * Returns the number of bytes a payload takes on the link, with the
+     * headers of every packet it is split into.
+     *
+     * @param thePayloadBytes The number of bytes of the payload.
+     * @return The number of bytes on the wire.
+     */
+    public long wireBytes(final long thePayloadBytes) {
+        final long tempPackets = myMtu == 0 ? 1L
+                                 : Math.max(1L, (thePayloadBytes + myMtu - 1) / myMtu);
+        return thePayloadBytes + tempPackets * PACKET_OVERHEAD;
+    }
+    
+    /**
+     * Returns the time a payload occupies the link at its bandwidth.
+     *
+     * @param thePayloadBytes The number of bytes of the payload.
+     * @return The time to transmit the payload, in nanoseconds, 0 if the
+     *         bandwidth is unlimited.
+     */
+    public long transmitNanos(final long thePayloadBytes) {
+        if (myBitsPerSecond == 0) {
+            return 0L;
+        }
+        final double tempBits = (double) wireBytes(thePayloadBytes) * BITS_PER_BYTE;
+        return (long) Math.ceil(tempBits * NANOS_PER_SECOND / myBitsPerSecond);
+    }
+    
+    /**
+     * Returns the settings of the profile, in the form parse() reads.
+     *
+     * @return The settings of the profile.
+     */
+    @Override
+    public String toString() {
+        return "latency=" + myLatencyNanos + "ns jitter=" + myJitterNanos + "ns bandwidth="
+               + myBitsPerSecond + "bit mtu=" + myMtu;
+    }
+    
+  // GETTERS
+    /**
+     * Getter for the one-way latency.
+     *
+     * @return myLatencyNanos
+     */
+    public long getLatencyNanos() {
+        return myLatencyNanos;
+    }
+    
+    /**
+     * Getter for the largest random delay added to the latency.
+     *
+     * @return myJitterNanos
+     */
+    public long getJitterNanos() {
+        return myJitterNanos;
+    }
+    
+    /**
+     * Getter for the bandwidth, 0 if unlimited.
+     *
+     * @return myBitsPerSecond
+     */
+    public long getBitsPerSecond() {
+        return myBitsPerSecond;
+    }
+    
+    /**
+     * Getter for the largest payload of a packet, 0 if unlimited.
+     *
+     * @return myMtu
+     */
+    public int getMtu() {
+        return myMtu;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Parses a time with its unit into nanoseconds.
+     *
+     * @param theValue The time, such as "40ms".
+     * @return The time, in nanoseconds.
+     * @throws IllegalArgumentException If the time or its unit is not valid.
+     */
+    private static long parseNanos(final String theValue) {
+        final String tempValue = theValue.toLowerCase(Locale.ROOT);
+        if (tempValue.endsWith("ns")) {
+            return scale(tempValue, 2, 1L);
+        } else if (tempValue.endsWith("us")) {
+            return scale(tempValue, 2, 1_000L);
+        } else if (tempValue.endsWith("ms")) {
+            return scale(tempValue, 2, 1_000_000L);
+        } else if (tempValue.endsWith("s")) {
+            return scale(tempValue, 1, NANOS_PER_SECOND);
+        }
+        throw new IllegalArgumentException("Time without a unit: " + theValue);
+    } // END parseNanos() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses a bandwidth with its unit into bits per second.
+     *
+     * @param theValue The bandwidth, such as "100Mbit".
+     * @return The bandwidth, in bits per second.
+     * @throws IllegalArgumentException If the bandwidth or its unit is not
+     *                                  valid.
+     */
+    private static long parseBits(final String theValue) {
+        final String tempValue = theValue.toLowerCase(Locale.ROOT);
+        if (tempValue.endsWith("gbit")) {
+            return scale(tempValue, 4, 1_000_000_000L);
+        } else if (tempValue.endsWith("mbit")) {
+            return scale(tempValue, 4, 1_000_000L);
+        } else if (tempValue.endsWith("kbit")) {
+            return scale(tempValue, 4, 1_000L);
+        } else if (tempValue.endsWith("bit")) {
+            return scale(tempValue, 3, 1L);
+        } else if (tempValue.equals("0")) {
+            return 0L;
+        }
+        throw new IllegalArgumentException("Bandwidth without a unit: " + theValue);
+    } // END parseBits() PRIVATE HELPER METHOD
+    
+    /**
+     * Parses the number before a unit and scales it.
+     *
+     * @param theValue The number followed by its unit.
+     * @param theUnitLength The number of characters of the unit.
+     * @param theScale The value of one unit.
+     * @return The scaled number, rounded.
+     * @throws IllegalArgumentException If the number is not valid.
+     */
+    private static long scale(final String theValue, final int theUnitLength, final long theScale) {
+        final String tempNumberStr = theValue.substring(0, theValue.length() - theUnitLength);
+        final double tempNumber = Double.parseDouble(tempNumberStr);
+        if (tempNumber < 0 || Double.isNaN(tempNumber)) {
+            throw new IllegalArgumentException("Invalid number: " + theValue);
+        }
+        return Math.round(tempNumber * theScale);
+    }
+    
+    
+} // END LinkProfile.java CLASS
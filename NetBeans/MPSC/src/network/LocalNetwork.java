@@ -0,0 +1,238 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import messaging.ShareMessageQueue;
+
+/**
+ * An in-memory network connecting the players of a group within one
+ * process, so that a whole group can be simulated without sockets.  Each
+ * player has an inbound ShareMessageQueue, and its PeerTransport stages
+ * the messages of a round in a pending buffer per peer and copies them into
+ * the queues of its peers when the round is flushed, as the socket transport
+ * writes them, so that a round which is never flushed is never delivered.
+ * A message which finds a peer's queue full is kept, with every later
+ * message to that peer, and retried on the next flush, so that senders never
+ * block on each other.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class LocalNetwork {
+    
+// CLASS CONSTANTS
+    /** The number of longs in the header of a pending message. */
+    private static final int PENDING_HEADER = 3;
+    
+    /** The initial number of longs in a pending buffer. */
+    private static final int PENDING_LONGS = 1 << 6;
+    
+    
+// CLASS VARIABLES
+    /** The largest number of longs in a message. */
+    private final int myMaxLongs;
+    
+    /** The inbound queue of each player. */
+    private final ShareMessageQueue[] myInbounds;
+    
+    /** The transport of each player. */
+    private final LocalTransport[] myTransports;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the network of a group.
+     *
+     * @param theNumPlayers The number of players.
+     * @param theCapacity The number of messages each inbound queue holds.
+     * @param theMaxLongs The largest number of longs in a message.
+     */
+    public LocalNetwork(final int theNumPlayers, final int theCapacity, final int theMaxLongs) {
+        if (theNumPlayers < 1 || theMaxLongs < 1) {
+            throw new IllegalArgumentException("Invalid network settings");
+        }
+        
+        myMaxLongs = theMaxLongs;
+        myInbounds = new ShareMessageQueue[theNumPlayers];
+        myTransports = new LocalTransport[theNumPlayers];
+        for (int j = 0; j < theNumPlayers; j++) {
+            myInbounds[j] = new ShareMessageQueue(theCapacity, theMaxLongs);
+            myTransports[j] = new LocalTransport(j);
+        }
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the transport of a player, which only that player may use.
+     *
+     * @param thePlayer The index of the player.
+     * @return The transport of the player.
+     */
+    public PeerTransport getTransport(final int thePlayer) {
+        return myTransports[thePlayer];
+    }
+    
+    /**
+     * Returns the number of players in the network.
+     *
+     * @return The size of the group.
+     */
+    public int getNumPlayers() {
+        return myInbounds.length;
+    }
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * The transport of one player, delivering into the queues of its peers
+     * on each flush.  Its pending messages to each peer are packed into a long array as the
+     * round, type and count of each message followed by its longs.
+     */
+    private final class LocalTransport implements PeerTransport {
+        
+        /** The index of the player. */
+        private final int myPlayer;
+        
+        /** The messages waiting for room in the queue of each peer. */
+        private final long[][] myPending;
+        
+        /** The index of the first pending long for each peer. */
+        private final int[] myStart;
+        
+        /** The index after the last pending long for each peer. */
+        private final int[] myEnd;
+        
+        /** Boolean holding whether the transport was closed. */
+        private boolean myClosed;
+        
+        
+        /**
+         * Creates the transport of a player.
+         *
+         * @param thePlayer The index of the player.
+         */
+        private LocalTransport(final int thePlayer) {
+            myPlayer = thePlayer;
+            myPending = new long[myInbounds.length][];
+            myStart = new int[myInbounds.length];
+            myEnd = new int[myInbounds.length];
+        }
+        
+        
+        @Override
+        public int getPlayer() {
+            return myPlayer;
+        }
+        
+        @Override
+        public int getNumPlayers() {
+            return myInbounds.length;
+        }
+        
+        @Override
+        public int getMaxLongs() {
+            return myMaxLongs;
+        }
+        
+        @Override
+        public ShareMessageQueue getInbound() {
+            return myInbounds[myPlayer];
+        }
+        
+        @Override
+        public void send(final int thePeer, final int theRound, final int theType,
+                         final long[] theSrc, final int theOffset, final int theCount) {
+            if (myClosed) {
+                throw new IllegalStateException("Local transport is closed");
+            }
+            if (thePeer < 0 || thePeer >= myInbounds.length || thePeer == myPlayer) {
+                throw new IllegalArgumentException("Invalid peer: " + thePeer);
+            }
+            
+            int tempOffset = theOffset;
+            int tempLeft = theCount;
+            do {
+                final int tempCount = Math.min(tempLeft, myMaxLongs);
+                defer(thePeer, theRound, theType, theSrc, tempOffset, tempCount);
+                tempOffset += tempCount;
+                tempLeft -= tempCount;
+            } while (tempLeft > 0); // END do/while LOOP
+        } // END send() METHOD
+        
+        @Override
+        public void flush() {
+            for (int j = 0; j < myPending.length; j++) {
+                final long[] tempPending = myPending[j];
+                int tempStart = myStart[j];
+                
+                while (tempStart < myEnd[j]) {
+                    final int tempCount = (int) tempPending[tempStart + 2];
+                    if (!myInbounds[j].offer(myPlayer, (int) tempPending[tempStart],
+                                             (int) tempPending[tempStart + 1], tempPending,
+                                             tempStart + PENDING_HEADER, tempCount)) {
+                        break;
+                    }
+                    tempStart += PENDING_HEADER + tempCount;
+                } // END while LOOP
+                
+                if (tempStart == myEnd[j]) {
+                    tempStart = 0;
+                    myEnd[j] = 0;
+                }
+                myStart[j] = tempStart;
+            } // END for LOOP
+        } // END flush() METHOD
+        
+        @Override
+        public void close() {
+            myClosed = true;
+        }
+        
+        /**
+         * Appends a message to the pending buffer of a peer, compacting or
+         * growing the buffer as needed.
+         *
+         * @param thePeer The index of the peer.
+         * @param theRound The protocol round of the message.
+         * @param theType The type of the message.
+         * @param theSrc The array holding the payload.
+         * @param theOffset The index of the first long of the payload.
+         * @param theCount The number of longs in the payload.
+         */
+        private void defer(final int thePeer, final int theRound, final int theType,
+                           final long[] theSrc, final int theOffset, final int theCount) {
+            final int tempNeed = PENDING_HEADER + theCount;
+            long[] tempPending = myPending[thePeer];
+            
+            if (tempPending == null) {
+                tempPending = new long[Math.max(PENDING_LONGS, tempNeed)];
+            } else if (myEnd[thePeer] + tempNeed > tempPending.length) {
+                final int tempUsed = myEnd[thePeer] - myStart[thePeer];
+                final long[] tempTarget = tempUsed + tempNeed > tempPending.length
+                        ? new long[Math.max(2 * tempPending.length, tempUsed + tempNeed)]
+                        : tempPending;
+                System.arraycopy(tempPending, myStart[thePeer], tempTarget, 0, tempUsed);
+                tempPending = tempTarget;
+                myStart[thePeer] = 0;
+                myEnd[thePeer] = tempUsed;
+            } // END if/else BLOCK
+            myPending[thePeer] = tempPending;
+            
+            int tempEnd = myEnd[thePeer];
+            tempPending[tempEnd++] = theRound;
+            tempPending[tempEnd++] = theType;
+            tempPending[tempEnd++] = theCount;
+            System.arraycopy(theSrc, theOffset, tempPending, tempEnd, theCount);
+            myEnd[thePeer] = tempEnd + theCount;
+        } // END defer() PRIVATE HELPER METHOD
+    
+    
+    } // END LocalTransport PRIVATE CLASS
+    
+    
+} // END LocalNetwork.java CLASS
@@ -0,0 +1,503 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.io.Closeable;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import messaging.ShareMessageQueue;
+
+/**
+ * Emulates a wide area network between the players of a group on one
+ * machine, by decorating their transports.  The messages a player flushes
+ * to a peer in a round leave as one batch, which occupies the link for the
+ * time its frames and packet headers take at the bandwidth of the link, so
+ * that batches queue behind each other, and reach the inner transport the
+ * latency and a random part of the jitter after leaving.  Batches on a link
+ * always arrive in the order they left.  A round thus costs what it would
+ * over the emulated network: the latency of its slowest link plus its bytes
+ * over the bandwidth.
+ *
+ * <p>Every wrapped transport has its own delivery thread, which is the only
+ * thread to send on, flush, and close its inner transport, so that an inner
+ * transport which blocks only holds up the links of its own player.  A
+ * flush of a wrapped transport also asks that thread to flush the inner
+ * transport, so that deferred deliveries are retried as often as without
+ * emulation.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class NetworkEmulator implements Closeable {
+    
+// CLASS CONSTANTS
+    /** The number of longs in the header of a staged message. */
+    private static final int STAGED_HEADER = 3;
+    
+    /** The initial number of longs staged for a peer. */
+    private static final int STAGED_LONGS = 1 << 6;
+    
+    /** Microseconds a delivery thread waits before flushing again. */
+    private static final long WAIT_MICROS = 1_000L;
+    
+    /**
+     * Nanoseconds a close waits, after the last batch of the player is due,
+     * for the delivery thread to close the inner transport.
+     */
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10L);
+    
+    
+// CLASS VARIABLES
+    /** The profile of every link. */
+    private final NetworkProfile myProfile;
+    
+    /** The seed of the jitter. */
+    private final long mySeed;
+    
+    /** The order in which batches left, breaking ties of arrival. */
+    private final AtomicLong mySequence;
+    
+    /** The transports wrapped by the emulator. */
+    private final CopyOnWriteArrayList<EmulatedTransport> myTransports;
+    
+    /** Boolean holding whether the emulator should keep running. */
+    private volatile boolean myRunning;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the emulator of a network.
+     *
+     * @param theProfile The profile of every link.
+     * @param theSeed The seed of the jitter, which each player draws from
+     *                its own generator.
+     */
+    public NetworkEmulator(final NetworkProfile theProfile, final long theSeed) {
+        myProfile = theProfile;
+        mySeed = theSeed;
+        mySequence = new AtomicLong();
+        myTransports = new CopyOnWriteArrayList<>();
+        myRunning = true;
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Wraps the transport of a player so that its messages cross the
+     * emulated network, and starts its delivery thread.  The wrapped
+     * transport takes over the inner one, which must no longer be used
+     * directly.
+     *
+     * @param theInner The transport of the player.
+     * @return The emulated transport.
+     * @throws IllegalArgumentException If the group of the transport is not
+     *                                  that of the profile.
+     * @throws IllegalStateException If the emulator was closed.
+     */
+    public PeerTransport wrap(final PeerTransport theInner) {
+        if (theInner.getNumPlayers() != myProfile.getNumPlayers()) {
+            throw new IllegalArgumentException("Transport is not of the emulated group");
+        }
+        if (!myRunning) {
+            throw new IllegalStateException("Network emulator is closed");
+        }
+        
+        final EmulatedTransport tempTransport = new EmulatedTransport(theInner);
+        myTransports.add(tempTransport);
+        tempTransport.myThread.start();
+        return tempTransport;
+    } // END wrap() METHOD
+    
+    /**
+     * Stops every delivery thread, dropping the batches still in flight.
+     * Closing every wrapped transport first delivers them; a wrapped
+     * transport closed afterwards closes its inner transport directly.
+     */
+    @Override
+    public void close() {
+        myRunning = false;
+        for (final EmulatedTransport tempTransport : myTransports) {
+            tempTransport.myThread.interrupt();
+        }
+        try {
+            for (final EmulatedTransport tempTransport : myTransports) {
+                tempTransport.myThread.join();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } // END try/catch BLOCK
+    } // END close() METHOD
+    
+  // GETTERS
+    /**
+     * Getter for the profile of every link.
+     *
+     * @return myProfile
+     */
+    public NetworkProfile getProfile() {
+        return myProfile;
+    }
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * The messages flushed to one peer in one round, or the close of a
+     * transport, packed as the round, type and count of each message
+     * followed by its longs.
+     */
+    private static final class Batch implements Delayed {
+        
+        /** The index of the receiving player, or -1 to close the owner. */
+        private final int myPeer;
+        
+        /** The packed messages. */
+        private final long[] myLongs;
+        
+        /** The number of packed longs. */
+        private final int myLength;
+        
+        /** The time at which the batch arrives, from System.nanoTime(). */
+        private final long myArrival;
+        
+        /** The order in which the batch left. */
+        private final long mySequence;
+        
+        
+        /**
+         * Creates a batch.
+         *
+         * @param thePeer The index of the receiving player, or -1.
+         * @param theLongs The packed messages.
+         * @param theLength The number of packed longs.
+         * @param theArrival The time at which the batch arrives.
+         * @param theSequence The order in which the batch left.
+         */
+        private Batch(final int thePeer, final long[] theLongs, final int theLength,
+                      final long theArrival, final long theSequence) {
+            myPeer = thePeer;
+            myLongs = theLongs;
+            myLength = theLength;
+            myArrival = theArrival;
+            mySequence = theSequence;
+        }
+        
+        
+        @Override
+        public long getDelay(final TimeUnit theUnit) {
+            return theUnit.convert(myArrival - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        
+        @Override
+        public int compareTo(final Delayed theOther) {
+            final Batch tempOther = (Batch) theOther;
+            final int tempOrder = Long.compare(myArrival - tempOther.myArrival, 0L);
+            return tempOrder != 0 ? tempOrder : Long.compare(mySequence, tempOther.mySequence);
+        }
+    
+    
+    } // END Batch PRIVATE CLASS
+    
+    /**
+     * The emulated transport of one player.  Its owner stages messages per
+     * peer, as LocalNetwork keeps pending ones, and each flush turns them
+     * into batches in flight; its delivery thread passes them on.
+     */
+    private final class EmulatedTransport implements PeerTransport {
+        
+        /** The transport of the player. */
+        private final PeerTransport myInner;
+        
+        /** The index of the player. */
+        private final int myPlayer;
+        
+        /** The messages staged for each peer. */
+        private final long[][] myStaged;
+        
+        /** The number of longs staged for each peer. */
+        private final int[] myLength;
+        
+        /** The number of frame bytes staged for each peer. */
+        private final long[] myBytes;
+        
+        /** The time at which each link is next free to transmit. */
+        private final long[] myLinkFree;
+        
+        /** The time at which the last batch on each link arrives. */
+        private final long[] myLastArrival;
+        
+        /** The source of the jitter of the player. */
+        private final SplittableRandom myRandom;
+        
+        /** The batches in flight, ordered by the time they arrive. */
+        private final DelayQueue<Batch> myInFlight;
+        
+        /** The thread delivering the batches. */
+        private final Thread myThread;
+        
+        /** Boolean holding whether a flush of the inner transport is asked. */
+        private final AtomicBoolean myFlushAsked;
+        
+        /** Released once the inner transport is closed. */
+        private final CountDownLatch myClosed;
+        
+        /** The time at which the last batch of any link arrives. */
+        private long myLastAny;
+        
+        /** Boolean holding whether the owner closed the transport. */
+        private boolean myClosing;
+        
+        
+        /**
+         * Creates the emulated transport of a player.
+         *
+         * @param theInner The transport of the player.
+         */
+        private EmulatedTransport(final PeerTransport theInner) {
+            final int tempPlayers = theInner.getNumPlayers();
+            myInner = theInner;
+            myPlayer = theInner.getPlayer();
+            myStaged = new long[tempPlayers][];
+            myLength = new int[tempPlayers];
+            myBytes = new long[tempPlayers];
+            myLinkFree = new long[tempPlayers];
+            myLastArrival = new long[tempPlayers];
+            myRandom = new SplittableRandom(mySeed + myPlayer);
+            myInFlight = new DelayQueue<>();
+            myThread = new Thread(this::deliver, "network-emulator-" + myPlayer);
+            myThread.setDaemon(true);
+            myFlushAsked = new AtomicBoolean();
+            myClosed = new CountDownLatch(1);
+            myLastAny = System.nanoTime();
+            for (int j = 0; j < tempPlayers; j++) {
+                myLinkFree[j] = myLastAny;
+                myLastArrival[j] = myLastAny;
+            }
+        } // END constructor
+        
+        
+        @Override
+        public int getPlayer() {
+            return myPlayer;
+        }
+        
+        @Override
+        public int getNumPlayers() {
+            return myInner.getNumPlayers();
+        }
+        
+        @Override
+        public int getMaxLongs() {
+            return myInner.getMaxLongs();
+        }
+        
+        @Override
+        public ShareMessageQueue getInbound() {
+            return myInner.getInbound();
+        }
+        
+        @Override
+        public void send(final int thePeer, final int theRound, final int theType,
+                         final long[] theSrc, final int theOffset, final int theCount) {
+            if (myClosing) {
+                throw new IllegalStateException("Emulated transport is closed");
+            }
+            if (thePeer < 0 || thePeer >= myStaged.length || thePeer == myPlayer) {
+                throw new IllegalArgumentException("Invalid peer: " + thePeer);
+            }
+            
+            final int tempMaxLongs = myInner.getMaxLongs();
+            int tempOffset = theOffset;
+            int tempLeft = theCount;
+            do {
+                final int tempCount = Math.min(tempLeft, tempMaxLongs);
+                stage(thePeer, theRound, theType, theSrc, tempOffset, tempCount);
+                tempOffset += tempCount;
+                tempLeft -= tempCount;
+            } while (tempLeft > 0); // END do/while LOOP
+        } // END send() METHOD
+        
+        @Override
+        public void flush() {
+            if (myClosing) {
+                throw new IllegalStateException("Emulated transport is closed");
+            }
+            
+            final long tempNow = System.nanoTime();
+            for (int j = 0; j < myStaged.length; j++) {
+                if (myLength[j] == 0) {
+                    continue;
+                }
+                
+                final LinkProfile tempLink = myProfile.getLink(myPlayer, j);
+                final long tempStart = Math.max(tempNow, myLinkFree[j]);
+                myLinkFree[j] = tempStart + tempLink.transmitNanos(myBytes[j]);
+                long tempArrival = myLinkFree[j] + tempLink.getLatencyNanos();
+                if (tempLink.getJitterNanos() > 0) {
+                    tempArrival += myRandom.nextLong(tempLink.getJitterNanos() + 1);
+                }
+                if (tempArrival - myLastArrival[j] <= 0) {
+                    tempArrival = myLastArrival[j] + 1;
+                }
+                myLastArrival[j] = tempArrival;
+                if (tempArrival - myLastAny > 0) {
+                    myLastAny = tempArrival;
+                }
+                
+                myInFlight.put(new Batch(j, myStaged[j], myLength[j], tempArrival,
+                                         mySequence.getAndIncrement()));
+                myStaged[j] = null;
+                myLength[j] = 0;
+                myBytes[j] = 0L;
+            } // END for LOOP
+            
+            myFlushAsked.set(true);
+        } // END flush() METHOD
+        
+        /**
+         * Flushes the staged messages, waits until every batch of the
+         * player has arrived, and closes the inner transport.  If the
+         * delivery thread has stopped, as it does once the emulator is
+         * closed, the batches still in flight are dropped and the inner
+         * transport is closed directly.
+         *
+         * @throws IllegalStateException If the delivery thread does not close
+         *                               the inner transport in time.
+         */
+        @Override
+        public void close() {
+            if (myClosing) {
+                return;
+            }
+            flush();
+            myClosing = true;
+            myInFlight.put(new Batch(-1, null, 0, myLastAny + 1, mySequence.getAndIncrement()));
+            
+            final long tempDeadline = myLastAny + CLOSE_TIMEOUT_NANOS;
+            try {
+                while (!myClosed.await(WAIT_MICROS, TimeUnit.MICROSECONDS)) {
+                    if (!myThread.isAlive()) {
+                        closeInner();
+                    } else if (System.nanoTime() - tempDeadline > 0) {
+                        throw new IllegalStateException("Timed out closing the emulated "
+                                                        + "transport of player " + myPlayer);
+                    }
+                } // END while LOOP
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } // END try/catch BLOCK
+        } // END close() METHOD
+        
+        /**
+         * Body of the delivery thread: hands every batch which has arrived
+         * to the inner transport, and flushes the inner transport when
+         * asked, until the inner transport is closed or the emulator is.
+         */
+        private void deliver() {
+            while (myRunning && myClosed.getCount() > 0) {
+                try {
+                    Batch tempBatch = myInFlight.poll(WAIT_MICROS, TimeUnit.MICROSECONDS);
+                    while (tempBatch != null) {
+                        arrive(tempBatch);
+                        tempBatch = myInFlight.poll();
+                    } // END while LOOP
+                    
+                    if (myFlushAsked.getAndSet(false) && myClosed.getCount() > 0) {
+                        myInner.flush();
+                    }
+                } catch (final InterruptedException exception) {
+                    // Closed: the loop ends as myRunning is now false
+                } catch (final RuntimeException exception) {
+                    System.out.println("Exception emulating the network: "
+                                       + exception.getMessage());
+                } // END try/catch BLOCK
+            } // END while LOOP
+        } // END deliver() PRIVATE HELPER METHOD
+        
+        /**
+         * Hands a batch which has arrived to the inner transport, on the
+         * delivery thread.
+         *
+         * @param theBatch The batch.
+         */
+        private void arrive(final Batch theBatch) {
+            if (theBatch.myPeer < 0) {
+                closeInner();
+                return;
+            }
+            
+            final long[] tempLongs = theBatch.myLongs;
+            int tempPos = 0;
+            while (tempPos < theBatch.myLength) {
+                final int tempCount = (int) tempLongs[tempPos + 2];
+                myInner.send(theBatch.myPeer, (int) tempLongs[tempPos],
+                             (int) tempLongs[tempPos + 1], tempLongs, tempPos + STAGED_HEADER,
+                             tempCount);
+                tempPos += STAGED_HEADER + tempCount;
+            } // END while LOOP
+            myInner.flush();
+        } // END arrive() PRIVATE HELPER METHOD
+        
+        /**
+         * Flushes and closes the inner transport, once, on the delivery
+         * thread or after it has stopped.
+         */
+        private void closeInner() {
+            if (myClosed.getCount() == 0) {
+                return;
+            }
+            try {
+                myInner.flush();
+                myInner.close();
+            } finally {
+                myClosed.countDown();
+            } // END try/finally BLOCK
+        }
+        
+        /**
+         * Appends a message to the staged messages of a peer, growing them
+         * as needed.
+         *
+         * @param thePeer The index of the peer.
+         * @param theRound The protocol round of the message.
+         * @param theType The type of the message.
+         * @param theSrc The array holding the payload.
+         * @param theOffset The index of the first long of the payload.
+         * @param theCount The number of longs in the payload.
+         */
+        private void stage(final int thePeer, final int theRound, final int theType,
+                           final long[] theSrc, final int theOffset, final int theCount) {
+            final int tempNeed = myLength[thePeer] + STAGED_HEADER + theCount;
+            long[] tempStaged = myStaged[thePeer];
+            if (tempStaged == null) {
+                tempStaged = new long[Math.max(STAGED_LONGS, tempNeed)];
+            } else if (tempNeed > tempStaged.length) {
+                final long[] tempGrown = new long[Math.max(2 * tempStaged.length, tempNeed)];
+                System.arraycopy(tempStaged, 0, tempGrown, 0, myLength[thePeer]);
+                tempStaged = tempGrown;
+            } // END if/else BLOCK
+            myStaged[thePeer] = tempStaged;
+            
+            int tempEnd = myLength[thePeer];
+            tempStaged[tempEnd++] = theRound;
+            tempStaged[tempEnd++] = theType;
+            tempStaged[tempEnd++] = theCount;
+            System.arraycopy(theSrc, theOffset, tempStaged, tempEnd, theCount);
+            myLength[thePeer] = tempEnd + theCount;
+            myBytes[thePeer] += WireCodec.frameBytes(WireCodec.ELEM_FIELD, 0, theCount);
+        } // END stage() PRIVATE HELPER METHOD
+    
+    
+    } // END EmulatedTransport PRIVATE CLASS
+    
+    
+} // END NetworkEmulator.java CLASS
@@ -0,0 +1,197 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import files.GroupCompInitializationFileInterpreter;
+import files.PlayerRegistry;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * The emulated links between every pair of players of a group, each a
+ * LinkProfile.  Links are symmetric, and every link not set has the default
+ * profile.
+ *
+ * <p>A network can be loaded from a links file naming the players by the
+ * UIDs in the group computation initialization file.  Each line sets the
+ * default profile or the links between two players, "*" standing for every
+ * player, later lines overriding earlier ones.  The default line, if there
+ * is one, comes before every line setting links:
+ *
+ * <pre>
+ *  # Players on one continent, and one overseas
+ *  default latency=20ms bandwidth=1Gbit mtu=1500
+ *  1014 * latency=80ms jitter=5ms bandwidth=50Mbit
+ *  1000 1007 latency=1ms
+ * </pre>
+ *
+ * Each setting left out of a line is kept from the profile the link had.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class NetworkProfile {
+    
+// CLASS CONSTANTS
+    /** String constant holding the keyword of the default profile. */
+    private static final String DEFAULT = "default";
+    
+    /** String constant standing for every player. */
+    private static final String EVERY_PLAYER = "*";
+    
+    /** String constant starting a comment. */
+    private static final String COMMENT = "#";
+    
+    
+// CLASS VARIABLES
+    /** The profile of each link, indexed by the two players. */
+    private final LinkProfile[][] myLinks;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a network in which every link has the same profile.
+     *
+     * @param theNumPlayers The number of players.
+     * @param theDefault The profile of every link.
+     */
+    public NetworkProfile(final int theNumPlayers, final LinkProfile theDefault) {
+        if (theNumPlayers < 1) {
+            throw new IllegalArgumentException("Invalid number of players: " + theNumPlayers);
+        }
+        
+        myLinks = new LinkProfile[theNumPlayers][theNumPlayers];
+        setDefault(theDefault);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Loads the network of a group from a links file.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param theFileName The name of the links file.
+     * @return The network.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If a line of the file is not valid,
+     *                                  names a player not in the group, or
+     *                                  sets the default after a link.
+     */
+    public static NetworkProfile load(final GroupCompInitializationFileInterpreter theGroup,
+                                      final String theFileName) throws IOException {
+        final NetworkProfile tempNetwork = new NetworkProfile(theGroup.getGrpSize(),
+                                                              LinkProfile.UNLIMITED);
+        boolean tempLinkSet = false;
+        
+        for (final String tempLine : Files.readAllLines(Paths.get(theFileName))) {
+            final int tempComment = tempLine.indexOf(COMMENT);
+            final String tempText = (tempComment < 0 ? tempLine
+                                     : tempLine.substring(0, tempComment)).trim();
+            if (tempText.isEmpty()) {
+                continue;
+            }
+            
+            final String[] tempTokens = tempText.split("\\s+", 3);
+            if (tempTokens[0].equalsIgnoreCase(DEFAULT)) {
+                if (tempLinkSet) {
+                    throw new IllegalArgumentException("Default after a link in " + theFileName
+                                                       + ": " + tempLine);
+                }
+                final String tempSpec = tempText.substring(DEFAULT.length());
+                tempNetwork.setDefault(LinkProfile.parse(tempSpec, tempNetwork.myLinks[0][0]));
+            } else if (tempTokens.length == 3) {
+                tempLinkSet = true;
+                final int tempA = playerOf(theGroup, tempTokens[0]);
+                final int tempB = playerOf(theGroup, tempTokens[1]);
+                for (int a = 0; a < tempNetwork.myLinks.length; a++) {
+                    for (int b = 0; b < tempNetwork.myLinks.length; b++) {
+                        if ((tempA < 0 || tempA == a) && (tempB < 0 || tempB == b) && a != b) {
+                            tempNetwork.setLink(a, b, LinkProfile.parse(tempTokens[2],
+                                                tempNetwork.myLinks[a][b]));
+                        }
+                    } // END for LOOP
+                } // END for LOOP
+            } else {
+                throw new IllegalArgumentException("Invalid line of " + theFileName + ": "
+                                                   + tempLine);
+            } // END if/else BLOCK
+        } // END for LOOP
+        
+        return tempNetwork;
+    } // END load() METHOD
+    
+    /**
+     * Sets the profile of every link, overriding the links already set.
+     *
+     * @param theProfile The profile of every link.
+     */
+    public void setDefault(final LinkProfile theProfile) {
+        for (final LinkProfile[] tempRow : myLinks) {
+            Arrays.fill(tempRow, theProfile);
+        }
+    }
+    
+    /**
+     * Sets the profile of the link between two players, both ways.
+     *
+     * @param theA The index of one player.
+     * @param theB The index of the other player.
+     * @param theProfile The profile of the link.
+     */
+    public void setLink(final int theA, final int theB, final LinkProfile theProfile) {
+        myLinks[theA][theB] = theProfile;
+        myLinks[theB][theA] = theProfile;
+    }
+    
+    /**
+     * Returns the profile of the link from one player to another.
+     *
+     * @param theFrom The index of the sending player.
+     * @param theTo The index of the receiving player.
+     * @return The profile of the link.
+     */
+    public LinkProfile getLink(final int theFrom, final int theTo) {
+        return myLinks[theFrom][theTo];
+    }
+    
+    /**
+     * Returns the number of players in the network.
+     *
+     * @return The size of the group.
+     */
+    public int getNumPlayers() {
+        return myLinks.length;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the index of the player with a UID in a group.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param theUID The UID of the player, or "*" for every player.
+     * @return The index of the player, or -1 for every player.
+     * @throws IllegalArgumentException If the UID is not in the group.
+     */
+    private static int playerOf(final GroupCompInitializationFileInterpreter theGroup,
+                                final String theUID) {
+        if (theUID.equals(EVERY_PLAYER)) {
+            return -1;
+        }
+        
+        final int tempPlayer = theGroup.indexOfPlyr(new BigInteger(theUID));
+        if (tempPlayer == PlayerRegistry.NOT_FOUND) {
+            throw new IllegalArgumentException("Player not in the group: " + theUID);
+        }
+        return tempPlayer;
+    } // END playerOf() PRIVATE HELPER METHOD
+    
+    
+} // END NetworkProfile.java CLASS
@@ -0,0 +1,788 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import files.GroupCompInitializationFileInterpreter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import messaging.ShareMessageQueue;
+
+/**
+ * A PeerTransport over TCP, keeping one persistent connection to each peer
+ * and serving all of them from a single selector thread.  Each player
+ * listens on its own address, dials the players with lower indices, and
+ * accepts the players with higher indices, which identify themselves with a
+ * hello of the magic number and their index.  A dialling player connects
+ * from its own address, and a hello is only taken from the address of the
+ * player it claims to be.
+ *
+ * <p>The messages staged for a peer in a round are encoded as WireCodec
+ * frames of field elements into direct buffers from a BufferPool, which
+ * flush() hands to the selector thread to be written while the player goes
+ * on, all the buffers of a peer in one gathering write; each buffer returns
+ * to the pool once written.  The selector thread
+ * reads frames through a WireFrame view of its receive buffer and moves
+ * their payloads straight into the inbound queue.  While the queue is full,
+ * a link stops reading, so that TCP holds back that peer alone, and the
+ * frames it has already read are offered again on every pass of the
+ * selector.  Frames of another session, or which claim another sender, fail
+ * the transport.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class NioPeerTransport implements PeerTransport {
+    
+// CLASS CONSTANTS
+    /** The default timeout for connecting the group, in milliseconds. */
+    public static final long DEFAULT_CONNECT_MILLIS = 10_000L;
+    
+    /** The magic number opening the hello of a dialling player, "MPSC". */
+    private static final int HELLO_MAGIC = 0x4D505343;
+    
+    /** The number of bytes in a hello. */
+    private static final int HELLO_BYTES = 8;
+    
+    /** The least size of a staging buffer. */
+    private static final int STAGING_BYTES = 1 << 16;
+    
+    /** The number of free staging buffers pooled per peer. */
+    private static final int POOLED_PER_PEER = 4;
+    
+    /** The number of buffers a link first has room to write at once. */
+    private static final int GATHER_BUFFERS = 4;
+    
+    /** The least size of a read buffer. */
+    private static final int READ_BYTES = 1 << 16;
+    
+    /** Milliseconds between attempts to dial a peer not yet listening. */
+    private static final long RETRY_MILLIS = 20L;
+    
+    /** Milliseconds the selector waits while writes drain on close. */
+    private static final long CLOSE_POLL_MILLIS = 10L;
+    
+    /** Milliseconds the selector waits while a link waits for the queue. */
+    private static final long STALL_POLL_MILLIS = 1L;
+    
+    
+// CLASS VARIABLES
+    /** The index of this player. */
+    private final int myPlayer;
+    
+    /** The address of every player. */
+    private final InetSocketAddress[] myAddrs;
+    
+    /** The session of the group computation, sent in every frame. */
+    private final long mySession;
+    
+    /** The largest number of longs in a message. */
+    private final int myMaxLongs;
+    
+    /** The queue into which messages from the peers arrive. */
+    private final ShareMessageQueue myInbound;
+    
+    /** The selector of the connections. */
+    private final Selector mySelector;
+    
+    /** The channel accepting the players with higher indices. */
+    private final ServerSocketChannel myServer;
+    
+    /** The connection to each peer, null for this player. */
+    private final Link[] myLinks;
+    
+    /** The buffer staging the messages to each peer, used by the sender. */
+    private final ByteBuffer[] myStaging;
+    
+    /** The pool of staging buffers. */
+    private final BufferPool myPool;
+    
+    /** The connections with newly flushed buffers. */
+    private final ConcurrentLinkedQueue<Link> myFlushed;
+    
+    /** The selector thread. */
+    private final Thread myThread;
+    
+    /** Boolean holding whether the transport is connected and not closing. */
+    private volatile boolean myRunning;
+    
+    /** The exception which stopped the selector thread, or null. */
+    private volatile IOException myFailure;
+    
+    /** The number of links waiting for room in the inbound queue. */
+    private int myStalled;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the transport of a player of a group computation, each player
+     * listening at its address from the group initialization file on the
+     * base port plus its index, and the session being the low bits of the
+     * group computation initialization key.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param thePlayer The index of this player.
+     * @param theBasePort The port of the first player.
+     * @param theCapacity The number of messages the inbound queue holds.
+     * @param theMaxLongs The largest number of longs in a message.
+     * @return The transport, listening but not yet connected.
+     * @throws IOException If the address of the player cannot be bound.
+     */
+    public static NioPeerTransport forGroup(final GroupCompInitializationFileInterpreter theGroup,
+                                            final int thePlayer, final int theBasePort,
+                                            final int theCapacity, final int theMaxLongs)
+                                            throws IOException {
+        final InetSocketAddress[] tempAddrs = new InetSocketAddress[theGroup.getGrpSize()];
+        for (int j = 0; j < tempAddrs.length; j++) {
+            final InetAddress tempAddr = theGroup.getPlyrAddr(j);
+            if (tempAddr == null) {
+                throw new IllegalArgumentException("No address for player " + j);
+            }
+            tempAddrs[j] = new InetSocketAddress(tempAddr, theBasePort + j);
+        }
+        return new NioPeerTransport(thePlayer, tempAddrs, theGroup.getGrpCompInitKey().longValue(),
+                                    theCapacity, theMaxLongs);
+    } // END forGroup() METHOD
+    
+    /**
+     * Creates the transport of a player and binds its address.
+     *
+     * @param thePlayer The index of this player.
+     * @param theAddrs The address of every player.
+     * @param theSession The session of the group computation.
+     * @param theCapacity The number of messages the inbound queue holds.
+     * @param theMaxLongs The largest number of longs in a message.
+     * @throws IOException If the address of the player cannot be bound.
+     */
+    public NioPeerTransport(final int thePlayer, final InetSocketAddress[] theAddrs,
+                            final long theSession, final int theCapacity,
+                            final int theMaxLongs) throws IOException {
+        if (thePlayer < 0 || thePlayer >= theAddrs.length) {
+            throw new IllegalArgumentException("Invalid player: " + thePlayer);
+        }
+        if (theMaxLongs < 1) {
+            throw new IllegalArgumentException("Invalid payload size: " + theMaxLongs);
+        }
+        
+        myPlayer = thePlayer;
+        myAddrs = theAddrs.clone();
+        mySession = theSession;
+        myMaxLongs = theMaxLongs;
+        myInbound = new ShareMessageQueue(theCapacity, theMaxLongs);
+        myLinks = new Link[theAddrs.length];
+        myStaging = new ByteBuffer[theAddrs.length];
+        myPool = new BufferPool(Math.max(STAGING_BYTES, maxFrameBytes()),
+                                POOLED_PER_PEER * theAddrs.length);
+        myFlushed = new ConcurrentLinkedQueue<>();
+        
+        mySelector = Selector.open();
+        myServer = ServerSocketChannel.open();
+        myServer.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        myServer.bind(myAddrs[thePlayer], theAddrs.length);
+        
+        myThread = new Thread(this::serve, "peer-transport-" + thePlayer);
+        myThread.setDaemon(true);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Connects to every peer, dialling the players with lower indices and
+     * accepting those with higher indices, then starts the selector thread.
+     * Every player of the group must connect at about the same time.
+     *
+     * @param theTimeoutMillis The longest to wait for the peers.
+     * @throws IOException If a peer cannot be connected in time.
+     */
+    public void connect(final long theTimeoutMillis) throws IOException {
+        final long tempDeadline = System.nanoTime()
+                                  + TimeUnit.MILLISECONDS.toNanos(theTimeoutMillis);
+        
+        for (int j = 0; j < myPlayer; j++) {
+            final SocketChannel tempChannel = dial(myAddrs[myPlayer].getAddress(), myAddrs[j],
+                                                   tempDeadline);
+            final ByteBuffer tempHello = ByteBuffer.allocate(HELLO_BYTES);
+            tempHello.putInt(HELLO_MAGIC).putInt(myPlayer).flip();
+            while (tempHello.hasRemaining()) {
+                tempChannel.write(tempHello);
+            }
+            tempChannel.configureBlocking(false);
+            
+            // Not read until every peer is connected, so accepting sees only hellos
+            final Link tempLink = new Link(j, tempChannel, readBufferBytes());
+            tempLink.myKey = tempChannel.register(mySelector, 0, tempLink);
+            myLinks[j] = tempLink;
+        } // END for LOOP
+        
+        acceptPeers(tempDeadline);
+        myServer.close();
+        for (int j = 0; j < myPlayer; j++) {
+            myLinks[j].myKey.interestOps(SelectionKey.OP_READ);
+        }
+        
+        myRunning = true;
+        myThread.start();
+    } // END connect() METHOD
+    
+    @Override
+    public int getPlayer() {
+        return myPlayer;
+    }
+    
+    @Override
+    public int getNumPlayers() {
+        return myAddrs.length;
+    }
+    
+    @Override
+    public int getMaxLongs() {
+        return myMaxLongs;
+    }
+    
+    @Override
+    public ShareMessageQueue getInbound() {
+        return myInbound;
+    }
+    
+    @Override
+    public void send(final int thePeer, final int theRound, final int theType,
+                     final long[] theSrc, final int theOffset, final int theCount) {
+        checkOpen();
+        if (thePeer < 0 || thePeer >= myLinks.length || thePeer == myPlayer) {
+            throw new IllegalArgumentException("Invalid peer: " + thePeer);
+        }
+        if (myLinks[thePeer].myClosed) {
+            throw new IllegalStateException("Peer " + thePeer + " closed the connection");
+        }
+        
+        int tempOffset = theOffset;
+        int tempLeft = theCount;
+        do {
+            final int tempCount = Math.min(tempLeft, myMaxLongs);
+            final ByteBuffer tempBuf = stage(thePeer, WireCodec.frameBytes(WireCodec.ELEM_FIELD,
+                                                                           0, tempCount));
+            WireCodec.encodeFieldElements(tempBuf, mySession, theRound, myPlayer, theType, theSrc,
+                                          tempOffset, tempCount);
+            tempOffset += tempCount;
+            tempLeft -= tempCount;
+        } while (tempLeft > 0); // END do/while LOOP
+    } // END send() METHOD
+    
+    @Override
+    public void flush() {
+        checkOpen();
+        
+        boolean tempAny = false;
+        for (int j = 0; j < myStaging.length; j++) {
+            final ByteBuffer tempBuf = myStaging[j];
+            if (tempBuf != null && tempBuf.position() > 0) {
+                tempBuf.flip();
+                myStaging[j] = null;
+                myLinks[j].myOutbox.add(tempBuf);
+                myFlushed.add(myLinks[j]);
+                tempAny = true;
+            }
+        } // END for LOOP
+        
+        if (tempAny) {
+            mySelector.wakeup();
+        }
+    } // END flush() METHOD
+    
+    /**
+     * Closes the connections once the flushed messages are written.
+     */
+    @Override
+    public void close() {
+        final boolean tempStarted = myRunning || myThread.isAlive();
+        myRunning = false;
+        mySelector.wakeup();
+        
+        if (tempStarted) {
+            try {
+                myThread.join();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } // END try/catch BLOCK
+        }
+        closeAll();
+    } // END close() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Body of the selector thread: writes flushed buffers and reads messages
+     * until the transport closes and every flushed buffer is written.  The
+     * links waiting for room in the inbound queue are retried on every pass.
+     */
+    private void serve() {
+        try {
+            while (myRunning || hasPendingWrites()) {
+                if (!myRunning) {
+                    mySelector.select(CLOSE_POLL_MILLIS);
+                } else if (myStalled > 0) {
+                    mySelector.select(STALL_POLL_MILLIS);
+                } else {
+                    mySelector.select();
+                }
+                
+                Link tempLink;
+                while ((tempLink = myFlushed.poll()) != null) {
+                    write(tempLink);
+                }
+                for (int j = 0; myStalled > 0 && j < myLinks.length; j++) {
+                    if (myLinks[j] != null && myLinks[j].myStalled) {
+                        queueFrames(myLinks[j]);
+                    }
+                }
+                
+                final Iterator<SelectionKey> tempKeys = mySelector.selectedKeys().iterator();
+                while (tempKeys.hasNext()) {
+                    final SelectionKey tempKey = tempKeys.next();
+                    tempKeys.remove();
+                    tempLink = (Link) tempKey.attachment();
+                    
+                    if (tempKey.isValid() && tempKey.isReadable()) {
+                        read(tempLink);
+                    }
+                    if (tempKey.isValid() && tempKey.isWritable()) {
+                        write(tempLink);
+                    }
+                } // END while LOOP
+            } // END while LOOP
+        } catch (final IOException exception) {
+            myFailure = exception;
+            myRunning = false;
+            System.out.println("IO Exception in peer transport: " + exception.getMessage());
+        } // END try/catch BLOCK
+    } // END serve() PRIVATE HELPER METHOD
+    
+    /**
+     * Accepts the players with higher indices and reads their hellos.
+     *
+     * @param theDeadline The System.nanoTime() by which all must connect.
+     * @throws IOException If a peer does not connect in time.
+     */
+    private void acceptPeers(final long theDeadline) throws IOException {
+        int tempPending = myLinks.length - 1 - myPlayer;
+        myServer.configureBlocking(false);
+        final SelectionKey tempServerKey = myServer.register(mySelector, SelectionKey.OP_ACCEPT);
+        
+        while (tempPending > 0) {
+            final long tempLeft = TimeUnit.NANOSECONDS.toMillis(theDeadline - System.nanoTime());
+            if (tempLeft <= 0) {
+                throw new SocketTimeoutException("Player " + myPlayer + " timed out waiting for "
+                                                 + tempPending + " peers");
+            }
+            mySelector.select(tempLeft);
+            
+            final Iterator<SelectionKey> tempKeys = mySelector.selectedKeys().iterator();
+            while (tempKeys.hasNext()) {
+                final SelectionKey tempKey = tempKeys.next();
+                tempKeys.remove();
+                
+                if (tempKey == tempServerKey) {
+                    final SocketChannel tempChannel = myServer.accept();
+                    if (tempChannel != null) {
+                        tempChannel.configureBlocking(false);
+                        tempChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                        tempChannel.register(mySelector, SelectionKey.OP_READ,
+                                             ByteBuffer.allocate(HELLO_BYTES));
+                    }
+                } else if (readHello(tempKey)) {
+                    tempPending--;
+                } // END if/else BLOCK
+            } // END while LOOP
+        } // END while LOOP
+        
+        tempServerKey.cancel();
+    } // END acceptPeers() PRIVATE HELPER METHOD
+    
+    /**
+     * Reads the hello of an accepted player, making its connection a link
+     * once it is complete, or dropping the connection if it is not valid or
+     * does not come from the address of the player it claims to be.
+     *
+     * @param theKey The key of the accepted connection.
+     * @return true if the connection became the link of a new peer.
+     * @throws IOException If the hello cannot be read.
+     */
+    private boolean readHello(final SelectionKey theKey) throws IOException {
+        final SocketChannel tempChannel = (SocketChannel) theKey.channel();
+        final ByteBuffer tempHello = (ByteBuffer) theKey.attachment();
+        
+        if (tempChannel.read(tempHello) < 0) {
+            theKey.cancel();
+            tempChannel.close();
+            return false;
+        }
+        if (tempHello.hasRemaining()) {
+            return false;
+        }
+        
+        final int tempMagic = tempHello.getInt(0);
+        final int tempPeer = tempHello.getInt(Integer.BYTES);
+        if (tempMagic != HELLO_MAGIC || tempPeer <= myPlayer || tempPeer >= myLinks.length
+            || myLinks[tempPeer] != null || !isFrom(tempChannel, myAddrs[tempPeer])) {
+            theKey.cancel();
+            tempChannel.close();
+            return false;
+        }
+        
+        final Link tempLink = new Link(tempPeer, tempChannel, readBufferBytes());
+        tempLink.myKey = theKey;
+        theKey.attach(tempLink);
+        myLinks[tempPeer] = tempLink;
+        return true;
+    } // END readHello() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns whether an accepted connection comes from the address of a
+     * player.
+     *
+     * @param theChannel The accepted connection.
+     * @param theAddr The address of the player.
+     * @return true if the remote address of the connection is the player's.
+     * @throws IOException If the remote address cannot be read.
+     */
+    private static boolean isFrom(final SocketChannel theChannel, final InetSocketAddress theAddr)
+                                  throws IOException {
+        final InetSocketAddress tempRemote = (InetSocketAddress) theChannel.getRemoteAddress();
+        return tempRemote != null && tempRemote.getAddress().equals(theAddr.getAddress());
+    }
+    
+    /**
+     * Dials a player from the local address of this player, so that the
+     * player sees the address it expects, retrying while it is not yet
+     * listening.
+     *
+     * @param theLocal The address of this player.
+     * @param theAddr The address of the player.
+     * @param theDeadline The System.nanoTime() by which to give up.
+     * @return The connected channel, in blocking mode.
+     * @throws IOException If the player cannot be dialled in time.
+     */
+    private static SocketChannel dial(final InetAddress theLocal, final InetSocketAddress theAddr,
+                                      final long theDeadline) throws IOException {
+        while (true) {
+            final SocketChannel tempChannel = SocketChannel.open();
+            try {
+                tempChannel.bind(new InetSocketAddress(theLocal, 0));
+                tempChannel.connect(theAddr);
+                tempChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                return tempChannel;
+            } catch (final ConnectException exception) {
+                tempChannel.close();
+                if (System.nanoTime() - theDeadline > 0) {
+                    throw exception;
+                }
+            } catch (final IOException | RuntimeException exception) {
+                tempChannel.close();
+                throw exception;
+            } // END try/catch BLOCK
+            
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted dialling " + theAddr);
+            } // END try/catch BLOCK
+        } // END while LOOP
+    } // END dial() PRIVATE HELPER METHOD
+    
+    /**
+     * Reads what a peer has sent and moves every whole message into the
+     * inbound queue.
+     *
+     * @param theLink The link of the peer.
+     * @throws IOException If the peer sends an invalid message.
+     */
+    private void read(final Link theLink) throws IOException {
+        if (theLink.myChannel.read(theLink.myReadBuf) < 0) {
+            // The peer has finished; it is only missed if it is sent to again
+            theLink.myClosed = true;
+            theLink.myKey.cancel();
+            theLink.myChannel.close();
+            return;
+        }
+        queueFrames(theLink);
+    }
+    
+    /**
+     * Moves every whole message in the read buffer of a peer into the
+     * inbound queue.  If the queue fills, the rest stay in the buffer and the
+     * link stops reading until a later pass has queued them.
+     *
+     * @param theLink The link of the peer.
+     * @throws IOException If the peer sent an invalid message.
+     */
+    private void queueFrames(final Link theLink) throws IOException {
+        final ByteBuffer tempBuf = theLink.myReadBuf;
+        tempBuf.flip();
+        final WireFrame tempFrame = theLink.myFrame;
+        int tempPos = tempBuf.position();
+        boolean tempFull = false;
+        try {
+            while (tempFrame.at(tempPos, tempBuf.limit())) {
+                if (tempFrame.getSession() != mySession || tempFrame.getSender() != theLink.myPeer
+                    || tempFrame.getElementType() != WireCodec.ELEM_FIELD
+                    || tempFrame.getCount() > myMaxLongs) {
+                    throw new IOException("Invalid frame from peer " + theLink.myPeer);
+                }
+                if (!myInbound.offer(theLink.myPeer, tempFrame.getRound(), tempFrame.getType(),
+                                     tempFrame.getLongs())) {
+                    tempFull = true;
+                    break;
+                }
+                tempPos += tempFrame.getFrameBytes();
+            } // END while LOOP
+            
+            if (!tempFull && tempBuf.limit() - tempPos >= WireCodec.HEADER_BYTES
+                && tempFrame.getFrameBytes() > tempBuf.capacity()) {
+                throw new IOException("Frame too large from peer " + theLink.myPeer);
+            }
+        } catch (final IllegalArgumentException exception) {
+            throw new IOException("Invalid frame from peer " + theLink.myPeer + ": "
+                                  + exception.getMessage());
+        } // END try/catch BLOCK
+        tempBuf.position(tempPos);
+        tempBuf.compact();
+        
+        if (tempFull != theLink.myStalled) {
+            theLink.myStalled = tempFull;
+            myStalled += tempFull ? 1 : -1;
+            setInterest(theLink);
+        }
+    } // END queueFrames() PRIVATE HELPER METHOD
+    
+    /**
+     * Writes a peer's flushed buffers, all that are waiting in one gathering
+     * write, until they are written or the socket is full, in which case the
+     * selector watches for it to drain.
+     *
+     * @param theLink The link of the peer.
+     * @throws IOException If the peer cannot be written to.
+     */
+    private void write(final Link theLink) throws IOException {
+        if (theLink.myClosed) {
+            theLink.myOutbox.clear();
+            return;
+        }
+        
+        while (true) {
+            ByteBuffer tempBuf;
+            while ((tempBuf = theLink.myOutbox.poll()) != null) {
+                if (theLink.myWriteEnd == theLink.myWrites.length) {
+                    theLink.myWrites = Arrays.copyOf(theLink.myWrites, 2 * theLink.myWriteEnd);
+                }
+                theLink.myWrites[theLink.myWriteEnd++] = tempBuf;
+            } // END while LOOP
+            if (theLink.myWriteStart == theLink.myWriteEnd) {
+                setInterest(theLink);
+                return;
+            }
+            
+            theLink.myChannel.write(theLink.myWrites, theLink.myWriteStart,
+                                    theLink.myWriteEnd - theLink.myWriteStart);
+            while (theLink.myWriteStart < theLink.myWriteEnd
+                   && !theLink.myWrites[theLink.myWriteStart].hasRemaining()) {
+                myPool.release(theLink.myWrites[theLink.myWriteStart]);
+                theLink.myWrites[theLink.myWriteStart++] = null;
+            } // END while LOOP
+            if (theLink.myWriteStart < theLink.myWriteEnd) {
+                setInterest(theLink);
+                return;
+            }
+            theLink.myWriteStart = 0;
+            theLink.myWriteEnd = 0;
+        } // END while LOOP
+    } // END write() PRIVATE HELPER METHOD
+    
+    /**
+     * Sets the operations the selector watches on a link: reading unless it
+     * waits for room in the inbound queue, and writing while its buffers
+     * are only partly written.
+     *
+     * @param theLink The link of the peer.
+     */
+    private static void setInterest(final Link theLink) {
+        if (theLink.myKey.isValid()) {
+            theLink.myKey.interestOps((theLink.myStalled ? 0 : SelectionKey.OP_READ)
+                                      | (theLink.myWriteStart < theLink.myWriteEnd
+                                         ? SelectionKey.OP_WRITE : 0));
+        }
+    }
+    
+    /**
+     * Returns the staging buffer of a peer with room for the passed number of
+     * bytes, handing a full one to the peer's outbox and taking another from
+     * the pool.  Full buffers wait in the outbox until the round is flushed,
+     * so that the whole round goes out in one gathering write.
+     *
+     * @param thePeer The index of the peer.
+     * @param theBytes The number of bytes to be put.
+     * @return The staging buffer.
+     */
+    private ByteBuffer stage(final int thePeer, final int theBytes) {
+        ByteBuffer tempBuf = myStaging[thePeer];
+        
+        if (tempBuf != null && tempBuf.remaining() < theBytes) {
+            tempBuf.flip();
+            myLinks[thePeer].myOutbox.add(tempBuf);
+            tempBuf = null;
+        }
+        if (tempBuf == null) {
+            tempBuf = myPool.acquire();
+            myStaging[thePeer] = tempBuf;
+        }
+        return tempBuf;
+    } // END stage() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the size of a read buffer, which holds at least a whole
+     * message of the largest size.
+     *
+     * @return The number of bytes in a read buffer.
+     */
+    private int readBufferBytes() {
+        return Math.max(READ_BYTES, maxFrameBytes());
+    }
+    
+    /**
+     * Returns the size of a frame of the largest message.
+     *
+     * @return The number of bytes in the largest frame.
+     */
+    private int maxFrameBytes() {
+        return WireCodec.frameBytes(WireCodec.ELEM_FIELD, 0, myMaxLongs);
+    }
+    
+    /**
+     * Returns whether any link has flushed buffers not yet written.
+     *
+     * @return true if a write is pending.
+     */
+    private boolean hasPendingWrites() {
+        if (!myFlushed.isEmpty()) {
+            return true;
+        }
+        for (final Link tempLink : myLinks) {
+            if (tempLink != null && !tempLink.myClosed
+                && (tempLink.myWriteStart < tempLink.myWriteEnd
+                    || !tempLink.myOutbox.isEmpty())) {
+                return true;
+            }
+        }
+        return false;
+    } // END hasPendingWrites() PRIVATE HELPER METHOD
+    
+    /**
+     * Throws if the transport cannot send.
+     */
+    private void checkOpen() {
+        if (myFailure != null) {
+            throw new IllegalStateException("Peer transport failed", myFailure);
+        }
+        if (!myRunning) {
+            throw new IllegalStateException("Peer transport is not connected");
+        }
+    }
+    
+    /**
+     * Closes every channel and the selector.
+     */
+    private void closeAll() {
+        try {
+            for (final Link tempLink : myLinks) {
+                if (tempLink != null) {
+                    tempLink.myChannel.close();
+                }
+            }
+            myServer.close();
+            mySelector.close();
+        } catch (final IOException exception) {
+            System.out.println("IO Exception closing peer transport: " + exception.getMessage());
+        } // END try/catch BLOCK
+    } // END closeAll() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * The connection to one peer, used by the selector thread apart from its
+     * outbox, which the sender adds to.
+     */
+    private static final class Link {
+        
+        /** The index of the peer. */
+        private final int myPeer;
+        
+        /** The channel to the peer. */
+        private final SocketChannel myChannel;
+        
+        /** The bytes read from the peer and not yet queued. */
+        private final ByteBuffer myReadBuf;
+        
+        /** The view of the frames in the read buffer. */
+        private final WireFrame myFrame;
+        
+        /** The flushed buffers waiting to be written. */
+        private final ConcurrentLinkedQueue<ByteBuffer> myOutbox;
+        
+        /** The key of the channel in the selector. */
+        private SelectionKey myKey;
+        
+        /** The buffers being written, from myWriteStart to myWriteEnd. */
+        private ByteBuffer[] myWrites;
+        
+        /** The index in myWrites of the first buffer not yet written. */
+        private int myWriteStart;
+        
+        /** The index in myWrites after the last buffer to be written. */
+        private int myWriteEnd;
+        
+        /** Boolean holding whether the link waits for room in the queue. */
+        private boolean myStalled;
+        
+        /** Boolean holding whether the peer has closed the connection. */
+        private volatile boolean myClosed;
+        
+        
+        /**
+         * Creates the link of a connected peer.
+         *
+         * @param thePeer The index of the peer.
+         * @param theChannel The channel to the peer.
+         * @param theReadBytes The size of the read buffer.
+         */
+        private Link(final int thePeer, final SocketChannel theChannel, final int theReadBytes) {
+            myPeer = thePeer;
+            myChannel = theChannel;
+            myReadBuf = ByteBuffer.allocateDirect(theReadBytes);
+            myFrame = new WireFrame(myReadBuf);
+            myOutbox = new ConcurrentLinkedQueue<>();
+            myWrites = new ByteBuffer[GATHER_BUFFERS];
+        }
+    
+    
+    } // END Link PRIVATE CLASS
+    
+    
+} // END NioPeerTransport.java CLASS
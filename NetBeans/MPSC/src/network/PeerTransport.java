@@ -0,0 +1,87 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.io.Closeable;
+import messaging.ShareMessageQueue;
+
+/**
+ * The channel between a player and its peers in a group.  Messages are
+ * vectors of shares tagged with a protocol round and a type.  The messages
+ * sent to a peer in a round are staged and written together when the round
+ * is flushed, so a round costs one write per peer, and flushing does not
+ * wait for the writes, so the next round's sends can be staged while this
+ * round's receives are still in flight.  Messages from the peers arrive, in
+ * the order each peer sent them, in the inbound queue of the player.
+ *
+ * <p>A payload longer than getMaxLongs() is split into consecutive messages
+ * with the same round and type, which arrive in order.  Sends and flushes
+ * come from a single thread, the player's evaluator, which also drains the
+ * inbound queue.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public interface PeerTransport extends Closeable {
+    
+    /**
+     * Returns the index of this player in the group.
+     *
+     * @return The index of the player.
+     */
+    int getPlayer();
+    
+    /**
+     * Returns the number of players in the group.
+     *
+     * @return The size of the group.
+     */
+    int getNumPlayers();
+    
+    /**
+     * Returns the largest number of longs in a single message.
+     *
+     * @return The largest payload.
+     */
+    int getMaxLongs();
+    
+    /**
+     * Returns the queue into which the messages from the peers arrive.
+     *
+     * @return The inbound queue.
+     */
+    ShareMessageQueue getInbound();
+    
+    /**
+     * Stages a message to a peer, to be written when the round is flushed.
+     *
+     * @param thePeer The index of the receiving player, not this player.
+     * @param theRound The protocol round of the message.
+     * @param theType The type of the message.
+     * @param theSrc The array holding the payload.
+     * @param theOffset The index of the first long of the payload.
+     * @param theCount The number of longs in the payload.
+     * @throws IllegalStateException If the transport has failed or closed.
+     */
+    void send(int thePeer, int theRound, int theType, long[] theSrc, int theOffset,
+              int theCount);
+    
+    /**
+     * Writes the messages staged for every peer, one batch per peer, without
+     * waiting for the writes to complete.  A transport which must defer some
+     * deliveries retries them on each flush, so a player waiting for its
+     * peers keeps flushing while it waits.
+     *
+     * @throws IllegalStateException If the transport has failed or closed.
+     */
+    void flush();
+    
+    /**
+     * Closes the connections to the peers.
+     */
+    @Override
+    void close();
+    
+    
+} // END PeerTransport.java INTERFACE
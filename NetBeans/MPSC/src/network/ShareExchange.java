@@ -0,0 +1,288 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import messaging.ShareMessageHandler;
+import messaging.ShareMessageQueue;
+
+/**
+ * Exchanges vectors of shares with every peer of a player in one round: the
+ * player sends its vectors to each peer, flushes them in one batch, and
+ * gathers the vectors every peer sent it in the same round.  The vectors
+ * from a peer arrive as a stream of messages in the order they were sent,
+ * and are copied into preallocated vectors.  Messages of the next round,
+ * sent by peers which have already finished this one, are kept until that
+ * round is exchanged.  An exchange is used by one thread, the player's.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class ShareExchange {
+    
+// CLASS CONSTANTS
+    /** The default longest wait for a round, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60_000L;
+    
+    /** The message type of vectors of shares. */
+    private static final int SHARES = 0;
+    
+    /** The most messages drained at once. */
+    private static final int DRAIN_MAX = 256;
+    
+    /** Microseconds waited for messages before flushing again. */
+    private static final long WAIT_MICROS = 200L;
+    
+    /** The initial number of longs kept early from a peer. */
+    private static final int EARLY_LONGS = 1 << 6;
+    
+    
+// CLASS VARIABLES
+    /** The transport to the peers. */
+    private final PeerTransport myTransport;
+    
+    /** The index of this player. */
+    private final int myPlayer;
+    
+    /** The longest wait for a round, in nanoseconds. */
+    private final long myTimeoutNanos;
+    
+    /** The receiver of the drained messages. */
+    private final Gatherer myGatherer;
+    
+    /** The round being gathered. */
+    private int myRound;
+    
+    /** The vectors being gathered, by peer. */
+    private long[][][] myIn;
+    
+    /** The index of the vector being filled, by peer. */
+    private final int[] myVector;
+    
+    /** The index in that vector of the next long, by peer. */
+    private final int[] myPos;
+    
+    /** The number of longs still to be gathered in this round. */
+    private long myMissing;
+    
+    /** The round of the messages kept early, or -1 if there are none. */
+    private int myEarlyRound;
+    
+    /** The longs of the next round kept early, by peer. */
+    private final long[][] myEarly;
+    
+    /** The number of longs kept early, by peer. */
+    private final int[] myEarlyLength;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the exchange of a player with its peers.
+     *
+     * @param theTransport The transport to the peers.
+     * @param theTimeoutMillis The longest wait for a round, in milliseconds.
+     */
+    public ShareExchange(final PeerTransport theTransport, final long theTimeoutMillis) {
+        final int tempPlayers = theTransport.getNumPlayers();
+        
+        myTransport = theTransport;
+        myPlayer = theTransport.getPlayer();
+        myTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(theTimeoutMillis);
+        myGatherer = new Gatherer();
+        myRound = -1;
+        myVector = new int[tempPlayers];
+        myPos = new int[tempPlayers];
+        myEarlyRound = -1;
+        myEarly = new long[tempPlayers][];
+        myEarlyLength = new int[tempPlayers];
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Sends vectors to every peer and gathers the vectors every peer sends in
+     * the same round.  Rounds must increase from one exchange to the next.
+     *
+     * @param theRound The protocol round.
+     * @param theOut The vectors to send to each player; those of this player
+     *               are ignored, and players may share the same vectors.
+     * @param theIn Receives the vectors from each player, preallocated with
+     *              the lengths the peer sends; those of this player are
+     *              ignored.
+     * @throws IllegalStateException If the peers do not send in time, or
+     *                               send more than expected.
+     */
+    public void exchange(final int theRound, final long[][][] theOut, final long[][][] theIn) {
+        if (theRound <= myRound) {
+            throw new IllegalArgumentException("Rounds must increase: " + theRound);
+        }
+        
+        for (int j = 0; j < theOut.length; j++) {
+            if (j != myPlayer) {
+                for (final long[] tempVector : theOut[j]) {
+                    myTransport.send(j, theRound, SHARES, tempVector, 0, tempVector.length);
+                }
+            }
+        } // END for LOOP
+        myTransport.flush();
+        
+        myRound = theRound;
+        myIn = theIn;
+        myMissing = 0;
+        Arrays.fill(myVector, 0);
+        Arrays.fill(myPos, 0);
+        for (int j = 0; j < theIn.length; j++) {
+            if (j != myPlayer) {
+                for (final long[] tempVector : theIn[j]) {
+                    myMissing += tempVector.length;
+                }
+            }
+        } // END for LOOP
+        
+        if (myEarlyRound == theRound) {
+            for (int j = 0; j < myEarly.length; j++) {
+                gather(j, myEarly[j], 0, myEarlyLength[j]);
+                myEarlyLength[j] = 0;
+            }
+            myEarlyRound = -1;
+        }
+        
+        await();
+        myIn = null;
+    } // END exchange() METHOD
+    
+  // GETTERS
+    /**
+     * Getter for the transport to the peers.
+     *
+     * @return myTransport
+     */
+    public PeerTransport getTransport() {
+        return myTransport;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Drains the inbound queue until every vector of the round is gathered,
+     * flushing between waits so that deferred deliveries go through.
+     */
+    private void await() {
+        final ShareMessageQueue tempInbound = myTransport.getInbound();
+        long tempLastProgress = System.nanoTime();
+        
+        while (myMissing > 0) {
+            final int tempDrained;
+            try {
+                tempDrained = tempInbound.drain(myGatherer, DRAIN_MAX, WAIT_MICROS,
+                                                TimeUnit.MICROSECONDS);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted in round " + myRound);
+            } // END try/catch BLOCK
+            myTransport.flush();
+            
+            if (tempDrained > 0) {
+                tempLastProgress = System.nanoTime();
+            } else if (System.nanoTime() - tempLastProgress > myTimeoutNanos) {
+                throw new IllegalStateException("Player " + myPlayer + " timed out in round "
+                                                + myRound + " missing " + myMissing + " shares");
+            }
+        } // END while LOOP
+    } // END await() PRIVATE HELPER METHOD
+    
+    /**
+     * Copies longs from a peer into the vectors being gathered from it.
+     *
+     * @param thePeer The index of the peer.
+     * @param theSrc The array holding the longs.
+     * @param theOffset The index of the first long.
+     * @param theCount The number of longs.
+     */
+    private void gather(final int thePeer, final long[] theSrc, final int theOffset,
+                        final int theCount) {
+        final long[][] tempVectors = myIn[thePeer];
+        int tempOffset = theOffset;
+        int tempLeft = theCount;
+        
+        while (tempLeft > 0) {
+            if (myVector[thePeer] >= tempVectors.length) {
+                throw new IllegalStateException("Player " + thePeer + " sent too many shares in round "
+                                                + myRound);
+            }
+            
+            final long[] tempVector = tempVectors[myVector[thePeer]];
+            final int tempCount = Math.min(tempLeft, tempVector.length - myPos[thePeer]);
+            System.arraycopy(theSrc, tempOffset, tempVector, myPos[thePeer], tempCount);
+            tempOffset += tempCount;
+            tempLeft -= tempCount;
+            myMissing -= tempCount;
+            
+            myPos[thePeer] += tempCount;
+            if (myPos[thePeer] == tempVector.length) {
+                myVector[thePeer]++;
+                myPos[thePeer] = 0;
+            }
+        } // END while LOOP
+    } // END gather() PRIVATE HELPER METHOD
+    
+    /**
+     * Keeps longs sent by a peer for a later round.
+     *
+     * @param thePeer The index of the peer.
+     * @param theRound The round of the longs.
+     * @param theSrc The array holding the longs.
+     * @param theOffset The index of the first long.
+     * @param theCount The number of longs.
+     */
+    private void keepEarly(final int thePeer, final int theRound, final long[] theSrc,
+                           final int theOffset, final int theCount) {
+        if (myEarlyRound != -1 && myEarlyRound != theRound) {
+            throw new IllegalStateException("Player " + thePeer + " is more than a round ahead: "
+                                            + theRound);
+        }
+        myEarlyRound = theRound;
+        
+        final int tempLength = myEarlyLength[thePeer];
+        long[] tempEarly = myEarly[thePeer];
+        if (tempEarly == null || tempLength + theCount > tempEarly.length) {
+            tempEarly = Arrays.copyOf(tempEarly == null ? new long[0] : tempEarly,
+                                      Math.max(EARLY_LONGS, 2 * (tempLength + theCount)));
+            myEarly[thePeer] = tempEarly;
+        }
+        System.arraycopy(theSrc, theOffset, tempEarly, tempLength, theCount);
+        myEarlyLength[thePeer] = tempLength + theCount;
+    } // END keepEarly() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * Receiver of the drained messages, gathering those of the round and
+     * keeping those of a later round.
+     */
+    private final class Gatherer implements ShareMessageHandler {
+        
+        @Override
+        public void onMessage(final int theSender, final int theRound, final int theType,
+                              final long[] thePayload, final int theOffset, final int theCount) {
+            if (theRound == myRound && myIn != null) {
+                gather(theSender, thePayload, theOffset, theCount);
+            } else if (theRound > myRound) {
+                keepEarly(theSender, theRound, thePayload, theOffset, theCount);
+            } else {
+                throw new IllegalStateException("Player " + theSender + " sent round " + theRound
+                                                + " after round " + myRound);
+            }
+        } // END onMessage() METHOD
+    
+    
+    } // END Gatherer PRIVATE CLASS
+    
+    
+} // END ShareExchange.java CLASS
@@ -0,0 +1,342 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Utility class defining the binary frames in which players exchange
+ * vectors of shares, and encoding them straight into little-endian
+ * ByteBuffers, such as those of a BufferPool.  A frame is a fixed header
+ *
+ * <pre>
+ *  offset  0  long   session, such as the group computation key
+ *  offset  8  int    protocol round
+ *  offset 12  int    index of the sending player
+ *  offset 16  short  message type
+ *  offset 18  byte   element type
+ *  offset 19  byte   64-bit limbs per BigInteger or BigDecimal element
+ *  offset 20  int    number of elements
+ * </pre>
+ *
+ * followed by the packed little-endian elements, padded to a multiple of 8
+ * bytes so that the next frame stays aligned.  The element types are those
+ * of a player's secret data, tagged as in SecretDataType, and field
+ * elements, tagged ELEM_FIELD.  A BigInteger is its two's complement in
+ * limbs, least significant first, and a BigDecimal is its scale as a long
+ * followed by its unscaled value likewise.  Frames are read by a WireFrame.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class WireCodec {
+    
+// CLASS CONSTANTS
+    /** The number of bytes in the header of a frame. */
+    public static final int HEADER_BYTES = 24;
+    
+    /** The element type of field elements, as longs. */
+    public static final byte ELEM_FIELD = 0;
+    
+    /** The largest number of limbs of a BigInteger or BigDecimal element. */
+    public static final int MAX_LIMBS = Byte.MAX_VALUE;
+    
+    /** The multiple of bytes to which frames are padded. */
+    static final int ALIGN = 8;
+    
+    /** The offset of the session in a frame. */
+    static final int SESSION_OFFSET = 0;
+    
+    /** The offset of the round in a frame. */
+    static final int ROUND_OFFSET = 8;
+    
+    /** The offset of the sender in a frame. */
+    static final int SENDER_OFFSET = 12;
+    
+    /** The offset of the message type in a frame. */
+    static final int TYPE_OFFSET = 16;
+    
+    /** The offset of the element type in a frame. */
+    static final int ELEM_OFFSET = 18;
+    
+    /** The offset of the limbs per element in a frame. */
+    static final int LIMBS_OFFSET = 19;
+    
+    /** The offset of the number of elements in a frame. */
+    static final int COUNT_OFFSET = 20;
+    
+    /** The element type of ints, the tag of SecretDataType.INT. */
+    static final byte TAG_INT = 1;
+    
+    /** The element type of longs, the tag of SecretDataType.LONG. */
+    static final byte TAG_LONG = 2;
+    
+    /** The element type of floats, the tag of SecretDataType.FLOAT. */
+    static final byte TAG_FLOAT = 3;
+    
+    /** The element type of doubles, the tag of SecretDataType.DOUBLE. */
+    static final byte TAG_DOUBLE = 4;
+    
+    /** The element type of BigIntegers, the tag of SecretDataType.BIG_INTEGER. */
+    static final byte TAG_BIG_INTEGER = 5;
+    
+    /** The element type of BigDecimals, the tag of SecretDataType.BIG_DECIMAL. */
+    static final byte TAG_BIG_DECIMAL = 6;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private WireCodec() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the number of bytes of one element of a type.
+     *
+     * @param theElem The element type tag.
+     * @param theLimbs The limbs per element of a BigInteger or BigDecimal.
+     * @return The number of bytes per element.
+     * @throws IllegalArgumentException If the type or limbs are not valid.
+     */
+    public static int elementBytes(final byte theElem, final int theLimbs) {
+        switch (theElem) {
+            case ELEM_FIELD:
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                return Long.BYTES;
+            case TAG_INT:
+            case TAG_FLOAT:
+                return Integer.BYTES;
+            case TAG_BIG_INTEGER:
+                return checkLimbs(theLimbs) * Long.BYTES;
+            case TAG_BIG_DECIMAL:
+                return (checkLimbs(theLimbs) + 1) * Long.BYTES;
+            default:
+                throw new IllegalArgumentException("Unknown element type: " + theElem);
+        } // END switch STATEMENT
+    } // END elementBytes() METHOD
+    
+    /**
+     * Returns the number of bytes of a frame, padding included.
+     *
+     * @param theElem The element type tag.
+     * @param theLimbs The limbs per element of a BigInteger or BigDecimal.
+     * @param theCount The number of elements.
+     * @return The number of bytes in the frame.
+     * @throws IllegalArgumentException If the frame would not fit in an int.
+     */
+    public static int frameBytes(final byte theElem, final int theLimbs, final int theCount) {
+        final long tempBytes = HEADER_BYTES + (long) theCount * elementBytes(theElem, theLimbs);
+        final long tempPadded = (tempBytes + ALIGN - 1) & -ALIGN;
+        if (theCount < 0 || tempPadded > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid element count: " + theCount);
+        }
+        return (int) tempPadded;
+    } // END frameBytes() METHOD
+    
+    /**
+     * Encodes a frame of field elements at the position of a buffer, which
+     * is advanced past it.
+     *
+     * @param theDst A little-endian buffer with frameBytes() remaining.
+     * @param theSession The session of the frame.
+     * @param theRound The protocol round.
+     * @param theSender The index of the sending player.
+     * @param theType The message type.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     */
+    public static void encodeFieldElements(final ByteBuffer theDst, final long theSession,
+                                           final int theRound, final int theSender,
+                                           final int theType, final long[] theSrc,
+                                           final int theOffset, final int theCount) {
+        putHeader(theDst, theSession, theRound, theSender, theType, ELEM_FIELD, 0, theCount);
+        putLongs(theDst, theSrc, theOffset, theCount);
+    }
+    
+    /**
+     * Writes the header of a frame at the position of a buffer, which is
+     * advanced past it.  The elements follow through the matching put
+     * method, then pad() if they may leave the frame unaligned.
+     *
+     * @param theDst A little-endian buffer with frameBytes() remaining.
+     * @param theSession The session of the frame.
+     * @param theRound The protocol round.
+     * @param theSender The index of the sending player.
+     * @param theType The message type, which must fit in a short.
+     * @param theElem The element type tag.
+     * @param theLimbs The limbs per element of a BigInteger or BigDecimal.
+     * @param theCount The number of elements.
+     */
+    public static void putHeader(final ByteBuffer theDst, final long theSession,
+                                 final int theRound, final int theSender, final int theType,
+                                 final byte theElem, final int theLimbs, final int theCount) {
+        if (theDst.order() != ByteOrder.LITTLE_ENDIAN) {
+            throw new IllegalArgumentException("Frames are little-endian");
+        }
+        if (theType != (short) theType) {
+            throw new IllegalArgumentException("Invalid message type: " + theType);
+        }
+        if (theDst.remaining() < frameBytes(theElem, theLimbs, theCount)) {
+            throw new IllegalArgumentException("No room for the frame");
+        }
+        
+        theDst.putLong(theSession).putInt(theRound).putInt(theSender).putShort((short) theType)
+              .put(theElem).put((byte) theLimbs).putInt(theCount);
+    } // END putHeader() METHOD
+    
+    /**
+     * Puts longs or field elements at the position of a buffer.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     */
+    public static void putLongs(final ByteBuffer theDst, final long[] theSrc, final int theOffset,
+                                final int theCount) {
+        theDst.asLongBuffer().put(theSrc, theOffset, theCount);
+        theDst.position(theDst.position() + theCount * Long.BYTES);
+    }
+    
+    /**
+     * Puts doubles at the position of a buffer.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     */
+    public static void putDoubles(final ByteBuffer theDst, final double[] theSrc,
+                                  final int theOffset, final int theCount) {
+        theDst.asDoubleBuffer().put(theSrc, theOffset, theCount);
+        theDst.position(theDst.position() + theCount * Double.BYTES);
+    }
+    
+    /**
+     * Puts ints at the position of a buffer, then pads the frame.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     */
+    public static void putInts(final ByteBuffer theDst, final int[] theSrc, final int theOffset,
+                               final int theCount) {
+        theDst.asIntBuffer().put(theSrc, theOffset, theCount);
+        theDst.position(theDst.position() + theCount * Integer.BYTES);
+        pad(theDst);
+    }
+    
+    /**
+     * Puts floats at the position of a buffer, then pads the frame.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     */
+    public static void putFloats(final ByteBuffer theDst, final float[] theSrc,
+                                 final int theOffset, final int theCount) {
+        theDst.asFloatBuffer().put(theSrc, theOffset, theCount);
+        theDst.position(theDst.position() + theCount * Float.BYTES);
+        pad(theDst);
+    }
+    
+    /**
+     * Puts BigIntegers at the position of a buffer, as two's complement
+     * limbs, least significant first.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     * @param theLimbs The limbs per element.
+     * @throws IllegalArgumentException If an element needs more limbs.
+     */
+    public static void putBigIntegers(final ByteBuffer theDst, final BigInteger[] theSrc,
+                                      final int theOffset, final int theCount,
+                                      final int theLimbs) {
+        for (int i = theOffset; i < theOffset + theCount; i++) {
+            putLimbs(theDst, theSrc[i], theLimbs);
+        }
+    }
+    
+    /**
+     * Puts BigDecimals at the position of a buffer, each as its scale
+     * followed by the limbs of its unscaled value.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theSrc The array holding the elements.
+     * @param theOffset The index of the first element.
+     * @param theCount The number of elements.
+     * @param theLimbs The limbs per unscaled value.
+     * @throws IllegalArgumentException If an element needs more limbs.
+     */
+    public static void putBigDecimals(final ByteBuffer theDst, final BigDecimal[] theSrc,
+                                      final int theOffset, final int theCount,
+                                      final int theLimbs) {
+        for (int i = theOffset; i < theOffset + theCount; i++) {
+            theDst.putLong(theSrc[i].scale());
+            putLimbs(theDst, theSrc[i].unscaledValue(), theLimbs);
+        }
+    }
+    
+    /**
+     * Pads a buffer with zeros to the next multiple of 8 bytes.
+     *
+     * @param theDst The buffer.
+     */
+    public static void pad(final ByteBuffer theDst) {
+        while ((theDst.position() & (ALIGN - 1)) != 0) {
+            theDst.put((byte) 0);
+        }
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks the number of limbs of a BigInteger or BigDecimal element.
+     *
+     * @param theLimbs The limbs per element.
+     * @return theLimbs.
+     */
+    private static int checkLimbs(final int theLimbs) {
+        if (theLimbs < 1 || theLimbs > MAX_LIMBS) {
+            throw new IllegalArgumentException("Invalid limbs per element: " + theLimbs);
+        }
+        return theLimbs;
+    }
+    
+    /**
+     * Puts the two's complement limbs of a BigInteger.
+     *
+     * @param theDst A little-endian buffer.
+     * @param theValue The value.
+     * @param theLimbs The number of limbs.
+     */
+    private static void putLimbs(final ByteBuffer theDst, final BigInteger theValue,
+                                 final int theLimbs) {
+        if (theValue.bitLength() >= theLimbs * Long.SIZE) {
+            throw new IllegalArgumentException("Value needs more than " + theLimbs + " limbs");
+        }
+        
+        for (int k = 0; k < theLimbs; k++) {
+            theDst.putLong(theValue.shiftRight(k * Long.SIZE).longValue());
+        }
+    } // END putLimbs() PRIVATE HELPER METHOD
+    
+    
+} // END WireCodec.java CLASS
@@ -0,0 +1,270 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A reusable view of the frames in a receive buffer, as defined by the
+ * WireCodec.  The view is moved from frame to frame with at(), and reads the
+ * header and the elements in place, without copying the buffer; getLongs()
+ * exposes the field elements of a frame as a LongBuffer over the same
+ * memory.  A view belongs to one buffer and one thread.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class WireFrame {
+    
+// CLASS VARIABLES
+    /** The little-endian view of the receive buffer. */
+    private final ByteBuffer myBuf;
+    
+    /** The view of the receive buffer as longs, for aligned frames. */
+    private final LongBuffer myLongs;
+    
+    /** The offset of the current frame in the buffer. */
+    private int myOffset;
+    
+    /** The number of bytes of the current frame. */
+    private int myFrameBytes;
+    
+    /** The number of bytes of each element of the current frame. */
+    private int myElementBytes;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a view of the frames in a buffer, which shares the contents of
+     * the buffer but not its position, limit or byte order.
+     *
+     * @param theBuf The receive buffer.
+     */
+    public WireFrame(final ByteBuffer theBuf) {
+        myBuf = theBuf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        myBuf.clear();
+        myLongs = myBuf.asLongBuffer();
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Moves the view to the frame at an offset of the buffer.
+     *
+     * @param theOffset The offset of the frame.
+     * @param theLimit The offset of the end of the bytes received.
+     * @return true if the whole frame has been received, false if more bytes
+     *         are needed.
+     * @throws IllegalArgumentException If the header is not valid.
+     */
+    public boolean at(final int theOffset, final int theLimit) {
+        if (theLimit - theOffset < WireCodec.HEADER_BYTES) {
+            return false;
+        }
+        
+        myOffset = theOffset;
+        myElementBytes = WireCodec.elementBytes(getElementType(), getLimbs());
+        myFrameBytes = WireCodec.frameBytes(getElementType(), getLimbs(), getCount());
+        return theLimit - theOffset >= myFrameBytes;
+    } // END at() METHOD
+    
+  // HEADER
+    /**
+     * Returns the session of the frame.
+     *
+     * @return The session.
+     */
+    public long getSession() {
+        return myBuf.getLong(myOffset + WireCodec.SESSION_OFFSET);
+    }
+    
+    /**
+     * Returns the protocol round of the frame.
+     *
+     * @return The round.
+     */
+    public int getRound() {
+        return myBuf.getInt(myOffset + WireCodec.ROUND_OFFSET);
+    }
+    
+    /**
+     * Returns the index of the player who sent the frame.
+     *
+     * @return The sender.
+     */
+    public int getSender() {
+        return myBuf.getInt(myOffset + WireCodec.SENDER_OFFSET);
+    }
+    
+    /**
+     * Returns the message type of the frame.
+     *
+     * @return The message type.
+     */
+    public int getType() {
+        return myBuf.getShort(myOffset + WireCodec.TYPE_OFFSET);
+    }
+    
+    /**
+     * Returns the element type tag of the frame.
+     *
+     * @return WireCodec.ELEM_FIELD or the tag of a SecretDataType.
+     */
+    public byte getElementType() {
+        return myBuf.get(myOffset + WireCodec.ELEM_OFFSET);
+    }
+    
+    /**
+     * Returns the limbs per BigInteger or BigDecimal element of the frame.
+     *
+     * @return The limbs per element.
+     */
+    public int getLimbs() {
+        return myBuf.get(myOffset + WireCodec.LIMBS_OFFSET);
+    }
+    
+    /**
+     * Returns the number of elements in the frame.
+     *
+     * @return The count.
+     */
+    public int getCount() {
+        return myBuf.getInt(myOffset + WireCodec.COUNT_OFFSET);
+    }
+    
+    /**
+     * Returns the number of bytes of the frame, padding included.
+     *
+     * @return The size of the frame.
+     */
+    public int getFrameBytes() {
+        return myFrameBytes;
+    }
+    
+  // ELEMENTS
+    /**
+     * Returns the field elements or longs of the frame as a view over the
+     * receive buffer, positioned at the first and limited after the last.
+     * The view is reused by the next call.
+     *
+     * @return The elements.
+     */
+    public LongBuffer getLongs() {
+        final int tempStart = myOffset + WireCodec.HEADER_BYTES;
+        final int tempCount = getCount();
+        
+        if ((tempStart & (Long.BYTES - 1)) != 0) {
+            // An unaligned frame cannot use the shared view
+            final ByteBuffer tempSlice = myBuf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            tempSlice.position(tempStart).limit(tempStart + tempCount * Long.BYTES);
+            return tempSlice.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+        
+        myLongs.limit(tempStart / Long.BYTES + tempCount).position(tempStart / Long.BYTES);
+        return myLongs;
+    } // END getLongs() METHOD
+    
+    /**
+     * Returns a field element or long of the frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The element.
+     */
+    public long getLong(final int theIndex) {
+        return myBuf.getLong(elementOffset(theIndex));
+    }
+    
+    /**
+     * Returns a double of the frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The element.
+     */
+    public double getDouble(final int theIndex) {
+        return myBuf.getDouble(elementOffset(theIndex));
+    }
+    
+    /**
+     * Returns an int of the frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The element.
+     */
+    public int getInt(final int theIndex) {
+        return myBuf.getInt(elementOffset(theIndex));
+    }
+    
+    /**
+     * Returns a float of the frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The element.
+     */
+    public float getFloat(final int theIndex) {
+        return myBuf.getFloat(elementOffset(theIndex));
+    }
+    
+    /**
+     * Returns a BigInteger of the frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The element.
+     */
+    public BigInteger getBigInteger(final int theIndex) {
+        return readLimbs(elementOffset(theIndex));
+    }
+    
+    /**
+     * Returns a BigDecimal of the frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The element.
+     */
+    public BigDecimal getBigDecimal(final int theIndex) {
+        final int tempOffset = elementOffset(theIndex);
+        return new BigDecimal(readLimbs(tempOffset + Long.BYTES),
+                              (int) myBuf.getLong(tempOffset));
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the offset of an element of the current frame.
+     *
+     * @param theIndex The index of the element.
+     * @return The offset of the element in the buffer.
+     */
+    private int elementOffset(final int theIndex) {
+        if (theIndex < 0 || theIndex >= getCount()) {
+            throw new IndexOutOfBoundsException("Element " + theIndex);
+        }
+        return myOffset + WireCodec.HEADER_BYTES + theIndex * myElementBytes;
+    }
+    
+    /**
+     * Reads a two's complement value from its limbs, least significant first.
+     *
+     * @param theOffset The offset of the first limb.
+     * @return The value.
+     */
+    private BigInteger readLimbs(final int theOffset) {
+        final int tempLimbs = getLimbs();
+        final byte[] tempBytes = new byte[tempLimbs * Long.BYTES];
+        
+        // BigInteger reads big-endian bytes, so reverse the little-endian limbs
+        for (int i = 0; i < tempBytes.length; i++) {
+            tempBytes[i] = myBuf.get(theOffset + tempBytes.length - 1 - i);
+        }
+        return new BigInteger(tempBytes);
+    } // END readLimbs() PRIVATE HELPER METHOD
+    
+    
+} // END WireFrame.java CLASS
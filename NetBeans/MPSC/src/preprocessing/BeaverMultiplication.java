@@ -0,0 +1,76 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package preprocessing;
+
+import arithmetic.LongPrimeField;
+
+/**
+ * Utility class of the local steps of Beaver's multiplication of shared
+ * vectors x and y with a triple (a, b, c = a * b).  Each player masks its
+ * shares into d = x - a and e = y - b, the players open d and e in a single
+ * round, and each player then unmasks its share of the product as
+ *
+ * <pre>
+ *  z = c + d * b + e * a (+ d * e)
+ * </pre>
+ *
+ * where d * e is added by the players who add constants: every player with
+ * Shamir sharing, and only the first player with additive sharing.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class BeaverMultiplication {
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BeaverMultiplication() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Masks a player's shares of an operand with its shares of a or b.
+     *
+     * @param theField The field of the shares.
+     * @param theX The shares of the operand.
+     * @param theMask The shares of a or b.
+     * @param theOut Receives the shares of d or e to be opened.
+     */
+    public static void mask(final LongPrimeField theField, final long[] theX, final long[] theMask,
+                            final long[] theOut) {
+        theField.sub(theX, theMask, theOut);
+    }
+    
+    /**
+     * Computes a player's shares of the products from the opened d and e.
+     *
+     * @param theField The field of the shares.
+     * @param theD The opened values of x - a.
+     * @param theE The opened values of y - b.
+     * @param theA The player's shares of a.
+     * @param theB The player's shares of b.
+     * @param theC The player's shares of c.
+     * @param theAddsConsts true if this player adds d * e.
+     * @param theOut Receives the player's shares of x * y.
+     */
+    public static void unmask(final LongPrimeField theField, final long[] theD, final long[] theE,
+                              final long[] theA, final long[] theB, final long[] theC,
+                              final boolean theAddsConsts, final long[] theOut) {
+        for (int i = 0; i < theOut.length; i++) {
+            long tempZ = theField.add(theC[i], theField.mul(theD[i], theB[i]));
+            tempZ = theField.add(tempZ, theField.mul(theE[i], theA[i]));
+            if (theAddsConsts) {
+                tempZ = theField.add(tempZ, theField.mul(theD[i], theE[i]));
+            }
+            theOut[i] = tempZ;
+        } // END for LOOP
+    } // END unmask() METHOD
+    
+    
+} // END BeaverMultiplication.java CLASS
@@ -0,0 +1,165 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package preprocessing;
+
+import arithmetic.LongPrimeField;
+import circuits.MultiplicationRound;
+import java.util.Arrays;
+import network.ShareExchange;
+import sharing.SecretSharer;
+import sharing.SharingFactory;
+
+/**
+ * The MultiplicationRound of one player using Beaver triples: for every
+ * product of a layer, the player takes a triple from its store, masks its
+ * shares of both operands into d and e, and opens all the d and e of the
+ * layer with its peers in a single ShareExchange, before unmasking its
+ * shares of the products.  The vectors of triples and of opened values are
+ * reused from one round to the next.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class BeaverMultiplicationRound implements MultiplicationRound {
+    
+// CLASS VARIABLES
+    /** The field of the shares. */
+    private final LongPrimeField myField;
+    
+    /** The sharing scheme of the group. */
+    private final SecretSharer mySharer;
+    
+    /** The exchange with the peers. */
+    private final ShareExchange myExchange;
+    
+    /** The source of the triples. */
+    private final TriplePreprocessor myTriples;
+    
+    /** The index of this player. */
+    private final int myPlayer;
+    
+    /** Boolean holding whether this player adds d * e. */
+    private final boolean myAddsConsts;
+    
+    /** The index of every player, whose shares are all opened. */
+    private final int[] myPlayers;
+    
+    /** The number of slots of the vectors allocated below. */
+    private int mySlots;
+    
+    /** The shares of a of the triples, by product. */
+    private long[][] myA;
+    
+    /** The shares of b of the triples, by product. */
+    private long[][] myB;
+    
+    /** The shares of c of the triples, by product. */
+    private long[][] myC;
+    
+    /** The shares of d and e, interleaved by product. */
+    private long[][] myMasked;
+    
+    /** The opened d and e, interleaved by product. */
+    private long[][] myOpened;
+    
+    /** The shares of d and e received from each player. */
+    private long[][][] myIn;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the multiplication of a player.
+     *
+     * @param theSharer The sharing scheme of the group.
+     * @param theExchange The exchange of the player with its peers.
+     * @param theTriples The source of the triples.
+     * @param thePlayer The index of the player.
+     */
+    public BeaverMultiplicationRound(final SecretSharer theSharer, final ShareExchange theExchange,
+                                     final TriplePreprocessor theTriples, final int thePlayer) {
+        myField = theSharer.getField();
+        mySharer = theSharer;
+        myExchange = theExchange;
+        myTriples = theTriples;
+        myPlayer = thePlayer;
+        myAddsConsts = SharingFactory.addsConstants(theSharer, thePlayer);
+        
+        myPlayers = new int[theSharer.getNumPlayers()];
+        for (int j = 0; j < myPlayers.length; j++) {
+            myPlayers[j] = j;
+        }
+        allocate(0, 0);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public void multiply(final int theRound, final long[][] theLefts, final long[][] theRights,
+                         final long[][] theOuts) {
+        final int tempProducts = theOuts.length;
+        final int tempVectors = 2 * tempProducts;
+        if (theOuts[0].length != mySlots || tempProducts > myA.length) {
+            allocate(Math.max(tempProducts, myA.length), theOuts[0].length);
+        }
+        
+        for (int k = 0; k < tempProducts; k++) {
+            try {
+                myTriples.take(myPlayer, myA[k], myB[k], myC[k], 0, mySlots);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted taking triples in round " + theRound);
+            } // END try/catch BLOCK
+            BeaverMultiplication.mask(myField, theLefts[k], myA[k], myMasked[2 * k]);
+            BeaverMultiplication.mask(myField, theRights[k], myB[k], myMasked[2 * k + 1]);
+        } // END for LOOP
+        
+        final long[][] tempSend = Arrays.copyOf(myMasked, tempVectors);
+        final long[][][] tempOut = new long[myPlayers.length][][];
+        final long[][][] tempIn = new long[myPlayers.length][][];
+        for (int j = 0; j < myPlayers.length; j++) {
+            tempOut[j] = tempSend;
+            tempIn[j] = j == myPlayer ? tempSend : Arrays.copyOf(myIn[j], tempVectors);
+        }
+        myExchange.exchange(theRound, tempOut, tempIn);
+        
+        final long[][] tempShares = new long[myPlayers.length][];
+        for (int v = 0; v < tempVectors; v++) {
+            for (int j = 0; j < myPlayers.length; j++) {
+                tempShares[j] = tempIn[j][v];
+            }
+            mySharer.reconstruct(myPlayers, tempShares, myOpened[v]);
+        } // END for LOOP
+        
+        for (int k = 0; k < tempProducts; k++) {
+            BeaverMultiplication.unmask(myField, myOpened[2 * k], myOpened[2 * k + 1], myA[k],
+                                        myB[k], myC[k], myAddsConsts, theOuts[k]);
+        }
+    } // END multiply() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Allocates the vectors for a number of products of a number of slots.
+     *
+     * @param theProducts The number of products.
+     * @param theSlots The number of slots.
+     */
+    private void allocate(final int theProducts, final int theSlots) {
+        mySlots = theSlots;
+        myA = new long[theProducts][theSlots];
+        myB = new long[theProducts][theSlots];
+        myC = new long[theProducts][theSlots];
+        myMasked = new long[2 * theProducts][theSlots];
+        myOpened = new long[2 * theProducts][theSlots];
+        myIn = new long[myPlayers.length][][];
+        for (int j = 0; j < myPlayers.length; j++) {
+            myIn[j] = j == myPlayer ? null : new long[2 * theProducts][theSlots];
+        }
+    } // END allocate() PRIVATE HELPER METHOD
+    
+    
+} // END BeaverMultiplicationRound.java CLASS
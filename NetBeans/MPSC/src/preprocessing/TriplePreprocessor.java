@@ -0,0 +1,426 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package preprocessing;
+
+import arithmetic.LongPrimeField;
+import files.GroupCompInitializationFileInterpreter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import randomness.FieldSampler;
+import randomness.PrefetchRing;
+import sharing.SecretSharer;
+import sharing.SharingFactory;
+
+/**
+ * Offline phase which deals Beaver multiplication triples to the players of a
+ * group in the background, acting as a trusted dealer: it draws random a and
+ * b, computes c = a * b, splits all three with the sharing scheme of the
+ * group, and appends each player's shares to that player's TripleStore, kept
+ * in the subdirectory "player-j" of the passed directory.
+ *
+ * <p>The dealer sleeps while every store holds at least the low watermark of
+ * triples, and once one falls below it, deals batches of triples, BATCH by
+ * default, until every store holds the target.  The online phase thus
+ * never waits for the dealer while the stores are above the low watermark,
+ * provided the dealer outpaces consumption between the watermark and empty.
+ * A take which finds too few triples wakes the dealer at once and waits for
+ * it, and fails if the dealer stops first; the dealer deals what that take
+ * lacks even past the target, and only that.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class TriplePreprocessor implements Closeable {
+    
+// CLASS CONSTANTS
+    /** The default number of triples each store is filled to. */
+    public static final long DEFAULT_TARGET = 1 << 20;
+    
+    /** The default number of triples below which the dealer wakes up. */
+    public static final long DEFAULT_LOW_WATERMARK = 1 << 18;
+    
+    /** The default number of triples dealt at once. */
+    public static final int BATCH = 1 << 14;
+    
+    /** String constant holding the prefix of the directory of each player. */
+    private static final String PLAYER_DIR = "player-";
+    
+    
+// CLASS VARIABLES
+    /** The sharing scheme of the group. */
+    private final SecretSharer mySharer;
+    
+    /** The field of the shares. */
+    private final LongPrimeField myField;
+    
+    /** The store of each player. */
+    private final TripleStore[] myStores;
+    
+    /** The number of triples each store is filled to. */
+    private final long myTarget;
+    
+    /** The number of triples below which the dealer wakes up. */
+    private final long myLowWatermark;
+    
+    /** The number of triples dealt at once. */
+    private final int myBatch;
+    
+    /** The random bytes of a and b, generated ahead of the dealer. */
+    private final PrefetchRing myRing;
+    
+    /** The source of a and b. */
+    private final FieldSampler mySampler;
+    
+    /** The thread of the dealer. */
+    private final Thread myThread;
+    
+    /** Lock on which the dealer sleeps. */
+    private final Object myLock;
+    
+    /** Boolean holding whether a take asked the dealer to wake up, guarded by myLock. */
+    private boolean myWakeUp;
+    
+    /** The number of triples dealt to every store so far, guarded by myLock. */
+    private long myDealt;
+    
+    /** The value of myDealt at which every waiting take is served, guarded by myLock. */
+    private long myDemand;
+    
+    /** Boolean holding whether the dealer should keep running. */
+    private volatile boolean myRunning;
+    
+    /** The exception which stopped the dealer, or null. */
+    private volatile IOException myFailure;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates the preprocessing of the triples of a group computation, for
+     * the sharing scheme of its players and data type, with the default
+     * target and low watermark.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param theThreshold The number of shares needed to reconstruct.
+     * @param theDir The directory of the stores of the players.
+     * @return The preprocessing, not yet started.
+     * @throws IOException If a store cannot be opened.
+     */
+    public static TriplePreprocessor forGroup(final GroupCompInitializationFileInterpreter theGroup,
+                                              final int theThreshold, final Path theDir)
+                                              throws IOException {
+        return new TriplePreprocessor(SharingFactory.forGroup(theGroup, theThreshold), theDir,
+                                      DEFAULT_TARGET, DEFAULT_LOW_WATERMARK);
+    }
+    
+    /**
+     * Creates the preprocessing of triples shared with the passed scheme,
+     * opening the store of every player and resuming after the triples
+     * already taken.
+     *
+     * @param theSharer The sharing scheme of the group.
+     * @param theDir The directory of the stores of the players.
+     * @param theTarget The number of triples each store is filled to.
+     * @param theLowWatermark The number of triples below which the dealer
+     *                        wakes up, at most theTarget.
+     * @throws IOException If a store cannot be opened.
+     */
+    public TriplePreprocessor(final SecretSharer theSharer, final Path theDir,
+                              final long theTarget, final long theLowWatermark)
+                              throws IOException {
+        this(theSharer, theDir, theTarget, theLowWatermark, BATCH);
+    }
+    
+    /**
+     * Creates the preprocessing of triples shared with the passed scheme,
+     * dealing them in batches of the passed size.  Since a batch is split
+     * for every player at once, large groups need smaller batches.  The
+     * segments of the stores are no larger than the target needs.
+     *
+     * @param theSharer The sharing scheme of the group.
+     * @param theDir The directory of the stores of the players.
+     * @param theTarget The number of triples each store is filled to.
+     * @param theLowWatermark The number of triples below which the dealer
+     *                        wakes up, at most theTarget.
+     * @param theBatch The number of triples dealt at once.
+     * @throws IOException If a store cannot be opened.
+     */
+    public TriplePreprocessor(final SecretSharer theSharer, final Path theDir,
+                              final long theTarget, final long theLowWatermark,
+                              final int theBatch) throws IOException {
+        if (theLowWatermark < 0 || theLowWatermark > theTarget) {
+            throw new IllegalArgumentException("Invalid low watermark: " + theLowWatermark);
+        }
+        if (theBatch < 1) {
+            throw new IllegalArgumentException("Invalid batch: " + theBatch);
+        }
+        
+        mySharer = theSharer;
+        myField = theSharer.getField();
+        myTarget = theTarget;
+        myLowWatermark = theLowWatermark;
+        myBatch = theBatch;
+        myRing = new PrefetchRing();
+        mySampler = new FieldSampler(myField, myRing);
+        myLock = new Object();
+        
+        final int tempSegment = (int) Math.max(theBatch, Math.min(theTarget,
+                                               TripleStore.DEFAULT_SEGMENT_TRIPLES));
+        myStores = new TripleStore[theSharer.getNumPlayers()];
+        try {
+            for (int j = 0; j < myStores.length; j++) {
+                myStores[j] = new TripleStore(theDir.resolve(PLAYER_DIR + j), myField,
+                                              tempSegment);
+            }
+        } catch (final IOException | RuntimeException exception) {
+            closeResources();
+            throw exception;
+        } // END try/catch BLOCK
+        
+        myThread = new Thread(this::deal, "triple-preprocessor");
+        myThread.setDaemon(true);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Starts the dealer in the background.
+     */
+    public void start() {
+        myRunning = true;
+        myThread.start();
+    }
+    
+    /**
+     * Takes a player's shares of the next triples, waiting for the dealer if
+     * its store holds too few.  Every player must take the same numbers of
+     * triples in the same order.  A take of more triples than the target
+     * has the dealer deal the triples it lacks, past the target.
+     *
+     * @param thePlayer The index of the player.
+     * @param theA Receives the shares of a.
+     * @param theB Receives the shares of b.
+     * @param theC Receives the shares of c.
+     * @param theOffset The index of the first triple in the arrays.
+     * @param theLength The number of triples.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the dealer is not running, or stops
+     *                               before enough triples are dealt.
+     */
+    public void take(final int thePlayer, final long[] theA, final long[] theB, final long[] theC,
+                     final int theOffset, final int theLength) throws InterruptedException {
+        final TripleStore tempStore = myStores[thePlayer];
+        
+        if (!tempStore.tryTake(theA, theB, theC, theOffset, theLength)) {
+            if (myFailure != null) {
+                throw new IllegalStateException("Triple dealer failed", myFailure);
+            }
+            if (!myRunning) {
+                throw new IllegalStateException("Triple dealer is not running");
+            }
+            // Read before myDealt, which counts a batch before it is appended
+            final long tempLacking = theLength - tempStore.getAvailable();
+            synchronized (myLock) {
+                myDemand = Math.max(myDemand, myDealt + tempLacking);
+            } // END synchronized BLOCK
+            wakeUp();
+            tempStore.take(theA, theB, theC, theOffset, theLength);
+        }
+        
+        if (tempStore.getAvailable() < myLowWatermark) {
+            wakeUp();
+        }
+    } // END take() METHOD
+    
+    /**
+     * Wakes the dealer and waits until every store holds the target, so that
+     * the online phase can be timed apart from the dealing.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the dealer is not running.
+     */
+    public void awaitFilled() throws InterruptedException {
+        wakeUp();
+        synchronized (myLock) {
+            while (minAvailable() < myTarget) {
+                if (myFailure != null) {
+                    throw new IllegalStateException("Triple dealer failed", myFailure);
+                }
+                if (!myRunning) {
+                    throw new IllegalStateException("Triple dealer is not running");
+                }
+                myLock.wait();
+            } // END while LOOP
+        } // END synchronized BLOCK
+    } // END awaitFilled() METHOD
+    
+    /**
+     * Returns the number of triples a player can take without waiting.
+     *
+     * @param thePlayer The index of the player.
+     * @return The number of triples in the player's store.
+     */
+    public long getAvailable(final int thePlayer) {
+        return myStores[thePlayer].getAvailable();
+    }
+    
+    /**
+     * Stops the dealer and closes every store.
+     */
+    @Override
+    public void close() {
+        myRunning = false;
+        wakeUp();
+        if (myThread.isAlive()) {
+            try {
+                myThread.join();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } // END try/catch BLOCK
+        }
+        
+        closeResources();
+    } // END close() METHOD
+    
+  // GETTERS
+    /**
+     * Getter for the sharing scheme of the group.
+     *
+     * @return mySharer
+     */
+    public SecretSharer getSharer() {
+        return mySharer;
+    }
+    
+    /**
+     * Getter for the number of triples each store is filled to.
+     *
+     * @return myTarget
+     */
+    public long getTarget() {
+        return myTarget;
+    }
+    
+    /**
+     * Getter for the number of triples below which the dealer wakes up.
+     *
+     * @return myLowWatermark
+     */
+    public long getLowWatermark() {
+        return myLowWatermark;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Body of the dealer thread: sleeps until a store falls below the low
+     * watermark, then deals until every store reaches the target and every
+     * waiting take is served.
+     */
+    private void deal() {
+        final int tempPlayers = myStores.length;
+        final long[] tempA = new long[myBatch];
+        final long[] tempB = new long[myBatch];
+        final long[] tempC = new long[myBatch];
+        final long[][] tempShareA = new long[tempPlayers][myBatch];
+        final long[][] tempShareB = new long[tempPlayers][myBatch];
+        final long[][] tempShareC = new long[tempPlayers][myBatch];
+        
+        try {
+            while (myRunning) {
+                synchronized (myLock) {
+                    while (myRunning && !myWakeUp && minAvailable() >= myLowWatermark) {
+                        myLock.wait();
+                    }
+                    myWakeUp = false;
+                } // END synchronized BLOCK
+                
+                while (myRunning && (minAvailable() < myTarget || isOwed())) {
+                    mySampler.fill(tempA, 0, myBatch);
+                    mySampler.fill(tempB, 0, myBatch);
+                    myField.mul(tempA, tempB, tempC);
+                    
+                    mySharer.split(tempA, tempShareA);
+                    mySharer.split(tempB, tempShareB);
+                    mySharer.split(tempC, tempShareC);
+                    synchronized (myLock) {
+                        myDealt += myBatch;
+                    } // END synchronized BLOCK
+                    for (int j = 0; j < tempPlayers; j++) {
+                        myStores[j].append(tempShareA[j], tempShareB[j], tempShareC[j], 0,
+                                           myBatch);
+                    }
+                    synchronized (myLock) {
+                        myLock.notifyAll();
+                    } // END synchronized BLOCK
+                } // END while LOOP
+            } // END while LOOP
+        } catch (final IOException exception) {
+            myFailure = exception;
+            System.out.println("IO Exception dealing triples: " + exception.getMessage());
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            myRunning = false;
+            final Exception tempCause = myFailure != null ? myFailure
+                    : new IllegalStateException("Triple dealer stopped");
+            for (final TripleStore tempStore : myStores) {
+                tempStore.fail(tempCause);
+            }
+            wakeUp();
+        } // END try/catch/finally BLOCK
+    } // END deal() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns whether a waiting take lacks triples the dealer has yet to
+     * deal, whatever the target.
+     *
+     * @return true if more triples are owed to a take.
+     */
+    private boolean isOwed() {
+        synchronized (myLock) {
+            return myDealt < myDemand;
+        } // END synchronized BLOCK
+    }
+    
+    /**
+     * Stops the generator of random bytes and closes every store opened.
+     */
+    private void closeResources() {
+        myRing.close();
+        for (final TripleStore tempStore : myStores) {
+            if (tempStore != null) {
+                tempStore.close();
+            }
+        }
+    } // END closeResources() PRIVATE HELPER METHOD
+    
+    /**
+     * Wakes the dealer up.
+     */
+    private void wakeUp() {
+        synchronized (myLock) {
+            myWakeUp = true;
+            myLock.notifyAll();
+        } // END synchronized BLOCK
+    }
+    
+    /**
+     * Returns the fewest triples held by the store of any player.
+     *
+     * @return The smallest number of available triples.
+     */
+    private long minAvailable() {
+        long tempMin = Long.MAX_VALUE;
+        for (final TripleStore tempStore : myStores) {
+            tempMin = Math.min(tempMin, tempStore.getAvailable());
+        }
+        return tempMin;
+    }
+    
+    
+} // END TriplePreprocessor.java CLASS
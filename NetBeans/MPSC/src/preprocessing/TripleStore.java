@@ -0,0 +1,557 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package preprocessing;
+
+import arithmetic.LongPrimeField;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only store of one player's shares of Beaver multiplication triples,
+ * kept in a directory of memory-mapped segment files.  Triples are appended
+ * by the preprocessing and taken by the online phase strictly in order, so
+ * that every player consumes the same triples, and a triple is never handed
+ * out twice, even across restarts.  A segment is deleted once every triple
+ * in it has been taken.  Appending and taking copy between caller arrays and
+ * the mapped files, with no allocation per triple.
+ *
+ * <p>Each segment, named "triples-NNNNNNNN.seg", is a little-endian file of
+ * a HEADER_BYTES header followed by the triples:
+ *
+ * <pre>
+ *  MAGIC, the ASCII bytes "MPSCTRPL", and the format VERSION (int), padding
+ *  prime of the field (long), capacity in triples (long)
+ *  number of triples written (long), number of triples taken (long)
+ *  for each triple: the shares a, b, and c (longs, internal representation)
+ * </pre>
+ *
+ * The store may be appended to by one thread while another takes from it.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class TripleStore implements Closeable {
+    
+// CLASS CONSTANTS
+    /** The default number of triples in a segment, 24 MiB of shares. */
+    public static final int DEFAULT_SEGMENT_TRIPLES = 1 << 20;
+    
+    /** The number of bytes in the header of a segment. */
+    private static final int HEADER_BYTES = 64;
+    
+    /** The number of longs in each triple. */
+    private static final int TRIPLE_LONGS = 3;
+    
+    /** The magic bytes which start every segment, as a little-endian long. */
+    private static final long MAGIC = 0x4C5052544353504DL;
+    
+    /** The version of the segment format written by this class. */
+    private static final int VERSION = 1;
+    
+    /** The header index, in longs, of the prime. */
+    private static final int PRIME_AT = 2;
+    
+    /** The header index, in longs, of the capacity. */
+    private static final int CAPACITY_AT = 3;
+    
+    /** The header index, in longs, of the number of triples written. */
+    private static final int WRITTEN_AT = 4;
+    
+    /** The header index, in longs, of the number of triples taken. */
+    private static final int TAKEN_AT = 5;
+    
+    /** String constant holding the prefix of the name of a segment. */
+    private static final String PREFIX = "triples-";
+    
+    /** String constant holding the suffix of the name of a segment. */
+    private static final String SUFFIX = ".seg";
+    
+    
+// CLASS VARIABLES
+    /** The directory of the segments. */
+    private final Path myDir;
+    
+    /** The prime of the field of the shares. */
+    private final long myPrime;
+    
+    /** The number of triples in a new segment. */
+    private final int mySegmentTriples;
+    
+    /** The segments not yet fully taken, oldest first, guarded by this. */
+    private final ArrayDeque<Segment> mySegments;
+    
+    /** The number of triples appended but not yet taken, guarded by this. */
+    private long myAvailable;
+    
+    /** The index of the next segment to create. */
+    private int myNextIndex;
+    
+    /** Boolean holding whether the store was closed. */
+    private boolean myClosed;
+    
+    /** Why no more triples will be appended, or null while they may be. */
+    private Exception myFailure;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Opens the store in the passed directory, with segments of
+     * DEFAULT_SEGMENT_TRIPLES triples.
+     *
+     * @param theDir The directory of the segments, created if needed.
+     * @param theField The field of the shares.
+     * @throws IOException If the directory or a segment cannot be opened,
+     *                     or a segment belongs to another field.
+     */
+    public TripleStore(final Path theDir, final LongPrimeField theField) throws IOException {
+        this(theDir, theField, DEFAULT_SEGMENT_TRIPLES);
+    }
+    
+    /**
+     * Opens the store in the passed directory, resuming after the triples
+     * already taken from its segments.
+     *
+     * @param theDir The directory of the segments, created if needed.
+     * @param theField The field of the shares.
+     * @param theSegmentTriples The number of triples in a new segment.
+     * @throws IOException If the directory or a segment cannot be opened,
+     *                     or a segment belongs to another field.
+     */
+    public TripleStore(final Path theDir, final LongPrimeField theField,
+                       final int theSegmentTriples) throws IOException {
+        if (theSegmentTriples < 1
+                || theSegmentTriples > (Integer.MAX_VALUE - HEADER_BYTES) / (TRIPLE_LONGS * Long.BYTES)) {
+            throw new IllegalArgumentException("Invalid segment size: " + theSegmentTriples);
+        }
+        
+        myDir = theDir;
+        myPrime = theField.getPrime();
+        mySegmentTriples = theSegmentTriples;
+        mySegments = new ArrayDeque<>();
+        Files.createDirectories(theDir);
+        
+        final List<Path> tempPaths = new ArrayList<>();
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(theDir,
+                                                                           PREFIX + "*" + SUFFIX)) {
+            for (final Path tempPath : tempStream) {
+                tempPaths.add(tempPath);
+            }
+        } // END try-with-resources BLOCK
+        Collections.sort(tempPaths);
+        
+        for (final Path tempPath : tempPaths) {
+            final Segment tempSeg = Segment.open(tempPath, indexOf(tempPath), myPrime);
+            myNextIndex = tempSeg.myIndex + 1;
+            if (tempSeg.getTaken() == tempSeg.myCapacity) {
+                tempSeg.delete();
+            } else {
+                mySegments.add(tempSeg);
+                myAvailable += tempSeg.getWritten() - tempSeg.getTaken();
+            }
+        } // END for LOOP
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Appends triples to the store, waking any thread waiting to take them.
+     *
+     * @param theA The shares of a.
+     * @param theB The shares of b.
+     * @param theC The shares of c = a * b.
+     * @param theOffset The index of the first triple in the arrays.
+     * @param theLength The number of triples.
+     * @throws IOException If a new segment cannot be created.
+     */
+    public synchronized void append(final long[] theA, final long[] theB, final long[] theC,
+                                    final int theOffset, final int theLength) throws IOException {
+        checkOpen();
+        
+        int tempDone = 0;
+        while (tempDone < theLength) {
+            Segment tempTail = mySegments.peekLast();
+            if (tempTail == null || tempTail.getWritten() == tempTail.myCapacity) {
+                tempTail = Segment.create(myDir.resolve(segmentName(myNextIndex)), myNextIndex,
+                                          myPrime, mySegmentTriples);
+                myNextIndex++;
+                mySegments.add(tempTail);
+            }
+            
+            final int tempCount = (int) Math.min(theLength - tempDone,
+                                                 tempTail.myCapacity - tempTail.getWritten());
+            tempTail.write(theA, theB, theC, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+        } // END while LOOP
+        
+        myAvailable += theLength;
+        notifyAll();
+    } // END append() METHOD
+    
+    /**
+     * Takes the next triples from the store, waiting until enough have been
+     * appended.
+     *
+     * @param theA Receives the shares of a.
+     * @param theB Receives the shares of b.
+     * @param theC Receives the shares of c.
+     * @param theOffset The index of the first triple in the arrays.
+     * @param theLength The number of triples.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the store is closed, or too few
+     *                               triples are stored and no more will
+     *                               be appended.
+     */
+    public synchronized void take(final long[] theA, final long[] theB, final long[] theC,
+                                  final int theOffset, final int theLength)
+                                  throws InterruptedException {
+        while (myAvailable < theLength) {
+            checkOpen();
+            if (myFailure != null) {
+                throw new IllegalStateException("No more triples will be appended to " + myDir,
+                                                myFailure);
+            }
+            wait();
+        } // END while LOOP
+        takeAvailable(theA, theB, theC, theOffset, theLength);
+    } // END take() METHOD
+    
+    /**
+     * Takes the next triples from the store only if enough have been
+     * appended already.
+     *
+     * @param theA Receives the shares of a.
+     * @param theB Receives the shares of b.
+     * @param theC Receives the shares of c.
+     * @param theOffset The index of the first triple in the arrays.
+     * @param theLength The number of triples.
+     * @return true if the triples were taken, false if too few are stored.
+     */
+    public synchronized boolean tryTake(final long[] theA, final long[] theB, final long[] theC,
+                                        final int theOffset, final int theLength) {
+        checkOpen();
+        if (myAvailable < theLength) {
+            return false;
+        }
+        takeAvailable(theA, theB, theC, theOffset, theLength);
+        return true;
+    } // END tryTake() METHOD
+    
+    /**
+     * Returns the number of triples appended but not yet taken.
+     *
+     * @return The number of available triples.
+     */
+    public synchronized long getAvailable() {
+        return myAvailable;
+    }
+    
+    /**
+     * Marks the store as no longer appended to, waking any thread waiting
+     * to take triples, which then fails unless enough are already stored.
+     *
+     * @param theCause Why no more triples will be appended.
+     */
+    public synchronized void fail(final Exception theCause) {
+        myFailure = theCause;
+        notifyAll();
+    }
+    
+    /**
+     * Writes the segments back to their files and closes them, waking any
+     * thread waiting to take triples.
+     */
+    @Override
+    public synchronized void close() {
+        if (myClosed) {
+            return;
+        }
+        
+        myClosed = true;
+        for (final Segment tempSeg : mySegments) {
+            tempSeg.close();
+        }
+        mySegments.clear();
+        notifyAll();
+    } // END close() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Takes triples known to be available, deleting the segments emptied.
+     *
+     * @param theA Receives the shares of a.
+     * @param theB Receives the shares of b.
+     * @param theC Receives the shares of c.
+     * @param theOffset The index of the first triple in the arrays.
+     * @param theLength The number of triples.
+     */
+    private void takeAvailable(final long[] theA, final long[] theB, final long[] theC,
+                               final int theOffset, final int theLength) {
+        int tempDone = 0;
+        while (tempDone < theLength) {
+            final Segment tempHead = mySegments.peekFirst();
+            final int tempCount = (int) Math.min(theLength - tempDone,
+                                                 tempHead.getWritten() - tempHead.getTaken());
+            tempHead.read(theA, theB, theC, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+            
+            if (tempHead.getTaken() == tempHead.myCapacity) {
+                mySegments.pollFirst();
+                tempHead.delete();
+            }
+        } // END while LOOP
+        
+        myAvailable -= theLength;
+    } // END takeAvailable() PRIVATE HELPER METHOD
+    
+    /**
+     * Throws if the store was closed.
+     */
+    private void checkOpen() {
+        if (myClosed) {
+            throw new IllegalStateException("Triple store is closed: " + myDir);
+        }
+    }
+    
+    /**
+     * Returns the name of the segment with the passed index.
+     *
+     * @param theIndex The index of the segment.
+     * @return The file name of the segment.
+     */
+    private static String segmentName(final int theIndex) {
+        return String.format("%s%08d%s", PREFIX, theIndex, SUFFIX);
+    }
+    
+    /**
+     * Returns the index of the segment with the passed file.
+     *
+     * @param thePath The file of the segment.
+     * @return The index of the segment.
+     * @throws IOException If the file is not named like a segment.
+     */
+    private static int indexOf(final Path thePath) throws IOException {
+        final String tempName = thePath.getFileName().toString();
+        try {
+            return Integer.parseInt(tempName.substring(PREFIX.length(),
+                                                       tempName.length() - SUFFIX.length()));
+        } catch (final NumberFormatException exception) {
+            throw new IOException("Not a triple segment: " + thePath, exception);
+        } // END try/catch BLOCK
+    } // END indexOf() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * One memory-mapped segment file, whose counters live in its header.
+     */
+    private static final class Segment {
+        
+        /** The file of the segment. */
+        private final Path myPath;
+        
+        /** The index of the segment. */
+        private final int myIndex;
+        
+        /** The number of triples the segment can hold. */
+        private final long myCapacity;
+        
+        /** The mapping of the whole file. */
+        private final MappedByteBuffer myMap;
+        
+        /** The header and triples of the file, as little-endian longs. */
+        private final LongBuffer myLongs;
+        
+        /**
+         * Creates a segment over a mapped file.
+         *
+         * @param thePath The file of the segment.
+         * @param theIndex The index of the segment.
+         * @param theMap The mapping of the whole file.
+         */
+        private Segment(final Path thePath, final int theIndex, final MappedByteBuffer theMap) {
+            myPath = thePath;
+            myIndex = theIndex;
+            myMap = theMap;
+            myLongs = theMap.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            myCapacity = myLongs.get(CAPACITY_AT);
+        }
+        
+        /**
+         * Creates a new, empty segment file.
+         *
+         * @param thePath The file of the segment.
+         * @param theIndex The index of the segment.
+         * @param thePrime The prime of the field of the shares.
+         * @param theCapacity The number of triples the segment can hold.
+         * @return The segment.
+         * @throws IOException If the file cannot be created.
+         */
+        static Segment create(final Path thePath, final int theIndex, final long thePrime,
+                              final int theCapacity) throws IOException {
+            final long tempSize = HEADER_BYTES + (long) theCapacity * TRIPLE_LONGS * Long.BYTES;
+            final MappedByteBuffer tempMap = map(thePath, tempSize, StandardOpenOption.CREATE_NEW);
+            
+            final LongBuffer tempLongs = tempMap.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                                                .asLongBuffer();
+            tempLongs.put(0, MAGIC);
+            tempLongs.put(1, VERSION);
+            tempLongs.put(PRIME_AT, thePrime);
+            tempLongs.put(CAPACITY_AT, theCapacity);
+            tempLongs.put(WRITTEN_AT, 0L);
+            tempLongs.put(TAKEN_AT, 0L);
+            
+            return new Segment(thePath, theIndex, tempMap);
+        } // END create() METHOD
+        
+        /**
+         * Opens an existing segment file.
+         *
+         * @param thePath The file of the segment.
+         * @param theIndex The index of the segment.
+         * @param thePrime The prime of the field of the shares.
+         * @return The segment.
+         * @throws IOException If the file cannot be opened, or is not a
+         *                     segment of the field.
+         */
+        static Segment open(final Path thePath, final int theIndex, final long thePrime)
+                            throws IOException {
+            final MappedByteBuffer tempMap = map(thePath, Files.size(thePath));
+            final Segment tempSeg = new Segment(thePath, theIndex, tempMap);
+            
+            if (tempSeg.myLongs.get(0) != MAGIC || tempSeg.myLongs.get(1) != VERSION) {
+                throw new IOException("Not a triple segment: " + thePath);
+            } else if (tempSeg.myLongs.get(PRIME_AT) != thePrime) {
+                throw new IOException("Triple segment of another field: " + thePath);
+            } else if (tempMap.capacity() != HEADER_BYTES
+                                             + tempSeg.myCapacity * TRIPLE_LONGS * Long.BYTES) {
+                throw new IOException("Truncated triple segment: " + thePath);
+            }
+            return tempSeg;
+        } // END open() METHOD
+        
+        /**
+         * Maps a whole file for reading and writing.
+         *
+         * @param thePath The file.
+         * @param theSize The size of the file.
+         * @param theOptions Further options of opening the file.
+         * @return The mapping.
+         * @throws IOException If the file cannot be mapped.
+         */
+        private static MappedByteBuffer map(final Path thePath, final long theSize,
+                                            final StandardOpenOption... theOptions)
+                                            throws IOException {
+            final StandardOpenOption[] tempOptions = new StandardOpenOption[theOptions.length + 2];
+            tempOptions[0] = StandardOpenOption.READ;
+            tempOptions[1] = StandardOpenOption.WRITE;
+            System.arraycopy(theOptions, 0, tempOptions, 2, theOptions.length);
+            
+            // The mapping stays valid after the channel is closed
+            try (FileChannel tempChannel = FileChannel.open(thePath, tempOptions)) {
+                return tempChannel.map(FileChannel.MapMode.READ_WRITE, 0, theSize);
+            } // END try-with-resources BLOCK
+        } // END map() METHOD
+        
+        /**
+         * Returns the number of triples written to the segment.
+         *
+         * @return The count from the header.
+         */
+        long getWritten() {
+            return myLongs.get(WRITTEN_AT);
+        }
+        
+        /**
+         * Returns the number of triples taken from the segment.
+         *
+         * @return The count from the header.
+         */
+        long getTaken() {
+            return myLongs.get(TAKEN_AT);
+        }
+        
+        /**
+         * Writes triples after those already written, then counts them.
+         *
+         * @param theA The shares of a.
+         * @param theB The shares of b.
+         * @param theC The shares of c.
+         * @param theOffset The index of the first triple in the arrays.
+         * @param theCount The number of triples, which must fit.
+         */
+        void write(final long[] theA, final long[] theB, final long[] theC,
+                   final int theOffset, final int theCount) {
+            final long tempWritten = getWritten();
+            int tempAt = (int) (HEADER_BYTES / Long.BYTES + tempWritten * TRIPLE_LONGS);
+            for (int i = theOffset; i < theOffset + theCount; i++) {
+                myLongs.put(tempAt, theA[i]);
+                myLongs.put(tempAt + 1, theB[i]);
+                myLongs.put(tempAt + 2, theC[i]);
+                tempAt += TRIPLE_LONGS;
+            } // END for LOOP
+            myLongs.put(WRITTEN_AT, tempWritten + theCount);
+        } // END write() METHOD
+        
+        /**
+         * Reads triples after those already taken, then counts them.
+         *
+         * @param theA Receives the shares of a.
+         * @param theB Receives the shares of b.
+         * @param theC Receives the shares of c.
+         * @param theOffset The index of the first triple in the arrays.
+         * @param theCount The number of triples, which must be written.
+         */
+        void read(final long[] theA, final long[] theB, final long[] theC,
+                  final int theOffset, final int theCount) {
+            final long tempTaken = getTaken();
+            int tempAt = (int) (HEADER_BYTES / Long.BYTES + tempTaken * TRIPLE_LONGS);
+            for (int i = theOffset; i < theOffset + theCount; i++) {
+                theA[i] = myLongs.get(tempAt);
+                theB[i] = myLongs.get(tempAt + 1);
+                theC[i] = myLongs.get(tempAt + 2);
+                tempAt += TRIPLE_LONGS;
+            } // END for LOOP
+            myLongs.put(TAKEN_AT, tempTaken + theCount);
+        } // END read() METHOD
+        
+        /**
+         * Writes the segment back to its file.
+         */
+        void close() {
+            myMap.force();
+        }
+        
+        /**
+         * Deletes the file of a fully taken segment.  The mapping itself is
+         * released when it is garbage collected.
+         */
+        void delete() {
+            try {
+                Files.deleteIfExists(myPath);
+            } catch (final IOException exception) {
+                System.out.println("IO Exception deleting " + myPath + ": "
+                                   + exception.getMessage());
+            } // END try/catch BLOCK
+        } // END delete() METHOD
+    } // END Segment PRIVATE CLASS
+    
+    
+} // END TripleStore.java CLASS
@@ -0,0 +1,167 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package randomness;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Pseudorandom generator which outputs the AES-128 keystream in counter mode,
+ * seeded from a SecureRandom.  Producing the keystream is a single bulk
+ * cipher call per chunk, which uses the AES instructions of the processor
+ * where the JVM supports them, and needs no lock.  After REKEY_BYTES bytes
+ * the generator rekeys itself from its own keystream, so that it never runs
+ * long on one key and an instance seeded explicitly stays deterministic.
+ * Instances are not thread-safe; RandomnessService keeps one per thread.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class AesCtrGenerator implements RandomSource {
+    
+// CLASS CONSTANTS
+    /** The number of bytes of keystream produced before rekeying. */
+    public static final long REKEY_BYTES = 1L << 36;
+    
+    /** The number of bytes in a key. */
+    private static final int KEY_BYTES = 16;
+    
+    /** The number of bytes in an initial counter block. */
+    private static final int IV_BYTES = 16;
+    
+    /** The number of bytes encrypted by each cipher call. */
+    private static final int CHUNK = 1 << 14;
+    
+    /** Zero bytes, whose encryption is the keystream. */
+    private static final byte[] ZEROS = new byte[CHUNK];
+    
+    /** String constant holding the name of the transformation. */
+    private static final String TRANSFORMATION = "AES/CTR/NoPadding";
+    
+    
+// CLASS VARIABLES
+    /** The cipher producing the keystream. */
+    private final Cipher myCipher;
+    
+    /** The number of bytes produced since the last key. */
+    private long myProduced;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a generator seeded from a new SecureRandom.
+     */
+    public AesCtrGenerator() {
+        this(new SecureRandom());
+    }
+    
+    /**
+     * Creates a generator seeded from the passed SecureRandom.
+     *
+     * @param theSeeder The source of the key and initial counter.
+     */
+    public AesCtrGenerator(final SecureRandom theSeeder) {
+        this(seedFrom(theSeeder));
+    }
+    
+    /**
+     * Creates a generator from an explicit seed, which always produces the
+     * same bytes; for benchmarks and tests, never for secrets.
+     *
+     * @param theSeed The key followed by the initial counter, 32 bytes.
+     */
+    public AesCtrGenerator(final byte[] theSeed) {
+        if (theSeed.length != KEY_BYTES + IV_BYTES) {
+            throw new IllegalArgumentException("Seed must be " + (KEY_BYTES + IV_BYTES) + " bytes");
+        }
+        
+        try {
+            myCipher = Cipher.getInstance(TRANSFORMATION);
+        } catch (final GeneralSecurityException exception) {
+            throw new IllegalStateException("No " + TRANSFORMATION + " cipher", exception);
+        } // END try/catch BLOCK
+        
+        rekey(theSeed);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public void nextBytes(final byte[] theBytes, final int theOffset, final int theLength) {
+        int tempDone = 0;
+        while (tempDone < theLength) {
+            if (myProduced >= REKEY_BYTES) {
+                final byte[] tempSeed = new byte[KEY_BYTES + IV_BYTES];
+                update(tempSeed, 0, tempSeed.length);
+                rekey(tempSeed);
+            }
+            
+            final int tempCount = Math.min(CHUNK, theLength - tempDone);
+            update(theBytes, theOffset + tempDone, tempCount);
+            tempDone += tempCount;
+        } // END while LOOP
+    } // END nextBytes() METHOD
+    
+    /**
+     * Fills an array with random bytes.
+     *
+     * @param theBytes The array to fill.
+     */
+    public void nextBytes(final byte[] theBytes) {
+        nextBytes(theBytes, 0, theBytes.length);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Draws a seed from a SecureRandom.
+     *
+     * @param theSeeder The source of the seed.
+     * @return The key followed by the initial counter.
+     */
+    private static byte[] seedFrom(final SecureRandom theSeeder) {
+        final byte[] tempSeed = new byte[KEY_BYTES + IV_BYTES];
+        theSeeder.nextBytes(tempSeed);
+        return tempSeed;
+    }
+    
+    /**
+     * Writes the next bytes of keystream.
+     *
+     * @param theBytes The array to fill.
+     * @param theOffset The index of the first byte to fill.
+     * @param theLength The number of bytes, at most CHUNK.
+     */
+    private void update(final byte[] theBytes, final int theOffset, final int theLength) {
+        try {
+            myCipher.update(ZEROS, 0, theLength, theBytes, theOffset);
+        } catch (final GeneralSecurityException exception) {
+            throw new IllegalStateException("AES keystream failed", exception);
+        } // END try/catch BLOCK
+        myProduced += theLength;
+    } // END update() PRIVATE HELPER METHOD
+    
+    /**
+     * Starts a new keystream.
+     *
+     * @param theSeed The key followed by the initial counter.
+     */
+    private void rekey(final byte[] theSeed) {
+        try {
+            myCipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(theSeed, 0, KEY_BYTES, "AES"),
+                          new IvParameterSpec(theSeed, KEY_BYTES, IV_BYTES));
+        } catch (final GeneralSecurityException exception) {
+            throw new IllegalStateException("AES key rejected", exception);
+        } // END try/catch BLOCK
+        myProduced = 0;
+    } // END rekey() PRIVATE HELPER METHOD
+    
+    
+} // END AesCtrGenerator.java CLASS
@@ -0,0 +1,102 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package randomness;
+
+import arithmetic.LongPrimeField;
+import java.nio.ByteBuffer;
+
+/**
+ * Draws uniformly random elements of a LongPrimeField by rejection sampling
+ * canonical values.  Random bytes are taken from a RandomSource in bulk,
+ * one buffer at a time, rather than one call per element.  Since every
+ * internal representation of the fields is a bijection on [0, prime), a
+ * uniform canonical value is also a uniform element and needs no conversion.
+ * Instances are not thread-safe.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class FieldSampler {
+    
+// CLASS CONSTANTS
+    /** The number of random bytes drawn from the source at once. */
+    private static final int BUFFER_BYTES = 8192;
+    
+    
+// CLASS VARIABLES
+    /** The prime modulus of the field. */
+    private final long myPrime;
+    
+    /** Mask of the bits below the bit length of the prime. */
+    private final long myMask;
+    
+    /** The source of random bytes. */
+    private final RandomSource myRandom;
+    
+    /** The buffer of random bytes not yet used. */
+    private final ByteBuffer myBuffer;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a sampler of the passed field.
+     *
+     * @param theField The field to sample.
+     * @param theRandom The source of random bytes.
+     */
+    public FieldSampler(final LongPrimeField theField, final RandomSource theRandom) {
+        myPrime = theField.getPrime();
+        myMask = -1L >>> (Long.SIZE - theField.getBitLength());
+        myRandom = theRandom;
+        myBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+        myBuffer.position(BUFFER_BYTES);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the prime modulus of the sampled field.
+     *
+     * @return The prime.
+     */
+    public long getPrime() {
+        return myPrime;
+    }
+    
+    /**
+     * Fills part of an array with random elements.
+     *
+     * @param theOut The array to fill.
+     * @param theOffset The index of the first slot to fill.
+     * @param theLength The number of slots to fill.
+     */
+    public void fill(final long[] theOut, final int theOffset, final int theLength) {
+        final int tempEnd = theOffset + theLength;
+        for (int i = theOffset; i < tempEnd; i++) {
+            theOut[i] = next();
+        }
+    }
+    
+    /**
+     * Returns a random element.
+     *
+     * @return An element, uniform over the field.
+     */
+    public long next() {
+        long tempValue;
+        do {
+            if (!myBuffer.hasRemaining()) {
+                myRandom.nextBytes(myBuffer.array(), 0, BUFFER_BYTES);
+                myBuffer.clear();
+            }
+            tempValue = myBuffer.getLong() & myMask;
+        } while (tempValue >= myPrime);
+        
+        return tempValue;
+    } // END next() METHOD
+    
+    
+} // END FieldSampler.java CLASS
@@ -0,0 +1,166 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package randomness;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Source of random bytes generated ahead of demand by a background thread
+ * into a ring of blocks.  Filled blocks are handed to the consumer whole and
+ * returned to the generator once used, so the consumer only synchronizes
+ * once per block, and only waits when it outruns the generator.  A ring
+ * serves a single consuming thread, such as the dealer of Beaver triples.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class PrefetchRing implements RandomSource, Closeable {
+    
+// CLASS CONSTANTS
+    /** The default number of blocks in the ring. */
+    public static final int DEFAULT_BLOCKS = 8;
+    
+    /** The default number of bytes in a block. */
+    public static final int DEFAULT_BLOCK_BYTES = 1 << 16;
+    
+    
+// CLASS VARIABLES
+    /** The blocks filled with random bytes, oldest first. */
+    private final BlockingQueue<byte[]> myFull;
+    
+    /** The blocks used up by the consumer. */
+    private final BlockingQueue<byte[]> myEmpty;
+    
+    /** The thread filling the blocks. */
+    private final Thread myThread;
+    
+    /** The block being consumed, or null. */
+    private byte[] myCurrent;
+    
+    /** The index of the next unused byte of the current block. */
+    private int myPos;
+    
+    /** Boolean holding whether the generator should keep running. */
+    private volatile boolean myRunning;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates and starts a ring of DEFAULT_BLOCKS blocks of
+     * DEFAULT_BLOCK_BYTES bytes, filled by a new AesCtrGenerator.
+     */
+    public PrefetchRing() {
+        this(new AesCtrGenerator(), DEFAULT_BLOCKS, DEFAULT_BLOCK_BYTES);
+    }
+    
+    /**
+     * Creates and starts a ring of blocks.
+     *
+     * @param theGenerator The generator filling the blocks, used only by the
+     *                     background thread from now on.
+     * @param theBlocks The number of blocks in the ring, at least 2.
+     * @param theBlockBytes The number of bytes in a block.
+     */
+    public PrefetchRing(final AesCtrGenerator theGenerator, final int theBlocks,
+                        final int theBlockBytes) {
+        if (theBlocks < 2 || theBlockBytes < 1) {
+            throw new IllegalArgumentException("Invalid ring: " + theBlocks + " x " + theBlockBytes);
+        }
+        
+        myFull = new ArrayBlockingQueue<>(theBlocks);
+        myEmpty = new ArrayBlockingQueue<>(theBlocks);
+        for (int k = 0; k < theBlocks; k++) {
+            myEmpty.add(new byte[theBlockBytes]);
+        }
+        
+        myRunning = true;
+        myThread = new Thread(() -> generate(theGenerator), "random-prefetch");
+        myThread.setDaemon(true);
+        myThread.start();
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Copies the next random bytes from the ring, waiting for the generator
+     * if every block has been used.
+     *
+     * @param theBytes The array to fill.
+     * @param theOffset The index of the first byte to fill.
+     * @param theLength The number of bytes to fill.
+     * @throws IllegalStateException If interrupted while waiting, or the ring
+     *                               was closed.
+     */
+    @Override
+    public void nextBytes(final byte[] theBytes, final int theOffset, final int theLength) {
+        int tempDone = 0;
+        while (tempDone < theLength) {
+            if (myCurrent == null || myPos == myCurrent.length) {
+                nextBlock();
+            }
+            
+            final int tempCount = Math.min(myCurrent.length - myPos, theLength - tempDone);
+            System.arraycopy(myCurrent, myPos, theBytes, theOffset + tempDone, tempCount);
+            myPos += tempCount;
+            tempDone += tempCount;
+        } // END while LOOP
+    } // END nextBytes() METHOD
+    
+    /**
+     * Stops the background thread.
+     */
+    @Override
+    public void close() {
+        myRunning = false;
+        myThread.interrupt();
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns the current block to the generator and takes the next one.
+     */
+    private void nextBlock() {
+        if (!myRunning) {
+            throw new IllegalStateException("Prefetch ring is closed");
+        }
+        
+        if (myCurrent != null) {
+            myEmpty.add(myCurrent);
+            myCurrent = null;
+        }
+        
+        try {
+            myCurrent = myFull.take();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for random bytes", exception);
+        } // END try/catch BLOCK
+        myPos = 0;
+    } // END nextBlock() PRIVATE HELPER METHOD
+    
+    /**
+     * Body of the background thread: fills every used block again.
+     *
+     * @param theGenerator The generator filling the blocks.
+     */
+    private void generate(final AesCtrGenerator theGenerator) {
+        try {
+            while (myRunning) {
+                final byte[] tempBlock = myEmpty.take();
+                theGenerator.nextBytes(tempBlock);
+                myFull.put(tempBlock);
+            } // END while LOOP
+        } catch (final InterruptedException exception) {
+            // Closed
+        } // END try/catch BLOCK
+    } // END generate() PRIVATE HELPER METHOD
+    
+    
+} // END PrefetchRing.java CLASS
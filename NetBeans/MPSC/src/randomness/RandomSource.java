@@ -0,0 +1,25 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package randomness;
+
+/**
+ * A source of cryptographically strong random bytes, filled in bulk.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+@FunctionalInterface
+public interface RandomSource {
+    
+    /**
+     * Fills part of an array with random bytes.
+     *
+     * @param theBytes The array to fill.
+     * @param theOffset The index of the first byte to fill.
+     * @param theLength The number of bytes to fill.
+     */
+    void nextBytes(byte[] theBytes, int theOffset, int theLength);
+    
+    
+} // END RandomSource.java INTERFACE
@@ -0,0 +1,182 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package randomness;
+
+import arithmetic.LongPrimeField;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.security.SecureRandom;
+
+/**
+ * Thread-safe source of random bytes, longs, and field elements, which keeps
+ * an AesCtrGenerator per thread, each seeded from a shared SecureRandom, so
+ * that threads never contend for a lock and every draw is a bulk fill.  The
+ * SecureRandom is only used to seed a thread's generator on its first draw.
+ * A single process-wide instance serves the sharing schemes by default.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class RandomnessService implements RandomSource {
+    
+// CLASS CONSTANTS
+    /** The number of random bytes buffered by each thread for longs. */
+    private static final int BUFFER_BYTES = 1 << 14;
+    
+    /** The process-wide service. */
+    private static final RandomnessService SHARED = new RandomnessService(new SecureRandom());
+    
+    
+// CLASS VARIABLES
+    /** The state of each thread drawing from the service. */
+    private final ThreadLocal<ThreadState> myStates;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a service whose per-thread generators are seeded from the
+     * passed SecureRandom.
+     *
+     * @param theSeeder The source of the seeds.
+     */
+    public RandomnessService(final SecureRandom theSeeder) {
+        myStates = ThreadLocal.withInitial(() -> new ThreadState(newGenerator(theSeeder)));
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the process-wide service.
+     *
+     * @return The shared service.
+     */
+    public static RandomnessService getShared() {
+        return SHARED;
+    }
+    
+    @Override
+    public void nextBytes(final byte[] theBytes, final int theOffset, final int theLength) {
+        myStates.get().myGenerator.nextBytes(theBytes, theOffset, theLength);
+    }
+    
+    /**
+     * Fills part of an array with random longs.
+     *
+     * @param theOut The array to fill.
+     * @param theOffset The index of the first slot to fill.
+     * @param theLength The number of slots to fill.
+     */
+    public void fillLongs(final long[] theOut, final int theOffset, final int theLength) {
+        myStates.get().fillLongs(theOut, theOffset, theLength);
+    }
+    
+    /**
+     * Fills part of an array with uniformly random elements of a field,
+     * drawn by a FieldSampler over the generator of the calling thread.
+     *
+     * @param theField The field to sample.
+     * @param theOut The array to fill.
+     * @param theOffset The index of the first slot to fill.
+     * @param theLength The number of slots to fill.
+     */
+    public void fillElements(final LongPrimeField theField, final long[] theOut,
+                             final int theOffset, final int theLength) {
+        myStates.get().sampler(theField).fill(theOut, theOffset, theLength);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Creates the generator of a thread, seeding it under the lock of the
+     * SecureRandom, which is only taken once per thread.
+     *
+     * @param theSeeder The source of the seeds.
+     * @return The generator.
+     */
+    private static AesCtrGenerator newGenerator(final SecureRandom theSeeder) {
+        synchronized (theSeeder) {
+            return new AesCtrGenerator(theSeeder);
+        } // END synchronized BLOCK
+    }
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * The generator of one thread, with a buffer of random bytes for longs.
+     */
+    private static final class ThreadState {
+        
+        /** The generator of the thread. */
+        private final AesCtrGenerator myGenerator;
+        
+        /** The buffered random bytes. */
+        private final byte[] myBytes;
+        
+        /** The buffered random bytes as little-endian longs. */
+        private final LongBuffer myLongs;
+        
+        /** The sampler of the field last drawn from, or null. */
+        private FieldSampler mySampler;
+        
+        /**
+         * Creates the state of a thread.
+         *
+         * @param theGenerator The generator of the thread.
+         */
+        ThreadState(final AesCtrGenerator theGenerator) {
+            myGenerator = theGenerator;
+            myBytes = new byte[BUFFER_BYTES];
+            myLongs = ByteBuffer.wrap(myBytes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            myLongs.position(myLongs.limit());
+        }
+        
+        /**
+         * Fills part of an array with random longs.
+         *
+         * @param theOut The array to fill.
+         * @param theOffset The index of the first slot to fill.
+         * @param theLength The number of slots to fill.
+         */
+        void fillLongs(final long[] theOut, final int theOffset, final int theLength) {
+            int tempDone = 0;
+            while (tempDone < theLength) {
+                if (!myLongs.hasRemaining()) {
+                    refill();
+                }
+                final int tempCount = Math.min(myLongs.remaining(), theLength - tempDone);
+                myLongs.get(theOut, theOffset + tempDone, tempCount);
+                tempDone += tempCount;
+            } // END while LOOP
+        }
+        
+        /**
+         * Returns a sampler of a field over the generator of the thread,
+         * reusing the last one if it samples the same field.
+         *
+         * @param theField The field to sample.
+         * @return The sampler.
+         */
+        FieldSampler sampler(final LongPrimeField theField) {
+            if (mySampler == null || mySampler.getPrime() != theField.getPrime()) {
+                mySampler = new FieldSampler(theField, myGenerator);
+            }
+            return mySampler;
+        }
+        
+        /**
+         * Refills the buffer from the generator.
+         */
+        private void refill() {
+            myGenerator.nextBytes(myBytes, 0, BUFFER_BYTES);
+            myLongs.clear();
+        }
+    } // END ThreadState PRIVATE CLASS
+    
+    
+} // END RandomnessService.java CLASS
@@ -3,6 +3,14 @@
  */
 package runners;
 
+import files.GroupCompInitializationFileInterpreter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import network.NetworkProfile;
+
 /**
  * Utility class to provide a MAIN method to run the MPSC software.
  *
@@ -11,6 +19,12 @@ package runners;
  */
 public final class MPSCmain {
 
+// CLASS CONSTANTS
+    /** String constant holding the usage of the command line. */
+    private static final String USAGE =
+            "Usage: MPSCmain <group file> [slots] [threshold] [seed] [links file]";
+    
+    
 // CONSTRUCTOR(S)
     /**
      * Private constructor for the MPSCmain class to prevent instantiation.
@@ -22,12 +36,84 @@ public final class MPSCmain {
     
 // PUBLIC METHODS
     /**
-     * Main Method to run MPSC software.
+     * Main Method to run MPSC software, which simulates the group computation
+     * of the passed group computation initialization file in process with an
+     * MPSCrunner and prints its report.  The threshold defaults to the size
+     * of the group, which selects additive sharing.  With a links file, the
+     * parties are connected through the links it emulates, as read by
+     * NetworkProfile.load().
      * 
-     * @param theArgs Passed command line arguments
+     * @param theArgs Passed command line arguments: the group file, then
+     *                optionally the number of slots, the threshold, the seed
+     *                of the inputs, and the links file.
      */
     public static void main(final String[] theArgs) {
-        // TODO code application logic here
-    }
+        if (theArgs.length < 1) {
+            System.out.println(USAGE);
+            return;
+        }
+        
+        final GroupCompInitializationFileInterpreter tempGroup =
+                new GroupCompInitializationFileInterpreter(theArgs[0]);
+        if (!tempGroup.isLoaded()) {
+            System.out.println("Could not load the group file " + theArgs[0]);
+            return;
+        }
+        
+        Path tempDir = null;
+        try {
+            final int tempSlots = theArgs.length > 1 ? Integer.parseInt(theArgs[1])
+                                                     : MPSCrunner.DEFAULT_SLOTS;
+            final int tempThreshold = theArgs.length > 2 ? Integer.parseInt(theArgs[2])
+                                                         : tempGroup.getGrpSize();
+            final long tempSeed = theArgs.length > 3 ? Long.parseLong(theArgs[3])
+                                                     : MPSCrunner.DEFAULT_SEED;
+            
+            tempDir = Files.createTempDirectory("mpsc-triples");
+            final MPSCrunner tempRunner = new MPSCrunner(tempGroup, tempThreshold, tempSlots,
+                                                         tempDir, tempSeed);
+            if (theArgs.length > 4) {
+                tempRunner.setNetworkProfile(NetworkProfile.load(tempGroup, theArgs[4]));
+            }
+            tempRunner.run();
+            System.out.println(tempRunner.getReport());
+        } catch (final IOException exception) {
+            System.out.println("IO Exception running the group: " + exception.getMessage());
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (final IllegalArgumentException | IllegalStateException exception) {
+            System.out.println(exception.getMessage() + "\n" + USAGE);
+        } finally {
+            deleteTree(tempDir);
+        } // END try/catch BLOCK
+    } // END main() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Deletes a directory and everything in it.
+     *
+     * @param theDir The directory, or null.
+     */
+    private static void deleteTree(final Path theDir) {
+        if (theDir == null) {
+            return;
+        }
+        
+        try (Stream<Path> tempPaths = Files.walk(theDir)) {
+            tempPaths.sorted(Comparator.reverseOrder()).forEach(tempPath -> {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (final IOException exception) {
+                    System.out.println("IO Exception deleting " + tempPath + ": "
+                                       + exception.getMessage());
+                } // END try/catch BLOCK
+            });
+        } catch (final IOException exception) {
+            System.out.println("IO Exception deleting " + theDir + ": " + exception.getMessage());
+        } // END try-with-resources BLOCK
+    } // END deleteTree() PRIVATE HELPER METHOD
+    
     
-}
+} // END MPSCmain.java CLASS
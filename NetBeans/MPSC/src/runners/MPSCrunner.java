@@ -1,14 +1,507 @@
 /*
- * To change this license header, choose License Headers in Project Properties.
- * To change this template file, choose Tools | Templates
- * and open the template in the editor.
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
  */
 package runners;
 
+import arithmetic.LongPrimeField;
+import circuits.Circuit;
+import circuits.CircuitCompiler;
+import circuits.CircuitEvaluator;
+import circuits.MultiplicationRound;
+import circuits.PlainMultiplicationRound;
+import files.GroupCompInitializationFileInterpreter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import network.LocalNetwork;
+import network.NetworkEmulator;
+import network.NetworkProfile;
+import network.PeerTransport;
+import network.ShareExchange;
+import preprocessing.BeaverMultiplicationRound;
+import preprocessing.TriplePreprocessor;
+import randomness.AesCtrGenerator;
+import randomness.FieldSampler;
+import sharing.SecretSharer;
+import sharing.SharingFactory;
+
 /**
+ * In-process simulator of a group computation.  Every player of a group
+ * computation initialization file runs as a party on its own thread, and
+ * the parties are connected by a LocalNetwork, without sockets.  The group
+ * function is evaluated end to end on seeded random inputs, one per player
+ * and slot: the inputs are shared in round 0, each level of multiplicative
+ * depth is one round of Beaver multiplication with triples dealt beforehand
+ * by a TriplePreprocessor, and the output is opened in the last round.  The
+ * result is checked against the function evaluated in the clear, and the
+ * latency of every round and the throughput are reported.  With a
+ * NetworkProfile set, the parties are connected through a NetworkEmulator,
+ * so that the rounds cost what they would over the emulated links.
  *
- * @author jamster
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
  */
-public class MPSCrunner {
+public final class MPSCrunner {
+    
+// CLASS CONSTANTS
+    /** The default number of slots evaluated at once. */
+    public static final int DEFAULT_SLOTS = 1024;
+    
+    /** The default seed of the inputs. */
+    public static final long DEFAULT_SEED = 1L;
+    
+    /** The largest number of longs in a message between parties. */
+    private static final int MAX_MESSAGE_LONGS = 1 << 10;
+    
+    /** The largest number of messages in the inbound queue of a party. */
+    private static final int MAX_QUEUE_MESSAGES = 1 << 8;
+    
+    /** The number of longs of triples split at once for the whole group. */
+    private static final int DEAL_LONGS = 1 << 20;
+    
+    /** The number of bytes in the seed of a generator. */
+    private static final int SEED_BYTES = 32;
+    
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1e6;
+    
+    /** The number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+    
+    
+// CLASS VARIABLES
+    /** The interpreted group computation initialization file. */
+    private final GroupCompInitializationFileInterpreter myGroup;
+    
+    /** The compiled group function. */
+    private final Circuit myCircuit;
+    
+    /** The field of the computation. */
+    private final LongPrimeField myField;
+    
+    /** The sharing scheme of the group. */
+    private final SecretSharer mySharer;
+    
+    /** The number of slots evaluated at once. */
+    private final int mySlots;
+    
+    /** The seed of the inputs. */
+    private final long mySeed;
+    
+    /** The directory of the triple stores. */
+    private final Path myTripleDir;
+    
+    /** The index of every player. */
+    private final int[] myPlayers;
+    
+    /** The emulated links between the parties, or null for none. */
+    private NetworkProfile myNetworkProfile;
+    
+    /** The first exception thrown by a party, or null. */
+    private final AtomicReference<Exception> myFailure;
+    
+    /** The time at which the parties started, from System.nanoTime(). */
+    private long myStart;
+    
+    /** The time taken to deal the triples, in nanoseconds. */
+    private long myDealNanos;
+    
+    /** The time at which each party finished each round. */
+    private long[][] myRoundEnds;
+    
+    /** The output of the function evaluated in the clear. */
+    private long[] myExpected;
+    
+    /** The output opened by each party. */
+    private long[][] myOutputs;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a simulation of a group computation.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param theThreshold The number of shares needed to reconstruct, the
+     *                     size of the group for additive sharing.
+     * @param theSlots The number of slots evaluated at once.
+     * @param theTripleDir The directory of the triple stores.
+     * @param theSeed The seed of the inputs.
+     * @throws IllegalArgumentException If the function or data type of the
+     *                                  group cannot be computed.
+     */
+    public MPSCrunner(final GroupCompInitializationFileInterpreter theGroup, final int theThreshold,
+                      final int theSlots, final Path theTripleDir, final long theSeed) {
+        if (theSlots < 1) {
+            throw new IllegalArgumentException("Invalid number of slots: " + theSlots);
+        }
+        
+        myGroup = theGroup;
+        myCircuit = CircuitCompiler.compile(theGroup);
+        mySharer = SharingFactory.forGroup(theGroup, theThreshold);
+        myField = mySharer.getField();
+        mySlots = theSlots;
+        myTripleDir = theTripleDir;
+        mySeed = theSeed;
+        myFailure = new AtomicReference<>();
+        
+        myPlayers = new int[theGroup.getGrpSize()];
+        for (int j = 0; j < myPlayers.length; j++) {
+            myPlayers[j] = j;
+        }
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Runs the simulation: deals the triples, then runs every party until
+     * the output is opened.
+     *
+     * @throws IOException If the triple stores cannot be opened.
+     * @throws InterruptedException If interrupted while waiting for the
+     *                              parties.
+     * @throws IllegalStateException If a party fails.
+     */
+    public void run() throws IOException, InterruptedException {
+        final long[][] tempInputs = randomInputs();
+        myExpected = new CircuitEvaluator(myCircuit, new PlainMultiplicationRound(myField), true)
+                         .evaluate(tempInputs);
+        
+        final long tempTriples = (long) myCircuit.getNumMuls() * mySlots;
+        TriplePreprocessor tempDealer = null;
+        try {
+            if (tempTriples > 0) {
+                tempDealer = new TriplePreprocessor(mySharer, myTripleDir, tempTriples, 0L,
+                                                    dealBatch());
+                final long tempDealStart = System.nanoTime();
+                tempDealer.start();
+                tempDealer.awaitFilled();
+                myDealNanos = System.nanoTime() - tempDealStart;
+            }
+            
+            runParties(tempInputs, tempDealer);
+        } finally {
+            if (tempDealer != null) {
+                tempDealer.close();
+            }
+        } // END try/finally BLOCK
+        
+        if (myFailure.get() != null) {
+            throw new IllegalStateException("A party failed", myFailure.get());
+        }
+    } // END run() METHOD
+    
+    /**
+     * Returns whether every party opened the output of the function
+     * evaluated in the clear.
+     *
+     * @return true if the simulation computed the function correctly.
+     */
+    public boolean isCorrect() {
+        if (myOutputs == null) {
+            return false;
+        }
+        for (final long[] tempOutput : myOutputs) {
+            if (!Arrays.equals(tempOutput, myExpected)) {
+                return false;
+            }
+        }
+        return true;
+    } // END isCorrect() METHOD
+    
+    /**
+     * Returns the time from the start of the parties until the last one
+     * opened the output.
+     *
+     * @return The time of the online phase, in nanoseconds.
+     */
+    public long getOnlineNanos() {
+        long tempEnd = myStart;
+        for (final long[] tempEnds : myRoundEnds) {
+            tempEnd = Math.max(tempEnd, tempEnds[tempEnds.length - 1]);
+        }
+        return tempEnd - myStart;
+    }
+    
+    /**
+     * Returns the time a party took for a round.
+     *
+     * @param thePlayer The index of the party.
+     * @param theRound The round, from 0 for the inputs to the multiplicative
+     *                 depth plus 1 for the output.
+     * @return The latency of the round, in nanoseconds.
+     */
+    public long getRoundNanos(final int thePlayer, final int theRound) {
+        final long[] tempEnds = myRoundEnds[thePlayer];
+        return tempEnds[theRound] - (theRound == 0 ? myStart : tempEnds[theRound - 1]);
+    }
+    
+    /**
+     * Returns a report of the simulation: its size, the time to deal the
+     * triples, the throughput of the online phase, and the mean and largest
+     * latency of every round over the parties.
+     *
+     * @return The report.
+     */
+    public String getReport() {
+        final double tempOnline = getOnlineNanos() / NANOS_PER_SECOND;
+        final StringBuilder tempReport = new StringBuilder();
+        
+        tempReport.append(String.format("Players: %d, threshold: %d, slots: %d, function: %s%n",
+                                        myPlayers.length, mySharer.getThreshold(), mySlots,
+                                        myGroup.getFuncStr()));
+        tempReport.append(String.format("Multiplications: %d, depth: %d, rounds: %d%n",
+                                        myCircuit.getNumMuls(), myCircuit.getMulDepth(),
+                                        myCircuit.getMulDepth() + 2));
+        if (myNetworkProfile != null) {
+            tempReport.append(String.format("Network: emulated, link 0 to 1: %s%n",
+                                            myNetworkProfile.getLink(0, Math.min(1,
+                                                                 myPlayers.length - 1))));
+        }
+        tempReport.append(String.format("Triples dealt: %d in %.1f ms%n",
+                                        (long) myCircuit.getNumMuls() * mySlots,
+                                        myDealNanos / NANOS_PER_MILLI));
+        tempReport.append(String.format("Online: %.1f ms, %.0f evaluations/s, "
+                                        + "%.0f multiplications/s%n",
+                                        tempOnline * 1e3, mySlots / tempOnline,
+                                        myCircuit.getNumMuls() * (double) mySlots / tempOnline));
+        
+        tempReport.append(String.format("%8s %12s %12s%n", "Round", "Mean ms", "Max ms"));
+        for (int r = 0; r < myCircuit.getMulDepth() + 2; r++) {
+            long tempSum = 0L;
+            long tempMax = 0L;
+            for (int j = 0; j < myPlayers.length; j++) {
+                final long tempNanos = getRoundNanos(j, r);
+                tempSum += tempNanos;
+                tempMax = Math.max(tempMax, tempNanos);
+            }
+            tempReport.append(String.format("%8d %12.3f %12.3f%n", r,
+                                            tempSum / (double) myPlayers.length / NANOS_PER_MILLI,
+                                            tempMax / NANOS_PER_MILLI));
+        } // END for LOOP
+        
+        tempReport.append("Output correct: ").append(isCorrect());
+        return tempReport.toString();
+    } // END getReport() METHOD
+    
+    /**
+     * Connects the parties through emulated links, or directly if null.
+     *
+     * @param theProfile The profile of the links between the players of
+     *                   the group, or null.
+     * @throws IllegalArgumentException If the profile is not of the group.
+     */
+    public void setNetworkProfile(final NetworkProfile theProfile) {
+        if (theProfile != null && theProfile.getNumPlayers() != myPlayers.length) {
+            throw new IllegalArgumentException("Network profile is not of the group");
+        }
+        myNetworkProfile = theProfile;
+    }
+    
+  // GETTERS
+    /**
+     * Getter for the compiled group function.
+     *
+     * @return myCircuit
+     */
+    public Circuit getCircuit() {
+        return myCircuit;
+    }
+    
+    /**
+     * Getter for the time taken to deal the triples.
+     *
+     * @return myDealNanos
+     */
+    public long getDealNanos() {
+        return myDealNanos;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Starts a thread per party, releases them together, and waits for all.
+     * The parties are connected through the emulated links, if any.
+     *
+     * @param theInputs The input of each player.
+     * @param theDealer The source of the triples, or null if none are used.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void runParties(final long[][] theInputs, final TriplePreprocessor theDealer)
+                            throws InterruptedException {
+        final int tempPlayers = myPlayers.length;
+        final LocalNetwork tempNetwork = newNetwork();
+        final NetworkEmulator tempEmulator = myNetworkProfile == null ? null
+                : new NetworkEmulator(myNetworkProfile, mySeed);
+        final PeerTransport[] tempTransports = new PeerTransport[tempPlayers];
+        for (int j = 0; j < tempPlayers; j++) {
+            tempTransports[j] = tempEmulator == null ? tempNetwork.getTransport(j)
+                                : tempEmulator.wrap(tempNetwork.getTransport(j));
+        }
+        final CountDownLatch tempGate = new CountDownLatch(1);
+        final Thread[] tempThreads = new Thread[tempPlayers];
+        myRoundEnds = new long[tempPlayers][myCircuit.getMulDepth() + 2];
+        myOutputs = new long[tempPlayers][];
+        
+        for (int j = 0; j < tempPlayers; j++) {
+            final int tempPlayer = j;
+            tempThreads[j] = new Thread(() -> {
+                try {
+                    tempGate.await();
+                    runParty(tempTransports[tempPlayer], theInputs[tempPlayer], theDealer);
+                } catch (final InterruptedException | RuntimeException exception) {
+                    myFailure.compareAndSet(null, exception);
+                } // END try/catch BLOCK
+            }, "party-" + j);
+            tempThreads[j].start();
+        } // END for LOOP
+        
+        myStart = System.nanoTime();
+        tempGate.countDown();
+        try {
+            for (final Thread tempThread : tempThreads) {
+                tempThread.join();
+            }
+        } finally {
+            if (tempEmulator != null) {
+                tempEmulator.close();
+            }
+        } // END try/finally BLOCK
+    } // END runParties() PRIVATE HELPER METHOD
+    
+    /**
+     * Body of a party: shares its input, evaluates the circuit over the
+     * shares, and opens the output.
+     *
+     * @param theTransport The transport of the party.
+     * @param theInput The input of the party, one per slot.
+     * @param theDealer The source of the triples, or null if none are used.
+     */
+    private void runParty(final PeerTransport theTransport, final long[] theInput,
+                          final TriplePreprocessor theDealer) {
+        final int tempPlayers = myPlayers.length;
+        final int tempPlayer = theTransport.getPlayer();
+        final int tempLast = myCircuit.getMulDepth() + 1;
+        final long[] tempEnds = myRoundEnds[tempPlayer];
+        final ShareExchange tempExchange = new ShareExchange(theTransport,
+                                                             ShareExchange.DEFAULT_TIMEOUT_MILLIS);
+        
+        // Round 0: every party shares its input with the others
+        final long[][] tempInputs = open(tempExchange, 0, mySharer.split(theInput), tempPlayer);
+        tempEnds[0] = System.nanoTime();
+        
+        // Rounds 1 to the depth: one round of Beaver multiplication per level
+        final MultiplicationRound tempBeaver = theDealer == null ? null
+                : new BeaverMultiplicationRound(mySharer, tempExchange, theDealer, tempPlayer);
+        final CircuitEvaluator tempEvaluator = new CircuitEvaluator(myCircuit,
+                (theRound, theLefts, theRights, theOuts) -> {
+                    tempBeaver.multiply(theRound, theLefts, theRights, theOuts);
+                    tempEnds[theRound] = System.nanoTime();
+                }, SharingFactory.addsConstants(mySharer, tempPlayer));
+        final long[] tempOutput = tempEvaluator.evaluate(tempInputs);
+        
+        // Last round: every party opens the output
+        final long[][] tempOut = new long[tempPlayers][];
+        Arrays.fill(tempOut, tempOutput);
+        myOutputs[tempPlayer] = mySharer.reconstruct(myPlayers,
+                                                     open(tempExchange, tempLast, tempOut,
+                                                          tempPlayer));
+        tempEnds[tempLast] = System.nanoTime();
+        theTransport.close();
+    } // END runParty() PRIVATE HELPER METHOD
+    
+    /**
+     * Sends a vector to each player and gathers the vector each sends.
+     *
+     * @param theExchange The exchange of the party.
+     * @param theRound The round.
+     * @param theOut The vector for each player, that of this party kept.
+     * @param thePlayer The index of this party.
+     * @return The vector from each player.
+     */
+    private long[][] open(final ShareExchange theExchange, final int theRound,
+                          final long[][] theOut, final int thePlayer) {
+        final long[][][] tempOut = new long[theOut.length][][];
+        final long[][][] tempIn = new long[theOut.length][][];
+        for (int j = 0; j < theOut.length; j++) {
+            tempOut[j] = new long[][] {theOut[j]};
+            tempIn[j] = new long[][] {j == thePlayer ? theOut[j] : new long[mySlots]};
+        }
+        
+        theExchange.exchange(theRound, tempOut, tempIn);
+        
+        final long[][] tempVectors = new long[theOut.length][];
+        for (int j = 0; j < theOut.length; j++) {
+            tempVectors[j] = tempIn[j][0];
+        }
+        return tempVectors;
+    } // END open() PRIVATE HELPER METHOD
+    
+    /**
+     * Draws the input of every player from a generator seeded with the seed
+     * of the simulation.
+     *
+     * @return The input of each player, one field element per slot.
+     */
+    private long[][] randomInputs() {
+        final byte[] tempSeed = ByteBuffer.allocate(SEED_BYTES).putLong(mySeed).array();
+        final FieldSampler tempSampler = new FieldSampler(myField, new AesCtrGenerator(tempSeed));
+        
+        final long[][] tempInputs = new long[myPlayers.length][mySlots];
+        for (final long[] tempInput : tempInputs) {
+            tempSampler.fill(tempInput, 0, mySlots);
+        }
+        return tempInputs;
+    } // END randomInputs() PRIVATE HELPER METHOD
+    
+    /**
+     * Creates the network of the parties, with messages no longer than a
+     * vector and inbound queues which hold two rounds of messages where that
+     * is small enough; larger rounds are deferred by the senders.
+     *
+     * @return The network.
+     */
+    private LocalNetwork newNetwork() {
+        final int tempMaxLongs = Math.min(mySlots, MAX_MESSAGE_LONGS);
+        final long tempMessages = (long) Math.max(1, 2 * maxLayerMuls())
+                                  * ((mySlots + tempMaxLongs - 1) / tempMaxLongs);
+        final long tempCapacity = 2 * (myPlayers.length - 1) * tempMessages;
+        
+        return new LocalNetwork(myPlayers.length,
+                                (int) Math.max(2, Math.min(MAX_QUEUE_MESSAGES, tempCapacity)),
+                                tempMaxLongs);
+    } // END newNetwork() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the largest number of MUL gates at one depth of the circuit.
+     *
+     * @return The most products of a round.
+     */
+    private int maxLayerMuls() {
+        final int[] tempCounts = new int[myCircuit.getMulDepth() + 1];
+        int tempMax = 0;
+        for (int g = 0; g < myCircuit.getNumGates(); g++) {
+            if (myCircuit.getKind(g) == Circuit.MUL) {
+                tempMax = Math.max(tempMax, ++tempCounts[myCircuit.getDepth(g)]);
+            }
+        }
+        return tempMax;
+    } // END maxLayerMuls() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the number of triples dealt at once, so that a batch split
+     * for the whole group stays within DEAL_LONGS.
+     *
+     * @return The batch of the dealer.
+     */
+    private int dealBatch() {
+        return Math.max(1, Math.min(TriplePreprocessor.BATCH, DEAL_LONGS / myPlayers.length));
+    }
+    
     
-}
+} // END MPSCrunner.java CLASS
@@ -0,0 +1,177 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import arithmetic.LongPrimeField;
+import randomness.FieldSampler;
+import randomness.RandomSource;
+import randomness.RandomnessService;
+
+/**
+ * Additive n-of-n secret sharing.  Every player but the last receives a
+ * uniformly random share, and the last receives the secret minus the sum of
+ * the others, so that the shares of all the players sum to the secret and
+ * any fewer of them reveal nothing.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class AdditiveSharing implements SecretSharer {
+    
+// CLASS CONSTANTS
+    /** The number of secrets processed together by each pass. */
+    private static final int BLOCK = SharingFactory.BLOCK;
+    
+    
+// CLASS VARIABLES
+    /** The field in which the shares are computed. */
+    private final LongPrimeField myField;
+    
+    /** The number of players. */
+    private final int myNumPlayers;
+    
+    /** The source of random shares. */
+    private final FieldSampler mySampler;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an additive sharing between the passed number of players,
+     * drawing its randomness from the shared RandomnessService.
+     *
+     * @param theField The field in which the shares are computed.
+     * @param theNumPlayers The number of players, at least 1.
+     */
+    public AdditiveSharing(final LongPrimeField theField, final int theNumPlayers) {
+        this(theField, theNumPlayers, RandomnessService.getShared());
+    }
+    
+    /**
+     * Creates an additive sharing between the passed number of players.
+     *
+     * @param theField The field in which the shares are computed.
+     * @param theNumPlayers The number of players, at least 1.
+     * @param theRandom The source of randomness.
+     */
+    public AdditiveSharing(final LongPrimeField theField, final int theNumPlayers,
+                           final RandomSource theRandom) {
+        if (theNumPlayers < 1) {
+            throw new IllegalArgumentException("Number of players must be positive");
+        }
+        
+        myField = theField;
+        myNumPlayers = theNumPlayers;
+        mySampler = new FieldSampler(theField, theRandom);
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public long[][] split(final long[] theSecrets) {
+        final long[][] tempShares = new long[myNumPlayers][theSecrets.length];
+        split(theSecrets, tempShares);
+        return tempShares;
+    }
+    
+    @Override
+    public void split(final long[] theSecrets, final long[][] theShares) {
+        if (theShares.length != myNumPlayers) {
+            throw new IllegalArgumentException("Expected " + myNumPlayers
+                                               + " vectors of shares, got " + theShares.length);
+        }
+        
+        final int tempLen = theSecrets.length;
+        final long[] tempLast = theShares[myNumPlayers - 1];
+        
+        for (int tempOff = 0; tempOff < tempLen; tempOff += BLOCK) {
+            final int tempEnd = Math.min(tempLen, tempOff + BLOCK);
+            System.arraycopy(theSecrets, tempOff, tempLast, tempOff, tempEnd - tempOff);
+            
+            for (int j = 0; j < myNumPlayers - 1; j++) {
+                final long[] tempShare = theShares[j];
+                mySampler.fill(tempShare, tempOff, tempEnd - tempOff);
+                for (int i = tempOff; i < tempEnd; i++) {
+                    tempLast[i] = myField.sub(tempLast[i], tempShare[i]);
+                }
+            } // END for LOOP
+        } // END for LOOP
+    } // END split() METHOD
+    
+    @Override
+    public long[] reconstruct(final int[] thePlayers, final long[][] theShares) {
+        final long[] tempOut = new long[theShares[0].length];
+        reconstruct(thePlayers, theShares, tempOut);
+        return tempOut;
+    }
+    
+    @Override
+    public void reconstruct(final int[] thePlayers, final long[][] theShares,
+                            final long[] theOut) {
+        checkPlayers(thePlayers, theShares);
+        
+        final int tempLen = theOut.length;
+        for (int tempOff = 0; tempOff < tempLen; tempOff += BLOCK) {
+            final int tempEnd = Math.min(tempLen, tempOff + BLOCK);
+            System.arraycopy(theShares[0], tempOff, theOut, tempOff, tempEnd - tempOff);
+            
+            for (int j = 1; j < myNumPlayers; j++) {
+                final long[] tempShare = theShares[j];
+                for (int i = tempOff; i < tempEnd; i++) {
+                    theOut[i] = myField.add(theOut[i], tempShare[i]);
+                }
+            } // END for LOOP
+        } // END for LOOP
+    } // END reconstruct() METHOD
+    
+  // GETTERS
+    @Override
+    public LongPrimeField getField() {
+        return myField;
+    }
+    
+    @Override
+    public int getNumPlayers() {
+        return myNumPlayers;
+    }
+    
+    /**
+     * Returns the number of shares needed to reconstruct a secret, which for
+     * additive sharing is every share.
+     *
+     * @return myNumPlayers
+     */
+    @Override
+    public int getThreshold() {
+        return myNumPlayers;
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks that the shares of every player are passed, each exactly once.
+     *
+     * @param thePlayers The indices of the players whose shares are passed.
+     * @param theShares The vectors of shares.
+     * @throws IllegalArgumentException If a player is missing or repeated.
+     */
+    private void checkPlayers(final int[] thePlayers, final long[][] theShares) {
+        if (thePlayers.length != myNumPlayers || theShares.length != myNumPlayers) {
+            throw new IllegalArgumentException("Additive sharing needs the shares of all "
+                                               + myNumPlayers + " players");
+        }
+        
+        final boolean[] tempSeen = new boolean[myNumPlayers];
+        for (final int tempPlayer : thePlayers) {
+            if (tempPlayer < 0 || tempPlayer >= myNumPlayers || tempSeen[tempPlayer]) {
+                throw new IllegalArgumentException("Invalid or repeated player: " + tempPlayer);
+            }
+            tempSeen[tempPlayer] = true;
+        } // END for LOOP
+    } // END checkPlayers() PRIVATE HELPER METHOD
+    
+    
+} // END AdditiveSharing.java CLASS
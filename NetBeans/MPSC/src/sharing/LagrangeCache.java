@@ -0,0 +1,241 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import arithmetic.LongPrimeField;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used cache of Lagrange coefficients, keyed by an
+ * ordered list of players and the point at which their shares are to be
+ * interpolated.  Player j evaluates the sharing polynomial at x = j + 1, so
+ * that interpolating at 0 recovers the secret.  With the coefficients cached,
+ * reconstructing a vector of secrets is one dot product per secret, and the
+ * modular inversions are paid once per player set rather than once per
+ * secret.  The coefficients are computed with a single inversion, by
+ * inverting the product of every denominator at once.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class LagrangeCache {
+    
+// CLASS CONSTANTS
+    /** The default largest number of player sets held by the cache. */
+    public static final int DEFAULT_CAPACITY = 64;
+    
+    
+// CLASS VARIABLES
+    /** The field of the coefficients. */
+    private final LongPrimeField myField;
+    
+    /** The cached coefficients in access order, guarded by its own lock. */
+    private final Map<CacheKey, long[]> myCoeffs;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates an empty cache of coefficients in the passed field, holding at
+     * most DEFAULT_CAPACITY player sets.
+     *
+     * @param theField The field of the coefficients.
+     */
+    public LagrangeCache(final LongPrimeField theField) {
+        this(theField, DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Creates an empty cache of coefficients in the passed field.
+     *
+     * @param theField The field of the coefficients.
+     * @param theCapacity The largest number of player sets held by the cache.
+     */
+    public LagrangeCache(final LongPrimeField theField, final int theCapacity) {
+        if (theCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        
+        myField = theField;
+        myCoeffs = new LinkedHashMap<CacheKey, long[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<CacheKey, long[]> theEldest) {
+                return size() > theCapacity;
+            }
+        };
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the Lagrange coefficients which interpolate the shares of the
+     * passed players at the passed point, computing them only if they are
+     * not already cached.  The returned array is shared by every caller and
+     * must not be modified.
+     *
+     * @param thePlayers The distinct indices of the players, in the order of
+     *                   the shares to be interpolated.
+     * @param thePoint The canonical value of the point, 0 for the secret.
+     * @return The coefficients, in the internal representation of the field,
+     *         in the order of thePlayers.
+     * @throws IllegalArgumentException If a player is listed twice.
+     */
+    public long[] getCoefficients(final int[] thePlayers, final long thePoint) {
+        final CacheKey tempKey = new CacheKey(thePlayers.clone(), thePoint);
+        
+        long[] tempCoeffs;
+        synchronized (myCoeffs) {
+            tempCoeffs = myCoeffs.get(tempKey);
+        } // END synchronized BLOCK
+        
+        if (tempCoeffs == null) {
+            tempCoeffs = compute(tempKey.myPlayers, thePoint);
+            synchronized (myCoeffs) {
+                myCoeffs.put(tempKey, tempCoeffs);
+            } // END synchronized BLOCK
+        }
+        
+        return tempCoeffs;
+    } // END getCoefficients() METHOD
+    
+    /**
+     * Removes every player set from the cache.
+     */
+    public void clear() {
+        synchronized (myCoeffs) {
+            myCoeffs.clear();
+        } // END synchronized BLOCK
+    }
+    
+  // GETTERS
+    /**
+     * Getter for the field of the coefficients.
+     *
+     * @return myField
+     */
+    public LongPrimeField getField() {
+        return myField;
+    }
+    
+    /**
+     * Returns the number of player sets currently held by the cache.
+     *
+     * @return The number of cached player sets.
+     */
+    public int getSize() {
+        synchronized (myCoeffs) {
+            return myCoeffs.size();
+        } // END synchronized BLOCK
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Computes the Lagrange coefficients of the passed players at the passed
+     * point.  The k-th coefficient is the product over m != k of
+     * (x - x_m) / (x_k - x_m); the denominators are inverted together.
+     *
+     * @param thePlayers The distinct indices of the players.
+     * @param thePoint The canonical value of the point.
+     * @return The coefficients.
+     */
+    private long[] compute(final int[] thePlayers, final long thePoint) {
+        final int tempCount = thePlayers.length;
+        final long[] tempX = new long[tempCount];
+        for (int k = 0; k < tempCount; k++) {
+            tempX[k] = myField.fromLong(thePlayers[k] + 1L);
+        }
+        final long tempPoint = myField.fromLong(thePoint);
+        
+        final long[] tempNums = new long[tempCount];
+        final long[] tempDens = new long[tempCount];
+        for (int k = 0; k < tempCount; k++) {
+            long tempNum = myField.one();
+            long tempDen = myField.one();
+            for (int m = 0; m < tempCount; m++) {
+                if (m != k) {
+                    if (tempX[m] == tempX[k]) {
+                        throw new IllegalArgumentException("Player listed twice: "
+                                                           + thePlayers[k]);
+                    }
+                    tempNum = myField.mul(tempNum, myField.sub(tempPoint, tempX[m]));
+                    tempDen = myField.mul(tempDen, myField.sub(tempX[k], tempX[m]));
+                }
+            } // END for LOOP
+            tempNums[k] = tempNum;
+            tempDens[k] = tempDen;
+        } // END for LOOP
+        
+        // Prefix products of the denominators, then one inversion of them all
+        final long[] tempPrefix = new long[tempCount];
+        long tempAcc = myField.one();
+        for (int k = 0; k < tempCount; k++) {
+            tempPrefix[k] = tempAcc;
+            tempAcc = myField.mul(tempAcc, tempDens[k]);
+        }
+        
+        long tempInv = myField.inv(tempAcc);
+        final long[] tempCoeffs = new long[tempCount];
+        for (int k = tempCount - 1; k >= 0; k--) {
+            tempCoeffs[k] = myField.mul(tempNums[k], myField.mul(tempInv, tempPrefix[k]));
+            tempInv = myField.mul(tempInv, tempDens[k]);
+        } // END for LOOP
+        
+        return tempCoeffs;
+    } // END compute() PRIVATE HELPER METHOD
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * Key of the cache, made of the ordered player indices and the point.
+     */
+    private static final class CacheKey {
+        
+        /** The indices of the players. */
+        private final int[] myPlayers;
+        
+        /** The canonical value of the point. */
+        private final long myPoint;
+        
+        /** The hash code, computed once. */
+        private final int myHash;
+        
+        /**
+         * Creates a key of the cache.
+         *
+         * @param thePlayers The indices of the players, not copied.
+         * @param thePoint The canonical value of the point.
+         */
+        CacheKey(final int[] thePlayers, final long thePoint) {
+            myPlayers = thePlayers;
+            myPoint = thePoint;
+            myHash = 31 * Arrays.hashCode(thePlayers) + Long.hashCode(thePoint);
+        }
+        
+        @Override
+        public boolean equals(final Object theOther) {
+            if (!(theOther instanceof CacheKey)) {
+                return false;
+            }
+            
+            final CacheKey tempOther = (CacheKey) theOther;
+            return myHash == tempOther.myHash && myPoint == tempOther.myPoint
+                   && Arrays.equals(myPlayers, tempOther.myPlayers);
+        }
+        
+        @Override
+        public int hashCode() {
+            return myHash;
+        }
+    } // END CacheKey PRIVATE CLASS
+    
+    
+} // END LagrangeCache.java CLASS
@@ -0,0 +1,90 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import arithmetic.LongPrimeField;
+
+/**
+ * A scheme for splitting vectors of secret field elements into shares for
+ * the players of a group, and for reconstructing them from the shares.
+ * Shares are laid out as one vector per player, so that theShares[j][i] is
+ * the share of the i-th secret held by the j-th player.  Elements are in the
+ * internal representation of the LongPrimeField of the scheme.
+ *
+ * <p>Splitting draws randomness from a source owned by the scheme and must
+ * not be called by several threads at once; reconstructing may be.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public interface SecretSharer {
+    
+  // GETTERS
+    /**
+     * Returns the field in which the shares are computed.
+     *
+     * @return The field of the scheme.
+     */
+    LongPrimeField getField();
+    
+    /**
+     * Returns the number of players the secrets are split between.
+     *
+     * @return The number of shares of each secret.
+     */
+    int getNumPlayers();
+    
+    /**
+     * Returns the number of shares needed to reconstruct a secret.
+     *
+     * @return The threshold of the scheme.
+     */
+    int getThreshold();
+    
+  // SPLITTING
+    /**
+     * Splits a vector of secrets into one vector of shares per player.
+     *
+     * @param theSecrets The secrets.
+     * @return The shares, indexed by player and then by secret.
+     */
+    long[][] split(long[] theSecrets);
+    
+    /**
+     * Splits a vector of secrets into preallocated vectors of shares.
+     *
+     * @param theSecrets The secrets.
+     * @param theShares Receives the shares; one vector per player, each at
+     *                  least as long as theSecrets.
+     */
+    void split(long[] theSecrets, long[][] theShares);
+    
+  // RECONSTRUCTING
+    /**
+     * Reconstructs a vector of secrets from the shares of some players.
+     *
+     * @param thePlayers The indices of the players whose shares are passed,
+     *                   from 0 to getNumPlayers() - 1.
+     * @param theShares The vectors of shares, theShares[k] being held by
+     *                  player thePlayers[k].
+     * @return The secrets.
+     * @throws IllegalArgumentException If fewer than getThreshold() players
+     *                                  are passed.
+     */
+    long[] reconstruct(int[] thePlayers, long[][] theShares);
+    
+    /**
+     * Reconstructs a vector of secrets into a preallocated vector.
+     *
+     * @param thePlayers The indices of the players whose shares are passed.
+     * @param theShares The vectors of shares, theShares[k] being held by
+     *                  player thePlayers[k].
+     * @param theOut Receives the secrets; its length is the number of secrets.
+     * @throws IllegalArgumentException If fewer than getThreshold() players
+     *                                  are passed.
+     */
+    void reconstruct(int[] thePlayers, long[][] theShares, long[] theOut);
+    
+    
+} // END SecretSharer.java INTERFACE
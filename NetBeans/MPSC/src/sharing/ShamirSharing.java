@@ -0,0 +1,251 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import arithmetic.LongPrimeField;
+import java.util.Arrays;
+import randomness.FieldSampler;
+import randomness.RandomSource;
+import randomness.RandomnessService;
+
+/**
+ * Shamir t-of-n secret sharing.  Each secret is the constant term of a
+ * random polynomial of degree t - 1, and player j receives its value at
+ * x = j + 1, so that any t players can interpolate the secret and any fewer
+ * learn nothing.  Reconstruction takes its Lagrange coefficients from a
+ * LagrangeCache, so that over a vector of secrets it costs one multiply-add
+ * per share and no inversions.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class ShamirSharing implements SecretSharer {
+    
+// CLASS CONSTANTS
+    /** The number of secrets processed together by each pass. */
+    private static final int BLOCK = SharingFactory.BLOCK;
+    
+    
+// CLASS VARIABLES
+    /** The field in which the shares are computed. */
+    private final LongPrimeField myField;
+    
+    /** The number of players. */
+    private final int myNumPlayers;
+    
+    /** The number of shares needed to reconstruct a secret. */
+    private final int myThreshold;
+    
+    /** The point of each player, j + 1 as an element of the field. */
+    private final long[] myPoints;
+    
+    /** The cache of the Lagrange coefficients used to reconstruct. */
+    private final LagrangeCache myLagrange;
+    
+    /** The source of random coefficients. */
+    private final FieldSampler mySampler;
+    
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Creates a Shamir sharing between the passed number of players, drawing
+     * its randomness from the shared RandomnessService.
+     *
+     * @param theField The field in which the shares are computed.
+     * @param theNumPlayers The number of players, at least 1.
+     * @param theThreshold The number of shares needed to reconstruct a
+     *                     secret, from 1 to theNumPlayers.
+     */
+    public ShamirSharing(final LongPrimeField theField, final int theNumPlayers,
+                         final int theThreshold) {
+        this(theField, theNumPlayers, theThreshold, RandomnessService.getShared());
+    }
+    
+    /**
+     * Creates a Shamir sharing between the passed number of players.
+     *
+     * @param theField The field in which the shares are computed.
+     * @param theNumPlayers The number of players, at least 1.
+     * @param theThreshold The number of shares needed to reconstruct a
+     *                     secret, from 1 to theNumPlayers.
+     * @param theRandom The source of randomness.
+     */
+    public ShamirSharing(final LongPrimeField theField, final int theNumPlayers,
+                         final int theThreshold, final RandomSource theRandom) {
+        if (theNumPlayers < 1 || theNumPlayers >= theField.getPrime()) {
+            throw new IllegalArgumentException("Invalid number of players: " + theNumPlayers);
+        }
+        if (theThreshold < 1 || theThreshold > theNumPlayers) {
+            throw new IllegalArgumentException("Invalid threshold: " + theThreshold);
+        }
+        
+        myField = theField;
+        myNumPlayers = theNumPlayers;
+        myThreshold = theThreshold;
+        myLagrange = new LagrangeCache(theField);
+        mySampler = new FieldSampler(theField, theRandom);
+        
+        myPoints = new long[theNumPlayers];
+        for (int j = 0; j < theNumPlayers; j++) {
+            myPoints[j] = theField.fromLong(j + 1L);
+        }
+    } // END constructor
+    
+    
+    
+// PUBLIC METHODS
+    @Override
+    public long[][] split(final long[] theSecrets) {
+        final long[][] tempShares = new long[myNumPlayers][theSecrets.length];
+        split(theSecrets, tempShares);
+        return tempShares;
+    }
+    
+    @Override
+    public void split(final long[] theSecrets, final long[][] theShares) {
+        if (theShares.length != myNumPlayers) {
+            throw new IllegalArgumentException("Expected " + myNumPlayers
+                                               + " vectors of shares, got " + theShares.length);
+        }
+        
+        final int tempLen = theSecrets.length;
+        final int tempDegree = myThreshold - 1;
+        final long[][] tempCoeffs = new long[tempDegree][BLOCK];
+        
+        for (int tempOff = 0; tempOff < tempLen; tempOff += BLOCK) {
+            final int tempEnd = Math.min(tempLen, tempOff + BLOCK);
+            final int tempCount = tempEnd - tempOff;
+            for (int k = 0; k < tempDegree; k++) {
+                mySampler.fill(tempCoeffs[k], 0, tempCount);
+            }
+            
+            // Horner's rule, one coefficient at a time over the whole block
+            for (int j = 0; j < myNumPlayers; j++) {
+                final long[] tempShare = theShares[j];
+                final long tempX = myPoints[j];
+                
+                if (tempDegree == 0) {
+                    System.arraycopy(theSecrets, tempOff, tempShare, tempOff, tempCount);
+                    continue;
+                }
+                
+                System.arraycopy(tempCoeffs[tempDegree - 1], 0, tempShare, tempOff, tempCount);
+                for (int k = tempDegree - 2; k >= 0; k--) {
+                    final long[] tempCoeff = tempCoeffs[k];
+                    for (int i = 0; i < tempCount; i++) {
+                        tempShare[tempOff + i] = myField.add(myField.mul(tempShare[tempOff + i], tempX),
+                                                             tempCoeff[i]);
+                    }
+                } // END for LOOP
+                
+                for (int i = tempOff; i < tempEnd; i++) {
+                    tempShare[i] = myField.add(myField.mul(tempShare[i], tempX), theSecrets[i]);
+                }
+            } // END for LOOP
+        } // END for LOOP
+    } // END split() METHOD
+    
+    @Override
+    public long[] reconstruct(final int[] thePlayers, final long[][] theShares) {
+        final long[] tempOut = new long[theShares[0].length];
+        reconstruct(thePlayers, theShares, tempOut);
+        return tempOut;
+    }
+    
+    /**
+     * Reconstructs a vector of secrets into a preallocated vector, using the
+     * shares of the first getThreshold() players passed.
+     *
+     * @param thePlayers The distinct indices of the players whose shares are
+     *                   passed.
+     * @param theShares The vectors of shares, theShares[k] being held by
+     *                  player thePlayers[k].
+     * @param theOut Receives the secrets; its length is the number of secrets.
+     * @throws IllegalArgumentException If fewer than getThreshold() players
+     *                                  are passed, or a player is invalid.
+     */
+    @Override
+    public void reconstruct(final int[] thePlayers, final long[][] theShares,
+                            final long[] theOut) {
+        reconstructAt(thePlayers, theShares, 0L, theOut);
+    }
+    
+    /**
+     * Interpolates the shares of the first getThreshold() players passed at
+     * an arbitrary point, which reconstructs the secrets at point 0 and the
+     * shares of player j at point j + 1.
+     *
+     * @param thePlayers The distinct indices of the players whose shares are
+     *                   passed.
+     * @param theShares The vectors of shares, theShares[k] being held by
+     *                  player thePlayers[k].
+     * @param thePoint The canonical value of the point.
+     * @param theOut Receives the interpolated values.
+     * @throws IllegalArgumentException If fewer than getThreshold() players
+     *                                  are passed, or a player is invalid.
+     */
+    public void reconstructAt(final int[] thePlayers, final long[][] theShares,
+                              final long thePoint, final long[] theOut) {
+        if (thePlayers.length < myThreshold || theShares.length < myThreshold) {
+            throw new IllegalArgumentException("Shamir sharing needs the shares of at least "
+                                               + myThreshold + " players");
+        }
+        for (int k = 0; k < myThreshold; k++) {
+            if (thePlayers[k] < 0 || thePlayers[k] >= myNumPlayers) {
+                throw new IllegalArgumentException("Invalid player: " + thePlayers[k]);
+            }
+        }
+        
+        final int[] tempPlayers = thePlayers.length == myThreshold
+                                  ? thePlayers : Arrays.copyOf(thePlayers, myThreshold);
+        final long[] tempLambda = myLagrange.getCoefficients(tempPlayers, thePoint);
+        
+        final int tempLen = theOut.length;
+        for (int tempOff = 0; tempOff < tempLen; tempOff += BLOCK) {
+            final int tempEnd = Math.min(tempLen, tempOff + BLOCK);
+            
+            final long[] tempFirst = theShares[0];
+            final long tempL0 = tempLambda[0];
+            for (int i = tempOff; i < tempEnd; i++) {
+                theOut[i] = myField.mul(tempFirst[i], tempL0);
+            }
+            
+            for (int k = 1; k < myThreshold; k++) {
+                final long[] tempShare = theShares[k];
+                final long tempL = tempLambda[k];
+                for (int i = tempOff; i < tempEnd; i++) {
+                    theOut[i] = myField.add(theOut[i], myField.mul(tempShare[i], tempL));
+                }
+            } // END for LOOP
+        } // END for LOOP
+    } // END reconstructAt() METHOD
+    
+  // GETTERS
+    @Override
+    public LongPrimeField getField() {
+        return myField;
+    }
+    
+    @Override
+    public int getNumPlayers() {
+        return myNumPlayers;
+    }
+    
+    @Override
+    public int getThreshold() {
+        return myThreshold;
+    }
+    
+    /**
+     * Getter for the cache of the Lagrange coefficients used to reconstruct.
+     *
+     * @return myLagrange
+     */
+    public LagrangeCache getLagrangeCache() {
+        return myLagrange;
+    }
+    
+    
+} // END ShamirSharing.java CLASS
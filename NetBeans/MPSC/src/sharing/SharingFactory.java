@@ -0,0 +1,106 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import arithmetic.FieldFactory;
+import arithmetic.LongPrimeField;
+import arithmetic.PrimeField;
+import files.GroupCompInitializationFileInterpreter;
+import files.PlayerSecretDataFileReader;
+
+/**
+ * Utility class which connects the sharing schemes to the files of a group
+ * computation: it builds the scheme for the players and data type of a
+ * GroupCompInitializationFileInterpreter, and splits the values read by a
+ * PlayerSecretDataFileReader.  Only the "int" and "long" data types, whose
+ * fields are LongPrimeFields, can be shared so far.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public final class SharingFactory {
+    
+// CLASS CONSTANTS
+    /**
+     * The number of secrets processed together by each pass of the sharing
+     * schemes, small enough that the block of every player stays in the cache
+     * of the processor.
+     */
+    static final int BLOCK = 1024;
+    
+    
+// CONSTRUCTOR(S)
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SharingFactory() {
+        // Private Constructor
+    }
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Returns the sharing scheme between the players of a group computation,
+     * in the field of its data type: additive sharing if every player is
+     * needed to reconstruct, and Shamir sharing otherwise.
+     *
+     * @param theGroup The interpreted group computation initialization file.
+     * @param theThreshold The number of shares needed to reconstruct a
+     *                     secret, from 1 to the size of the group.
+     * @return The sharing scheme.
+     * @throws IllegalArgumentException If the data type of the group cannot
+     *                                  be shared, or the threshold is invalid.
+     */
+    public static SecretSharer forGroup(final GroupCompInitializationFileInterpreter theGroup,
+                                        final int theThreshold) {
+        final String tempType = theGroup.getFunctDataType();
+        final PrimeField tempField = FieldFactory.forDataType(tempType);
+        if (!(tempField instanceof LongPrimeField)) {
+            throw new IllegalArgumentException("Data type cannot be shared yet: " + tempType);
+        }
+        
+        final int tempSize = theGroup.getGrpSize();
+        if (theThreshold == tempSize) {
+            return new AdditiveSharing((LongPrimeField) tempField, tempSize);
+        }
+        return new ShamirSharing((LongPrimeField) tempField, tempSize, theThreshold);
+    } // END forGroup() METHOD
+    
+    /**
+     * Splits every value read from a player's secret data file into shares.
+     *
+     * @param theSharer The sharing scheme.
+     * @param theData The secret data file, of the "int" or "long" data type.
+     * @return The shares, indexed by player and then by value.
+     * @throws IllegalArgumentException If the data type cannot be shared.
+     */
+    public static long[][] split(final SecretSharer theSharer,
+                                 final PlayerSecretDataFileReader theData) {
+        final long[] tempValues = theData.toLongArray();
+        if (tempValues == null) {
+            throw new IllegalArgumentException("Data type cannot be shared yet: "
+                                               + theData.getDataType());
+        }
+        
+        theSharer.getField().fromLongs(tempValues, tempValues);
+        return theSharer.split(tempValues);
+    } // END split() METHOD
+    
+    /**
+     * Returns whether a player adds the public constants of a computation to
+     * its shares: every player with Shamir sharing, whose shares of a
+     * constant are the constant itself, and only the first player with
+     * additive sharing.
+     *
+     * @param theSharer The sharing scheme.
+     * @param thePlayer The index of the player.
+     * @return true if the player adds constants.
+     */
+    public static boolean addsConstants(final SecretSharer theSharer, final int thePlayer) {
+        return !(theSharer instanceof AdditiveSharing) || thePlayer == 0;
+    }
+    
+    
+} // END SharingFactory.java CLASS
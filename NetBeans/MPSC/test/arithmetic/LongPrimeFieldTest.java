@@ -0,0 +1,220 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package arithmetic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of the LongPrimeFields against the same operations on BigIntegers
+ * reduced modulo the prime, for random operands and for the operands at the
+ * edges of the field and of a long.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class LongPrimeFieldTest {
+    
+// CLASS CONSTANTS
+    /** The seed of the random operands. */
+    private static final long SEED = 20_161_018L;
+    
+    /** The number of random operands tried per field and operation. */
+    private static final int TRIALS = 5_000;
+    
+    /** The number of elements in the vectors of the vector operations. */
+    private static final int VECTOR_LENGTH = 257;
+    
+    /** The longs at the edges of the fields and of a long. */
+    private static final long[] EDGES = {
+        0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, Mersenne61Field.PRIME,
+        Mersenne61Field.PRIME + 1, -Mersenne61Field.PRIME, MontgomeryField.LARGEST_63_BIT_PRIME,
+        MontgomeryField.LARGEST_63_BIT_PRIME + 1, -MontgomeryField.LARGEST_63_BIT_PRIME
+    };
+    
+    /** The fields under test. */
+    private static final LongPrimeField[] FIELDS = {
+        Mersenne61Field.getInstance(),
+        new MontgomeryField(MontgomeryField.LARGEST_63_BIT_PRIME),
+        new MontgomeryField((1L << 31) - 1),
+        new MontgomeryField(3L)
+    };
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Converting a long into a field and back gives the long modulo the
+     * prime, and the signed form is the nearest value to zero.
+     */
+    @Test
+    public void testFromLongMatchesBigInteger() {
+        for (final LongPrimeField tempField : FIELDS) {
+            final BigInteger tempPrime = tempField.getModulus();
+            final Random tempRandom = new Random(SEED);
+            
+            for (int i = 0; i < TRIALS; i++) {
+                final long tempValue = i < EDGES.length ? EDGES[i] : tempRandom.nextLong();
+                final long tempElem = tempField.fromLong(tempValue);
+                final BigInteger tempExpected = BigInteger.valueOf(tempValue).mod(tempPrime);
+                
+                assertEquals(tempField + " " + tempValue, tempExpected.longValue(),
+                             tempField.toLong(tempElem));
+                final BigInteger tempSigned = tempExpected.compareTo(tempPrime.shiftRight(1)) > 0
+                        ? tempExpected.subtract(tempPrime) : tempExpected;
+                assertEquals(tempField + " " + tempValue, tempSigned.longValue(),
+                             tempField.toSignedLong(tempElem));
+            } // END for LOOP
+        } // END for LOOP
+    } // END testFromLongMatchesBigInteger() METHOD
+    
+    /**
+     * Addition, subtraction, negation and multiplication match BigInteger.
+     */
+    @Test
+    public void testScalarOperationsMatchBigInteger() {
+        for (final LongPrimeField tempField : FIELDS) {
+            final BigInteger tempPrime = tempField.getModulus();
+            final Random tempRandom = new Random(SEED);
+            
+            for (int i = 0; i < TRIALS; i++) {
+                final BigInteger tempA = operand(tempField, tempRandom, i);
+                final BigInteger tempB = operand(tempField, tempRandom, i + 1);
+                final long tempX = tempField.fromLong(tempA.longValue());
+                final long tempY = tempField.fromLong(tempB.longValue());
+                final String tempCase = tempField + " " + tempA + ", " + tempB;
+                
+                assertEquals(tempCase, tempA.add(tempB).mod(tempPrime).longValue(),
+                             tempField.toLong(tempField.add(tempX, tempY)));
+                assertEquals(tempCase, tempA.subtract(tempB).mod(tempPrime).longValue(),
+                             tempField.toLong(tempField.sub(tempX, tempY)));
+                assertEquals(tempCase, tempA.negate().mod(tempPrime).longValue(),
+                             tempField.toLong(tempField.neg(tempX)));
+                assertEquals(tempCase, tempA.multiply(tempB).mod(tempPrime).longValue(),
+                             tempField.toLong(tempField.mul(tempX, tempY)));
+            } // END for LOOP
+        } // END for LOOP
+    } // END testScalarOperationsMatchBigInteger() METHOD
+    
+    /**
+     * Powers match BigInteger.modPow(), and every non-zero element times its
+     * inverse is one.
+     */
+    @Test
+    public void testPowAndInverseMatchBigInteger() {
+        for (final LongPrimeField tempField : FIELDS) {
+            final BigInteger tempPrime = tempField.getModulus();
+            final Random tempRandom = new Random(SEED);
+            
+            for (int i = 0; i < TRIALS; i++) {
+                final BigInteger tempA = operand(tempField, tempRandom, i);
+                final long tempExp = i < 4 ? i : tempRandom.nextLong() >>> 1;
+                final long tempX = tempField.fromLong(tempA.longValue());
+                final String tempCase = tempField + " " + tempA + "^" + tempExp;
+                
+                assertEquals(tempCase, tempA.modPow(BigInteger.valueOf(tempExp), tempPrime)
+                                            .longValue(),
+                             tempField.toLong(tempField.pow(tempX, tempExp)));
+                if (tempA.signum() != 0) {
+                    assertEquals(tempCase, tempA.modInverse(tempPrime).longValue(),
+                                 tempField.toLong(tempField.inv(tempX)));
+                    assertEquals(tempCase, tempField.one(),
+                                 tempField.mul(tempX, tempField.inv(tempX)));
+                }
+            } // END for LOOP
+        } // END for LOOP
+    } // END testPowAndInverseMatchBigInteger() METHOD
+    
+    /**
+     * Zero has no inverse.
+     */
+    @Test(expected = ArithmeticException.class)
+    public void testInverseOfZeroThrows() {
+        FIELDS[1].inv(0L);
+    }
+    
+    /**
+     * The vector operations match the scalar operations slot by slot, and
+     * the dot product matches the BigInteger sum of products.
+     */
+    @Test
+    public void testVectorOperationsMatchScalar() {
+        for (final LongPrimeField tempField : FIELDS) {
+            final BigInteger tempPrime = tempField.getModulus();
+            final Random tempRandom = new Random(SEED);
+            final long[] tempA = new long[VECTOR_LENGTH];
+            final long[] tempB = new long[VECTOR_LENGTH];
+            final long[] tempValues = new long[VECTOR_LENGTH];
+            for (int i = 0; i < VECTOR_LENGTH; i++) {
+                tempValues[i] = tempRandom.nextLong();
+                tempB[i] = tempField.fromLong(tempRandom.nextLong());
+            }
+            tempField.fromLongs(tempValues, tempA);
+            final long tempC = tempField.fromLong(tempRandom.nextLong());
+            
+            final long[] tempSum = new long[VECTOR_LENGTH];
+            final long[] tempDiff = new long[VECTOR_LENGTH];
+            final long[] tempProd = new long[VECTOR_LENGTH];
+            final long[] tempScaled = new long[VECTOR_LENGTH];
+            final long[] tempAcc = tempB.clone();
+            final long[] tempOut = new long[VECTOR_LENGTH];
+            tempField.add(tempA, tempB, tempSum);
+            tempField.sub(tempA, tempB, tempDiff);
+            tempField.mul(tempA, tempB, tempProd);
+            tempField.scale(tempA, tempC, tempScaled);
+            tempField.addScaled(tempAcc, tempA, tempC);
+            tempField.toLongs(tempA, tempOut);
+            
+            BigInteger tempDot = BigInteger.ZERO;
+            for (int i = 0; i < VECTOR_LENGTH; i++) {
+                assertEquals(tempField.fromLong(tempValues[i]), tempA[i]);
+                assertEquals(tempField.toLong(tempA[i]), tempOut[i]);
+                assertEquals(tempField.add(tempA[i], tempB[i]), tempSum[i]);
+                assertEquals(tempField.sub(tempA[i], tempB[i]), tempDiff[i]);
+                assertEquals(tempField.mul(tempA[i], tempB[i]), tempProd[i]);
+                assertEquals(tempField.mul(tempA[i], tempC), tempScaled[i]);
+                assertEquals(tempField.add(tempB[i], tempField.mul(tempA[i], tempC)),
+                             tempAcc[i]);
+                tempDot = tempDot.add(BigInteger.valueOf(tempField.toLong(tempA[i]))
+                                      .multiply(BigInteger.valueOf(tempField.toLong(tempB[i]))));
+            } // END for LOOP
+            assertEquals(tempField.toString(), tempDot.mod(tempPrime).longValue(),
+                         tempField.toLong(tempField.dot(tempA, tempB)));
+        } // END for LOOP
+    } // END testVectorOperationsMatchScalar() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns an operand in [0, prime): one of the edges of the field for
+     * the first few trials, and a random value after.
+     *
+     * @param theField The field.
+     * @param theRandom The source of the random values.
+     * @param theTrial The index of the trial.
+     * @return The operand.
+     */
+    private static BigInteger operand(final LongPrimeField theField, final Random theRandom,
+                                      final int theTrial) {
+        final BigInteger tempPrime = theField.getModulus();
+        switch (theTrial) {
+            case 0:
+                return BigInteger.ZERO;
+            case 1:
+                return BigInteger.ONE;
+            case 2:
+                return tempPrime.subtract(BigInteger.ONE);
+            case 3:
+                return tempPrime.shiftRight(1);
+            default:
+                return new BigInteger(Long.SIZE, theRandom).mod(tempPrime);
+        } // END switch STATEMENT
+    } // END operand() PRIVATE HELPER METHOD
+    
+    
+} // END LongPrimeFieldTest.java CLASS
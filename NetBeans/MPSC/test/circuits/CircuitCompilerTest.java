@@ -0,0 +1,196 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import arithmetic.LongPrimeField;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Test;
+
+/**
+ * Tests of CircuitCompiler: the compiled circuits of several functions,
+ * evaluated in the clear, against the same functions computed directly with
+ * BigInteger modulo the prime of the data type.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class CircuitCompilerTest {
+    
+// CLASS CONSTANTS
+    /** The seed of the inputs. */
+    private static final long SEED = 20_161_018L;
+    
+    /** The number of slots of every input vector. */
+    private static final int SLOTS = 67;
+    
+    /** The number of inputs passed to every circuit. */
+    private static final int PLAYERS = 4;
+    
+    /** The data types under test. */
+    private static final String[] DATA_TYPES = {"int", "long"};
+    
+    /** The functions under test. */
+    private static final String[] FUNCTIONS = {
+        "x0 + x1",
+        "x0 - x1 - x2",
+        "(x0 + x1) * x2 + 3 * x0 * x1",
+        "x0 * x1 * x2 * x3",
+        "-x0 * (x1 - 7) + 12345678901234567890",
+        "(x0 + 1)^5 - x1^2 * x2",
+        "x3^0 + x2^1 * 2",
+        "(x0 * x1 + x2) * (x0 * x1 - x2) * x3",
+        "x0 - x0 + 42",
+        "--x2 * -(x1)"
+    };
+    
+    /** The value of each function, computed directly. */
+    private static final List<Function<BigInteger[], BigInteger>> REFERENCES = Arrays.asList(
+        x -> x[0].add(x[1]),
+        x -> x[0].subtract(x[1]).subtract(x[2]),
+        x -> x[0].add(x[1]).multiply(x[2])
+                 .add(x[0].multiply(x[1]).multiply(big(3))),
+        x -> x[0].multiply(x[1]).multiply(x[2]).multiply(x[3]),
+        x -> x[0].negate().multiply(x[1].subtract(big(7)))
+                 .add(new BigInteger("12345678901234567890")),
+        x -> x[0].add(BigInteger.ONE).pow(5)
+                 .subtract(x[1].pow(2).multiply(x[2])),
+        x -> BigInteger.ONE.add(x[2].multiply(big(2))),
+        x -> x[0].multiply(x[1]).add(x[2])
+                 .multiply(x[0].multiply(x[1]).subtract(x[2]))
+                 .multiply(x[3]),
+        x -> big(42),
+        x -> x[2].multiply(x[1]).negate()
+    );
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Every function evaluates, slot by slot, to its value computed
+     * directly, for every data type.
+     */
+    @Test
+    public void testCircuitsMatchReference() {
+        for (final String tempDataType : DATA_TYPES) {
+            for (int f = 0; f < FUNCTIONS.length; f++) {
+                final Circuit tempCircuit = CircuitCompiler.compileUncached(FUNCTIONS[f],
+                                                                            tempDataType);
+                final LongPrimeField tempField = (LongPrimeField) tempCircuit.getField();
+                final BigInteger tempPrime = BigInteger.valueOf(tempField.getPrime());
+                final long[][] tempInputs = randomInputs(tempField, SEED + f);
+                final long[] tempOut = evaluate(tempCircuit, tempInputs);
+                
+                assertEquals(SLOTS, tempOut.length);
+                for (int i = 0; i < SLOTS; i++) {
+                    final BigInteger[] tempX = new BigInteger[PLAYERS];
+                    for (int j = 0; j < PLAYERS; j++) {
+                        tempX[j] = BigInteger.valueOf(tempField.toLong(tempInputs[j][i]));
+                    }
+                    assertEquals(tempDataType + ": " + FUNCTIONS[f] + " at slot " + i,
+                                 REFERENCES.get(f).apply(tempX).mod(tempPrime).longValue(),
+                                 tempField.toLong(tempOut[i]));
+                } // END for LOOP
+            } // END for LOOP
+        } // END for LOOP
+    } // END testCircuitsMatchReference() METHOD
+    
+    /**
+     * Products are built as balanced trees, so a product of four factors
+     * and an eighth power each take the fewest rounds.
+     */
+    @Test
+    public void testProductsHaveLeastDepth() {
+        assertEquals(2, CircuitCompiler.compileUncached("x0 * x1 * x2 * x3", "long")
+                                       .getMulDepth());
+        assertEquals(3, CircuitCompiler.compileUncached("x0^8", "long").getMulDepth());
+        assertEquals(0, CircuitCompiler.compileUncached("3 * (x0 + x1) - x2", "long")
+                                       .getMulDepth());
+    } // END testProductsHaveLeastDepth() METHOD
+    
+    /**
+     * A function compiled twice for the same data type is compiled once,
+     * and compiling it for another data type or bypassing the cache gives a
+     * new circuit.
+     */
+    @Test
+    public void testCompileIsCached() {
+        final String tempFunction = "x0 * x1 + 11";
+        final Circuit tempCircuit = CircuitCompiler.compile(tempFunction, "long");
+        
+        assertSame(tempCircuit, CircuitCompiler.compile(tempFunction, "long"));
+        assertNotSame(tempCircuit, CircuitCompiler.compile(tempFunction, "int"));
+        assertNotSame(tempCircuit, CircuitCompiler.compileUncached(tempFunction, "long"));
+    } // END testCompileIsCached() METHOD
+    
+    /**
+     * A function that does not parse is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedFunctionThrows() {
+        CircuitCompiler.compileUncached("(x0 + x1", "long");
+    }
+    
+    /**
+     * An exponent above the largest accepted is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testExponentTooLargeThrows() {
+        CircuitCompiler.compileUncached("x0^" + (CircuitCompiler.MAX_EXPONENT + 1), "long");
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Evaluates a circuit in the clear.
+     *
+     * @param theCircuit The circuit.
+     * @param theInputs The vector of the input of each player.
+     * @return The vector of the output.
+     */
+    static long[] evaluate(final Circuit theCircuit, final long[][] theInputs) {
+        final LongPrimeField tempField = (LongPrimeField) theCircuit.getField();
+        return new CircuitEvaluator(theCircuit, new PlainMultiplicationRound(tempField), true)
+                   .evaluate(theInputs);
+    }
+    
+    /**
+     * Returns an input vector for every player, of elements converted from
+     * random longs.
+     *
+     * @param theField The field of the elements.
+     * @param theSeed The seed of the elements.
+     * @return The input vectors.
+     */
+    private static long[][] randomInputs(final LongPrimeField theField, final long theSeed) {
+        final Random tempRandom = new Random(theSeed);
+        final long[][] tempOut = new long[PLAYERS][SLOTS];
+        for (final long[] tempInput : tempOut) {
+            for (int i = 0; i < SLOTS; i++) {
+                tempInput[i] = theField.fromLong(tempRandom.nextLong());
+            }
+        } // END for LOOP
+        return tempOut;
+    }
+    
+    /**
+     * Shorthand for BigInteger.valueOf().
+     *
+     * @param theValue The value.
+     * @return The value as a BigInteger.
+     */
+    private static BigInteger big(final long theValue) {
+        return BigInteger.valueOf(theValue);
+    }
+    
+    
+} // END CircuitCompilerTest.java CLASS
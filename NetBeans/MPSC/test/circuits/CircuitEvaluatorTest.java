@@ -0,0 +1,132 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package circuits;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import arithmetic.LongPrimeField;
+import org.junit.Test;
+
+/**
+ * Tests of CircuitEvaluator: the length of the output of circuits reading
+ * none of their inputs, and the checks of the inputs.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class CircuitEvaluatorTest {
+    
+// CLASS CONSTANTS
+    /** The number of slots of every input vector. */
+    private static final int SLOTS = 5;
+    
+    /** The input vectors of two players. */
+    private static final long[][] INPUTS = {
+        {1L, 2L, 3L, 4L, 5L},
+        {6L, 7L, 8L, 9L, 10L}
+    };
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * A circuit folded to a constant gives the constant in every slot of
+     * the inputs, not a single slot.
+     */
+    @Test
+    public void testConstantCircuitFillsEverySlot() {
+        for (final String tempDataType : new String[] {"int", "long"}) {
+            assertConstant("x0 - x0", tempDataType, 0L);
+            assertConstant("(x1)^0", tempDataType, 1L);
+            assertConstant("7", tempDataType, 7L);
+            assertConstant("x0 * 0 + 3 * 4", tempDataType, 12L);
+        } // END for LOOP
+    } // END testConstantCircuitFillsEverySlot() METHOD
+    
+    /**
+     * A constant circuit evaluated without any inputs gives one slot.
+     */
+    @Test
+    public void testConstantCircuitWithoutInputsGivesOneSlot() {
+        final Circuit tempCircuit = CircuitCompiler.compile("7", "long");
+        final LongPrimeField tempField = (LongPrimeField) tempCircuit.getField();
+        
+        final long[] tempOut = CircuitCompilerTest.evaluate(tempCircuit, new long[0][]);
+        assertEquals(1, tempOut.length);
+        assertEquals(7L, tempField.toLong(tempOut[0]));
+    } // END testConstantCircuitWithoutInputsGivesOneSlot() METHOD
+    
+    /**
+     * Evaluating leaves the input vectors unchanged, even when the output is
+     * an input.
+     */
+    @Test
+    public void testInputsAreNotModified() {
+        final Circuit tempCircuit = CircuitCompiler.compile("x1", "long");
+        final LongPrimeField tempField = (LongPrimeField) tempCircuit.getField();
+        final long[][] tempInputs = elements(tempField);
+        final long[] tempCopy = tempInputs[1].clone();
+        
+        final long[] tempOut = CircuitCompilerTest.evaluate(tempCircuit, tempInputs);
+        tempOut[0] = tempField.add(tempOut[0], tempField.one());
+        assertArrayEquals(tempCopy, tempInputs[1]);
+    } // END testInputsAreNotModified() METHOD
+    
+    /**
+     * Inputs of different lengths are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInputsOfDifferentLengthsThrow() {
+        CircuitCompilerTest.evaluate(CircuitCompiler.compile("7", "long"),
+                                     new long[][] {{1L, 2L}, {3L}});
+    }
+    
+    /**
+     * Fewer inputs than the circuit reads are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingInputThrows() {
+        CircuitCompilerTest.evaluate(CircuitCompiler.compile("x0 * x2", "long"), INPUTS);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks that a function evaluates to a constant in every slot.
+     *
+     * @param theFunction The function.
+     * @param theDataType The data type.
+     * @param theExpected The constant.
+     */
+    private static void assertConstant(final String theFunction, final String theDataType,
+                                       final long theExpected) {
+        final Circuit tempCircuit = CircuitCompiler.compile(theFunction, theDataType);
+        final LongPrimeField tempField = (LongPrimeField) tempCircuit.getField();
+        
+        final long[] tempOut = CircuitCompilerTest.evaluate(tempCircuit, elements(tempField));
+        assertEquals(theDataType + ": " + theFunction, SLOTS, tempOut.length);
+        for (int i = 0; i < SLOTS; i++) {
+            assertEquals(theDataType + ": " + theFunction + " at slot " + i,
+                         theExpected, tempField.toLong(tempOut[i]));
+        }
+    } // END assertConstant() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the inputs converted into elements of a field.
+     *
+     * @param theField The field.
+     * @return The input vectors.
+     */
+    private static long[][] elements(final LongPrimeField theField) {
+        final long[][] tempOut = new long[INPUTS.length][SLOTS];
+        for (int j = 0; j < INPUTS.length; j++) {
+            theField.fromLongs(INPUTS[j], tempOut[j]);
+        }
+        return tempOut;
+    }
+    
+    
+} // END CircuitEvaluatorTest.java CLASS
@@ -0,0 +1,255 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of ByteParser against the JDK parsers it stands in for: every input
+ * gives the same value as Integer.parseInt(), Long.parseLong(),
+ * Float.parseFloat() or Double.parseDouble(), or is rejected by both.  The
+ * BigInteger values of a secret data file are decoded by ByteLine and then
+ * parsed by BigInteger, and are tested here as well.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class ByteParserTest {
+    
+// CLASS CONSTANTS
+    /** Integral inputs: signs, leading zeros, and the edges of int and long. */
+    private static final String[] INTEGRALS = {
+        "0", "-0", "+0", "7", "-7", "+7", "007", "-007",
+        "2147483647", "2147483648", "-2147483648", "-2147483649",
+        "9223372036854775807", "9223372036854775808",
+        "-9223372036854775808", "-9223372036854775809",
+        "99999999999999999999", "-99999999999999999999"
+    };
+    
+    /** Real inputs: signs, points, exponents, and values on the slow path. */
+    private static final String[] REALS = {
+        "0", "-0", "0.0", "-0.0", "1", "-1", "+1.5", "0.1", ".5", "5.", "-.5",
+        "3.14159", "123456.789", "1e10", "1E10", "1e+10", "1e-10", "-2.5e-3",
+        "1e22", "1e23", "1e-22", "1e-23", "1e308", "1e309", "4.9e-324", "1e-400",
+        "123456789012345", "1234567890123456", "0.30000000000000004",
+        "3.4028235e38", "3.4028236e38", "1.4e-45", "16777217", "1e0", "1e00000",
+        "NaN", "-Infinity", "0x1p3", "1.5d", "1.5f"
+    };
+    
+    /** Inputs which no parser accepts, or only some do. */
+    private static final String[] MALFORMED = {
+        "", "-", "+", ".", "-.", "e5", "1e", "1e+", "1e-", "1.2.3", "1..2",
+        "--1", "+-1", "1-", "12a", "a12", "0x10", "1 2", "1,000", "1_000"
+    };
+    
+    /** Characters of the random inputs. */
+    private static final String ALPHABET = "0123456789+-.eE \t";
+    
+    /** The number of random inputs. */
+    private static final int RANDOM_INPUTS = 20_000;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Integral inputs parse as by Integer.parseInt() and Long.parseLong().
+     */
+    @Test
+    public void testIntegralsMatchJdk() {
+        for (final String tempInput : INTEGRALS) {
+            checkAll(tempInput);
+        }
+    }
+    
+    /**
+     * Real inputs parse as by Float.parseFloat() and Double.parseDouble().
+     */
+    @Test
+    public void testRealsMatchJdk() {
+        for (final String tempInput : REALS) {
+            checkAll(tempInput);
+        }
+    }
+    
+    /**
+     * Malformed inputs are rejected exactly when the JDK rejects them.
+     */
+    @Test
+    public void testMalformedMatchJdk() {
+        for (final String tempInput : MALFORMED) {
+            checkAll(tempInput);
+        }
+    }
+    
+    /**
+     * Leading and trailing whitespace is rejected by the integral parsers
+     * and accepted by the real parsers, as by the JDK.
+     */
+    @Test
+    public void testWhitespaceMatchesJdk() {
+        for (final String tempInput : new String[] {" 5", "5 ", "\t5", "5\t", " -1.5e3 "}) {
+            checkAll(tempInput);
+        }
+    }
+    
+    /**
+     * Random strings of digits, signs, points, exponents and whitespace
+     * parse, or are rejected, as by the JDK.
+     */
+    @Test
+    public void testRandomInputsMatchJdk() {
+        final Random tempRandom = new Random(1L);
+        final StringBuilder tempBuilder = new StringBuilder();
+        
+        for (int n = 0; n < RANDOM_INPUTS; n++) {
+            tempBuilder.setLength(0);
+            final int tempLength = tempRandom.nextInt(24);
+            for (int i = 0; i < tempLength; i++) {
+                tempBuilder.append(ALPHABET.charAt(tempRandom.nextInt(ALPHABET.length())));
+            }
+            checkAll(tempBuilder.toString());
+        } // END for LOOP
+    } // END testRandomInputsMatchJdk() METHOD
+    
+    /**
+     * Random doubles and floats written by Double.toString() and
+     * Float.toString() read back to the same value.
+     */
+    @Test
+    public void testRandomRealsRoundTrip() {
+        final Random tempRandom = new Random(2L);
+        
+        for (int n = 0; n < RANDOM_INPUTS; n++) {
+            final double tempDouble = (tempRandom.nextDouble() - 0.5)
+                                      * Math.pow(10, tempRandom.nextInt(40) - 20);
+            assertEquals(tempDouble, ByteParser.parseDouble(bytes(Double.toString(tempDouble))),
+                         0.0);
+            final float tempFloat = (float) tempDouble;
+            assertEquals(tempFloat, ByteParser.parseFloat(bytes(Float.toString(tempFloat))),
+                         0.0f);
+        } // END for LOOP
+    } // END testRandomRealsRoundTrip() METHOD
+    
+    /**
+     * BigInteger values decoded from the bytes of a line parse as from the
+     * String itself, and malformed ones are rejected.
+     */
+    @Test
+    public void testBigIntegersMatchJdk() {
+        final Random tempRandom = new Random(3L);
+        for (int n = 0; n < 1000; n++) {
+            final BigInteger tempValue = new BigInteger(1 + tempRandom.nextInt(300), tempRandom);
+            final String tempText = (tempRandom.nextBoolean() ? "-" : "+") + tempValue;
+            assertEquals(new BigInteger(tempText),
+                         new BigInteger(new ByteLine(bytes(tempText)).toString()));
+        } // END for LOOP
+        
+        for (final String tempInput : INTEGRALS) {
+            assertEquals(parseBig(tempInput), parseBig(new ByteLine(bytes(tempInput)).toString()));
+        }
+        for (final String tempInput : MALFORMED) {
+            assertEquals(parseBig(tempInput), parseBig(new ByteLine(bytes(tempInput)).toString()));
+        }
+    } // END testBigIntegersMatchJdk() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks that every parser of ByteParser gives the same result as the
+     * JDK for an input, reading it from the middle of a larger buffer.
+     *
+     * @param theInput The input.
+     */
+    private static void checkAll(final String theInput) {
+        Object tempExpected;
+        Object tempActual;
+        
+        try {
+            tempExpected = Integer.parseInt(theInput);
+        } catch (final NumberFormatException exception) {
+            tempExpected = null;
+        }
+        try {
+            tempActual = ByteParser.parseInt(bytes(theInput));
+        } catch (final NumberFormatException exception) {
+            tempActual = null;
+        }
+        assertEquals("int \"" + theInput + "\"", tempExpected, tempActual);
+        
+        try {
+            tempExpected = Long.parseLong(theInput);
+        } catch (final NumberFormatException exception) {
+            tempExpected = null;
+        }
+        try {
+            tempActual = ByteParser.parseLong(bytes(theInput));
+        } catch (final NumberFormatException exception) {
+            tempActual = null;
+        }
+        assertEquals("long \"" + theInput + "\"", tempExpected, tempActual);
+        
+        // Float.equals() and Double.equals() compare bits, so -0.0 differs from 0.0
+        try {
+            tempExpected = Float.parseFloat(theInput);
+        } catch (final NumberFormatException exception) {
+            tempExpected = null;
+        }
+        try {
+            tempActual = ByteParser.parseFloat(bytes(theInput));
+        } catch (final NumberFormatException exception) {
+            tempActual = null;
+        }
+        assertEquals("float \"" + theInput + "\"", tempExpected, tempActual);
+        
+        try {
+            tempExpected = Double.parseDouble(theInput);
+        } catch (final NumberFormatException exception) {
+            tempExpected = null;
+        }
+        try {
+            tempActual = ByteParser.parseDouble(bytes(theInput));
+        } catch (final NumberFormatException exception) {
+            tempActual = null;
+        }
+        assertEquals("double \"" + theInput + "\"", tempExpected, tempActual);
+    } // END checkAll() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns a buffer whose bytes from its position to its limit are the
+     * ASCII bytes of the input, with other bytes on either side.
+     *
+     * @param theInput The input.
+     * @return The buffer.
+     */
+    private static ByteBuffer bytes(final String theInput) {
+        final byte[] tempBytes = ("9e" + theInput + "-9").getBytes(StandardCharsets.ISO_8859_1);
+        final ByteBuffer tempBuf = ByteBuffer.wrap(tempBytes);
+        tempBuf.position(2);
+        tempBuf.limit(tempBytes.length - 2);
+        return tempBuf;
+    }
+    
+    /**
+     * Returns the BigInteger of a String, or null if it is not valid.
+     *
+     * @param theInput The input.
+     * @return The value, or null.
+     */
+    private static BigInteger parseBig(final String theInput) {
+        try {
+            return new BigInteger(theInput);
+        } catch (final NumberFormatException exception) {
+            return null;
+        }
+    }
+    
+    
+} // END ByteParserTest.java CLASS
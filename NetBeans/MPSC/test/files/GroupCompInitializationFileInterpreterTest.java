@@ -0,0 +1,156 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of GroupCompInitializationFileInterpreter in its eager and lazy
+ * modes: a whole file is interpreted either way, and the getters of a file
+ * which could not be interpreted throw IllegalStateException.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class GroupCompInitializationFileInterpreterTest {
+    
+// CLASS VARIABLES
+    /** The directory of the group files. */
+    private Path myDir;
+    
+    /** The group file under test. */
+    private Path myFile;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the directory of the group files.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-group");
+        myFile = myDir.resolve("group.txt");
+    }
+    
+    /**
+     * Deletes the directory of the group files.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(myDir)) {
+            for (final Path tempPath : tempStream) {
+                Files.delete(tempPath);
+            }
+        } // END try-with-resources BLOCK
+        Files.delete(myDir);
+    } // END tearDown() METHOD
+    
+    /**
+     * A whole file is interpreted alike in the eager and lazy modes, the
+     * lazy mode only once a player is asked for.
+     *
+     * @throws Exception If the file cannot be written.
+     */
+    @Test
+    public void testEagerAndLazyLoad() throws Exception {
+        Files.write(myFile, GroupSnapshotTest.groupLines("10.0.0.1", "10.0.0.2", "10.0.0.3"),
+                    StandardCharsets.US_ASCII);
+        
+        GroupSnapshotTest.checkGroup(new GroupCompInitializationFileInterpreter(
+                myFile.toString()), "10.0.0.2");
+        
+        final GroupCompInitializationFileInterpreter tempLazy =
+                new GroupCompInitializationFileInterpreter(myFile.toString(), true);
+        assertFalse(tempLazy.isLoaded());
+        assertEquals("x0 * x1 + x2", tempLazy.getFuncStr());
+        GroupSnapshotTest.checkGroup(tempLazy, "10.0.0.2");
+    } // END testEagerAndLazyLoad() METHOD
+    
+    /**
+     * The getters of a file which does not exist throw
+     * IllegalStateException rather than NullPointerException.
+     */
+    @Test
+    public void testMissingFileGettersThrow() {
+        final GroupCompInitializationFileInterpreter tempGroup =
+                new GroupCompInitializationFileInterpreter(myDir.resolve("none.txt").toString());
+        assertFalse(tempGroup.isLoaded());
+        assertFalse(tempGroup.getHashCompare());
+        assertFalse(tempGroup.writeSnapshot());
+        assertGettersThrow(tempGroup);
+    } // END testMissingFileGettersThrow() METHOD
+    
+    /**
+     * The getters of a file whose player list is cut short throw
+     * IllegalStateException in the lazy mode, every time they are called.
+     *
+     * @throws Exception If the file cannot be written.
+     */
+    @Test
+    public void testShortPlayerListGettersThrow() throws Exception {
+        final List<String> tempLines = GroupSnapshotTest.groupLines("10.0.0.1", "10.0.0.2",
+                                                                    "10.0.0.3");
+        // Drop the last player, keeping the hash lines at the end
+        tempLines.subList(tempLines.size() - 5, tempLines.size() - 2).clear();
+        Files.write(myFile, tempLines, StandardCharsets.US_ASCII);
+        
+        final GroupCompInitializationFileInterpreter tempGroup =
+                new GroupCompInitializationFileInterpreter(myFile.toString(), true);
+        assertEquals(3, tempGroup.getGrpSize());
+        assertGettersThrow(tempGroup);
+        assertGettersThrow(tempGroup);
+        assertFalse(tempGroup.isLoaded());
+    } // END testShortPlayerListGettersThrow() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks that every getter of the players of a group throws
+     * IllegalStateException.
+     *
+     * @param theGroup The interpreted file.
+     */
+    private static void assertGettersThrow(final GroupCompInitializationFileInterpreter theGroup) {
+        final Runnable[] tempGetters = {
+            () -> theGroup.getPlyrUID(0),
+            () -> theGroup.getPlyrAddr(0),
+            () -> theGroup.getPlyrPubKey(0),
+            () -> theGroup.getPlyrSig(0),
+            () -> theGroup.indexOfPlyr(BigInteger.ONE),
+            () -> theGroup.getPlyrRegistry(),
+            () -> theGroup.getHashAlgo()
+        };
+        
+        for (int i = 0; i < tempGetters.length; i++) {
+            try {
+                tempGetters[i].run();
+                fail("Getter " + i + " did not throw");
+            } catch (final IllegalStateException exception) {
+                assertTrue(exception.getMessage().startsWith("group file not loaded: "));
+            } // END try/catch BLOCK
+        } // END for LOOP
+    } // END assertGettersThrow() PRIVATE HELPER METHOD
+    
+    
+} // END GroupCompInitializationFileInterpreterTest.java CLASS
@@ -0,0 +1,231 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of GroupSnapshot through
+ * GroupCompInitializationFileInterpreter.withSnapshot(): a snapshot is used
+ * for the file it was taken from, and ignored, then replaced, once the file
+ * changes or the snapshot itself is corrupt.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class GroupSnapshotTest {
+    
+// CLASS CONSTANTS
+    /** The hash algorithm of the group files. */
+    private static final String HASH_ALGO = "SHA-256";
+    
+    /** The UIDs of the players, the last too long for a long. */
+    private static final BigInteger[] UIDS = {
+        BigInteger.valueOf(1000L),
+        BigInteger.valueOf(1001L),
+        BigInteger.ONE.shiftLeft(70).add(BigInteger.valueOf(1002L))
+    };
+    
+    /** The bits of the modulus of a synthetic public key. */
+    private static final int KEY_BITS = 1024;
+    
+    
+// CLASS VARIABLES
+    /** The directory of the group files. */
+    private Path myDir;
+    
+    /** The group file under test. */
+    private Path myFile;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the directory of the group files.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-group");
+        myFile = myDir.resolve("group.txt");
+    }
+    
+    /**
+     * Deletes the directory of the group files.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(myDir)) {
+            for (final Path tempPath : tempStream) {
+                Files.delete(tempPath);
+            }
+        } // END try-with-resources BLOCK
+        Files.delete(myDir);
+    } // END tearDown() METHOD
+    
+    /**
+     * The snapshot written for a file is used while the file is unchanged,
+     * and ignored, then replaced, once the file changes.
+     *
+     * @throws Exception If the files cannot be written.
+     */
+    @Test
+    public void testHitThenMissAfterFileChanges() throws Exception {
+        writeGroupFile("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        assertFalse(readSnapshot());
+        checkGroup(GroupCompInitializationFileInterpreter.withSnapshot(myFile.toString()),
+                   "10.0.0.2");
+        assertTrue(readSnapshot());
+        checkGroup(GroupCompInitializationFileInterpreter.withSnapshot(myFile.toString()),
+                   "10.0.0.2");
+        
+        writeGroupFile("10.0.0.1", "10.0.0.9", "10.0.0.3");
+        assertFalse(readSnapshot());
+        checkGroup(GroupCompInitializationFileInterpreter.withSnapshot(myFile.toString()),
+                   "10.0.0.9");
+        assertTrue(readSnapshot());
+    } // END testHitThenMissAfterFileChanges() METHOD
+    
+    /**
+     * A snapshot whose bytes were changed after it was written is ignored,
+     * the file is interpreted and verified in full, and the snapshot is
+     * replaced.
+     *
+     * @throws Exception If the files cannot be written.
+     */
+    @Test
+    public void testCorruptSnapshotIsIgnored() throws Exception {
+        writeGroupFile("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        GroupCompInitializationFileInterpreter.withSnapshot(myFile.toString());
+        
+        final Path tempSnap = myDir.resolve(myFile.getFileName() + GroupSnapshot.SUFFIX);
+        final byte[] tempBytes = Files.readAllBytes(tempSnap);
+        tempBytes[tempBytes.length / 2] ^= 1;
+        Files.write(tempSnap, tempBytes);
+        assertFalse(readSnapshot());
+        
+        checkGroup(GroupCompInitializationFileInterpreter.withSnapshot(myFile.toString()),
+                   "10.0.0.2");
+        assertTrue(readSnapshot());
+    } // END testCorruptSnapshotIsIgnored() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks an interpreted group file against the players written by
+     * writeGroupFile().
+     *
+     * @param theGroup The interpreted file.
+     * @param theSecondAddr The address of the second player.
+     */
+    static void checkGroup(final GroupCompInitializationFileInterpreter theGroup,
+                           final String theSecondAddr) {
+        assertTrue(theGroup.getHashCompare());
+        assertTrue(theGroup.isLoaded());
+        assertEquals(UIDS.length, theGroup.getGrpSize());
+        for (int i = 0; i < UIDS.length; i++) {
+            assertEquals(UIDS[i], theGroup.getPlyrUID(i));
+            assertEquals(i, theGroup.indexOfPlyr(UIDS[i]));
+            assertArrayEquals(publicKey(i), theGroup.getPlyrPubKey(i).getEncoded());
+        }
+        assertEquals(theSecondAddr, theGroup.getPlyrAddr(1).getHostAddress());
+    } // END checkGroup() PRIVATE HELPER METHOD
+    
+    /**
+     * Reads the snapshot of the group file as it is now.
+     *
+     * @return TRUE if the snapshot was loaded.
+     * @throws IOException If the files cannot be read.
+     */
+    private boolean readSnapshot() throws IOException {
+        final List<String> tempLines = Files.readAllLines(myFile, StandardCharsets.US_ASCII);
+        return GroupSnapshot.read(myFile.toString(), HASH_ALGO,
+                                  FileHashVerifier.decodeHash(tempLines.get(tempLines.size() - 1)),
+                                  new PlayerRegistry(UIDS.length), new byte[UIDS.length][]);
+    }
+    
+    /**
+     * Writes the group file, hashed with HASH_ALGO.
+     *
+     * @param theAddrs The IPv4 literal address of each player.
+     * @throws Exception If the file cannot be written.
+     */
+    private void writeGroupFile(final String... theAddrs) throws Exception {
+        Files.write(myFile, groupLines(theAddrs), StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * Returns the lines of a group file of the players in UIDS, ending with
+     * its HASH_ALGO hash.
+     *
+     * @param theAddrs The IPv4 literal address of each player.
+     * @return The lines of the file.
+     * @throws Exception If the file cannot be hashed.
+     */
+    static List<String> groupLines(final String... theAddrs) throws Exception {
+        final List<String> tempLines = new ArrayList<>();
+        tempLines.add("x0 * x1 + x2");
+        tempLines.add("long");
+        tempLines.add("123456789");
+        tempLines.add(Integer.toString(UIDS.length));
+        for (int i = 0; i < UIDS.length; i++) {
+            tempLines.add(UIDS[i].toString());
+            tempLines.add(theAddrs[i]);
+            tempLines.add(Base64.getEncoder().encodeToString(publicKey(i)));
+        }
+        tempLines.add(HASH_ALGO);
+        
+        final MessageDigest tempDigest = MessageDigest.getInstance(HASH_ALGO);
+        for (final String tempLine : tempLines) {
+            tempDigest.update(tempLine.getBytes(StandardCharsets.US_ASCII));
+        }
+        tempLines.add(String.format("%064x", new BigInteger(1, tempDigest.digest())));
+        
+        return tempLines;
+    } // END groupLines() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the X.509 encoded synthetic public key of a player.
+     *
+     * @param thePlyr The index of the player.
+     * @return The encoded key.
+     */
+    private static byte[] publicKey(final int thePlyr) {
+        try {
+            final BigInteger tempModulus = new BigInteger(KEY_BITS, new Random(thePlyr))
+                                               .setBit(KEY_BITS - 1).setBit(0);
+            return KeyFactory.getInstance("RSA").generatePublic(
+                    new RSAPublicKeySpec(tempModulus, BigInteger.valueOf(65537L))).getEncoded();
+        } catch (final GeneralSecurityException exception) {
+            throw new IllegalStateException("Cannot make a synthetic key", exception);
+        } // END try/catch BLOCK
+    } // END publicKey() PRIVATE HELPER METHOD
+    
+    
+} // END GroupSnapshotTest.java CLASS
@@ -0,0 +1,213 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of MappedLineReader: the lines of a file are split at every '\n'
+ * with a preceding '\r' stripped, a lone '\r' stays in its line, and the
+ * position of each line is reported once it is returned.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class MappedLineReaderTest {
+    
+// CLASS VARIABLES
+    /** The directory of the files read. */
+    private Path myDir;
+    
+    /** The file read by the test. */
+    private Path myFile;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the directory of the files read.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-lines");
+        myFile = myDir.resolve("lines.txt");
+    }
+    
+    /**
+     * Deletes the directory of the files read.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(myDir)) {
+            for (final Path tempPath : tempStream) {
+                Files.delete(tempPath);
+            }
+        } // END try-with-resources BLOCK
+        Files.delete(myDir);
+    } // END tearDown() METHOD
+    
+    /**
+     * Lines ended by "\r\n" are read without the '\r', alike with lines
+     * ended by '\n' alone.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void testCrLfEndsLine() throws IOException {
+        check("one\r\ntwo\nthree\r\n", "one", "two", "three");
+        check("\r\n\r\n", "", "");
+    }
+    
+    /**
+     * A '\r' not followed by '\n' does not end a line and is kept in it.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void testLoneCrIsKept() throws IOException {
+        check("a\rb\nc\r\r\n", "a\rb", "c\r");
+        check("\r\r", "\r");
+    }
+    
+    /**
+     * A last line with no '\n' is read, with a '\r' at its end stripped.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void testLastLineWithoutNewline() throws IOException {
+        check("one\ntwo", "one", "two");
+        check("one\r\ntwo\r", "one", "two");
+        check("x", "x");
+    }
+    
+    /**
+     * An empty file has no lines.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void testEmptyFile() throws IOException {
+        check("");
+    }
+    
+    /**
+     * The position of the line last returned is not moved by hasNext()
+     * looking ahead to the next one.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void testLineStartUnchangedByHasNext() throws IOException {
+        write("ab\r\ncde\nf");
+        try (MappedLineReader tempReader = new MappedLineReader(myFile.toString())) {
+            assertEquals(-1L, tempReader.getLineStart());
+            assertTrue(tempReader.hasNext());
+            assertEquals(-1L, tempReader.getLineStart());
+            
+            final long[] tempStarts = {0L, 4L, 8L};
+            for (final long tempStart : tempStarts) {
+                tempReader.next();
+                assertEquals(tempStart, tempReader.getLineStart());
+                tempReader.hasNext();
+                assertEquals(tempStart, tempReader.getLineStart());
+            } // END for LOOP
+            assertFalse(tempReader.hasNext());
+            assertEquals(3L, tempReader.getLineCount());
+        } // END try-with-resources BLOCK
+    } // END testLineStartUnchangedByHasNext() METHOD
+    
+    /**
+     * A byte range aligned to lines holds the lines starting in it, and
+     * lines are counted alike before and after hasNext().
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void testAlignedRange() throws IOException {
+        write("ab\r\ncde\nf\n");
+        try (FileChannel tempChannel = FileChannel.open(myFile, StandardOpenOption.READ)) {
+            final long tempStart = MappedLineReader.alignToLine(tempChannel, 2L);
+            assertEquals(4L, tempStart);
+            try (MappedLineReader tempReader =
+                    new MappedLineReader(tempChannel, tempStart, tempChannel.size())) {
+                assertEquals(2L, tempReader.countLines());
+                assertTrue(tempReader.hasNext());
+                assertEquals(2L, tempReader.countLines());
+                assertEquals("cde", text(tempReader.next()));
+                assertEquals(4L, tempReader.getLineStart());
+                assertEquals(1L, tempReader.countLines());
+            } // END try-with-resources BLOCK
+        } // END try-with-resources BLOCK
+    } // END testAlignedRange() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks that the lines read from a file holding the passed text are
+     * the expected ones, and that countLines() and peekLastLines() agree.
+     *
+     * @param theText The text of the file.
+     * @param theLines The expected lines.
+     * @throws IOException If the file cannot be written or read.
+     */
+    private void check(final String theText, final String... theLines) throws IOException {
+        write(theText);
+        try (MappedLineReader tempReader = new MappedLineReader(myFile.toString())) {
+            assertEquals(theLines.length, tempReader.countLines());
+            assertArrayEquals(theLines, tempReader.peekLastLines(theLines.length + 1));
+            
+            final List<String> tempRead = new ArrayList<>();
+            while (tempReader.hasNext()) {
+                tempRead.add(text(tempReader.next()));
+            }
+            assertArrayEquals(theLines, tempRead.toArray(new String[0]));
+            assertEquals(theLines.length, tempReader.getLineCount());
+        } // END try-with-resources BLOCK
+    } // END check() PRIVATE HELPER METHOD
+    
+    /**
+     * Writes the file read by the test.
+     *
+     * @param theText The text of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    private void write(final String theText) throws IOException {
+        Files.write(myFile, theText.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Returns the text of a line.
+     *
+     * @param theLine The bytes of the line.
+     * @return The text.
+     */
+    private static String text(final ByteBuffer theLine) {
+        return StandardCharsets.ISO_8859_1.decode(theLine).toString();
+    }
+    
+    
+} // END MappedLineReaderTest.java CLASS
@@ -0,0 +1,288 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of SecretDataBinaryFormat and SecretDataBinaryReader: values of
+ * every data type converted from text read back unchanged, and truncated or
+ * corrupt files are rejected with an IOException.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class SecretDataBinaryFormatTest {
+    
+// CLASS CONSTANTS
+    /** The int values, as written in a text file. */
+    private static final List<String> INTS = Arrays.asList(
+            "0", "-1", "2147483647", "-2147483648", "+42");
+    
+    /** The long values, as written in a text file. */
+    private static final List<String> LONGS = Arrays.asList(
+            "0", "-1", "9223372036854775807", "-9223372036854775808", "123456789012");
+    
+    /** The float values, as written in a text file. */
+    private static final List<String> FLOATS = Arrays.asList(
+            "0.0", "-1.5", "3.4028235e38", "1.4e-45", "0.1");
+    
+    /** The double values, as written in a text file. */
+    private static final List<String> DOUBLES = Arrays.asList(
+            "0.0", "-2.5e-3", "1.7976931348623157e308", "4.9e-324", "0.30000000000000004");
+    
+    /** The BigInteger values, as written in a text file. */
+    private static final List<String> BIG_INTEGERS = Arrays.asList(
+            "0", "-1", "128", "-129", "123456789012345678901234567890123456789");
+    
+    /** The BigDecimal values, as written in a text file. */
+    private static final List<String> BIG_DECIMALS = Arrays.asList(
+            "0", "-1.5", "1E+10", "123456789012345678901234567890.000000001");
+    
+    
+// CLASS VARIABLES
+    /** The directory of the secret data files. */
+    private Path myDir;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the directory of the secret data files.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-secret");
+    }
+    
+    /**
+     * Deletes the directory of the secret data files.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(myDir)) {
+            for (final Path tempPath : tempStream) {
+                Files.delete(tempPath);
+            }
+        } // END try-with-resources BLOCK
+        Files.delete(myDir);
+    } // END tearDown() METHOD
+    
+    /**
+     * Fixed-width values read back unchanged, one at a time and in bulk.
+     *
+     * @throws IOException If the files cannot be written or read.
+     */
+    @Test
+    public void testFixedWidthRoundTrip() throws IOException {
+        try (SecretDataBinaryReader tempReader = convert("int", INTS)) {
+            assertEquals(SecretDataType.INT, tempReader.getDataType());
+            assertEquals(INTS.size(), tempReader.getCount());
+            final int[] tempAll = new int[INTS.size() + 1];
+            tempReader.readInts(0L, tempAll, 1, INTS.size());
+            for (int i = 0; i < INTS.size(); i++) {
+                assertEquals(Integer.parseInt(INTS.get(i)), tempReader.getInt(i));
+                assertEquals(Integer.parseInt(INTS.get(i)), tempAll[i + 1]);
+            }
+        } // END try-with-resources BLOCK
+        
+        try (SecretDataBinaryReader tempReader = convert("long", LONGS)) {
+            final long[] tempAll = new long[LONGS.size()];
+            tempReader.readLongs(0L, tempAll, 0, LONGS.size());
+            for (int i = 0; i < LONGS.size(); i++) {
+                assertEquals(Long.parseLong(LONGS.get(i)), tempReader.getLong(i));
+                assertEquals(Long.parseLong(LONGS.get(i)), tempAll[i]);
+            }
+        } // END try-with-resources BLOCK
+        
+        try (SecretDataBinaryReader tempReader = convert("float", FLOATS)) {
+            final float[] tempAll = new float[FLOATS.size()];
+            tempReader.readFloats(0L, tempAll, 0, FLOATS.size());
+            for (int i = 0; i < FLOATS.size(); i++) {
+                assertEquals(Float.parseFloat(FLOATS.get(i)), tempReader.getFloat(i), 0.0f);
+                assertEquals(Float.parseFloat(FLOATS.get(i)), tempAll[i], 0.0f);
+            }
+        } // END try-with-resources BLOCK
+        
+        try (SecretDataBinaryReader tempReader = convert("double", DOUBLES)) {
+            final double[] tempAll = new double[DOUBLES.size()];
+            tempReader.readDoubles(0L, tempAll, 0, DOUBLES.size());
+            for (int i = 0; i < DOUBLES.size(); i++) {
+                assertEquals(Double.parseDouble(DOUBLES.get(i)), tempReader.getDouble(i), 0.0);
+                assertEquals(Double.parseDouble(DOUBLES.get(i)), tempAll[i], 0.0);
+            }
+        } // END try-with-resources BLOCK
+    } // END testFixedWidthRoundTrip() METHOD
+    
+    /**
+     * Variable-length values read back unchanged, in sequence.
+     *
+     * @throws IOException If the files cannot be written or read.
+     */
+    @Test
+    public void testVariableLengthRoundTrip() throws IOException {
+        try (SecretDataBinaryReader tempReader = convert("BigInteger", BIG_INTEGERS)) {
+            for (final String tempValue : BIG_INTEGERS) {
+                assertTrue(tempReader.hasNext());
+                assertEquals(new BigInteger(tempValue), tempReader.nextBigInteger());
+            }
+            assertFalse(tempReader.hasNext());
+        } // END try-with-resources BLOCK
+        
+        try (SecretDataBinaryReader tempReader = convert("BigDecimal", BIG_DECIMALS)) {
+            for (final String tempValue : BIG_DECIMALS) {
+                assertEquals(new BigDecimal(tempValue), tempReader.nextBigDecimal());
+            }
+            assertFalse(tempReader.hasNext());
+        } // END try-with-resources BLOCK
+    } // END testVariableLengthRoundTrip() METHOD
+    
+    /**
+     * A file missing the last bytes of its fixed-width values, or its
+     * header, is rejected when opened.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void testTruncatedFileIsRejected() throws IOException {
+        convert("long", LONGS).close();
+        final byte[] tempBytes = Files.readAllBytes(binaryFile());
+        
+        assertRejected(Arrays.copyOf(tempBytes, tempBytes.length - 1));
+        assertRejected(Arrays.copyOf(tempBytes, SecretDataBinaryFormat.HEADER_SIZE - 1));
+    } // END testTruncatedFileIsRejected() METHOD
+    
+    /**
+     * A count which is negative, or so large that the size of the values
+     * overflows a long, is rejected when the file is opened.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void testBadCountIsRejected() throws IOException {
+        convert("long", LONGS).close();
+        final byte[] tempBytes = Files.readAllBytes(binaryFile());
+        
+        for (final long tempCount : new long[] {-1L, Long.MIN_VALUE, Long.MAX_VALUE,
+                                                Long.MAX_VALUE / Long.BYTES + 2}) {
+            ByteBuffer.wrap(tempBytes).order(ByteOrder.LITTLE_ENDIAN)
+                      .putLong(SecretDataBinaryFormat.COUNT_OFFSET, tempCount);
+            assertRejected(tempBytes);
+        } // END for LOOP
+    } // END testBadCountIsRejected() METHOD
+    
+    /**
+     * A BigInteger whose length is negative, or runs past the end of the
+     * file, is rejected with an IOException when it is read.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void testBadLengthIsRejected() throws IOException {
+        convert("BigInteger", BIG_INTEGERS).close();
+        final byte[] tempBytes = Files.readAllBytes(binaryFile());
+        
+        for (final int tempLength : new int[] {-1, Integer.MIN_VALUE, tempBytes.length}) {
+            ByteBuffer.wrap(tempBytes).order(ByteOrder.LITTLE_ENDIAN)
+                      .putInt(SecretDataBinaryFormat.HEADER_SIZE, tempLength);
+            Files.write(binaryFile(), tempBytes);
+            try (SecretDataBinaryReader tempReader = open()) {
+                tempReader.nextBigInteger();
+                fail("Length " + tempLength + " was accepted");
+            } catch (final IOException exception) {
+                // Expected: the length is not valid
+            } // END try/catch BLOCK
+        } // END for LOOP
+    } // END testBadLengthIsRejected() METHOD
+    
+    /**
+     * Converting an unknown data type is rejected.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDataTypeThrows() throws IOException {
+        convert("short", INTS);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Writes values to a text file, converts it to the binary file, and opens
+     * the binary file.
+     *
+     * @param theDataType The name of the data type of the values.
+     * @param theValues The values, one per line.
+     * @return The reader of the binary file.
+     * @throws IOException If the files cannot be written or read.
+     */
+    private SecretDataBinaryReader convert(final String theDataType,
+                                           final List<String> theValues) throws IOException {
+        final Path tempText = myDir.resolve("data.txt");
+        Files.write(tempText, theValues, StandardCharsets.US_ASCII);
+        
+        assertEquals(theValues.size(), SecretDataBinaryFormat.convert(
+                tempText.toString(), theDataType, binaryFile().toString()));
+        return open();
+    } // END convert() PRIVATE HELPER METHOD
+    
+    /**
+     * Checks that a binary file holding the passed bytes cannot be opened.
+     *
+     * @param theBytes The bytes of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    private void assertRejected(final byte[] theBytes) throws IOException {
+        Files.write(binaryFile(), theBytes);
+        try (SecretDataBinaryReader tempReader = open()) {
+            fail("File of " + tempReader.getCount() + " values was accepted");
+        } catch (final IOException exception) {
+            // Expected: the file is not whole
+        } // END try/catch BLOCK
+    } // END assertRejected() PRIVATE HELPER METHOD
+    
+    /**
+     * Opens the binary file.
+     *
+     * @return The reader of the binary file.
+     * @throws IOException If the file cannot be read or is not valid.
+     */
+    private SecretDataBinaryReader open() throws IOException {
+        return new SecretDataBinaryReader(binaryFile().toString());
+    }
+    
+    /**
+     * Returns the path of the binary file.
+     *
+     * @return The path.
+     */
+    private Path binaryFile() {
+        return myDir.resolve("data.bin");
+    }
+    
+    
+} // END SecretDataBinaryFormatTest.java CLASS
@@ -0,0 +1,285 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * Tests of the MpscRing queues, MpscQueue and ShareMessageQueue: several
+ * producers filling a small ring while one consumer drains it, so that the
+ * ring wraps and fills many times, and the bounds of a full or empty ring.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class MpscRingTest {
+    
+// CLASS CONSTANTS
+    /** The number of producer threads. */
+    private static final int PRODUCERS = 4;
+    
+    /** The number of messages sent by each producer. */
+    private static final int MESSAGES = 50_000;
+    
+    /** The number of slots of the rings under stress, small to wrap often. */
+    private static final int CAPACITY = 16;
+    
+    /** The largest payload of the share messages under stress. */
+    private static final int MAX_LONGS = 3;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Every element put by every producer is taken exactly once, and the
+     * elements of each producer are taken in the order it put them.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 120_000)
+    public void testMultiProducerQueueLosesAndReordersNothing() throws InterruptedException {
+        final MpscQueue<Long> tempQueue = new MpscQueue<>(CAPACITY);
+        final AtomicReference<Throwable> tempFailure = new AtomicReference<>();
+        final List<Thread> tempThreads = startProducers(tempFailure, theProducer -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                final Long tempElem = ((long) theProducer << 32) | i;
+                // Half of the producers spin on offer() instead of waiting in put()
+                if (theProducer % 2 == 0) {
+                    tempQueue.put(tempElem);
+                } else {
+                    while (!tempQueue.offer(tempElem)) {
+                        Thread.yield();
+                    }
+                }
+            } // END for LOOP
+        });
+        
+        final int[] tempNext = new int[PRODUCERS];
+        int tempReceived = 0;
+        while (tempReceived < PRODUCERS * MESSAGES) {
+            if (tempReceived % 3 == 0) {
+                checkNext(tempNext, tempQueue.take());
+                tempReceived++;
+            } else {
+                tempReceived += tempQueue.drain(theElem -> checkNext(tempNext, theElem), 7,
+                                                1, TimeUnit.SECONDS);
+            }
+        } // END while LOOP
+        
+        joinProducers(tempThreads, tempFailure);
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(MESSAGES, tempNext[p]);
+        }
+        assertNull(tempQueue.poll());
+        assertEquals(0, tempQueue.size());
+    } // END testMultiProducerQueueLosesAndReordersNothing() METHOD
+    
+    /**
+     * Every share message put by every producer is drained exactly once,
+     * with its header and payload intact, and the messages of each sender
+     * are drained in the order it put them.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 120_000)
+    public void testMultiProducerShareQueueKeepsPayloads() throws InterruptedException {
+        final ShareMessageQueue tempQueue = new ShareMessageQueue(CAPACITY, MAX_LONGS);
+        final AtomicReference<Throwable> tempFailure = new AtomicReference<>();
+        final List<Thread> tempThreads = startProducers(tempFailure, theProducer -> {
+            final long[] tempPayload = new long[MAX_LONGS + 1];
+            for (int i = 0; i < MESSAGES; i++) {
+                for (int k = 0; k < tempPayload.length; k++) {
+                    tempPayload[k] = payload(theProducer, i, k - 1);
+                }
+                // Offset by one to check the payload is copied from its offset
+                tempQueue.put(theProducer, i, theProducer + 100, tempPayload, 1,
+                              i % (MAX_LONGS + 1));
+            } // END for LOOP
+        });
+        
+        final int[] tempNext = new int[PRODUCERS];
+        final ShareMessageHandler tempHandler = (theSender, theRound, theType, thePayload,
+                                                 theOffset, theCount) -> {
+            assertEquals(tempNext[theSender], theRound);
+            assertEquals(theSender + 100, theType);
+            assertEquals(theRound % (MAX_LONGS + 1), theCount);
+            for (int k = 0; k < theCount; k++) {
+                assertEquals(payload(theSender, theRound, k), thePayload[theOffset + k]);
+            }
+            tempNext[theSender]++;
+        };
+        int tempReceived = 0;
+        while (tempReceived < PRODUCERS * MESSAGES) {
+            tempReceived += tempQueue.drain(tempHandler, 5, 1, TimeUnit.SECONDS);
+        }
+        
+        joinProducers(tempThreads, tempFailure);
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(MESSAGES, tempNext[p]);
+        }
+        assertEquals(0, tempQueue.drain(tempHandler, 1));
+    } // END testMultiProducerShareQueueKeepsPayloads() METHOD
+    
+    /**
+     * The capacity is rounded up to a power of two, an offer to a full ring
+     * fails and changes nothing, and frees up as the consumer reads.
+     */
+    @Test
+    public void testOfferToFullRingReturnsFalse() {
+        final MpscQueue<Integer> tempQueue = new MpscQueue<>(5);
+        assertEquals(8, tempQueue.getCapacity());
+        
+        for (int i = 0; i < 8; i++) {
+            assertTrue(tempQueue.offer(i));
+        }
+        assertEquals(8, tempQueue.size());
+        assertFalse(tempQueue.offer(8));
+        
+        assertEquals(Integer.valueOf(0), tempQueue.poll());
+        assertTrue(tempQueue.offer(8));
+        assertFalse(tempQueue.offer(9));
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(Integer.valueOf(i), tempQueue.poll());
+        }
+        assertNull(tempQueue.poll());
+    } // END testOfferToFullRingReturnsFalse() METHOD
+    
+    /**
+     * An offer of a share message to a full ring fails without consuming
+     * its payload.
+     */
+    @Test
+    public void testShareOfferToFullRingReturnsFalse() {
+        final ShareMessageQueue tempQueue = new ShareMessageQueue(2, 1);
+        final long[] tempPayload = {42L};
+        assertTrue(tempQueue.offer(0, 0, 0, tempPayload, 0, 1));
+        assertTrue(tempQueue.offer(0, 1, 0, LongBuffer.wrap(tempPayload)));
+        
+        final LongBuffer tempBuffer = LongBuffer.wrap(tempPayload);
+        assertFalse(tempQueue.offer(0, 2, 0, tempBuffer));
+        assertEquals(1, tempBuffer.remaining());
+        assertFalse(tempQueue.offer(0, 2, 0, tempPayload, 0, 1));
+    } // END testShareOfferToFullRingReturnsFalse() METHOD
+    
+    /**
+     * A drain of an empty ring with a timeout returns nothing once the
+     * timeout elapses.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 10_000)
+    public void testDrainOfEmptyRingTimesOut() throws InterruptedException {
+        final MpscQueue<Integer> tempQueue = new MpscQueue<>(4);
+        assertEquals(0, tempQueue.drain(theElem -> { }, 4, 10, TimeUnit.MILLISECONDS));
+    }
+    
+    /**
+     * A payload longer than the largest is rejected before a slot is
+     * claimed.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPayloadTooLongThrows() {
+        new ShareMessageQueue(4, 2).offer(0, 0, 0, new long[3], 0, 3);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Starts a thread for each producer.
+     *
+     * @param theFailure Receives what any producer throws.
+     * @param theProducer The body of the producers.
+     * @return The threads.
+     */
+    private static List<Thread> startProducers(final AtomicReference<Throwable> theFailure,
+                                               final Producer theProducer) {
+        final List<Thread> tempThreads = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int tempIndex = p;
+            final Thread tempThread = new Thread(() -> {
+                try {
+                    theProducer.run(tempIndex);
+                } catch (final InterruptedException | RuntimeException exception) {
+                    theFailure.compareAndSet(null, exception);
+                } // END try/catch BLOCK
+            }, "producer-" + p);
+            tempThread.start();
+            tempThreads.add(tempThread);
+        } // END for LOOP
+        return tempThreads;
+    } // END startProducers() PRIVATE HELPER METHOD
+    
+    /**
+     * Waits for every producer to finish, failing if any of them threw.
+     *
+     * @param theThreads The producer threads.
+     * @param theFailure What any producer threw, or null.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static void joinProducers(final List<Thread> theThreads,
+                                      final AtomicReference<Throwable> theFailure)
+                                      throws InterruptedException {
+        for (final Thread tempThread : theThreads) {
+            tempThread.join();
+        }
+        assertNull(theFailure.get());
+    }
+    
+    /**
+     * Checks that an element is the next one of its producer.
+     *
+     * @param theNext The index of the next element of each producer.
+     * @param theElem The element, the producer in the high 32 bits and the
+     *                index in the low 32 bits.
+     */
+    private static void checkNext(final int[] theNext, final Long theElem) {
+        final int tempProducer = (int) (theElem >>> 32);
+        assertEquals(theNext[tempProducer], (int) (long) theElem);
+        theNext[tempProducer]++;
+    }
+    
+    /**
+     * Returns a long of the payload of a message, unique to its sender,
+     * round and index.
+     *
+     * @param theSender The index of the sender.
+     * @param theRound The round of the message.
+     * @param theIndex The index of the long in the payload.
+     * @return The long.
+     */
+    private static long payload(final int theSender, final int theRound, final int theIndex) {
+        return ((long) theSender << 48) ^ ((long) theRound << 8) ^ (theIndex + 1);
+    }
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * The body of a producer thread.
+     */
+    @FunctionalInterface
+    private interface Producer {
+        
+        /**
+         * Sends every message of a producer.
+         *
+         * @param theProducer The index of the producer.
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        void run(int theProducer) throws InterruptedException;
+    } // END Producer INTERFACE
+    
+    
+} // END MpscRingTest.java CLASS
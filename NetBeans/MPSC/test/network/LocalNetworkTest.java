@@ -0,0 +1,148 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import messaging.ShareMessageQueue;
+import org.junit.Test;
+
+/**
+ * Tests of LocalNetwork: messages are delivered only when their round is
+ * flushed, split into messages of at most the largest payload, and kept in
+ * order while a peer's queue is full.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class LocalNetworkTest {
+    
+// CLASS CONSTANTS
+    /** The number of players of the network. */
+    private static final int PLAYERS = 3;
+    
+    /** The largest number of longs in a message. */
+    private static final int MAX_LONGS = 4;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Nothing sent reaches a peer until the sender flushes, and then every
+     * message does, in the order it was sent.
+     */
+    @Test
+    public void testDeliversOnlyOnFlush() {
+        final LocalNetwork tempNetwork = new LocalNetwork(PLAYERS, 16, MAX_LONGS);
+        final PeerTransport tempSender = tempNetwork.getTransport(0);
+        
+        tempSender.send(1, 0, 7, new long[] {1L, 2L}, 0, 2);
+        tempSender.send(2, 0, 7, new long[] {3L}, 0, 1);
+        tempSender.send(1, 1, 8, new long[] {4L, 5L, 6L}, 1, 2);
+        assertEquals(0, tempNetwork.getTransport(1).getInbound().size());
+        assertEquals(0, tempNetwork.getTransport(2).getInbound().size());
+        
+        tempSender.flush();
+        assertEquals("0/0/7:1,2 0/1/8:5,6", drainAll(tempNetwork.getTransport(1)));
+        assertEquals("0/0/7:3", drainAll(tempNetwork.getTransport(2)));
+        
+        tempSender.flush();
+        assertEquals("", drainAll(tempNetwork.getTransport(1)));
+    } // END testDeliversOnlyOnFlush() METHOD
+    
+    /**
+     * A payload longer than the largest arrives as consecutive messages
+     * with the same round and type.
+     */
+    @Test
+    public void testSplitsLongPayloads() {
+        final LocalNetwork tempNetwork = new LocalNetwork(PLAYERS, 16, MAX_LONGS);
+        final PeerTransport tempSender = tempNetwork.getTransport(2);
+        final long[] tempPayload = new long[2 * MAX_LONGS + 1];
+        for (int i = 0; i < tempPayload.length; i++) {
+            tempPayload[i] = i;
+        }
+        
+        tempSender.send(0, 3, 1, tempPayload, 0, tempPayload.length);
+        tempSender.flush();
+        assertEquals("2/3/1:0,1,2,3 2/3/1:4,5,6,7 2/3/1:8",
+                     drainAll(tempNetwork.getTransport(0)));
+    } // END testSplitsLongPayloads() METHOD
+    
+    /**
+     * Messages which find a peer's queue full are kept, with every later
+     * message to that peer, and delivered in order by later flushes, while
+     * the other peers are not held up.
+     */
+    @Test
+    public void testRetriesInOrderWhileQueueIsFull() {
+        final LocalNetwork tempNetwork = new LocalNetwork(PLAYERS, 2, MAX_LONGS);
+        final PeerTransport tempSender = tempNetwork.getTransport(1);
+        for (int r = 0; r < 5; r++) {
+            tempSender.send(0, r, 0, new long[] {r}, 0, 1);
+        }
+        tempSender.send(2, 0, 0, new long[] {9L}, 0, 1);
+        
+        tempSender.flush();
+        assertEquals("1/0/0:9", drainAll(tempNetwork.getTransport(2)));
+        assertEquals("1/0/0:0 1/1/0:1", drainAll(tempNetwork.getTransport(0)));
+        
+        tempSender.send(0, 5, 0, new long[] {5L}, 0, 1);
+        tempSender.flush();
+        assertEquals("1/2/0:2 1/3/0:3", drainAll(tempNetwork.getTransport(0)));
+        tempSender.flush();
+        assertEquals("1/4/0:4 1/5/0:5", drainAll(tempNetwork.getTransport(0)));
+    } // END testRetriesInOrderWhileQueueIsFull() METHOD
+    
+    /**
+     * A player cannot send to itself.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSendToSelfThrows() {
+        new LocalNetwork(PLAYERS, 4, MAX_LONGS).getTransport(1).send(1, 0, 0, new long[1], 0, 1);
+    }
+    
+    /**
+     * A closed transport cannot send.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSendAfterCloseThrows() {
+        final PeerTransport tempTransport = new LocalNetwork(PLAYERS, 4, MAX_LONGS)
+                                                .getTransport(0);
+        tempTransport.close();
+        tempTransport.send(1, 0, 0, new long[1], 0, 1);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Drains the inbound queue of a player into a string listing each
+     * message as "sender/round/type:payload", separated by spaces.
+     *
+     * @param theTransport The transport of the player.
+     * @return The messages.
+     */
+    static String drainAll(final PeerTransport theTransport) {
+        final ShareMessageQueue tempInbound = theTransport.getInbound();
+        final List<String> tempMessages = new ArrayList<>();
+        tempInbound.drain((theSender, theRound, theType, thePayload, theOffset, theCount) -> {
+            final StringBuilder tempBuilder = new StringBuilder();
+            tempBuilder.append(theSender).append('/').append(theRound).append('/')
+                       .append(theType).append(':');
+            for (int k = 0; k < theCount; k++) {
+                if (k > 0) {
+                    tempBuilder.append(',');
+                }
+                tempBuilder.append(thePayload[theOffset + k]);
+            }
+            tempMessages.add(tempBuilder.toString());
+        }, Integer.MAX_VALUE);
+        return String.join(" ", tempMessages);
+    } // END drainAll() PRIVATE HELPER METHOD
+    
+    
+} // END LocalNetworkTest.java CLASS
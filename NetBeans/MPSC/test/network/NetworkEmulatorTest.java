@@ -0,0 +1,232 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import messaging.ShareMessageQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of NetworkEmulator: batches arrive after the latency of their link
+ * and in order, closing delivers the batches in flight, a transport closed
+ * after the emulator does not hang, and a blocked inner transport only holds
+ * up its own player.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class NetworkEmulatorTest {
+    
+// CLASS CONSTANTS
+    /** The number of players of the network. */
+    private static final int PLAYERS = 3;
+    
+    /** The latency of every link. */
+    private static final long LATENCY_MILLIS = 30L;
+    
+    /** The longest a test waits for a message. */
+    private static final long WAIT_MILLIS = 5_000L;
+    
+    
+// CLASS VARIABLES
+    /** The network wrapped by the emulator. */
+    private LocalNetwork myNetwork;
+    
+    /** The emulator under test. */
+    private NetworkEmulator myEmulator;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the emulator of a network whose links only have latency.
+     */
+    @Before
+    public void setUp() {
+        myNetwork = new LocalNetwork(PLAYERS, 16, 4);
+        myEmulator = new NetworkEmulator(new NetworkProfile(PLAYERS, LinkProfile.parse(
+                "latency=" + LATENCY_MILLIS + "ms", LinkProfile.UNLIMITED)), 1L);
+    }
+    
+    /**
+     * Stops the emulator.
+     */
+    @After
+    public void tearDown() {
+        myEmulator.close();
+    }
+    
+    /**
+     * A flushed round reaches the peer no sooner than the latency, whole
+     * and in order.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 10_000)
+    public void testBatchArrivesAfterLatency() throws InterruptedException {
+        final PeerTransport tempSender = myEmulator.wrap(myNetwork.getTransport(0));
+        final long tempStart = System.nanoTime();
+        tempSender.send(1, 0, 2, new long[] {1L, 2L, 3L, 4L, 5L}, 0, 5);
+        tempSender.send(1, 1, 2, new long[] {6L}, 0, 1);
+        tempSender.flush();
+        
+        awaitMessage(myNetwork.getTransport(1).getInbound());
+        assertTrue(System.nanoTime() - tempStart
+                   >= TimeUnit.MILLISECONDS.toNanos(LATENCY_MILLIS));
+        assertEquals("0/0/2:1,2,3,4 0/0/2:5 0/1/2:6",
+                     LocalNetworkTest.drainAll(myNetwork.getTransport(1)));
+    } // END testBatchArrivesAfterLatency() METHOD
+    
+    /**
+     * Closing a wrapped transport delivers the batches still in flight
+     * before it closes the inner transport.
+     */
+    @Test(timeout = 10_000)
+    public void testCloseDeliversBatchesInFlight() {
+        final PeerTransport tempSender = myEmulator.wrap(myNetwork.getTransport(2));
+        tempSender.send(0, 0, 0, new long[] {7L}, 0, 1);
+        tempSender.flush();
+        tempSender.send(1, 1, 0, new long[] {8L}, 0, 1);
+        tempSender.close();
+        
+        assertEquals("2/0/0:7", LocalNetworkTest.drainAll(myNetwork.getTransport(0)));
+        assertEquals("2/1/0:8", LocalNetworkTest.drainAll(myNetwork.getTransport(1)));
+    } // END testCloseDeliversBatchesInFlight() METHOD
+    
+    /**
+     * A wrapped transport closed after the emulator returns at once,
+     * dropping its batches in flight, and closes its inner transport.
+     */
+    @Test(timeout = 10_000)
+    public void testCloseAfterEmulatorDoesNotHang() {
+        final PeerTransport tempInner = myNetwork.getTransport(0);
+        final PeerTransport tempSender = myEmulator.wrap(tempInner);
+        tempSender.send(1, 0, 0, new long[] {1L}, 0, 1);
+        tempSender.flush();
+        myEmulator.close();
+        
+        final long tempStart = System.nanoTime();
+        tempSender.close();
+        assertTrue(System.nanoTime() - tempStart < TimeUnit.SECONDS.toNanos(2L));
+        try {
+            tempInner.send(1, 0, 0, new long[] {1L}, 0, 1);
+            fail("Inner transport was not closed");
+        } catch (final IllegalStateException exception) {
+            // Expected: the inner transport was closed
+        } // END try/catch BLOCK
+    } // END testCloseAfterEmulatorDoesNotHang() METHOD
+    
+    /**
+     * An inner transport which blocks holds up only its own player's links.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 10_000)
+    public void testBlockedInnerTransportStallsOnlyItsPlayer() throws InterruptedException {
+        final PeerTransport tempBlocked = myEmulator.wrap(new BlockingTransport(
+                myNetwork.getTransport(0)));
+        final PeerTransport tempSender = myEmulator.wrap(myNetwork.getTransport(1));
+        
+        tempBlocked.send(2, 0, 0, new long[] {1L}, 0, 1);
+        tempBlocked.flush();
+        Thread.sleep(2 * LATENCY_MILLIS);
+        tempSender.send(2, 0, 0, new long[] {9L}, 0, 1);
+        tempSender.flush();
+        
+        awaitMessage(myNetwork.getTransport(2).getInbound());
+        assertEquals("1/0/0:9", LocalNetworkTest.drainAll(myNetwork.getTransport(2)));
+    } // END testBlockedInnerTransportStallsOnlyItsPlayer() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Waits until a queue holds a message.
+     *
+     * @param theInbound The queue.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static void awaitMessage(final ShareMessageQueue theInbound)
+                                     throws InterruptedException {
+        final long tempDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (theInbound.size() == 0) {
+            assertTrue("No message arrived", System.nanoTime() - tempDeadline < 0);
+            Thread.sleep(1L);
+        } // END while LOOP
+    }
+    
+    
+    
+// PRIVATE CLASSES
+    /**
+     * A transport whose sends block until the delivery thread is
+     * interrupted, as a transport stuck on a slow peer would.
+     */
+    private static final class BlockingTransport implements PeerTransport {
+        
+        /** The transport of the player, whose queries are passed on. */
+        private final PeerTransport myInner;
+        
+        
+        /**
+         * Creates a blocking transport of a player.
+         *
+         * @param theInner The transport of the player.
+         */
+        private BlockingTransport(final PeerTransport theInner) {
+            myInner = theInner;
+        }
+        
+        
+        @Override
+        public int getPlayer() {
+            return myInner.getPlayer();
+        }
+        
+        @Override
+        public int getNumPlayers() {
+            return myInner.getNumPlayers();
+        }
+        
+        @Override
+        public int getMaxLongs() {
+            return myInner.getMaxLongs();
+        }
+        
+        @Override
+        public ShareMessageQueue getInbound() {
+            return myInner.getInbound();
+        }
+        
+        @Override
+        public void send(final int thePeer, final int theRound, final int theType,
+                         final long[] theSrc, final int theOffset, final int theCount) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } // END try/catch BLOCK
+        }
+        
+        @Override
+        public void flush() {
+            // Nothing is ever staged
+        }
+        
+        @Override
+        public void close() {
+            myInner.close();
+        }
+    
+    
+    } // END BlockingTransport PRIVATE CLASS
+    
+    
+} // END NetworkEmulatorTest.java CLASS
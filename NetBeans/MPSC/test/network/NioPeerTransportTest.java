@@ -0,0 +1,298 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests of NioPeerTransport over the loopback interface: messages between
+ * every pair of players arrive whole and in order, a full inbound queue
+ * holds up only the links into it, and a hello from the wrong address is
+ * refused.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class NioPeerTransportTest {
+    
+// CLASS CONSTANTS
+    /** The number of players of the group. */
+    private static final int PLAYERS = 3;
+    
+    /** The session of the group. */
+    private static final long SESSION = 42L;
+    
+    /** The largest number of longs in a message. */
+    private static final int MAX_LONGS = 8;
+    
+    /** The longest to wait for the peers or for a message. */
+    private static final long WAIT_MILLIS = 5_000L;
+    
+    
+// CLASS VARIABLES
+    /** The transports opened by the test, closed after it. */
+    private final List<NioPeerTransport> myTransports = new ArrayList<>();
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Closes every transport opened by the test.
+     */
+    @After
+    public void tearDown() {
+        for (final NioPeerTransport tempTransport : myTransports) {
+            tempTransport.close();
+        }
+    }
+    
+    /**
+     * Every player sends every other a payload longer than a message, and
+     * each receives the payloads of its peers whole and in order.
+     *
+     * @throws Exception If the transports fail.
+     */
+    @Test(timeout = 30_000)
+    public void testRoundTripBetweenEveryPair() throws Exception {
+        final NioPeerTransport[] tempGroup = openGroup(64);
+        final int tempLongs = 2 * MAX_LONGS + 3;
+        final long[] tempPayload = new long[tempLongs];
+        
+        for (int j = 0; j < PLAYERS; j++) {
+            for (int k = 0; k < PLAYERS; k++) {
+                if (k != j) {
+                    for (int i = 0; i < tempLongs; i++) {
+                        tempPayload[i] = 1000L * j + 100L * k + i;
+                    }
+                    tempGroup[j].send(k, 5, 1, tempPayload, 0, tempLongs);
+                }
+            } // END for LOOP
+            tempGroup[j].flush();
+        } // END for LOOP
+        
+        for (int k = 0; k < PLAYERS; k++) {
+            final int tempPlayer = k;
+            final int[] tempNext = new int[PLAYERS];
+            int tempLeft = (PLAYERS - 1) * tempLongs;
+            while (tempLeft > 0) {
+                final int[] tempGot = new int[1];
+                final int tempMessages = tempGroup[k].getInbound().drain(
+                        (theSender, theRound, theType, thePayload, theOffset, theCount) -> {
+                    assertEquals(5, theRound);
+                    assertEquals(1, theType);
+                    assertTrue(theCount <= MAX_LONGS);
+                    for (int i = 0; i < theCount; i++) {
+                        assertEquals(1000L * theSender + 100L * tempPlayer + tempNext[theSender],
+                                     thePayload[theOffset + i]);
+                        tempNext[theSender]++;
+                    }
+                    tempGot[0] += theCount;
+                }, Integer.MAX_VALUE, WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                assertTrue("No message arrived", tempMessages > 0);
+                tempLeft -= tempGot[0];
+            } // END while LOOP
+        } // END for LOOP
+    } // END testRoundTripBetweenEveryPair() METHOD
+    
+    /**
+     * While the inbound queue of a player is full, another player still
+     * receives from it, and the held up messages arrive in order once the
+     * queue is drained.
+     *
+     * @throws Exception If the transports fail.
+     */
+    @Test(timeout = 30_000)
+    public void testFullQueueStallsOnlyItsLinks() throws Exception {
+        final NioPeerTransport[] tempGroup = openGroup(4);
+        final int tempMessages = 200;
+        final long[] tempPayload = new long[MAX_LONGS];
+        
+        for (int i = 0; i < tempMessages; i++) {
+            tempPayload[0] = i;
+            tempGroup[1].send(0, 0, 0, tempPayload, 0, MAX_LONGS);
+        }
+        tempGroup[1].flush();
+        tempPayload[0] = -1L;
+        tempGroup[0].send(2, 0, 0, tempPayload, 0, 1);
+        tempGroup[0].flush();
+        
+        final long[] tempGot = {0L};
+        assertEquals(1, tempGroup[2].getInbound().drain(
+                (theSender, theRound, theType, thePayload, theOffset, theCount) ->
+                    tempGot[0] = thePayload[theOffset],
+                1, WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(-1L, tempGot[0]);
+        
+        final int[] tempNext = {0};
+        while (tempNext[0] < tempMessages) {
+            assertTrue("No message arrived", tempGroup[0].getInbound().drain(
+                    (theSender, theRound, theType, thePayload, theOffset, theCount) -> {
+                assertEquals(1, theSender);
+                assertEquals(tempNext[0], thePayload[theOffset]);
+                tempNext[0]++;
+            }, Integer.MAX_VALUE, WAIT_MILLIS, TimeUnit.MILLISECONDS) > 0);
+        } // END while LOOP
+    } // END testFullQueueStallsOnlyItsLinks() METHOD
+    
+    /**
+     * A round many staging buffers long, written in gathering writes, arrives
+     * whole and in order.
+     *
+     * @throws Exception If the transports fail.
+     */
+    @Test(timeout = 30_000)
+    public void testRoundOfManyBuffersArrivesWhole() throws Exception {
+        final NioPeerTransport[] tempGroup = openGroup(64);
+        final int tempMessages = 40_000;
+        final long[] tempPayload = new long[MAX_LONGS];
+        
+        for (int i = 0; i < tempMessages; i++) {
+            tempPayload[0] = i;
+            tempPayload[MAX_LONGS - 1] = -i;
+            tempGroup[1].send(0, 3, 2, tempPayload, 0, MAX_LONGS);
+        }
+        tempGroup[1].flush();
+        
+        final int[] tempNext = {0};
+        while (tempNext[0] < tempMessages) {
+            assertTrue("No message arrived", tempGroup[0].getInbound().drain(
+                    (theSender, theRound, theType, thePayload, theOffset, theCount) -> {
+                assertEquals(1, theSender);
+                assertEquals(MAX_LONGS, theCount);
+                assertEquals(tempNext[0], thePayload[theOffset]);
+                assertEquals(-tempNext[0], thePayload[theOffset + MAX_LONGS - 1]);
+                tempNext[0]++;
+            }, Integer.MAX_VALUE, WAIT_MILLIS, TimeUnit.MILLISECONDS) > 0);
+        } // END while LOOP
+    } // END testRoundOfManyBuffersArrivesWhole() METHOD
+    
+    /**
+     * A hello claiming to be a player, from an address other than that
+     * player's, is refused, so connecting times out.
+     *
+     * @throws Exception If the test cannot set up its connections.
+     */
+    @Test(timeout = 30_000)
+    public void testHelloFromAnotherAddressIsRefused() throws Exception {
+        final InetSocketAddress[] tempAddrs = loopbackAddrs(2);
+        final NioPeerTransport tempTransport = open(0, tempAddrs, 4);
+        
+        try (SocketChannel tempSpoof = SocketChannel.open()) {
+            tempSpoof.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.9"), 0));
+            tempSpoof.connect(tempAddrs[0]);
+            final ByteBuffer tempHello = ByteBuffer.allocate(8);
+            tempHello.putInt(0x4D505343).putInt(1).flip();
+            while (tempHello.hasRemaining()) {
+                tempSpoof.write(tempHello);
+            }
+            try {
+                tempTransport.connect(1_000L);
+                fail("Hello from another address was accepted");
+            } catch (final IOException exception) {
+                // Expected: no genuine hello arrived in time
+            } // END try/catch BLOCK
+        } // END try-with-resources BLOCK
+    } // END testHelloFromAnotherAddressIsRefused() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Opens and connects the transports of a group on the loopback
+     * interface.
+     *
+     * @param theCapacity The number of messages each inbound queue holds.
+     * @return The transport of each player.
+     * @throws Exception If a transport cannot be opened or connected.
+     */
+    private NioPeerTransport[] openGroup(final int theCapacity) throws Exception {
+        final InetSocketAddress[] tempAddrs = loopbackAddrs(PLAYERS);
+        final NioPeerTransport[] tempGroup = new NioPeerTransport[PLAYERS];
+        for (int j = 0; j < PLAYERS; j++) {
+            tempGroup[j] = open(j, tempAddrs, theCapacity);
+        }
+        
+        final AtomicReference<Exception> tempFailure = new AtomicReference<>();
+        final Thread[] tempThreads = new Thread[PLAYERS];
+        for (int j = 0; j < PLAYERS; j++) {
+            final NioPeerTransport tempTransport = tempGroup[j];
+            tempThreads[j] = new Thread(() -> {
+                try {
+                    tempTransport.connect(WAIT_MILLIS);
+                } catch (final IOException exception) {
+                    tempFailure.compareAndSet(null, exception);
+                } // END try/catch BLOCK
+            }, "connect-" + j);
+            tempThreads[j].start();
+        } // END for LOOP
+        for (final Thread tempThread : tempThreads) {
+            tempThread.join();
+        }
+        assertNull(tempFailure.get());
+        
+        return tempGroup;
+    } // END openGroup() PRIVATE HELPER METHOD
+    
+    /**
+     * Opens the transport of a player, to be closed after the test.
+     *
+     * @param thePlayer The index of the player.
+     * @param theAddrs The address of every player.
+     * @param theCapacity The number of messages the inbound queue holds.
+     * @return The transport.
+     * @throws IOException If the address of the player cannot be bound.
+     */
+    private NioPeerTransport open(final int thePlayer, final InetSocketAddress[] theAddrs,
+                                  final int theCapacity) throws IOException {
+        final NioPeerTransport tempTransport = new NioPeerTransport(thePlayer, theAddrs, SESSION,
+                                                                    theCapacity, MAX_LONGS);
+        myTransports.add(tempTransport);
+        return tempTransport;
+    }
+    
+    /**
+     * Returns addresses on the loopback interface whose ports were free.
+     *
+     * @param theCount The number of addresses.
+     * @return The addresses.
+     * @throws IOException If no port can be found.
+     */
+    private static InetSocketAddress[] loopbackAddrs(final int theCount) throws IOException {
+        final InetAddress tempLoopback = InetAddress.getByName("127.0.0.1");
+        final ServerSocketChannel[] tempServers = new ServerSocketChannel[theCount];
+        final InetSocketAddress[] tempAddrs = new InetSocketAddress[theCount];
+        try {
+            for (int j = 0; j < theCount; j++) {
+                tempServers[j] = ServerSocketChannel.open();
+                tempServers[j].bind(new InetSocketAddress(tempLoopback, 0));
+                tempAddrs[j] = (InetSocketAddress) tempServers[j].getLocalAddress();
+            }
+        } finally {
+            for (final ServerSocketChannel tempServer : tempServers) {
+                if (tempServer != null) {
+                    tempServer.close();
+                }
+            }
+        } // END try/finally BLOCK
+        return tempAddrs;
+    } // END loopbackAddrs() PRIVATE HELPER METHOD
+    
+    
+} // END NioPeerTransportTest.java CLASS
@@ -0,0 +1,212 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import org.junit.Test;
+
+/**
+ * Tests of WireCodec and WireFrame: frames of every element type, written
+ * one after another into a buffer, read back whole and aligned.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class WireCodecTest {
+    
+// CLASS CONSTANTS
+    /** The session of every frame. */
+    private static final long SESSION = 0x0123_4567_89AB_CDEFL;
+    
+    /** The field elements or longs encoded. */
+    private static final long[] LONGS = {0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+    
+    /** The ints encoded, an odd number of them so that the frame is padded. */
+    private static final int[] INTS = {7, -7, Integer.MIN_VALUE};
+    
+    /** The floats encoded, an odd number of them so that the frame is padded. */
+    private static final float[] FLOATS = {1.5f, -0.0f, Float.NaN};
+    
+    /** The doubles encoded. */
+    private static final double[] DOUBLES = {Math.PI, Double.NEGATIVE_INFINITY};
+    
+    /** The BigIntegers encoded, in two limbs. */
+    private static final BigInteger[] BIG_INTEGERS = {
+        BigInteger.ZERO,
+        BigInteger.ONE.shiftLeft(100).negate(),
+        BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE)
+    };
+    
+    /** The BigDecimals encoded, in one limb. */
+    private static final BigDecimal[] BIG_DECIMALS = {
+        new BigDecimal("-12.345"),
+        new BigDecimal("6.02E+23")
+    };
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Frames of every element type written back to back read back with
+     * their headers and elements unchanged, each starting aligned.
+     */
+    @Test
+    public void testFramesRoundTrip() {
+        for (final ByteBuffer tempBuf : new ByteBuffer[] {ByteBuffer.allocate(1024),
+                                                          ByteBuffer.allocateDirect(1024)}) {
+            final int tempEnd = encodeAll(tempBuf.order(ByteOrder.LITTLE_ENDIAN));
+            final WireFrame tempFrame = new WireFrame(tempBuf);
+            int tempOffset = 0;
+            
+            assertTrue(tempFrame.at(tempOffset, tempEnd));
+            checkHeader(tempFrame, 0, WireCodec.ELEM_FIELD, LONGS.length);
+            final LongBuffer tempLongs = tempFrame.getLongs();
+            assertEquals(LONGS.length, tempLongs.remaining());
+            for (int i = 0; i < LONGS.length; i++) {
+                assertEquals(LONGS[i], tempLongs.get());
+                assertEquals(LONGS[i], tempFrame.getLong(i));
+            }
+            tempOffset = next(tempFrame, tempOffset, tempEnd);
+            
+            checkHeader(tempFrame, 1, WireCodec.TAG_INT, INTS.length);
+            for (int i = 0; i < INTS.length; i++) {
+                assertEquals(INTS[i], tempFrame.getInt(i));
+            }
+            tempOffset = next(tempFrame, tempOffset, tempEnd);
+            
+            checkHeader(tempFrame, 2, WireCodec.TAG_FLOAT, FLOATS.length);
+            for (int i = 0; i < FLOATS.length; i++) {
+                assertEquals(Float.floatToRawIntBits(FLOATS[i]),
+                             Float.floatToRawIntBits(tempFrame.getFloat(i)));
+            }
+            tempOffset = next(tempFrame, tempOffset, tempEnd);
+            
+            checkHeader(tempFrame, 3, WireCodec.TAG_DOUBLE, DOUBLES.length);
+            for (int i = 0; i < DOUBLES.length; i++) {
+                assertEquals(Double.doubleToRawLongBits(DOUBLES[i]),
+                             Double.doubleToRawLongBits(tempFrame.getDouble(i)));
+            }
+            tempOffset = next(tempFrame, tempOffset, tempEnd);
+            
+            checkHeader(tempFrame, 4, WireCodec.TAG_BIG_INTEGER, BIG_INTEGERS.length);
+            assertEquals(2, tempFrame.getLimbs());
+            for (int i = 0; i < BIG_INTEGERS.length; i++) {
+                assertEquals(BIG_INTEGERS[i], tempFrame.getBigInteger(i));
+            }
+            tempOffset = next(tempFrame, tempOffset, tempEnd);
+            
+            checkHeader(tempFrame, 5, WireCodec.TAG_BIG_DECIMAL, BIG_DECIMALS.length);
+            for (int i = 0; i < BIG_DECIMALS.length; i++) {
+                assertEquals(BIG_DECIMALS[i], tempFrame.getBigDecimal(i));
+            }
+            assertEquals(tempEnd, tempOffset + tempFrame.getFrameBytes());
+        } // END for LOOP
+    } // END testFramesRoundTrip() METHOD
+    
+    /**
+     * A frame is only read once all of its bytes have been received.
+     */
+    @Test
+    public void testPartialFrameIsNotRead() {
+        final ByteBuffer tempBuf = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        WireCodec.encodeFieldElements(tempBuf, SESSION, 9, 2, 3, LONGS, 1, 3);
+        final int tempEnd = tempBuf.position();
+        assertEquals(WireCodec.frameBytes(WireCodec.ELEM_FIELD, 0, 3), tempEnd);
+        
+        final WireFrame tempFrame = new WireFrame(tempBuf);
+        assertFalse(tempFrame.at(0, WireCodec.HEADER_BYTES - 1));
+        assertFalse(tempFrame.at(0, tempEnd - 1));
+        assertTrue(tempFrame.at(0, tempEnd));
+        assertEquals(LONGS[1], tempFrame.getLong(0));
+        assertEquals(LONGS[3], tempFrame.getLong(2));
+    } // END testPartialFrameIsNotRead() METHOD
+    
+    /**
+     * Frames are only written to little-endian buffers.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBigEndianBufferThrows() {
+        WireCodec.encodeFieldElements(ByteBuffer.allocate(256), SESSION, 0, 0, 0, LONGS, 0, 1);
+    }
+    
+    /**
+     * A BigInteger which needs more limbs than the frame has is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBigIntegerTooLongThrows() {
+        final ByteBuffer tempBuf = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        WireCodec.putHeader(tempBuf, SESSION, 0, 0, 0, WireCodec.TAG_BIG_INTEGER, 1, 1);
+        WireCodec.putBigIntegers(tempBuf, BIG_INTEGERS, 1, 1, 1);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Writes a frame of every element type, in rounds 0 to 5.
+     *
+     * @param theBuf The little-endian buffer.
+     * @return The offset after the last frame.
+     */
+    private static int encodeAll(final ByteBuffer theBuf) {
+        WireCodec.encodeFieldElements(theBuf, SESSION, 0, 1, 2, LONGS, 0, LONGS.length);
+        WireCodec.putHeader(theBuf, SESSION, 1, 1, 2, WireCodec.TAG_INT, 0, INTS.length);
+        WireCodec.putInts(theBuf, INTS, 0, INTS.length);
+        WireCodec.putHeader(theBuf, SESSION, 2, 1, 2, WireCodec.TAG_FLOAT, 0, FLOATS.length);
+        WireCodec.putFloats(theBuf, FLOATS, 0, FLOATS.length);
+        WireCodec.putHeader(theBuf, SESSION, 3, 1, 2, WireCodec.TAG_DOUBLE, 0, DOUBLES.length);
+        WireCodec.putDoubles(theBuf, DOUBLES, 0, DOUBLES.length);
+        WireCodec.putHeader(theBuf, SESSION, 4, 1, 2, WireCodec.TAG_BIG_INTEGER, 2,
+                            BIG_INTEGERS.length);
+        WireCodec.putBigIntegers(theBuf, BIG_INTEGERS, 0, BIG_INTEGERS.length, 2);
+        WireCodec.putHeader(theBuf, SESSION, 5, 1, 2, WireCodec.TAG_BIG_DECIMAL, 1,
+                            BIG_DECIMALS.length);
+        WireCodec.putBigDecimals(theBuf, BIG_DECIMALS, 0, BIG_DECIMALS.length, 1);
+        return theBuf.position();
+    } // END encodeAll() PRIVATE HELPER METHOD
+    
+    /**
+     * Checks the header of the current frame.
+     *
+     * @param theFrame The view of the frame.
+     * @param theRound The expected round.
+     * @param theElem The expected element type.
+     * @param theCount The expected number of elements.
+     */
+    private static void checkHeader(final WireFrame theFrame, final int theRound,
+                                    final byte theElem, final int theCount) {
+        assertEquals(SESSION, theFrame.getSession());
+        assertEquals(theRound, theFrame.getRound());
+        assertEquals(1, theFrame.getSender());
+        assertEquals(2, theFrame.getType());
+        assertEquals(theElem, theFrame.getElementType());
+        assertEquals(theCount, theFrame.getCount());
+    }
+    
+    /**
+     * Moves a view to the frame after the current one, checking that it is
+     * aligned and whole.
+     *
+     * @param theFrame The view.
+     * @param theOffset The offset of the current frame.
+     * @param theEnd The offset after the last frame.
+     * @return The offset of the next frame.
+     */
+    private static int next(final WireFrame theFrame, final int theOffset, final int theEnd) {
+        final int tempOffset = theOffset + theFrame.getFrameBytes();
+        assertEquals(0, tempOffset % Long.BYTES);
+        assertTrue(theFrame.at(tempOffset, theEnd));
+        return tempOffset;
+    }
+    
+    
+} // END WireCodecTest.java CLASS
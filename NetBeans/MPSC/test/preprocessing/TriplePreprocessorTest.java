@@ -0,0 +1,177 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package preprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import arithmetic.FieldFactory;
+import arithmetic.LongPrimeField;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import randomness.AesCtrGenerator;
+import sharing.AdditiveSharing;
+import sharing.SecretSharer;
+
+/**
+ * Tests of TriplePreprocessor: the triples dealt are valid Beaver triples,
+ * and takes longer than the target or made while the dealer is not running
+ * return instead of waiting forever.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class TriplePreprocessorTest {
+    
+// CLASS CONSTANTS
+    /** The number of players of the group. */
+    private static final int PLAYERS = 3;
+    
+    /** The number of triples each store is filled to. */
+    private static final long TARGET = 100L;
+    
+    /** The number of triples taken at once, more than the target. */
+    private static final int TAKE = 1000;
+    
+    /** The number of triples dealt at once. */
+    private static final int BATCH = 64;
+    
+    /** The time the dealer is watched for after the stores are filled. */
+    private static final long SETTLE_MILLIS = 500L;
+    
+    
+// CLASS VARIABLES
+    /** The field of the shares. */
+    private LongPrimeField myField;
+    
+    /** The directory of the stores. */
+    private Path myDir;
+    
+    /** The preprocessing under test. */
+    private TriplePreprocessor myPreprocessor;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the preprocessing, without starting it.
+     *
+     * @throws IOException If a store cannot be opened.
+     */
+    @Before
+    public void setUp() throws IOException {
+        myField = (LongPrimeField) FieldFactory.forDataType("long");
+        myDir = Files.createTempDirectory("mpsc-preprocessing");
+        final SecretSharer tempSharer = new AdditiveSharing(myField, PLAYERS,
+                                                            new AesCtrGenerator(new byte[32]));
+        myPreprocessor = new TriplePreprocessor(tempSharer, myDir, TARGET, TARGET / 10, BATCH);
+    } // END setUp() METHOD
+    
+    /**
+     * Stops the preprocessing and deletes its stores.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        myPreprocessor.close();
+        
+        final List<Path> tempPaths = new ArrayList<>();
+        try (Stream<Path> tempStream = Files.walk(myDir)) {
+            tempStream.forEach(tempPaths::add);
+        } // END try-with-resources BLOCK
+        Collections.reverse(tempPaths);
+        for (final Path tempPath : tempPaths) {
+            Files.delete(tempPath);
+        }
+    } // END tearDown() METHOD
+    
+    /**
+     * Every player takes more triples than the target, and the shares of
+     * each triple reconstruct to a, b, and c = a * b.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 60_000)
+    public void testTakeLongerThanTargetGivesValidTriples() throws InterruptedException {
+        myPreprocessor.start();
+        
+        final long[][] tempA = new long[PLAYERS][TAKE];
+        final long[][] tempB = new long[PLAYERS][TAKE];
+        final long[][] tempC = new long[PLAYERS][TAKE];
+        for (int j = 0; j < PLAYERS; j++) {
+            myPreprocessor.take(j, tempA[j], tempB[j], tempC[j], 0, TAKE);
+        }
+        
+        final SecretSharer tempSharer = myPreprocessor.getSharer();
+        final int[] tempPlayers = {0, 1, 2};
+        final long[] tempSecretA = tempSharer.reconstruct(tempPlayers, tempA);
+        final long[] tempSecretB = tempSharer.reconstruct(tempPlayers, tempB);
+        final long[] tempSecretC = tempSharer.reconstruct(tempPlayers, tempC);
+        for (int i = 0; i < TAKE; i++) {
+            assertEquals("Triple " + i, myField.mul(tempSecretA[i], tempSecretB[i]),
+                         tempSecretC[i]);
+        }
+    } // END testTakeLongerThanTargetGivesValidTriples() METHOD
+    
+    /**
+     * Once a take longer than the target is served, the dealer refills the
+     * stores only to the target, not to the length of that take.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(timeout = 60_000)
+    public void testTargetRestoredAfterLongTake() throws InterruptedException {
+        myPreprocessor.start();
+        
+        final long[] tempA = new long[TAKE];
+        final long[] tempB = new long[TAKE];
+        final long[] tempC = new long[TAKE];
+        for (int j = 0; j < PLAYERS; j++) {
+            myPreprocessor.take(j, tempA, tempB, tempC, 0, TAKE);
+        }
+        myPreprocessor.awaitFilled();
+        
+        final long tempDeadline = System.currentTimeMillis() + SETTLE_MILLIS;
+        do {
+            for (int j = 0; j < PLAYERS; j++) {
+                assertTrue("Player " + j + " holds " + myPreprocessor.getAvailable(j),
+                           myPreprocessor.getAvailable(j) < TARGET + BATCH);
+            }
+            Thread.sleep(10L);
+        } while (System.currentTimeMillis() < tempDeadline);
+    } // END testTargetRestoredAfterLongTake() METHOD
+    
+    /**
+     * A take that would wait for a dealer that was never started fails.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(expected = IllegalStateException.class, timeout = 10_000)
+    public void testTakeBeforeStartThrows() throws InterruptedException {
+        myPreprocessor.take(0, new long[1], new long[1], new long[1], 0, 1);
+    }
+    
+    /**
+     * A take after the preprocessing was closed fails.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test(expected = IllegalStateException.class, timeout = 10_000)
+    public void testTakeAfterCloseThrows() throws InterruptedException {
+        myPreprocessor.start();
+        myPreprocessor.close();
+        myPreprocessor.take(0, new long[TAKE], new long[TAKE], new long[TAKE], 0, TAKE);
+    }
+    
+    
+} // END TriplePreprocessorTest.java CLASS
@@ -0,0 +1,285 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package preprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import arithmetic.LongPrimeField;
+import arithmetic.Mersenne61Field;
+import arithmetic.MontgomeryField;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of TripleStore: taking triples in the order they were appended, and
+ * resuming after the triples already taken when a store is reopened.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class TripleStoreTest {
+    
+// CLASS CONSTANTS
+    /** The number of triples in a segment, small to cross segments often. */
+    private static final int SEGMENT = 10;
+    
+    /** The field of the shares. */
+    private static final LongPrimeField FIELD = Mersenne61Field.getInstance();
+    
+    
+// CLASS VARIABLES
+    /** The directory of the store under test. */
+    private Path myDir;
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Creates the directory of the store.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        myDir = Files.createTempDirectory("mpsc-triples");
+    }
+    
+    /**
+     * Deletes the directory of the store.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(myDir)) {
+            for (final Path tempPath : tempStream) {
+                Files.delete(tempPath);
+            }
+        } // END try-with-resources BLOCK
+        Files.delete(myDir);
+    } // END tearDown() METHOD
+    
+    /**
+     * Triples are taken in the order they were appended, across segments
+     * and across calls of different lengths.
+     *
+     * @throws Exception If the store fails.
+     */
+    @Test
+    public void testTakesInAppendOrder() throws Exception {
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            append(tempStore, 0, 7);
+            append(tempStore, 7, 30);
+            assertEquals(37L, tempStore.getAvailable());
+            
+            takeAndCheck(tempStore, 0, 1);
+            takeAndCheck(tempStore, 1, 12);
+            takeAndCheck(tempStore, 13, 24);
+            assertEquals(0L, tempStore.getAvailable());
+        } // END try-with-resources BLOCK
+    } // END testTakesInAppendOrder() METHOD
+    
+    /**
+     * A reopened store resumes after the triples taken before it was
+     * closed, hands none of them out again, and deletes the segments
+     * emptied.
+     *
+     * @throws Exception If the store fails.
+     */
+    @Test
+    public void testReopenResumesAfterTaken() throws Exception {
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            append(tempStore, 0, 25);
+            takeAndCheck(tempStore, 0, 13);
+        } // END try-with-resources BLOCK
+        assertEquals(2, countSegments());
+        
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            assertEquals(12L, tempStore.getAvailable());
+            takeAndCheck(tempStore, 13, 5);
+            append(tempStore, 25, 10);
+        } // END try-with-resources BLOCK
+        
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            assertEquals(17L, tempStore.getAvailable());
+            takeAndCheck(tempStore, 18, 17);
+            assertEquals(0L, tempStore.getAvailable());
+        } // END try-with-resources BLOCK
+    } // END testReopenResumesAfterTaken() METHOD
+    
+    /**
+     * A store is not reopened with the field of another prime.
+     *
+     * @throws Exception If the store fails.
+     */
+    @Test(expected = IOException.class)
+    public void testReopenWithAnotherFieldThrows() throws Exception {
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            append(tempStore, 0, 3);
+        } // END try-with-resources BLOCK
+        new TripleStore(myDir, new MontgomeryField(MontgomeryField.LARGEST_63_BIT_PRIME),
+                        SEGMENT).close();
+    } // END testReopenWithAnotherFieldThrows() METHOD
+    
+    /**
+     * tryTake() takes nothing when too few triples are stored.
+     *
+     * @throws Exception If the store fails.
+     */
+    @Test
+    public void testTryTakeTooManyReturnsFalse() throws Exception {
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            append(tempStore, 0, 4);
+            final long[] tempA = new long[5];
+            assertFalse(tempStore.tryTake(tempA, new long[5], new long[5], 0, 5));
+            assertEquals(4L, tempStore.getAvailable());
+            assertTrue(tempStore.tryTake(tempA, new long[5], new long[5], 1, 4));
+            assertEquals(0L, tempA[1]);
+            assertEquals(3L, tempA[4]);
+        } // END try-with-resources BLOCK
+    } // END testTryTakeTooManyReturnsFalse() METHOD
+    
+    /**
+     * A take waiting for triples is woken and fails once the store is told
+     * no more will be appended.
+     *
+     * @throws Exception If the store fails.
+     */
+    @Test(timeout = 10_000)
+    public void testFailWakesWaitingTake() throws Exception {
+        try (TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT)) {
+            append(tempStore, 0, 2);
+            final Exception tempCause = new IOException("dealer stopped");
+            final Throwable tempThrown = takeInBackground(tempStore, 5,
+                                                          () -> tempStore.fail(tempCause));
+            
+            assertTrue(tempThrown instanceof IllegalStateException);
+            assertSame(tempCause, tempThrown.getCause());
+            assertEquals(2L, tempStore.getAvailable());
+        } // END try-with-resources BLOCK
+    } // END testFailWakesWaitingTake() METHOD
+    
+    /**
+     * A take waiting for triples is woken and fails when the store is
+     * closed.
+     *
+     * @throws Exception If the store fails.
+     */
+    @Test(timeout = 10_000)
+    public void testCloseWakesWaitingTake() throws Exception {
+        final TripleStore tempStore = new TripleStore(myDir, FIELD, SEGMENT);
+        final Throwable tempThrown = takeInBackground(tempStore, 1, tempStore::close);
+        assertTrue(tempThrown instanceof IllegalStateException);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Appends the triples numbered theFirst onward, whose shares are
+     * (i, i + 1000, i + 2000) for triple i.
+     *
+     * @param theStore The store.
+     * @param theFirst The number of the first triple.
+     * @param theCount The number of triples.
+     * @throws IOException If the store fails.
+     */
+    private static void append(final TripleStore theStore, final int theFirst,
+                               final int theCount) throws IOException {
+        final long[] tempA = new long[theCount];
+        final long[] tempB = new long[theCount];
+        final long[] tempC = new long[theCount];
+        for (int i = 0; i < theCount; i++) {
+            tempA[i] = theFirst + i;
+            tempB[i] = theFirst + i + 1000;
+            tempC[i] = theFirst + i + 2000;
+        }
+        theStore.append(tempA, tempB, tempC, 0, theCount);
+    } // END append() PRIVATE HELPER METHOD
+    
+    /**
+     * Takes triples and checks they are the ones numbered theFirst onward.
+     *
+     * @param theStore The store.
+     * @param theFirst The number of the first triple expected.
+     * @param theCount The number of triples.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static void takeAndCheck(final TripleStore theStore, final int theFirst,
+                                     final int theCount) throws InterruptedException {
+        final long[] tempA = new long[theCount];
+        final long[] tempB = new long[theCount];
+        final long[] tempC = new long[theCount];
+        theStore.take(tempA, tempB, tempC, 0, theCount);
+        for (int i = 0; i < theCount; i++) {
+            assertEquals(theFirst + i, tempA[i]);
+            assertEquals(theFirst + i + 1000, tempB[i]);
+            assertEquals(theFirst + i + 2000, tempC[i]);
+        }
+    } // END takeAndCheck() PRIVATE HELPER METHOD
+    
+    /**
+     * Starts a take on another thread, runs an action once it is waiting,
+     * and returns what the take threw.
+     *
+     * @param theStore The store.
+     * @param theCount The number of triples to take, more than are stored.
+     * @param theAction The action that should end the wait.
+     * @return The exception thrown by the take.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static Throwable takeInBackground(final TripleStore theStore, final int theCount,
+                                              final Runnable theAction)
+                                              throws InterruptedException {
+        final AtomicReference<Throwable> tempThrown = new AtomicReference<>();
+        final Thread tempThread = new Thread(() -> {
+            final long[] tempShares = new long[theCount];
+            try {
+                theStore.take(tempShares, tempShares.clone(), tempShares.clone(), 0, theCount);
+            } catch (final InterruptedException | RuntimeException exception) {
+                tempThrown.set(exception);
+            } // END try/catch BLOCK
+        }, "triple-taker");
+        tempThread.start();
+        
+        while (tempThread.getState() != Thread.State.WAITING) {
+            if (!tempThread.isAlive()) {
+                fail("Take returned before the action: " + tempThrown.get());
+            }
+            Thread.sleep(1);
+        } // END while LOOP
+        theAction.run();
+        tempThread.join();
+        
+        return tempThrown.get();
+    } // END takeInBackground() PRIVATE HELPER METHOD
+    
+    /**
+     * Returns the number of segment files in the directory of the store.
+     *
+     * @return The number of segments.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private int countSegments() throws IOException {
+        int tempCount = 0;
+        try (DirectoryStream<Path> tempStream = Files.newDirectoryStream(myDir, "*.seg")) {
+            for (final Path tempPath : tempStream) {
+                tempCount++;
+            }
+        } // END try-with-resources BLOCK
+        return tempCount;
+    } // END countSegments() PRIVATE HELPER METHOD
+    
+    
+} // END TripleStoreTest.java CLASS
@@ -0,0 +1,118 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package randomness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import arithmetic.LongPrimeField;
+import arithmetic.Mersenne61Field;
+import arithmetic.MontgomeryField;
+import java.security.SecureRandom;
+import org.junit.Test;
+
+/**
+ * Tests of FieldSampler, and of RandomnessService.fillElements() which draws
+ * through it: every element lies in the field, and the elements of a small
+ * field are close to uniform.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class FieldSamplerTest {
+    
+// CLASS CONSTANTS
+    /** The number of elements drawn from each field. */
+    private static final int SAMPLES = 30_000;
+    
+    /** The fields under test, of primes of very different bit lengths. */
+    private static final LongPrimeField[] FIELDS = {
+        Mersenne61Field.getInstance(),
+        new MontgomeryField(MontgomeryField.LARGEST_63_BIT_PRIME),
+        new MontgomeryField(2_147_483_647L),
+        new MontgomeryField(3L)
+    };
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Every element drawn lies in [0, prime), and only the requested part
+     * of the array is filled.
+     */
+    @Test
+    public void testElementsLieInField() {
+        for (final LongPrimeField tempField : FIELDS) {
+            final FieldSampler tempSampler = new FieldSampler(tempField,
+                                                              new AesCtrGenerator(new byte[32]));
+            assertEquals(tempField.getPrime(), tempSampler.getPrime());
+            
+            final long[] tempOut = new long[SAMPLES + 2];
+            tempOut[0] = -1L;
+            tempOut[SAMPLES + 1] = -1L;
+            tempSampler.fill(tempOut, 1, SAMPLES);
+            assertEquals(-1L, tempOut[0]);
+            assertEquals(-1L, tempOut[SAMPLES + 1]);
+            assertInField(tempField, tempOut, 1, SAMPLES);
+        } // END for LOOP
+    } // END testElementsLieInField() METHOD
+    
+    /**
+     * The elements of the field of 3, where one of every four masked values
+     * are rejected, are each drawn about a third of the time.
+     */
+    @Test
+    public void testSmallFieldIsUniform() {
+        final LongPrimeField tempField = FIELDS[3];
+        final FieldSampler tempSampler = new FieldSampler(tempField,
+                                                          new AesCtrGenerator(new byte[32]));
+        
+        final int[] tempCounts = new int[3];
+        for (int i = 0; i < SAMPLES; i++) {
+            tempCounts[(int) tempField.toLong(tempSampler.next())]++;
+        }
+        for (final int tempCount : tempCounts) {
+            // About ten standard deviations either side of SAMPLES / 3
+            assertTrue("Count " + tempCount, Math.abs(tempCount - SAMPLES / 3) < 800);
+        }
+    } // END testSmallFieldIsUniform() METHOD
+    
+    /**
+     * The shared service fills elements of whichever field is passed, even
+     * as a thread alternates between fields.
+     */
+    @Test
+    public void testServiceFillsElementsOfEachField() {
+        final RandomnessService tempService = new RandomnessService(new SecureRandom());
+        final long[] tempOut = new long[1000];
+        
+        for (int k = 0; k < 3; k++) {
+            for (final LongPrimeField tempField : FIELDS) {
+                tempService.fillElements(tempField, tempOut, 0, tempOut.length);
+                assertInField(tempField, tempOut, 0, tempOut.length);
+            }
+        } // END for LOOP
+    } // END testServiceFillsElementsOfEachField() METHOD
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Checks that part of an array holds elements of a field.
+     *
+     * @param theField The field.
+     * @param theElems The array.
+     * @param theOffset The index of the first element.
+     * @param theLength The number of elements.
+     */
+    private static void assertInField(final LongPrimeField theField, final long[] theElems,
+                                      final int theOffset, final int theLength) {
+        for (int i = theOffset; i < theOffset + theLength; i++) {
+            assertTrue("Element " + theElems[i] + " outside field of " + theField.getPrime(),
+                       theElems[i] >= 0 && theElems[i] < theField.getPrime());
+        }
+    }
+    
+    
+} // END FieldSamplerTest.java CLASS
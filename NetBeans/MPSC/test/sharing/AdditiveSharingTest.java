@@ -0,0 +1,179 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import arithmetic.LongPrimeField;
+import arithmetic.Mersenne61Field;
+import arithmetic.MontgomeryField;
+import java.util.Random;
+import org.junit.Test;
+import randomness.AesCtrGenerator;
+
+/**
+ * Tests of AdditiveSharing: splitting and reconstructing vectors of secrets
+ * longer than a block, in the fields of the "int" and "long" data types.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class AdditiveSharingTest {
+    
+// CLASS CONSTANTS
+    /** The seed of the secrets. */
+    private static final long SEED = 20_161_018L;
+    
+    /** The number of secrets in a vector, a little over two blocks. */
+    private static final int SECRETS = 2 * SharingFactory.BLOCK + 7;
+    
+    /** The fields under test. */
+    private static final LongPrimeField[] FIELDS = {
+        Mersenne61Field.getInstance(),
+        new MontgomeryField(MontgomeryField.LARGEST_63_BIT_PRIME)
+    };
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * The shares of every player reconstruct the secrets, whatever the order
+     * in which the players are passed.
+     */
+    @Test
+    public void testSplitThenReconstructRoundTrips() {
+        for (final LongPrimeField tempField : FIELDS) {
+            for (final int tempPlayers : new int[] {1, 2, 5}) {
+                final AdditiveSharing tempSharing = newSharing(tempField, tempPlayers);
+                final long[] tempSecrets = randomElements(tempField, SECRETS);
+                final long[][] tempShares = tempSharing.split(tempSecrets);
+                
+                assertEquals(tempPlayers, tempShares.length);
+                assertArrayEquals(tempSecrets,
+                                  tempSharing.reconstruct(range(tempPlayers), tempShares));
+                assertArrayEquals(tempSecrets,
+                                  tempSharing.reconstruct(reversed(tempPlayers),
+                                                          reversed(tempShares)));
+            } // END for LOOP
+        } // END for LOOP
+    } // END testSplitThenReconstructRoundTrips() METHOD
+    
+    /**
+     * The sums of the shares of two vectors reconstruct the sums of the
+     * vectors, which is what lets players add shared values locally.
+     */
+    @Test
+    public void testSharesAreLinear() {
+        final LongPrimeField tempField = FIELDS[1];
+        final AdditiveSharing tempSharing = newSharing(tempField, 3);
+        final long[] tempA = randomElements(tempField, SECRETS);
+        final long[] tempB = randomElements(tempField, SECRETS);
+        final long[][] tempSharesA = tempSharing.split(tempA);
+        final long[][] tempSharesB = tempSharing.split(tempB);
+        
+        final long[][] tempSums = new long[3][SECRETS];
+        for (int j = 0; j < 3; j++) {
+            tempField.add(tempSharesA[j], tempSharesB[j], tempSums[j]);
+        }
+        final long[] tempExpected = new long[SECRETS];
+        tempField.add(tempA, tempB, tempExpected);
+        assertArrayEquals(tempExpected, tempSharing.reconstruct(range(3), tempSums));
+    } // END testSharesAreLinear() METHOD
+    
+    /**
+     * Reconstructing without the shares of every player is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReconstructWithoutEveryPlayerThrows() {
+        final AdditiveSharing tempSharing = newSharing(FIELDS[0], 3);
+        final long[][] tempShares = tempSharing.split(new long[] {1L, 2L});
+        tempSharing.reconstruct(new int[] {0, 1}, new long[][] {tempShares[0], tempShares[1]});
+    }
+    
+    /**
+     * Passing a player twice is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReconstructWithRepeatedPlayerThrows() {
+        final AdditiveSharing tempSharing = newSharing(FIELDS[0], 2);
+        final long[][] tempShares = tempSharing.split(new long[] {1L});
+        tempSharing.reconstruct(new int[] {0, 0}, tempShares);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns a sharing drawing from a fixed seed.
+     *
+     * @param theField The field of the sharing.
+     * @param thePlayers The number of players.
+     * @return The sharing.
+     */
+    private static AdditiveSharing newSharing(final LongPrimeField theField,
+                                              final int thePlayers) {
+        return new AdditiveSharing(theField, thePlayers, new AesCtrGenerator(new byte[32]));
+    }
+    
+    /**
+     * Returns a vector of elements converted from random longs.
+     *
+     * @param theField The field of the elements.
+     * @param theLength The number of elements.
+     * @return The elements.
+     */
+    static long[] randomElements(final LongPrimeField theField, final int theLength) {
+        final Random tempRandom = new Random(SEED + theLength);
+        final long[] tempOut = new long[theLength];
+        for (int i = 0; i < theLength; i++) {
+            tempOut[i] = theField.fromLong(tempRandom.nextLong());
+        }
+        return tempOut;
+    }
+    
+    /**
+     * Returns the indices 0 to theCount - 1.
+     *
+     * @param theCount The number of indices.
+     * @return The indices in order.
+     */
+    static int[] range(final int theCount) {
+        final int[] tempOut = new int[theCount];
+        for (int j = 0; j < theCount; j++) {
+            tempOut[j] = j;
+        }
+        return tempOut;
+    }
+    
+    /**
+     * Returns the indices theCount - 1 down to 0.
+     *
+     * @param theCount The number of indices.
+     * @return The indices in reverse order.
+     */
+    private static int[] reversed(final int theCount) {
+        final int[] tempOut = new int[theCount];
+        for (int j = 0; j < theCount; j++) {
+            tempOut[j] = theCount - 1 - j;
+        }
+        return tempOut;
+    }
+    
+    /**
+     * Returns the vectors of shares in reverse order.
+     *
+     * @param theShares The vectors of shares.
+     * @return The same vectors, last first.
+     */
+    private static long[][] reversed(final long[][] theShares) {
+        final long[][] tempOut = new long[theShares.length][];
+        for (int j = 0; j < theShares.length; j++) {
+            tempOut[j] = theShares[theShares.length - 1 - j];
+        }
+        return tempOut;
+    }
+    
+    
+} // END AdditiveSharingTest.java CLASS
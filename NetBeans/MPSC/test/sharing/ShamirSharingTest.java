@@ -0,0 +1,176 @@
+/*
+ * Part of a program to implement a Multi-Party Secure Computing protocol.
+ */
+package sharing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import arithmetic.LongPrimeField;
+import arithmetic.Mersenne61Field;
+import arithmetic.MontgomeryField;
+import java.util.Random;
+import org.junit.Test;
+import randomness.AesCtrGenerator;
+
+/**
+ * Tests of ShamirSharing: any getThreshold() players reconstruct the
+ * secrets, interpolating elsewhere gives the shares of the other players,
+ * and too few players are rejected.
+ *
+ * @author Jonathan McFadden (mcfaddja@uw.edu)
+ * @version 0.1.2
+ */
+public class ShamirSharingTest {
+    
+// CLASS CONSTANTS
+    /** The seed of the subsets of players. */
+    private static final long SEED = 20_161_018L;
+    
+    /** The number of secrets in a vector, a little over two blocks. */
+    private static final int SECRETS = 2 * SharingFactory.BLOCK + 7;
+    
+    /** The number of random subsets of players tried per sharing. */
+    private static final int SUBSETS = 20;
+    
+    /** The fields under test. */
+    private static final LongPrimeField[] FIELDS = {
+        Mersenne61Field.getInstance(),
+        new MontgomeryField(MontgomeryField.LARGEST_63_BIT_PRIME)
+    };
+    
+    
+    
+// PUBLIC METHODS
+    /**
+     * Every random subset of at least getThreshold() players, in any order,
+     * reconstructs the secrets.
+     */
+    @Test
+    public void testAnyThresholdPlayersReconstruct() {
+        final Random tempRandom = new Random(SEED);
+        for (final LongPrimeField tempField : FIELDS) {
+            for (final int[] tempSizes : new int[][] {{1, 1}, {3, 1}, {3, 2}, {5, 3}, {7, 7}}) {
+                final ShamirSharing tempSharing = newSharing(tempField, tempSizes[0],
+                                                             tempSizes[1]);
+                final long[] tempSecrets = AdditiveSharingTest.randomElements(tempField, SECRETS);
+                final long[][] tempShares = tempSharing.split(tempSecrets);
+                assertEquals(tempSizes[0], tempShares.length);
+                
+                for (int s = 0; s < SUBSETS; s++) {
+                    final int tempCount = tempSizes[1]
+                                          + tempRandom.nextInt(tempSizes[0] - tempSizes[1] + 1);
+                    final int[] tempPlayers = shuffled(tempSizes[0], tempRandom);
+                    final int[] tempChosen = new int[tempCount];
+                    final long[][] tempHeld = new long[tempCount][];
+                    for (int k = 0; k < tempCount; k++) {
+                        tempChosen[k] = tempPlayers[k];
+                        tempHeld[k] = tempShares[tempPlayers[k]];
+                    }
+                    
+                    assertArrayEquals(tempField + " " + tempSizes[1] + " of " + tempSizes[0],
+                                      tempSecrets, tempSharing.reconstruct(tempChosen, tempHeld));
+                } // END for LOOP
+            } // END for LOOP
+        } // END for LOOP
+    } // END testAnyThresholdPlayersReconstruct() METHOD
+    
+    /**
+     * Interpolating the shares of getThreshold() players at point j + 1
+     * gives the shares of player j.
+     */
+    @Test
+    public void testInterpolationGivesTheSharesOfOtherPlayers() {
+        final LongPrimeField tempField = FIELDS[1];
+        final ShamirSharing tempSharing = newSharing(tempField, 5, 3);
+        final long[][] tempShares = tempSharing.split(
+                AdditiveSharingTest.randomElements(tempField, SECRETS));
+        final int[] tempPlayers = {4, 0, 2};
+        final long[][] tempHeld = {tempShares[4], tempShares[0], tempShares[2]};
+        
+        final long[] tempOut = new long[SECRETS];
+        for (int j = 0; j < 5; j++) {
+            tempSharing.reconstructAt(tempPlayers, tempHeld, j + 1L, tempOut);
+            assertArrayEquals("player " + j, tempShares[j], tempOut);
+        }
+    } // END testInterpolationGivesTheSharesOfOtherPlayers() METHOD
+    
+    /**
+     * The sums of the shares of two vectors reconstruct the sums of the
+     * vectors.
+     */
+    @Test
+    public void testSharesAreLinear() {
+        final LongPrimeField tempField = FIELDS[0];
+        final ShamirSharing tempSharing = newSharing(tempField, 4, 2);
+        final long[] tempA = AdditiveSharingTest.randomElements(tempField, SECRETS);
+        final long[] tempB = new long[SECRETS];
+        for (int i = 0; i < SECRETS; i++) {
+            tempB[i] = tempField.fromLong(-7919L * i);
+        }
+        final long[][] tempSharesA = tempSharing.split(tempA);
+        final long[][] tempSharesB = tempSharing.split(tempB);
+        
+        final long[][] tempSums = new long[2][SECRETS];
+        tempField.add(tempSharesA[1], tempSharesB[1], tempSums[0]);
+        tempField.add(tempSharesA[3], tempSharesB[3], tempSums[1]);
+        final long[] tempExpected = new long[SECRETS];
+        tempField.add(tempA, tempB, tempExpected);
+        assertArrayEquals(tempExpected, tempSharing.reconstruct(new int[] {1, 3}, tempSums));
+    } // END testSharesAreLinear() METHOD
+    
+    /**
+     * Fewer than getThreshold() players are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFewPlayersThrows() {
+        final ShamirSharing tempSharing = newSharing(FIELDS[0], 5, 3);
+        final long[][] tempShares = tempSharing.split(new long[] {1L, 2L});
+        tempSharing.reconstruct(new int[] {0, 1}, new long[][] {tempShares[0], tempShares[1]});
+    }
+    
+    /**
+     * A threshold above the number of players is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testThresholdAboveNumPlayersThrows() {
+        newSharing(FIELDS[0], 3, 4);
+    }
+    
+    
+    
+// PRIVATE HELPER METHODS
+    /**
+     * Returns a sharing drawing from a fixed seed.
+     *
+     * @param theField The field of the sharing.
+     * @param thePlayers The number of players.
+     * @param theThreshold The threshold.
+     * @return The sharing.
+     */
+    private static ShamirSharing newSharing(final LongPrimeField theField, final int thePlayers,
+                                            final int theThreshold) {
+        return new ShamirSharing(theField, thePlayers, theThreshold,
+                                 new AesCtrGenerator(new byte[32]));
+    }
+    
+    /**
+     * Returns the indices 0 to theCount - 1 in a random order.
+     *
+     * @param theCount The number of indices.
+     * @param theRandom The source of the order.
+     * @return The shuffled indices.
+     */
+    private static int[] shuffled(final int theCount, final Random theRandom) {
+        final int[] tempOut = AdditiveSharingTest.range(theCount);
+        for (int j = theCount - 1; j > 0; j--) {
+            final int tempOther = theRandom.nextInt(j + 1);
+            final int tempSwap = tempOut[j];
+            tempOut[j] = tempOut[tempOther];
+            tempOut[tempOther] = tempSwap;
+        }
+        return tempOut;
+    }
+    
+    
+} // END ShamirSharingTest.java CLASS